@@ -0,0 +1,119 @@
+package com.clario.swift.benchmark;
+
+import com.clario.swift.ActivityContext;
+import com.clario.swift.ActivityMethod;
+import com.clario.swift.ActivityPoller;
+import com.clario.swift.PollerRunner;
+import com.clario.swift.VirtualThreads;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Time to run a batch of I/O-bound activities through an {@link ActivityPoller} against {@link LocalActivitySwf},
+ * with activities on virtual threads versus a platform thread pool.
+ * <p/>
+ * Concurrency is capped by <code>permits</code>; the <code>maxInFlight</code> counter reports how many activities
+ * actually ran at once. Virtual threads need Java 21 or later, otherwise both modes use platform threads.
+ *
+ * @author George Coller
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ActivityConcurrencyBenchmark {
+
+    @Param({"5000"})
+    public int activities;
+
+    @Param({"200", "5000"})
+    public int permits;
+
+    @Param({"virtual", "platform"})
+    public String threads;
+
+    /** Simulated blocking I/O per activity */
+    @Param({"100"})
+    public long activityMillis;
+
+    private LocalActivitySwf swf;
+    private ExecutorService executor;
+    private PollerRunner runner;
+    private SleepActivity activity;
+
+    @Setup(Level.Invocation)
+    public void setup() {
+        swf = new LocalActivitySwf(10);
+        swf.addActivityTasks("Sleep", "1.0", activities);
+        activity = new SleepActivity(activityMillis);
+
+        ActivityPoller poller = new ActivityPoller("benchmark poller", "domain", "taskList");
+        poller.setSwf(swf);
+        poller.addActivities(activity);
+        boolean virtual = "virtual".equals(threads);
+        executor = virtual ? VirtualThreads.newThreadPerTaskExecutor("activity") : Executors.newFixedThreadPool(permits);
+        poller.setExecutor(executor, permits);
+        runner = new PollerRunner(poller).withThreads(4).withVirtualThreads(virtual);
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() throws InterruptedException {
+        runner.stop();
+        runner.awaitTermination(10, TimeUnit.SECONDS);
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public int runActivities(InFlight inFlight) throws InterruptedException {
+        runner.start();
+        while (swf.getCompletedCount() + swf.getFailedCount() < activities) {
+            Thread.sleep(1);
+        }
+        inFlight.maxInFlight = Math.max(inFlight.maxInFlight, activity.maxActive.get());
+        return swf.getCompletedCount();
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class InFlight {
+        public int maxInFlight;
+    }
+
+    public static class SleepActivity {
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+        private final long millis;
+
+        SleepActivity(long millis) { this.millis = millis; }
+
+        @ActivityMethod(name = "Sleep", version = "1.0")
+        public String sleep(ActivityContext context) throws InterruptedException {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(millis);
+                return context.getInput();
+            } finally {
+                active.decrementAndGet();
+            }
+        }
+    }
+}
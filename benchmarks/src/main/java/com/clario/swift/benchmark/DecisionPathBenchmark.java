@@ -0,0 +1,176 @@
+package com.clario.swift.benchmark;
+
+import com.amazonaws.services.simpleworkflow.model.Decision;
+import com.amazonaws.services.simpleworkflow.model.HistoryEvent;
+import com.amazonaws.services.simpleworkflow.model.WorkflowType;
+import com.clario.swift.DecisionBuilder;
+import com.clario.swift.DecisionPoller;
+import com.clario.swift.EventList;
+import com.clario.swift.Workflow;
+import com.clario.swift.action.ActionSupplier;
+import com.clario.swift.action.ActivityAction;
+import com.clario.swift.action.RetryPolicy;
+import com.clario.swift.event.EventState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Each step of deciding a decision task over histories from 100 to 50k events, all in memory:
+ * <ul>
+ * <li><code>convert</code>: {@link EventList#convert} of the history page events</li>
+ * <li><code>selectActionId</code>: events of one action from the workflow's indexed history,
+ * <code>selectActionIdScan</code> from the same events without an index</li>
+ * <li><code>actionGetState</code>: {@link com.clario.swift.action.Action#getState()} after the history changed</li>
+ * <li><code>retryDelay</code>: {@link RetryPolicy#nextRetryDelaySeconds} of an activity retried throughout the history,
+ * see {@link Histories#retries}, <code>retryDelayScan</code> without the indexed retry counts</li>
+ * <li><code>decisionBuilderDecide</code>: a split/join {@link DecisionBuilder} deciding its join step,
+ * see {@link Histories#splitJoin}</li>
+ * <li><code>poll</code>: a full {@link DecisionPoller} poll of the same workflow against {@link LocalDecisionSwf},
+ * including paging, conversion, deciding and responding</li>
+ * </ul>
+ * The split/join workflow has a tenth as many actions as events, between 3 and 50.
+ *
+ * @author George Coller
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecisionPathBenchmark {
+    private static final String RETRY_CONTROL = "retry";
+
+    @Param({"100", "1000", "10000", "50000"})
+    public int eventCount;
+
+    private List<HistoryEvent> history;
+    private SplitJoinBuilder workflow;
+    private ActivityAction join;
+    private Workflow retryWorkflow;
+    private EventList unindexedRetryEvents;
+    private RetryPolicy retryPolicy;
+    private DecisionPoller poller;
+    private LocalDecisionSwf swf;
+
+    @Setup
+    public void setup() {
+        int actionCount = Math.min(50, Math.max(3, eventCount / 10));
+        history = Histories.splitJoin(actionCount, eventCount);
+        workflow = new SplitJoinBuilder(actionCount);
+        workflow.replaceEvents(EventList.convert(history));
+        join = workflow.join;
+        List<Decision> decisions = decisionBuilderDecide();
+        if (decisions.size() != 1) {
+            throw new IllegalStateException("Expected join step decision: " + decisions);
+        }
+
+        retryPolicy = new RetryPolicy(RETRY_CONTROL).withMaximumAttempts(Integer.MAX_VALUE);
+        retryWorkflow = new SplitJoinBuilder(3);
+        retryWorkflow.replaceEvents(EventList.convert(Histories.retries(RETRY_CONTROL, eventCount)));
+        EventList retryEvents = retryWorkflow.getEvents().selectActionId("step0");
+        unindexedRetryEvents = new EventList(new ArrayList<>(retryEvents));
+        if (retryEvents.countRetries(RETRY_CONTROL) != unindexedRetryEvents.countRetries(RETRY_CONTROL)) {
+            throw new IllegalStateException("Indexed and scanned retry counts differ");
+        }
+
+        WorkflowType workflowType = new WorkflowType().withName(workflow.getName()).withVersion(workflow.getVersion());
+        swf = new LocalDecisionSwf(history, workflowType, 1000);
+        poller = new DecisionPoller("benchmark", "benchmark", "benchmark", null);
+        poller.addWorkflows(() -> new SplitJoinBuilder(actionCount));
+        poller.setSwf(swf);
+        poll();
+        if (swf.getResponseCount() != 1) {
+            throw new IllegalStateException("Expected one decision task response, see log for poll errors");
+        }
+    }
+
+    @Benchmark
+    public EventList convert() {
+        return EventList.convert(history);
+    }
+
+    @Benchmark
+    public int selectActionId() {
+        return workflow.getEvents().selectActionId(join.getActionId()).size();
+    }
+
+    @Benchmark
+    public int selectActionIdScan() {
+        return new EventList(workflow.getEvents()).selectActionId(join.getActionId()).size();
+    }
+
+    @Benchmark
+    public EventState actionGetState() {
+        workflow.addEvents(Collections.emptyList());
+        return join.getState();
+    }
+
+    @Benchmark
+    public int retryDelay() {
+        return retryPolicy.nextRetryDelaySeconds(retryWorkflow.getEvents().selectActionId("step0"));
+    }
+
+    @Benchmark
+    public int retryDelayScan() {
+        return retryPolicy.nextRetryDelaySeconds(unindexedRetryEvents);
+    }
+
+    @Benchmark
+    public List<Decision> decisionBuilderDecide() {
+        workflow.addEvents(Collections.emptyList());
+        List<Decision> decisions = new ArrayList<>();
+        workflow.decide(decisions);
+        return decisions;
+    }
+
+    @Benchmark
+    public void poll() {
+        poller.run();
+    }
+
+    /**
+     * Same steps as {@link SplitJoinBenchmark.SplitJoin} written with {@link DecisionBuilder}.
+     */
+    static class SplitJoinBuilder extends Workflow {
+        private final ActivityAction first;
+        private final ActionSupplier[] branches;
+        private final ActivityAction join;
+
+        SplitJoinBuilder(int actionCount) {
+            super("Split Join Benchmark", "1.0");
+            first = new ActivityAction("step0", "Benchmark Activity", "1.0").withInput("0");
+            branches = new ActionSupplier[actionCount - 2];
+            for (int i = 1; i < actionCount - 1; i++) {
+                ActivityAction branch = new ActivityAction("step" + i, "Benchmark Activity", "1.0").withInput("step" + i);
+                addActions(branch);
+                branches[i - 1] = () -> branch;
+            }
+            join = new ActivityAction("step" + (actionCount - 1), "Benchmark Activity", "1.0").withInput("join");
+            addActions(first, join);
+        }
+
+        @Override
+        public void decide(List<Decision> decisions) {
+            new DecisionBuilder(decisions)
+                .sequence(() -> first)
+                .split(branches)
+                .sequence(() -> join)
+                .decide();
+        }
+    }
+}
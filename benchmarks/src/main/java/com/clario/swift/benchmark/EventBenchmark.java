@@ -0,0 +1,111 @@
+package com.clario.swift.benchmark;
+
+import com.amazonaws.services.simpleworkflow.model.EventType;
+import com.amazonaws.services.simpleworkflow.model.HistoryEvent;
+import com.clario.swift.EventList;
+import com.clario.swift.TaskType;
+import com.clario.swift.event.Event;
+import com.clario.swift.event.EventState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.clario.swift.EventList.byActionId;
+import static com.clario.swift.EventList.byEventState;
+
+/**
+ * Cost of converting {@link HistoryEvent} to {@link Event} and of reading the {@link Event} fields
+ * used by {@link EventList} selections, over the unit test history files.
+ * <p/>
+ * Run against a build of the previous release to compare.
+ *
+ * @author George Coller
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventBenchmark {
+
+    private List<List<HistoryEvent>> histories;
+    private List<EventList> eventLists;
+
+    @Setup
+    public void setup() {
+        histories = Histories.loadAll();
+        eventLists = new ArrayList<>();
+        for (List<HistoryEvent> history : histories) {
+            eventLists.add(EventList.convert(history));
+        }
+    }
+
+    @Benchmark
+    public void convert(Blackhole bh) {
+        for (List<HistoryEvent> history : histories) {
+            bh.consume(EventList.convert(history));
+        }
+    }
+
+    @Benchmark
+    public void readSelectionFields(Blackhole bh) {
+        for (EventList events : eventLists) {
+            for (Event event : events) {
+                bh.consume(event.getType());
+                bh.consume(event.getTask());
+                bh.consume(event.getState());
+                bh.consume(event.getInitialEventId());
+                bh.consume(event.getActionId());
+            }
+        }
+    }
+
+    @Benchmark
+    public void readPayloadFields(Blackhole bh) {
+        for (EventList events : eventLists) {
+            for (Event event : events) {
+                bh.consume(event.getInput());
+                bh.consume(event.getControl());
+                bh.consume(event.getOutput());
+                bh.consume(event.getReason());
+                bh.consume(event.getDetails());
+            }
+        }
+    }
+
+    @Benchmark
+    public void selectEachAction(Blackhole bh) {
+        for (EventList events : eventLists) {
+            for (Event initial : events.select(byEventState(EventState.INITIAL))) {
+                if (initial.getActionId() != null) {
+                    bh.consume(events.select(byActionId(initial.getActionId())).size());
+                }
+            }
+        }
+    }
+
+    /**
+     * Chained selections as made by the decision poller for each decision task.
+     */
+    @Benchmark
+    public void selectChained(Blackhole bh) {
+        for (EventList events : eventLists) {
+            bh.consume(events.selectTaskType(TaskType.WORKFLOW_EXECUTION).selectEventState(EventState.ERROR).isEmpty());
+            bh.consume(events.selectEventType(EventType.WorkflowExecutionCancelRequested).getFirst());
+            bh.consume(events.selectTaskType(TaskType.ACTIVITY).selectEventState(EventState.SUCCESS).size());
+        }
+    }
+}
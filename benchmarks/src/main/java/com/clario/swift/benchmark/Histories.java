@@ -0,0 +1,204 @@
+package com.clario.swift.benchmark;
+
+import com.amazonaws.services.simpleworkflow.model.*;
+import com.amazonaws.services.simpleworkflow.model.transform.DecisionTaskJsonUnmarshaller;
+import com.amazonaws.transform.JsonUnmarshallerContextImpl;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Loads the workflow history files shared with the services-swift unit tests and generates larger histories.
+ *
+ * @author George Coller
+ */
+public class Histories {
+
+    /** History files on the classpath, copied from the unit test resources by the build. */
+    public static final String[] FILES = {
+        "/com/clario/swift/SimpleWorkflowHistory.json",
+        "/com/clario/swift/RetryWorkflowHistory.json",
+        "/com/clario/swift/WaitForSignalWorkflow.json",
+        "/com/clario/swift/ScheduleActivityTaskFailed.json",
+    };
+
+    /**
+     * @return history events of all {@link #FILES}, each file in descending event id order.
+     */
+    public static List<List<HistoryEvent>> loadAll() {
+        List<List<HistoryEvent>> histories = new ArrayList<>();
+        for (String file : FILES) {
+            histories.add(load(file));
+        }
+        return histories;
+    }
+
+    /**
+     * @param file classpath location of a json document in the native SWF {@link DecisionTask} format.
+     */
+    public static List<HistoryEvent> load(String file) {
+        try (InputStream in = Histories.class.getResourceAsStream(file)) {
+            if (in == null) {
+                throw new IllegalArgumentException("History file not found: " + file);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int n = in.read(buffer); n != -1; n = in.read(buffer)) {
+                out.write(buffer, 0, n);
+            }
+            JsonParser parser = new JsonFactory().createParser(new String(out.toByteArray(), StandardCharsets.UTF_8));
+            DecisionTask task = new DecisionTaskJsonUnmarshaller().unmarshall(new JsonUnmarshallerContextImpl(parser));
+            return task.getEvents();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to parse history file " + file, e);
+        }
+    }
+
+    /**
+     * Generate the history of a split/join workflow waiting on its join step: activity <code>step0</code> completed,
+     * then <code>step1</code> to <code>step(actionCount - 2)</code> run in parallel and completed, and the join step
+     * <code>step(actionCount - 1)</code> not yet started. Decision task events pad the history up to about
+     * <code>eventCount</code> events, the newest two are the scheduled and started events of the current decision task.
+     *
+     * @return history events in descending event id order
+     */
+    public static List<HistoryEvent> splitJoin(int actionCount, int eventCount) {
+        List<HistoryEvent> events = new ArrayList<>(eventCount);
+        events.add(event(events, EventType.WorkflowExecutionStarted).withWorkflowExecutionStartedEventAttributes(
+            new WorkflowExecutionStartedEventAttributes()
+                .withInput("")
+                .withWorkflowType(new WorkflowType().withName("Split Join Benchmark").withVersion("1.0"))));
+        long decision = decisionTask(events, true);
+        activity(events, "step0", decision);
+        decision = decisionTask(events, true);
+        List<Long> scheduled = new ArrayList<>();
+        for (int i = 1; i < actionCount - 1; i++) {
+            scheduled.add(scheduleActivity(events, "step" + i, decision));
+        }
+        int padding = Math.max(0, (eventCount - events.size() - scheduled.size() * 2 - 2) / 3);
+        for (int i = 0; i < scheduled.size(); i++) {
+            completeActivity(events, scheduled.get(i));
+            for (int p = padding * i / scheduled.size(); p < padding * (i + 1) / scheduled.size(); p++) {
+                decisionTask(events, true);
+            }
+        }
+        decisionTask(events, false);
+        Collections.reverse(events);
+        return events;
+    }
+
+    /**
+     * Generate the history of a workflow whose single activity <code>step0</code> keeps failing and is retried by a
+     * {@link com.clario.swift.action.RetryPolicy} with control <code>retryControl</code>, up to about
+     * <code>eventCount</code> events.  Each attempt adds the activity, timer and decision task events, the newest
+     * events are the failure of the last attempt and the current decision task.
+     *
+     * @return history events in descending event id order
+     */
+    public static List<HistoryEvent> retries(String retryControl, int eventCount) {
+        List<HistoryEvent> events = new ArrayList<>(eventCount);
+        events.add(event(events, EventType.WorkflowExecutionStarted).withWorkflowExecutionStartedEventAttributes(
+            new WorkflowExecutionStartedEventAttributes()
+                .withInput("")
+                .withWorkflowType(new WorkflowType().withName("Retry Benchmark").withVersion("1.0"))));
+        long decision = decisionTask(events, true);
+        while (events.size() < eventCount - 15) {
+            failActivity(events, scheduleActivity(events, "step0", decision));
+            decision = decisionTask(events, true);
+            HistoryEvent timer = event(events, EventType.TimerStarted)
+                .withTimerStartedEventAttributes(new TimerStartedEventAttributes()
+                    .withTimerId("step0")
+                    .withControl(retryControl)
+                    .withStartToFireTimeout("5")
+                    .withDecisionTaskCompletedEventId(decision));
+            events.add(timer);
+            events.add(event(events, EventType.TimerFired)
+                .withTimerFiredEventAttributes(new TimerFiredEventAttributes()
+                    .withTimerId("step0")
+                    .withStartedEventId(timer.getEventId())));
+            decision = decisionTask(events, true);
+        }
+        failActivity(events, scheduleActivity(events, "step0", decision));
+        decisionTask(events, false);
+        Collections.reverse(events);
+        return events;
+    }
+
+    private static HistoryEvent event(List<HistoryEvent> events, EventType type) {
+        return new HistoryEvent()
+            .withEventId((long) events.size() + 1)
+            .withEventType(type)
+            .withEventTimestamp(new Date(1400000000000L + events.size() * 1000L));
+    }
+
+    // Add decision task events, returning the completed event id or the started event id if not completed
+    private static long decisionTask(List<HistoryEvent> events, boolean completed) {
+        HistoryEvent scheduled = event(events, EventType.DecisionTaskScheduled)
+            .withDecisionTaskScheduledEventAttributes(new DecisionTaskScheduledEventAttributes()
+                .withTaskList(new TaskList().withName("default")));
+        events.add(scheduled);
+        HistoryEvent started = event(events, EventType.DecisionTaskStarted)
+            .withDecisionTaskStartedEventAttributes(new DecisionTaskStartedEventAttributes()
+                .withScheduledEventId(scheduled.getEventId()));
+        events.add(started);
+        if (!completed) {
+            return started.getEventId();
+        }
+        HistoryEvent complete = event(events, EventType.DecisionTaskCompleted)
+            .withDecisionTaskCompletedEventAttributes(new DecisionTaskCompletedEventAttributes()
+                .withScheduledEventId(scheduled.getEventId())
+                .withStartedEventId(started.getEventId()));
+        events.add(complete);
+        return complete.getEventId();
+    }
+
+    private static void activity(List<HistoryEvent> events, String activityId, long decisionTaskCompletedEventId) {
+        completeActivity(events, scheduleActivity(events, activityId, decisionTaskCompletedEventId));
+    }
+
+    private static long scheduleActivity(List<HistoryEvent> events, String activityId, long decisionTaskCompletedEventId) {
+        HistoryEvent scheduled = event(events, EventType.ActivityTaskScheduled)
+            .withActivityTaskScheduledEventAttributes(new ActivityTaskScheduledEventAttributes()
+                .withActivityId(activityId)
+                .withActivityType(new ActivityType().withName("Benchmark Activity").withVersion("1.0"))
+                .withInput(activityId)
+                .withDecisionTaskCompletedEventId(decisionTaskCompletedEventId));
+        events.add(scheduled);
+        return scheduled.getEventId();
+    }
+
+    private static void completeActivity(List<HistoryEvent> events, long scheduledEventId) {
+        HistoryEvent started = event(events, EventType.ActivityTaskStarted)
+            .withActivityTaskStartedEventAttributes(new ActivityTaskStartedEventAttributes()
+                .withScheduledEventId(scheduledEventId));
+        events.add(started);
+        events.add(event(events, EventType.ActivityTaskCompleted)
+            .withActivityTaskCompletedEventAttributes(new ActivityTaskCompletedEventAttributes()
+                .withScheduledEventId(scheduledEventId)
+                .withStartedEventId(started.getEventId())
+                .withResult("done")));
+    }
+
+    private static void failActivity(List<HistoryEvent> events, long scheduledEventId) {
+        HistoryEvent started = event(events, EventType.ActivityTaskStarted)
+            .withActivityTaskStartedEventAttributes(new ActivityTaskStartedEventAttributes()
+                .withScheduledEventId(scheduledEventId));
+        events.add(started);
+        events.add(event(events, EventType.ActivityTaskFailed)
+            .withActivityTaskFailedEventAttributes(new ActivityTaskFailedEventAttributes()
+                .withScheduledEventId(scheduledEventId)
+                .withStartedEventId(started.getEventId())
+                .withReason("failed")
+                .withDetails("failed attempt")));
+    }
+}
@@ -0,0 +1,68 @@
+package com.clario.swift.benchmark;
+
+import com.amazonaws.services.simpleworkflow.AbstractAmazonSimpleWorkflow;
+import com.amazonaws.services.simpleworkflow.model.*;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process stand-in for SWF activity task polling: hands out queued activity tasks and counts responses.
+ * Empty polls wait briefly like a SWF long-poll.
+ *
+ * @author George Coller
+ */
+public class LocalActivitySwf extends AbstractAmazonSimpleWorkflow {
+    private final BlockingQueue<ActivityTask> tasks = new LinkedBlockingQueue<>();
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final long emptyPollMillis;
+
+    public LocalActivitySwf(long emptyPollMillis) {
+        this.emptyPollMillis = emptyPollMillis;
+    }
+
+    public void addActivityTasks(String name, String version, int count) {
+        for (int i = 0; i < count; i++) {
+            tasks.add(new ActivityTask()
+                .withTaskToken("token-" + i)
+                .withActivityId("activity-" + i)
+                .withInput(Integer.toString(i))
+                .withActivityType(new ActivityType().withName(name).withVersion(version)));
+        }
+    }
+
+    public int getCompletedCount() { return completed.get(); }
+
+    public int getFailedCount() { return failed.get(); }
+
+    @Override
+    public ActivityTask pollForActivityTask(PollForActivityTaskRequest request) {
+        try {
+            ActivityTask task = tasks.poll(emptyPollMillis, TimeUnit.MILLISECONDS);
+            return task == null ? new ActivityTask() : task;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ActivityTask();
+        }
+    }
+
+    @Override
+    public RespondActivityTaskCompletedResult respondActivityTaskCompleted(RespondActivityTaskCompletedRequest request) {
+        completed.incrementAndGet();
+        return new RespondActivityTaskCompletedResult();
+    }
+
+    @Override
+    public RespondActivityTaskFailedResult respondActivityTaskFailed(RespondActivityTaskFailedRequest request) {
+        failed.incrementAndGet();
+        return new RespondActivityTaskFailedResult();
+    }
+
+    @Override
+    public ActivityTaskStatus recordActivityTaskHeartbeat(RecordActivityTaskHeartbeatRequest request) {
+        return new ActivityTaskStatus().withCancelRequested(false);
+    }
+}
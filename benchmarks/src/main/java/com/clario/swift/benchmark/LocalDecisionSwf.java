@@ -0,0 +1,53 @@
+package com.clario.swift.benchmark;
+
+import com.amazonaws.services.simpleworkflow.AbstractAmazonSimpleWorkflow;
+import com.amazonaws.services.simpleworkflow.model.*;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process stand-in for SWF decision task polling: every poll returns a new decision task for the same history,
+ * paged like SWF, and responses are counted.
+ *
+ * @author George Coller
+ */
+public class LocalDecisionSwf extends AbstractAmazonSimpleWorkflow {
+    private final List<HistoryEvent> history;
+    private final WorkflowType workflowType;
+    private final int pageSize;
+    private final AtomicInteger tasks = new AtomicInteger();
+    private final AtomicInteger responses = new AtomicInteger();
+
+    /**
+     * @param history events in descending event id order
+     * @param pageSize number of events on each page, SWF returns up to 1000
+     */
+    public LocalDecisionSwf(List<HistoryEvent> history, WorkflowType workflowType, int pageSize) {
+        this.history = history;
+        this.workflowType = workflowType;
+        this.pageSize = pageSize;
+    }
+
+    public int getResponseCount() { return responses.get(); }
+
+    @Override
+    public DecisionTask pollForDecisionTask(PollForDecisionTaskRequest request) {
+        String token = request.getNextPageToken();
+        int start = token == null ? 0 : Integer.parseInt(token.substring(token.indexOf(':') + 1));
+        String runId = token == null ? "run-" + tasks.incrementAndGet() : token.substring(0, token.indexOf(':'));
+        int end = Math.min(start + pageSize, history.size());
+        return new DecisionTask()
+            .withTaskToken(token == null ? runId : null)
+            .withWorkflowType(workflowType)
+            .withWorkflowExecution(new WorkflowExecution().withWorkflowId("benchmark").withRunId(runId))
+            .withEvents(history.subList(start, end))
+            .withNextPageToken(end < history.size() ? runId + ":" + end : null);
+    }
+
+    @Override
+    public RespondDecisionTaskCompletedResult respondDecisionTaskCompleted(RespondDecisionTaskCompletedRequest request) {
+        responses.incrementAndGet();
+        return new RespondDecisionTaskCompletedResult();
+    }
+}
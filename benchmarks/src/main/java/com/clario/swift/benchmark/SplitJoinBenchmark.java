@@ -0,0 +1,128 @@
+package com.clario.swift.benchmark;
+
+import com.amazonaws.services.simpleworkflow.model.Decision;
+import com.clario.swift.EventList;
+import com.clario.swift.Workflow;
+import com.clario.swift.action.ActivityAction;
+import com.clario.swift.event.Event;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One decision pass of a split/join workflow over a large history, see {@link Histories#splitJoin}.
+ * <p/>
+ * <code>decide</code> starts each pass with a new history version, as the poller does when it adds events,
+ * so {@link com.clario.swift.action.Action} state is computed once per pass.
+ * <code>decideWithoutMemoizedState</code> changes the history version before every call on an action to show
+ * the cost when action state is not reused within the pass.
+ *
+ * @author George Coller
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SplitJoinBenchmark {
+
+    @Param({"50"})
+    public int actionCount;
+
+    @Param({"10000"})
+    public int eventCount;
+
+    private SplitJoin workflow;
+
+    @Setup
+    public void setup() {
+        workflow = new SplitJoin(actionCount);
+        workflow.replaceEvents(EventList.convert(Histories.splitJoin(actionCount, eventCount)));
+        List<Decision> decisions = decide();
+        if (decisions.size() != 1) {
+            throw new IllegalStateException("Expected join step decision: " + decisions);
+        }
+    }
+
+    @Benchmark
+    public List<Decision> decide() {
+        workflow.invalidateEachQuery = false;
+        workflow.addEvents(Collections.emptyList());
+        List<Decision> decisions = new ArrayList<>();
+        workflow.decide(decisions);
+        return decisions;
+    }
+
+    @Benchmark
+    public List<Decision> decideWithoutMemoizedState() {
+        workflow.invalidateEachQuery = true;
+        List<Decision> decisions = new ArrayList<>();
+        workflow.decide(decisions);
+        return decisions;
+    }
+
+    /**
+     * First step, then all middle steps in parallel, then a final join step.
+     */
+    static class SplitJoin extends Workflow {
+        private final ActivityAction first;
+        private final List<ActivityAction> branches = new ArrayList<>();
+        private final ActivityAction join;
+        boolean invalidateEachQuery;
+
+        SplitJoin(int actionCount) {
+            super("Split Join Benchmark", "1.0");
+            first = new ActivityAction("step0", "Benchmark Activity", "1.0");
+            for (int i = 1; i < actionCount - 1; i++) {
+                branches.add(new ActivityAction("step" + i, "Benchmark Activity", "1.0"));
+            }
+            join = new ActivityAction("step" + (actionCount - 1), "Benchmark Activity", "1.0").withCompleteWorkflowOnSuccess();
+            addActions(first, join);
+            addActions(branches.toArray(new ActivityAction[branches.size()]));
+        }
+
+        @Override
+        public void decide(List<Decision> decisions) {
+            invalidate();
+            if (first.withInput("0").decide(decisions).isSuccess()) {
+                boolean joined = true;
+                for (ActivityAction branch : branches) {
+                    invalidate();
+                    branch.withInput(branch.getActionId()).decide(decisions);
+                    invalidate();
+                    joined &= branch.isSuccess();
+                }
+                for (ActivityAction branch : branches) {
+                    invalidate();
+                    if (branch.isError()) {
+                        joined = false;
+                    }
+                }
+                if (joined) {
+                    invalidate();
+                    join.withInput("join").decide(decisions);
+                }
+            }
+        }
+
+        private void invalidate() {
+            if (invalidateEachQuery) {
+                addEvents(Collections.<Event>emptyList());
+            }
+        }
+    }
+}
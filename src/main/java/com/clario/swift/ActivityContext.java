@@ -1,5 +1,6 @@
 package com.clario.swift;
 
+import com.amazonaws.services.simpleworkflow.model.ActivityTaskStatus;
 import com.amazonaws.services.simpleworkflow.model.RecordActivityTaskHeartbeatRequest;
 import com.amazonaws.services.simpleworkflow.model.ScheduleActivityTaskDecisionAttributes;
 
@@ -19,6 +20,9 @@ public interface ActivityContext {
 
     /**
      * Record a heartbeat on SWF for this activity task.
+     * <p/>
+     * Sent right away on the calling thread unless the poller has a {@link HeartbeatService},
+     * which sends the latest details of this task in the background.
      *
      * @param details optional task progress information.
      *
@@ -26,6 +30,17 @@ public interface ActivityContext {
      */
     void recordHeartbeat(String details);
 
+    /**
+     * True once a heartbeat response reports that cancellation of this activity task was requested,
+     * long-running activities should then stop early.
+     * <p/>
+     * Only known through heartbeats, so always false for activities that do not record them.
+     * Defaults to false for contexts that do not track it.
+     *
+     * @see ActivityTaskStatus#cancelRequested
+     */
+    default boolean isCancelRequested() { return false; }
+
     /**
      * Value provided when this activity task was scheduled.
      *
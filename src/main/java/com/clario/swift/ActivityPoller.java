@@ -5,6 +5,10 @@ import com.amazonaws.services.simpleworkflow.model.*;
 import java.lang.reflect.Method;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import static com.clario.swift.SwiftUtil.*;
 import static java.lang.String.format;
@@ -15,8 +19,10 @@ import static java.lang.String.format;
  * Implements {@link Runnable} so that multiple instances of this class can be
  * scheduled to handle higher levels of activity tasks.
  * <p/>
- * Since this class is single-threaded it will be tied-up while the activity is processing so scale
+ * By default activities run on the polling thread, which is tied-up while the activity is processing so scale
  * the size of the activity polling pool appropriately if you have many long-running activities.
+ * Alternatively call {@link #setExecutor} to run activities on a separate executor, in which case
+ * a few polling threads can keep many activities in flight.
  *
  * @author George Coller
  * @see BasePoller
@@ -24,6 +30,10 @@ import static java.lang.String.format;
  */
 public class ActivityPoller extends BasePoller {
     private final Map<String, ActivityInvoker> activityMap = new LinkedHashMap<>();
+    private Executor executor;
+    private Semaphore executorSlots;
+    private int maxConcurrentActivities;
+    private HeartbeatService heartbeatService;
 
     /**
      * @param id unique id for poller used for logging and recording in SWF
@@ -78,6 +88,54 @@ public class ActivityPoller extends BasePoller {
         }
     }
 
+    /**
+     * Run activities on an executor instead of the polling thread.
+     * <p/>
+     * Each {@link #poll} then loops, issuing a poll request only when one of the <code>maxConcurrentActivities</code>
+     * slots is free, handing each activity task to the executor, and returning once a poll times out without a task.
+     * Activity results are reported to SWF from the executor threads.
+     *
+     * @param executor runs activities, should allow at least <code>maxConcurrentActivities</code> at once
+     * @param maxConcurrentActivities maximum activities polled and not yet finished by this poller
+     */
+    public void setExecutor(Executor executor, int maxConcurrentActivities) {
+        if (maxConcurrentActivities < 1) { throw new IllegalArgumentException("parameter maxConcurrentActivities must be greater than zero"); }
+        this.executor = executor;
+        this.executorSlots = new Semaphore(maxConcurrentActivities);
+        this.maxConcurrentActivities = maxConcurrentActivities;
+    }
+
+    /**
+     * Send activity heartbeats from a shared {@link HeartbeatService} instead of the activity's thread.
+     *
+     * @param heartbeatService service, which is not shut down by this poller, or null to send each heartbeat
+     * right away on the activity's thread (the default)
+     */
+    public void setHeartbeatService(HeartbeatService heartbeatService) { this.heartbeatService = heartbeatService; }
+
+    /**
+     * @return activities currently running on the executor set with {@link #setExecutor}.
+     */
+    public int getActiveActivityCount() {
+        return executor == null ? 0 : maxConcurrentActivities - executorSlots.availablePermits();
+    }
+
+    @Override
+    public int getActiveTaskCount() { return getActiveActivityCount(); }
+
+    @Override
+    public int getMaxActiveTaskCount() { return executor == null ? super.getMaxActiveTaskCount() : maxConcurrentActivities; }
+
+    /**
+     * @return approximate number of activity tasks waiting on this poller's task list.
+     */
+    @Override
+    public int countPendingTasks() {
+        return swf.countPendingActivityTasks(new CountPendingActivityTasksRequest()
+            .withDomain(domain)
+            .withTaskList(new TaskList().withName(taskList))).getCount();
+    }
+
     /**
      * Each call performs a long polling or the next activity task from SWF and then calls
      * the matching registered {@link ActivityMethod} method to perform the task.
@@ -89,36 +147,130 @@ public class ActivityPoller extends BasePoller {
      * </ul>
      *
      * @see #addActivities(Object...)
+     * @see #setExecutor
      */
     @Override
     protected void poll() {
+        if (executor == null) {
+            ActivityTask task = pollForActivityTask();
+            if (task != null) {
+                execute(task);
+            }
+        } else {
+            pollWithExecutor();
+        }
+    }
+
+    // Poll while execution slots are available, each task releases its slot when finished
+    private void pollWithExecutor() {
+        while (!isStopped()) {
+            try {
+                if (!executorSlots.tryAcquire(1, TimeUnit.SECONDS)) {
+                    continue;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            ActivityTask task;
+            try {
+                task = pollForActivityTask();
+            } catch (RuntimeException e) {
+                executorSlots.release();
+                throw e;
+            }
+            if (task == null) {
+                executorSlots.release();
+                return;
+            }
+            Runnable runnable = () -> {
+                try {
+                    execute(task);
+                } catch (Throwable t) {
+                    log.error(format("%s: failed reporting activity '%s'", this, task.getActivityId()), t);
+                } finally {
+                    executorSlots.release();
+                }
+            };
+            try {
+                executor.execute(runnable);
+            } catch (RejectedExecutionException e) {
+                log.warn(format("%s: executor rejected activity '%s', running on polling thread", this, task.getActivityId()));
+                runnable.run();
+            }
+        }
+    }
+
+    /**
+     * Long-poll SWF for the next activity task.
+     *
+     * @return activity task or null if the poll timed out without a task
+     */
+    ActivityTask pollForActivityTask() {
+        long start = System.nanoTime();
         ActivityTask task = swf.pollForActivityTask(createPollForActivityTask(domain, taskList, getId()));
+        metrics.recordPoll(TaskType.ACTIVITY, System.nanoTime() - start, task.getTaskToken() == null);
         if (isLogTimeout()) { log.info("heartbeat"); }
-        if (task.getTaskToken() == null) {
-            return;
-        }
+        recordPoll(task.getTaskToken() == null);
+        return task.getTaskToken() == null ? null : task;
+    }
 
+    /**
+     * Call the registered {@link ActivityMethod} for an activity task and report the result to SWF.
+     */
+    void execute(ActivityTask task) {
         String input = task.getInput();
         String key = makeKey(task.getActivityType().getName(), task.getActivityType().getVersion());
         try {
             log.debug("start: {}", task);
             if (activityMap.containsKey(key)) {
-                String result = activityMap.get(key).invoke(task);
+                String result = invoke(key, task);
                 log.info("'{}' '{}' '{}' -> '{}'", task.getActivityId(), key, input, result);
-                swf.respondActivityTaskCompleted(createRespondActivityCompleted(task, result));
+                respondCompleted(key, createRespondActivityCompleted(task, result));
             } else {
                 String format = format("Activity '%s' not registered on poller %s", task, getId());
                 log.error(format);
-                swf.respondActivityTaskFailed(
-                    createRespondActivityTaskFailed(task.getTaskToken(), format, null)
-                );
+                respondFailed(key, createRespondActivityTaskFailed(task.getTaskToken(), format, null));
             }
         } catch (Exception e) {
             log.error("'{}' '{}' '{}'", task.getActivityId(), key, input);
-            swf.respondActivityTaskFailed(
-                createRespondActivityTaskFailed(task.getTaskToken(), e.getMessage(), printStackTrace(e))
-            );
+            respondFailed(key, createRespondActivityTaskFailed(task.getTaskToken(), e.getMessage(), printStackTrace(e)));
+        }
+    }
+
+    // Call the activity method, recording its time
+    private String invoke(String key, ActivityTask task) {
+        long start = System.nanoTime();
+        try {
+            String result = activityMap.get(key).invoke(task);
+            metrics.recordActivity(key, System.nanoTime() - start, true);
+            return result;
+        } catch (RuntimeException e) {
+            metrics.recordActivity(key, System.nanoTime() - start, false);
+            throw e;
+        }
+    }
+
+    private void respondCompleted(String key, RespondActivityTaskCompletedRequest request) {
+        long start = System.nanoTime();
+        try {
+            swf.respondActivityTaskCompleted(request);
+        } catch (RuntimeException e) {
+            metrics.recordRespond(TaskType.ACTIVITY, key, System.nanoTime() - start, false);
+            throw e;
         }
+        metrics.recordRespond(TaskType.ACTIVITY, key, System.nanoTime() - start, true);
+    }
+
+    private void respondFailed(String key, RespondActivityTaskFailedRequest request) {
+        long start = System.nanoTime();
+        try {
+            swf.respondActivityTaskFailed(request);
+        } catch (RuntimeException e) {
+            metrics.recordRespond(TaskType.ACTIVITY, key, System.nanoTime() - start, false);
+            throw e;
+        }
+        metrics.recordRespond(TaskType.ACTIVITY, key, System.nanoTime() - start, true);
     }
 
     /**
@@ -126,30 +278,44 @@ public class ActivityPoller extends BasePoller {
      *
      * @param taskToken identifies the task recording the heartbeat
      * @param details information to be recorded
+     * @deprecated no longer called by this poller, so overriding it has no effect.  {@link ActivityContext#recordHeartbeat}
+     * calls {@link #recordHeartbeatStatus}, which also reports cancellation, or hands the heartbeat to the
+     * {@link HeartbeatService}.
      */
+    @Deprecated
     protected void recordHeartbeat(String taskToken, String details) {
+        recordHeartbeatStatus(taskToken, details);
+    }
+
+    /**
+     * Record a heartbeat on SWF, used by {@link ActivityContext#recordHeartbeat} when no {@link HeartbeatService} is set.
+     *
+     * @param taskToken identifies the task recording the heartbeat
+     * @param details information to be recorded
+     * @return true if cancellation of the task was requested, false otherwise or if the heartbeat failed
+     */
+    protected boolean recordHeartbeatStatus(String taskToken, String details) {
         try {
-            swf.recordActivityTaskHeartbeat(createRecordActivityTaskHeartbeat(taskToken, details));
+            ActivityTaskStatus status = swf.recordActivityTaskHeartbeat(createRecordActivityTaskHeartbeat(taskToken, details));
+            return Boolean.TRUE.equals(status.getCancelRequested());
         } catch (Throwable e) {
             log.warn("Failed to record heartbeat: " + taskToken + ", " + details, e);
+            return false;
         }
-
     }
 
     /**
      * Wraps a single method annotated with {@link ActivityMethod} and is registered on
      * the activity map.
      * <p/>
-     * This class acts as the {@link ActivityContext} passed when calling an {@link ActivityMethod}.
+     * Each call to {@link #invoke} passes a new {@link ActivityContext} so one invoker can run many tasks at once.
      *
      * @see ActivityContext
      */
-    static class ActivityInvoker implements ActivityContext {
+    static class ActivityInvoker {
         private final ActivityPoller poller;
         private final Method method;
         private final Object instance;
-        private String input;
-        private ActivityTask task;
 
         ActivityInvoker(ActivityPoller poller, Method method, Object instance) {
             this.poller = poller;
@@ -159,10 +325,9 @@ public class ActivityPoller extends BasePoller {
 
         String invoke(final ActivityTask task) {
             String name = task.getActivityType() == null ? "unknown" : task.getActivityType().getName();
+            TaskContext context = new TaskContext(poller, task, getActivityMethod().heartbeatTimeout());
             try {
-                this.task = task;
-                this.input = task.getInput();
-                Object result = method.invoke(instance, this);
+                Object result = method.invoke(instance, context);
                 if (result == null) {
                     return null;
                 } else {
@@ -174,23 +339,63 @@ public class ActivityPoller extends BasePoller {
                 }
             } catch (Throwable e) {
                 throw new IllegalStateException(format("error: '%s' '%s' '%s'", task.getActivityId(), name, task.getInput()), e);
+            } finally {
+                context.close();
             }
         }
 
         ActivityMethod getActivityMethod() {
             return method.getAnnotation(ActivityMethod.class);
         }
+    }
+
+    /**
+     * {@link ActivityContext} for a single activity task.
+     */
+    static class TaskContext implements ActivityContext {
+        private final ActivityPoller poller;
+        private final ActivityTask task;
+        private final String heartbeatTimeout;
+        private volatile HeartbeatService.Heartbeat heartbeat;
+        private volatile boolean cancelRequested;
+
+        TaskContext(ActivityPoller poller, ActivityTask task, String heartbeatTimeout) {
+            this.poller = poller;
+            this.task = task;
+            this.heartbeatTimeout = heartbeatTimeout;
+        }
 
         public String getActionId() {
             return task.getActivityId();
         }
 
-        public void recordHeartbeat(String details) {
-            poller.recordHeartbeat(task.getTaskToken(), details);
+        public synchronized void recordHeartbeat(String details) {
+            if (poller.heartbeatService == null) {
+                if (poller.recordHeartbeatStatus(task.getTaskToken(), details)) {
+                    cancelRequested = true;
+                }
+            } else {
+                if (heartbeat == null) {
+                    heartbeat = poller.heartbeatService.start(poller.swf, task.getTaskToken(), heartbeatTimeout);
+                }
+                heartbeat.record(details);
+            }
+        }
+
+        public boolean isCancelRequested() {
+            HeartbeatService.Heartbeat heartbeat = this.heartbeat;
+            return cancelRequested || (heartbeat != null && heartbeat.isCancelRequested());
+        }
+
+        // stop sending heartbeats once the activity method returns
+        synchronized void close() {
+            if (heartbeat != null) {
+                heartbeat.close();
+            }
         }
 
         public String getInput() {
-            return input;
+            return task.getInput();
         }
     }
 
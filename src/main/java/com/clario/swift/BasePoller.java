@@ -6,6 +6,8 @@ import org.joda.time.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import static java.lang.String.format;
 
 /**
@@ -19,9 +21,12 @@ public abstract class BasePoller implements Runnable {
     protected final String taskList;
     protected final String domain;
     protected AmazonSimpleWorkflow swf;
+    protected PollerMetrics metrics = PollerMetrics.NONE;
     private int logHeartbeatMinutes = 10;
     private long priorHeartbeatTime = System.currentTimeMillis();
-    private boolean stopped = false;
+    private volatile boolean stopped = false;
+    private final AtomicLong pollRequestCount = new AtomicLong();
+    private final AtomicLong emptyPollCount = new AtomicLong();
 
     /**
      * @param id unique id for poller used for logging and recording in SWF
@@ -61,9 +66,10 @@ public abstract class BasePoller implements Runnable {
     }
 
     /**
-     * Mark this poller as stopped, which will do nothing on any subsequent calls to {@link #poll()}.
+     * Mark this poller as stopped, which will do nothing on any subsequent calls to {@link #run()}.
+     * A poll in progress finishes normally.
      */
-    void stop() {
+    public void stop() {
         log.warn(format("%s: stop called", toString()));
         stopped = true;
     }
@@ -72,7 +78,48 @@ public abstract class BasePoller implements Runnable {
      * @return true if this poller has been stopped.
      * @see #stop()
      */
-    boolean isStopped() { return stopped; }
+    public boolean isStopped() { return stopped; }
+
+    /**
+     * @return number of tasks polled by this poller still being worked on after {@link #poll()} returned,
+     * zero unless the subclass hands tasks off to other threads.
+     */
+    public int getActiveTaskCount() { return 0; }
+
+    /**
+     * @return maximum tasks this poller works on at once, polling pauses while {@link #getActiveTaskCount()} is at
+     * this limit. Unlimited unless the subclass hands tasks off to other threads.
+     */
+    public int getMaxActiveTaskCount() { return Integer.MAX_VALUE; }
+
+    /**
+     * Ask SWF for the approximate number of tasks waiting on this poller's task list.
+     *
+     * @return pending task count or -1 if not supported by the subclass
+     */
+    public int countPendingTasks() { return -1; }
+
+    /**
+     * Subclass calls after each long-poll request to SWF.
+     *
+     * @param empty true if the poll timed out without a task
+     */
+    protected void recordPoll(boolean empty) {
+        pollRequestCount.incrementAndGet();
+        if (empty) {
+            emptyPollCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return number of long-poll requests made to SWF.
+     */
+    public long getPollRequestCount() { return pollRequestCount.get(); }
+
+    /**
+     * @return number of long-poll requests that timed out without a task.
+     */
+    public long getEmptyPollCount() { return emptyPollCount.get(); }
 
     /**
      * Subclass implements to perform the SWF polling work.
@@ -126,4 +173,11 @@ public abstract class BasePoller implements Runnable {
     }
 
     public void setSwf(AmazonSimpleWorkflow swf) { this.swf = swf; }
+
+    /**
+     * Record poll, decision and activity metrics, see {@link PollerMetrics}.
+     *
+     * @param metrics metrics to record, or null to record nothing (the default)
+     */
+    public void setMetrics(PollerMetrics metrics) { this.metrics = metrics == null ? PollerMetrics.NONE : metrics; }
 }
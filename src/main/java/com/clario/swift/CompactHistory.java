@@ -0,0 +1,219 @@
+package com.clario.swift;
+
+import com.amazonaws.services.simpleworkflow.model.EventType;
+import com.amazonaws.services.simpleworkflow.model.HistoryEvent;
+import com.amazonaws.services.simpleworkflow.model.TimerStartedEventAttributes;
+import com.clario.swift.event.Event;
+import com.clario.swift.event.EventState;
+
+import java.lang.reflect.Method;
+import java.util.AbstractList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import static com.amazonaws.services.simpleworkflow.model.EventType.TimerStarted;
+
+/**
+ * History of {@link Event} stored in columns instead of one {@link Event} and {@link HistoryEvent} per event,
+ * in descending {@link Event#getEventId()} order.
+ * <p/>
+ * Event id, {@link EventType}, timestamp, {@link EventState} and initial event id are kept in primitive arrays along with
+ * the action id, shared by all events of an action, and a reference to the event's type-specific attributes object,
+ * which holds the payload strings such as input, result and details.
+ * <p/>
+ * Keeps an {@link EventIndex} built from the columns, so indexing reads no events.
+ * {@link #get} builds a new {@link Event} equal to the original each time an event is read and keeps only the columns,
+ * so a history held between decision tasks never grows by full events.  {@link EventHistory} keeps the events read
+ * during one decision task.
+ * <p/>
+ * Only changed through {@link #prepend}, which copies the events of a new decision task into the columns at the front
+ * with room to spare, like {@link EventHistory#push}, so the history and its index grow with the new events only.
+ * <p/>
+ * Used by {@link WorkflowHistoryCache} where histories are kept between decision tasks.
+ * Not thread-safe, a cached history is used by one decision task at a time.
+ *
+ * @author George Coller
+ */
+final class CompactHistory extends AbstractList<Event> implements RandomAccess {
+    private static final EventType[] TYPES = EventType.values();
+    private static final EventState[] STATES = EventState.values();
+    private static final Method[] ATTRIBUTE_GETTERS = new Method[TYPES.length];
+    private static final Method[] ATTRIBUTE_SETTERS = new Method[TYPES.length];
+    // Event ids start at one
+    private static final long NO_EVENT_ID = 0;
+    private static final int INITIAL_HEAD_ROOM = 16;
+
+    static {
+        for (EventType type : TYPES) {
+            try {
+                Method getter = HistoryEvent.class.getMethod("get" + type.name() + "EventAttributes");
+                ATTRIBUTE_GETTERS[type.ordinal()] = getter;
+                ATTRIBUTE_SETTERS[type.ordinal()] = HistoryEvent.class.getMethod("set" + type.name() + "EventAttributes", getter.getReturnType());
+            } catch (NoSuchMethodException ignore) {
+                // Event type without attributes, only id, type and timestamp are kept
+            }
+        }
+    }
+
+    private long[] eventIds;
+    private byte[] types;
+    private long[] timestamps;
+    private Object[] attributes;
+    private byte[] states;
+    private long[] initialEventIds;
+    private String[] actionIds;
+    private int head = INITIAL_HEAD_ROOM;
+    // Index slot of the event at head, slots stay the same when the columns grow
+    private int headSlot;
+    private final Map<String, String> sharedActionIds = new HashMap<>();
+    private final EventIndex index = new EventIndex(this::slot, false);
+
+    /**
+     * @param events events to copy in descending {@link Event#getEventId()} order
+     */
+    CompactHistory(List<Event> events) {
+        allocate(INITIAL_HEAD_ROOM + events.size());
+        for (int i = 0; i < events.size(); i++) {
+            copy(head + i, events.get(i));
+            indexColumns(i, head + i);
+        }
+    }
+
+    /**
+     * Add events newer than all current events.
+     *
+     * @param newerEvents events in descending {@link Event#getEventId()} order
+     */
+    void prepend(List<Event> newerEvents) {
+        if (head < newerEvents.size()) {
+            grow(newerEvents.size());
+        }
+        for (int i = newerEvents.size() - 1; i >= 0; i--) {
+            Event event = newerEvents.get(i);
+            copy(--head, event);
+            index.push(--headSlot, event);
+        }
+        modCount++;
+    }
+
+    EventIndex getIndex() { return index; }
+
+    /**
+     * @return index slot of the newest event, see {@link EventIndex}
+     */
+    int getHeadSlot() { return headSlot; }
+
+    /**
+     * @return unmodifiable view of the current events that is not affected by later {@link #prepend} calls.
+     */
+    List<Event> snapshot() { return new Snapshot(headSlot, size()); }
+
+    @Override
+    public Event get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        return materialize(head + index);
+    }
+
+    @Override
+    public int size() { return eventIds.length - head; }
+
+    private Event slot(int slot) { return materialize(head + slot - headSlot); }
+
+    private void copy(int i, Event event) {
+        HistoryEvent historyEvent = event.getHistoryEvent();
+        int type = event.getType().ordinal();
+        eventIds[i] = historyEvent.getEventId();
+        types[i] = (byte) type;
+        timestamps[i] = historyEvent.getEventTimestamp().getTime();
+        attributes[i] = ATTRIBUTE_GETTERS[type] == null ? null : invoke(ATTRIBUTE_GETTERS[type], historyEvent);
+        states[i] = (byte) event.getState().ordinal();
+        initialEventIds[i] = event.getInitialEventId() == null ? NO_EVENT_ID : event.getInitialEventId();
+        actionIds[i] = event.getActionId() == null ? null : sharedActionIds.computeIfAbsent(event.getActionId(), k -> k);
+    }
+
+    private void allocate(int capacity) {
+        eventIds = new long[capacity];
+        types = new byte[capacity];
+        timestamps = new long[capacity];
+        attributes = new Object[capacity];
+        states = new byte[capacity];
+        initialEventIds = new long[capacity];
+        actionIds = new String[capacity];
+    }
+
+    // Move all columns to the end of larger arrays with room for at least count more events at the front
+    private void grow(int count) {
+        int size = size();
+        int room = Math.max(count, Math.max(INITIAL_HEAD_ROOM, size));
+        long[] eventIds = this.eventIds;
+        byte[] types = this.types;
+        long[] timestamps = this.timestamps;
+        Object[] attributes = this.attributes;
+        byte[] states = this.states;
+        long[] initialEventIds = this.initialEventIds;
+        String[] actionIds = this.actionIds;
+        allocate(room + size);
+        System.arraycopy(eventIds, head, this.eventIds, room, size);
+        System.arraycopy(types, head, this.types, room, size);
+        System.arraycopy(timestamps, head, this.timestamps, room, size);
+        System.arraycopy(attributes, head, this.attributes, room, size);
+        System.arraycopy(states, head, this.states, room, size);
+        System.arraycopy(initialEventIds, head, this.initialEventIds, room, size);
+        System.arraycopy(actionIds, head, this.actionIds, room, size);
+        head = room;
+    }
+
+    private void indexColumns(int slot, int i) {
+        EventType type = TYPES[types[i]];
+        boolean timer = TimerStarted == type;
+        index.append(slot, eventIds[i], type, STATES[states[i]], initialEventIds[i] == NO_EVENT_ID ? null : initialEventIds[i], actionIds[i],
+            timer ? ((TimerStartedEventAttributes) attributes[i]).getControl() : null, timer ? new Date(timestamps[i]) : null);
+    }
+
+    private Event materialize(int i) {
+        EventType type = TYPES[types[i]];
+        HistoryEvent historyEvent = new HistoryEvent()
+            .withEventId(eventIds[i])
+            .withEventType(type)
+            .withEventTimestamp(new Date(timestamps[i]));
+        if (attributes[i] != null) {
+            invoke(ATTRIBUTE_SETTERS[type.ordinal()], historyEvent, attributes[i]);
+        }
+        return new Event(historyEvent);
+    }
+
+    // Slots never change once assigned, so a range of them always reads the same events
+    private final class Snapshot extends AbstractList<Event> implements RandomAccess {
+        private final int fromSlot;
+        private final int size;
+
+        Snapshot(int fromSlot, int size) {
+            this.fromSlot = fromSlot;
+            this.size = size;
+        }
+
+        @Override
+        public Event get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return slot(fromSlot + index);
+        }
+
+        @Override
+        public int size() { return size; }
+    }
+
+    private static Object invoke(Method method, HistoryEvent historyEvent, Object... args) {
+        try {
+            return method.invoke(historyEvent, args);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to access " + method.getName(), e);
+        }
+    }
+}
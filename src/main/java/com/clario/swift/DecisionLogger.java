@@ -0,0 +1,216 @@
+package com.clario.swift;
+
+import com.amazonaws.services.simpleworkflow.model.*;
+import org.slf4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Logs the decisions made by {@link DecisionPoller} for each decision task.
+ * <p/>
+ * At INFO each decision is logged as a one line summary, see {@link DecisionPoller#logNiceDecision}, rendered only when
+ * written, with payloads such as activity input, control values and results truncated to {@link #withMaxPayloadLength}.
+ * Chatty decision types can be sampled with {@link #withSampling} or capped with {@link #withMaxPerSecond}.
+ * With DEBUG enabled decisions are logged at DEBUG instead, with payloads truncated to the larger
+ * {@link #withMaxDebugPayloadLength}, still subject to sampling and limits.
+ * Nothing is rendered or allocated when INFO is off.
+ * <p/>
+ * Instances are thread-safe and may be shared by pollers.
+ *
+ * @author George Coller
+ * @see DecisionPoller#setDecisionLogger
+ */
+public class DecisionLogger {
+    public static final int DEFAULT_MAX_PAYLOAD_LENGTH = 256;
+    public static final int DEFAULT_MAX_DEBUG_PAYLOAD_LENGTH = 4096;
+
+    private static final DecisionType[] TYPES = DecisionType.values();
+
+    private int maxPayloadLength = DEFAULT_MAX_PAYLOAD_LENGTH;
+    private int maxDebugPayloadLength = DEFAULT_MAX_DEBUG_PAYLOAD_LENGTH;
+    private final int[] sampling = new int[TYPES.length];
+    private final int[] maxPerSecond = new int[TYPES.length];
+    private final AtomicLongArray counts = new AtomicLongArray(TYPES.length);
+    private final AtomicLongArray windowSeconds = new AtomicLongArray(TYPES.length);
+    private final AtomicLongArray windowCounts = new AtomicLongArray(TYPES.length);
+
+    /**
+     * Maximum characters of each payload logged at INFO, defaults to {@link #DEFAULT_MAX_PAYLOAD_LENGTH}.
+     */
+    public DecisionLogger withMaxPayloadLength(int maxPayloadLength) {
+        if (maxPayloadLength < 0) { throw new IllegalArgumentException("parameter maxPayloadLength must not be negative"); }
+        this.maxPayloadLength = maxPayloadLength;
+        return this;
+    }
+
+    /**
+     * Maximum characters of each payload logged when DEBUG is enabled, defaults to {@link #DEFAULT_MAX_DEBUG_PAYLOAD_LENGTH}.
+     */
+    public DecisionLogger withMaxDebugPayloadLength(int maxDebugPayloadLength) {
+        if (maxDebugPayloadLength < 0) { throw new IllegalArgumentException("parameter maxDebugPayloadLength must not be negative"); }
+        this.maxDebugPayloadLength = maxDebugPayloadLength;
+        return this;
+    }
+
+    /**
+     * Log only the first of every <code>oneIn</code> decisions of a type.
+     */
+    public DecisionLogger withSampling(DecisionType decisionType, int oneIn) {
+        if (oneIn < 1) { throw new IllegalArgumentException("parameter oneIn must be greater than zero"); }
+        sampling[decisionType.ordinal()] = oneIn;
+        return this;
+    }
+
+    /**
+     * Log at most <code>maxPerSecond</code> decisions of a type each second, decisions over the limit are dropped.
+     */
+    public DecisionLogger withMaxPerSecond(DecisionType decisionType, int maxPerSecond) {
+        if (maxPerSecond < 1) { throw new IllegalArgumentException("parameter maxPerSecond must be greater than zero"); }
+        this.maxPerSecond[decisionType.ordinal()] = maxPerSecond;
+        return this;
+    }
+
+    /**
+     * Log the decisions made for a workflow run.
+     */
+    public void log(Logger log, String workflowId, List<Decision> decisions) {
+        if (log.isDebugEnabled()) {
+            for (Decision decision : decisions) {
+                if (isLogged(decision.getDecisionType())) {
+                    log.debug("{} -> {}", workflowId, new Summary(decision, maxDebugPayloadLength));
+                }
+            }
+        } else if (log.isInfoEnabled()) {
+            for (Decision decision : decisions) {
+                if (isLogged(decision.getDecisionType())) {
+                    log.info("{} -> {}", workflowId, new Summary(decision, maxPayloadLength));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if a decision of the given type passes sampling and the rate limit
+     */
+    boolean isLogged(String decisionType) {
+        DecisionType type;
+        try {
+            type = DecisionType.fromValue(decisionType);
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+        int i = type.ordinal();
+        if (sampling[i] > 1 && (counts.getAndIncrement(i) % sampling[i]) != 0) {
+            return false;
+        }
+        if (maxPerSecond[i] > 0) {
+            long second = System.currentTimeMillis() / 1000;
+            long windowSecond = windowSeconds.get(i);
+            if (windowSecond != second && windowSeconds.compareAndSet(i, windowSecond, second)) {
+                windowCounts.set(i, 0);
+            }
+            return windowCounts.incrementAndGet(i) <= maxPerSecond[i];
+        }
+        return true;
+    }
+
+    /**
+     * One line summary of a decision with payloads truncated to <code>maxPayloadLength</code> characters.
+     *
+     * @return summary or null for decision types without one
+     */
+    static String summarize(Decision decision, int maxPayloadLength) {
+        String decisionType = decision.getDecisionType();
+        StringBuilder b = new StringBuilder(64).append(decisionType);
+        switch (DecisionType.valueOf(decisionType)) {
+            case ScheduleActivityTask:
+                ScheduleActivityTaskDecisionAttributes a1 = decision.getScheduleActivityTaskDecisionAttributes();
+                b.append("['").append(a1.getActivityId()).append("' '").append(a1.getActivityType().getName()).append("': ");
+                payload(b, a1.getInput(), maxPayloadLength).append(' ');
+                payload(b, a1.getControl(), maxPayloadLength).append(']');
+                break;
+            case CompleteWorkflowExecution:
+                b.append('[');
+                payload(b, decision.getCompleteWorkflowExecutionDecisionAttributes().getResult(), maxPayloadLength).append(']');
+                break;
+            case FailWorkflowExecution:
+                FailWorkflowExecutionDecisionAttributes a3 = decision.getFailWorkflowExecutionDecisionAttributes();
+                b.append('[');
+                payload(b, a3.getReason(), maxPayloadLength).append(' ');
+                payload(b, a3.getDetails(), maxPayloadLength).append(']');
+                break;
+            case CancelWorkflowExecution:
+                b.append('[');
+                payload(b, decision.getCancelWorkflowExecutionDecisionAttributes().getDetails(), maxPayloadLength).append(']');
+                break;
+            case ContinueAsNewWorkflowExecution:
+                b.append('[');
+                payload(b, decision.getContinueAsNewWorkflowExecutionDecisionAttributes().getInput(), maxPayloadLength).append(']');
+                break;
+            case RecordMarker:
+                RecordMarkerDecisionAttributes a6 = decision.getRecordMarkerDecisionAttributes();
+                b.append("['").append(a6.getMarkerName()).append("': ");
+                payload(b, a6.getDetails(), maxPayloadLength).append(']');
+                break;
+            case StartTimer:
+                StartTimerDecisionAttributes a7 = decision.getStartTimerDecisionAttributes();
+                b.append("['").append(a7.getTimerId()).append("': ");
+                payload(b, a7.getControl(), maxPayloadLength).append(']');
+                break;
+            case CancelTimer:
+                b.append("['").append(decision.getCancelTimerDecisionAttributes().getTimerId()).append("']");
+                break;
+            case SignalExternalWorkflowExecution:
+                SignalExternalWorkflowExecutionDecisionAttributes a9 = decision.getSignalExternalWorkflowExecutionDecisionAttributes();
+                b.append("['").append(a9.getSignalName()).append("' wf='").append(a9.getWorkflowId())
+                    .append("' runId='").append(a9.getRunId()).append("': '");
+                payload(b, a9.getInput(), maxPayloadLength).append("' '");
+                payload(b, a9.getControl(), maxPayloadLength).append("']");
+                break;
+            case RequestCancelExternalWorkflowExecution:
+                RequestCancelExternalWorkflowExecutionDecisionAttributes a10 = decision.getRequestCancelExternalWorkflowExecutionDecisionAttributes();
+                b.append("[wf='").append(a10.getWorkflowId()).append("' runId='").append(a10.getRunId()).append("': '");
+                payload(b, a10.getControl(), maxPayloadLength).append("']");
+                break;
+            case StartChildWorkflowExecution:
+                StartChildWorkflowExecutionDecisionAttributes a11 = decision.getStartChildWorkflowExecutionDecisionAttributes();
+                b.append("['").append(a11.getWorkflowId()).append("' '").append(a11.getWorkflowType().getName()).append("': '");
+                payload(b, a11.getInput(), maxPayloadLength).append("' '");
+                payload(b, a11.getControl(), maxPayloadLength).append("']");
+                break;
+            case RequestCancelActivityTask:
+                b.append('[').append(decision.getRequestCancelActivityTaskDecisionAttributes().getActivityId()).append(']');
+                break;
+            default:
+                return null;
+        }
+        return b.toString();
+    }
+
+    private static StringBuilder payload(StringBuilder b, String value, int maxPayloadLength) {
+        if (value == null || value.length() <= maxPayloadLength) {
+            return b.append(value);
+        }
+        return b.append(value, 0, maxPayloadLength).append("...(").append(value.length()).append(" chars)");
+    }
+
+    /**
+     * Rendered by the logger only when written.
+     */
+    private static class Summary {
+        private final Decision decision;
+        private final int maxPayloadLength;
+
+        Summary(Decision decision, int maxPayloadLength) {
+            this.decision = decision;
+            this.maxPayloadLength = maxPayloadLength;
+        }
+
+        @Override
+        public String toString() {
+            String summary = summarize(decision, maxPayloadLength);
+            return summary == null ? decision.getDecisionType() : summary;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.clario.swift;
+
+import com.amazonaws.services.simpleworkflow.model.DecisionTask;
+import com.amazonaws.services.simpleworkflow.model.RespondDecisionTaskCompletedRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.lang.String.format;
+
+/**
+ * Run a {@link DecisionPoller} as a pipeline so that long-polling for decision tasks is not held up by slow
+ * deciding or responding.
+ * <p/>
+ * Stages, each with its own threads:
+ * <ul>
+ * <li>poll: long-poll SWF for the first page of each decision task and put it on a bounded queue,
+ * waiting when the queue is full</li>
+ * <li>decide: take tasks from the queue, page the rest of their history and ask the workflow for decisions</li>
+ * <li>respond: send decisions to SWF, when its queue is full the decide thread responds itself</li>
+ * </ul>
+ * Keep the queue small; decision tasks waiting in it count against the workflow's task start-to-close timeout.
+ * <p/>
+ * Register workflows on the poller with {@link DecisionPoller#addWorkflows(java.util.function.Supplier)} so that
+ * decide threads can work on different runs of the same workflow at once.
+ *
+ * @author George Coller
+ */
+public class DecisionPipeline {
+    private static final Logger log = LoggerFactory.getLogger(DecisionPipeline.class);
+    private static final long ERROR_BACKOFF_MILLIS = 1000;
+
+    private final DecisionPoller poller;
+    private int pollThreads = 1;
+    private int decideThreads = Runtime.getRuntime().availableProcessors();
+    private int respondThreads = 1;
+    private int queueSize = 10;
+
+    private volatile List<Thread> threads = new ArrayList<>();
+    private final AtomicInteger polling = new AtomicInteger();
+    private final AtomicInteger deciding = new AtomicInteger();
+    private volatile BlockingQueue<DecisionTask> tasks;
+    private volatile ThreadPoolExecutor responders;
+    private volatile boolean running;
+
+    public DecisionPipeline(DecisionPoller poller) {
+        this.poller = poller;
+    }
+
+    /**
+     * Number of threads long-polling SWF, default 1.
+     */
+    public DecisionPipeline withPollThreads(int pollThreads) {
+        this.pollThreads = assertPositive(pollThreads, "pollThreads");
+        return this;
+    }
+
+    /**
+     * Number of threads deciding tasks, default is the number of available processors.
+     */
+    public DecisionPipeline withDecideThreads(int decideThreads) {
+        this.decideThreads = assertPositive(decideThreads, "decideThreads");
+        return this;
+    }
+
+    /**
+     * Number of threads sending decisions to SWF, default 1.
+     */
+    public DecisionPipeline withRespondThreads(int respondThreads) {
+        this.respondThreads = assertPositive(respondThreads, "respondThreads");
+        return this;
+    }
+
+    /**
+     * Maximum decision tasks waiting to be decided, and responses waiting to be sent, default 10.
+     */
+    public DecisionPipeline withQueueSize(int queueSize) {
+        this.queueSize = assertPositive(queueSize, "queueSize");
+        return this;
+    }
+
+    /**
+     * Start all stage threads.
+     * <p/>
+     * A stopped pipeline can be started again once the threads of the previous start have finished,
+     * see {@link #awaitTermination}.
+     */
+    public synchronized void start() {
+        if (running) { throw new IllegalStateException(format("%s already started", this)); }
+        for (Thread thread : threads) {
+            if (thread.isAlive()) { throw new IllegalStateException(format("%s still stopping, await termination before starting", this)); }
+        }
+        if (responders != null) {
+            // queued responses of the previous start are still sent
+            responders.shutdown();
+        }
+        running = true;
+        tasks = new ArrayBlockingQueue<>(queueSize);
+        responders = new ThreadPoolExecutor(respondThreads, respondThreads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueSize), runnable -> new Thread(runnable, poller.getId() + " respond"),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+        List<Thread> threads = new ArrayList<>();
+        polling.set(pollThreads);
+        for (int i = 1; i <= pollThreads; i++) {
+            threads.add(new Thread(this::pollLoop, format("%s poll %d", poller.getId(), i)));
+        }
+        for (int i = 1; i <= decideThreads; i++) {
+            threads.add(new Thread(this::decideLoop, format("%s decide %d", poller.getId(), i)));
+        }
+        this.threads = threads;
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        log.info(format("%s started", this));
+    }
+
+    /**
+     * Stop polling for new decision tasks. Tasks already queued are still decided and responded.
+     */
+    public synchronized void stop() {
+        running = false;
+        log.info(format("%s stopping", this));
+    }
+
+    /**
+     * Wait for stage threads to finish after {@link #stop()}.
+     *
+     * @return true if all threads finished within the timeout
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        List<Thread> threads = this.threads;
+        ThreadPoolExecutor responders = this.responders;
+        if (responders == null) {
+            return true;
+        }
+        long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+        for (Thread thread : threads) {
+            thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+            if (thread.isAlive()) {
+                return false;
+            }
+        }
+        responders.shutdown();
+        return responders.awaitTermination(Math.max(1, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isRunning() { return running; }
+
+    /**
+     * @return decision tasks polled and waiting for a decide thread.
+     */
+    public int getQueuedTaskCount() { return tasks == null ? 0 : tasks.size(); }
+
+    /**
+     * @return decision tasks currently being decided.
+     */
+    public int getDecidingTaskCount() { return deciding.get(); }
+
+    /**
+     * @return responses waiting for a respond thread.
+     */
+    public int getQueuedResponseCount() { return responders == null ? 0 : responders.getQueue().size(); }
+
+    private void pollLoop() {
+        try {
+            while (running && !poller.isStopped()) {
+                try {
+                    DecisionTask decisionTask = poller.pollForDecisionTask();
+                    if (decisionTask != null) {
+                        tasks.put(decisionTask);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Throwable t) {
+                    log.error(format("%s: poll failed", poller), t);
+                    backoff();
+                }
+            }
+        } finally {
+            polling.decrementAndGet();
+        }
+    }
+
+    // Keep deciding until polling has finished and the queue is drained
+    private void decideLoop() {
+        while (polling.get() > 0 || !tasks.isEmpty()) {
+            DecisionTask decisionTask;
+            try {
+                decisionTask = tasks.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (decisionTask != null) {
+                deciding.incrementAndGet();
+                try {
+                    String workflowId = decisionTask.getWorkflowExecution().getWorkflowId();
+                    String workflowType = DecisionPoller.workflowTypeKey(decisionTask);
+                    RespondDecisionTaskCompletedRequest response = poller.decide(decisionTask);
+                    responders.execute(() -> poller.respond(workflowId, workflowType, response));
+                } catch (Throwable t) {
+                    log.error(format("%s: decide failed", poller), t);
+                } finally {
+                    deciding.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    private void backoff() {
+        try {
+            Thread.sleep(ERROR_BACKOFF_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static int assertPositive(int value, String name) {
+        if (value < 1) { throw new IllegalArgumentException(format("parameter %s must be greater than zero", name)); }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return format("DecisionPipeline '%s' poll=%d decide=%d respond=%d queue=%d", poller.getId(), pollThreads, decideThreads, respondThreads, queueSize);
+    }
+}
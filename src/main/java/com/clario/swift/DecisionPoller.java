@@ -8,6 +8,10 @@ import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import static com.amazonaws.services.simpleworkflow.model.EventType.WorkflowExecutionCancelRequested;
 import static com.clario.swift.EventList.convert;
@@ -29,7 +33,15 @@ import static java.lang.String.format;
  */
 public class DecisionPoller extends BasePoller {
     private final Map<String, Workflow> workflows = new LinkedHashMap<>();
+    private final Map<String, Supplier<? extends Workflow>> workflowFactories = new LinkedHashMap<>();
     private final String executionContext;
+    private WorkflowHistoryCache historyCache;
+    private ExecutorService historyPrefetchExecutor;
+    private HistoryInterner historyInterner;
+    private DecisionLogger decisionLogger = new DecisionLogger();
+
+    static final int CACHE_NOT_REACHED = -1;
+    static final int CACHE_MISMATCH = -2;
 
     /**
      * Construct a decision poller.
@@ -77,49 +89,187 @@ public class DecisionPoller extends BasePoller {
             workflow.withDomain(domain).withTaskList(taskList);
             workflow.assertCanAddToPoller();
             this.workflows.put(workflow.getKey(), workflow);
+            this.workflowFactories.remove(workflow.getKey());
         }
     }
 
+    /**
+     * Add a {@link Workflow} factory to the poller mirroring a Workflow Type registered on SWF with this poller's domain and task list.
+     * <p/>
+     * A new workflow instance, with its own {@link com.clario.swift.action.Action} instances, is created for each decision task
+     * so that one poller can decide many workflow runs concurrently when {@link #run} is called from multiple threads.
+     * Workflows added as instances with {@link #addWorkflows(Workflow...)} are shared and decide one task at a time.
+     *
+     * @param workflowFactory creates a new instance of the same workflow name and version on each call
+     */
+    public void addWorkflows(Supplier<? extends Workflow> workflowFactory) {
+        Workflow prototype = workflowFactory.get();
+        log.info(format("add workflow factory %s", prototype));
+        prototype.withDomain(domain).withTaskList(taskList);
+        this.workflows.put(prototype.getKey(), prototype);
+        this.workflowFactories.put(prototype.getKey(), workflowFactory);
+    }
+
+    /**
+     * Long-poll for a decision task, load its history, decide and respond, all on the calling thread.
+     *
+     * @see DecisionPipeline DecisionPipeline to run these steps on separate thread pools.
+     */
     @Override
     protected void poll() {
+        DecisionTask decisionTask = pollForDecisionTask();
+        if (decisionTask != null) {
+            respond(decisionTask.getWorkflowExecution().getWorkflowId(), workflowTypeKey(decisionTask), decide(decisionTask));
+        }
+    }
+
+    /**
+     * Long-poll SWF for the first page of the next decision task.
+     *
+     * @return decision task or null if the poll timed out without a task
+     */
+    DecisionTask pollForDecisionTask() {
+        long start = System.nanoTime();
+        DecisionTask decisionTask = swf.pollForDecisionTask(createPollForDecisionTaskRequest());
+        metrics.recordPoll(TaskType.DECISION, System.nanoTime() - start, decisionTask.getTaskToken() == null);
+        if (isLogTimeout()) { log.info("heartbeat"); }
+        recordPoll(decisionTask.getTaskToken() == null);
+        return decisionTask.getTaskToken() == null ? null : decisionTask;
+    }
+
+    /**
+     * @return approximate number of decision tasks waiting on this poller's task list.
+     */
+    @Override
+    public int countPendingTasks() {
+        return swf.countPendingDecisionTasks(new CountPendingDecisionTasksRequest()
+            .withDomain(domain)
+            .withTaskList(new TaskList().withName(taskList))).getCount();
+    }
+
+    /**
+     * Load the remaining history pages of a decision task into its workflow and ask the workflow for the next decisions.
+     * Shared workflow instances are locked for the duration.
+     *
+     * @param decisionTask first page of a decision task returned by {@link #pollForDecisionTask()}
+     *
+     * @return request to send to SWF with {@link #respond}
+     */
+    RespondDecisionTaskCompletedRequest decide(DecisionTask decisionTask) {
+        String key = workflowTypeKey(decisionTask);
+        if (workflowFactories.containsKey(key)) {
+            return decide(decisionTask, newWorkflow(key));
+        } else {
+            Workflow workflow = lookupWorkflow(key);
+            synchronized (workflow) {
+                return decide(decisionTask, workflow);
+            }
+        }
+    }
+
+    /**
+     * Send decisions to SWF, logging any failure.
+     *
+     * @param workflowType workflow type key of the decision task, see {@link #workflowTypeKey}
+     */
+    void respond(String workflowId, String workflowType, RespondDecisionTaskCompletedRequest request) {
+        long start = System.nanoTime();
+        try {
+            swf.respondDecisionTaskCompleted(request);
+            metrics.recordRespond(TaskType.DECISION, workflowType, System.nanoTime() - start, true);
+            for (Decision decision : request.getDecisions()) {
+                metrics.recordDecision(workflowType, decision.getDecisionType());
+            }
+        } catch (Exception e) {
+            metrics.recordRespond(TaskType.DECISION, workflowType, System.nanoTime() - start, false);
+            log.error(format("%s: respond decision task completed failed", workflowId), e);
+        }
+    }
+
+    /**
+     * @return key of the workflow name and version of a decision task
+     */
+    static String workflowTypeKey(DecisionTask decisionTask) {
+        return makeKey(decisionTask.getWorkflowType().getName(), decisionTask.getWorkflowType().getVersion());
+    }
+
+    private RespondDecisionTaskCompletedRequest decide(DecisionTask decisionTask, Workflow workflow) {
         // Events are request in newest-first reverse order;
-        PollForDecisionTaskRequest request = createPollForDecisionTaskRequest();
-        DecisionTask decisionTask = null;
-        Workflow workflow = null;
-
-        while (decisionTask == null || decisionTask.getNextPageToken() != null) {
-            decisionTask = swf.pollForDecisionTask(request);
-            if (isLogTimeout()) { log.info("heartbeat"); }
-            if (decisionTask.getTaskToken() == null) {
-                if (workflow == null) { return; } // return immediately if not currently collecting events for a workflow decision
-            } else {
-                if (workflow == null) {
-                    workflow = lookupWorkflow(decisionTask)
-                        .withDomain(domain)
-                        .withTaskList(taskList)
-                        .withWorkflowId(decisionTask.getWorkflowExecution().getWorkflowId())
-                        .withRunId(decisionTask.getWorkflowExecution().getRunId());
-                    workflow.init();
-                }
-                workflow.addEvents(convert(decisionTask.getEvents()));
+        workflow
+            .withDomain(domain)
+            .withTaskList(taskList)
+            .withWorkflowId(decisionTask.getWorkflowExecution().getWorkflowId())
+            .withRunId(decisionTask.getWorkflowExecution().getRunId());
+        workflow.init();
+        String taskToken = decisionTask.getTaskToken();
+        CompactHistory cachedHistory = historyCache == null ? null : historyCache.take(workflow.getWorkflowId(), workflow.getRunId());
+        // Events newer than the cached history, added to it once it is reached
+        List<Event> newEvents = new ArrayList<>();
+        boolean completeHistory = true;
+        Future<DecisionTask> nextPage = null;
+        String workflowType = workflow.getKey();
+        long historyStart = System.nanoTime();
+        int pageCount = 0;
+        int eventCount = 0;
+
+        try {
+            while (true) {
+                List<Event> events = convert(intern(decisionTask.getEvents()));
+                pageCount++;
+                eventCount += events.size();
 
+                if (cachedHistory != null) {
+                    int newEventCount = countNewEvents(events, cachedHistory);
+                    if (newEventCount >= 0) {
+                        // Reached history already seen, no need to page any further
+                        newEvents.addAll(events.subList(0, newEventCount));
+                        cachedHistory.prepend(newEvents);
+                        workflow.useCachedHistory(cachedHistory);
+                        break;
+                    } else if (newEventCount == CACHE_MISMATCH) {
+                        log.warn(format("%s %s: cached history does not match, reloading", workflow.getWorkflowId(), workflow.getRunId()));
+                        cachedHistory = null;
+                    } else {
+                        newEvents.addAll(events);
+                    }
+                }
+                // Cached history not reached, fetch the next page while this one is added unless paging already stopped
                 if (workflow.isContinuePollingForHistoryEvents()) {
-                    request.setNextPageToken(decisionTask.getNextPageToken());
-                } else {
-                    decisionTask.setNextPageToken(null);
+                    nextPage = prefetchNextPage(decisionTask);
                 }
+                workflow.addEvents(events);
+
+                if (decisionTask.getNextPageToken() == null) {
+                    break;
+                } else if (!workflow.isContinuePollingForHistoryEvents()) {
+                    completeHistory = false;
+                    break;
+                }
+                decisionTask = nextPage == null ? swf.pollForDecisionTask(createNextPageRequest(decisionTask)) : awaitPage(nextPage);
+                nextPage = null;
+            }
+        } finally {
+            if (nextPage != null) {
+                nextPage.cancel(true);
             }
         }
 
+        metrics.recordHistory(workflowType, pageCount, eventCount, System.nanoTime() - historyStart);
+
+        if (historyCache != null && cachedHistory == null && completeHistory && WorkflowHistoryCache.isComplete(workflow.getEvents())) {
+            cachedHistory = new CompactHistory(workflow.getEvents());
+        }
+
         // Finished loading history for this workflow, now ask it to make the next set of decisions.
-        String workflowId = decisionTask.getWorkflowExecution().getWorkflowId();
-        String runId = decisionTask.getWorkflowExecution().getRunId();
+        String workflowId = workflow.getWorkflowId();
+        String runId = workflow.getRunId();
 
         List<Decision> decisions = new ArrayList<Decision>();
         EventList currentEvents = workflow.getEvents().selectSinceLastDecision();
 
         List<Event> workflowErrors = currentEvents.selectTaskType(WORKFLOW_EXECUTION).selectEventState(ERROR);
         if (workflowErrors.isEmpty()) {
+            long decideStart = System.nanoTime();
             try {
                 Event cancelEvent = currentEvents.selectEventType(WorkflowExecutionCancelRequested).getFirst();
                 if (cancelEvent != null) {
@@ -127,20 +277,14 @@ public class DecisionPoller extends BasePoller {
                 }
 
                 workflow.decide(decisions);
+                metrics.recordDecide(workflowType, System.nanoTime() - decideStart, true);
                 if (decisions.isEmpty()) {
                     log.debug("{} no decisions", workflowId, runId);
                 } else {
-                    if (log.isInfoEnabled()) {
-                        for (Decision decision : decisions) {
-                            log.info("{} -> {}", workflowId, logNiceDecision(decision));
-                        }
-                    } else if (log.isDebugEnabled()) {
-                        for (Decision decision : decisions) {
-                            log.debug("{} -> {}", workflowId, decision);
-                        }
-                    }
+                    decisionLogger.log(log, workflowId, decisions);
                 }
             } catch (Throwable t) {
+                metrics.recordDecide(workflowType, System.nanoTime() - decideStart, false);
                 String runInfo = format("%s %s", workflowId, runId);
                 log.error(runInfo, t);
                 decisions.add(createFailWorkflowExecutionDecision(runInfo, t.getMessage(), printStackTrace(t)));
@@ -158,13 +302,133 @@ public class DecisionPoller extends BasePoller {
             log.warn("No decisions made during poll");
         }
 
+        // Taken out of the cache while loading, events pushed during decide stay with the workflow
+        if (cachedHistory != null && !isCloseDecision(decisions)) {
+            historyCache.put(workflowId, runId, cachedHistory);
+        }
+
+        return createRespondDecisionTaskCompletedRequest(taskToken, decisions);
+    }
+
+    private List<HistoryEvent> intern(List<HistoryEvent> historyEvents) {
+        if (historyInterner != null) {
+            for (HistoryEvent historyEvent : historyEvents) {
+                historyInterner.intern(historyEvent);
+            }
+        }
+        return historyEvents;
+    }
+
+    private PollForDecisionTaskRequest createNextPageRequest(DecisionTask decisionTask) {
+        return createPollForDecisionTaskRequest().withNextPageToken(decisionTask.getNextPageToken());
+    }
+
+    // Start fetching the page after the given one, if there is one and prefetching is enabled
+    private Future<DecisionTask> prefetchNextPage(DecisionTask decisionTask) {
+        if (historyPrefetchExecutor == null || decisionTask.getNextPageToken() == null) {
+            return null;
+        }
+        PollForDecisionTaskRequest request = createNextPageRequest(decisionTask);
+        return historyPrefetchExecutor.submit(() -> swf.pollForDecisionTask(request));
+    }
+
+    private static DecisionTask awaitPage(Future<DecisionTask> page) {
         try {
-            swf.respondDecisionTaskCompleted(createRespondDecisionTaskCompletedRequest(decisionTask.getTaskToken(), decisions));
-        } catch (Exception e) {
-            log.error(format("%s: %s", workflowId, workflow), e);
+            return page.get();
+        } catch (InterruptedException e) {
+            page.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading history page", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Failed to load history page", cause);
         }
     }
 
+    /**
+     * Find where a page of history events joins history cached from a prior decision task.
+     *
+     * @param events page of events in descending {@link Event#getEventId()} order
+     * @param cachedEvents complete cached history in descending {@link Event#getEventId()} order
+     *
+     * @return number of events in the page newer than the cached history,
+     * {@link #CACHE_NOT_REACHED} if all page events are newer,
+     * or {@link #CACHE_MISMATCH} if the page overlaps the cached history but does not match it.
+     */
+    static int countNewEvents(List<Event> events, List<Event> cachedEvents) {
+        long newestCachedEventId = cachedEvents.get(0).getEventId();
+        for (int i = 0; i < events.size(); i++) {
+            long eventId = events.get(i).getEventId();
+            if (eventId <= newestCachedEventId) {
+                int cachedIndex = (int) (newestCachedEventId - eventId);
+                boolean matches = events.get(i).equals(cachedEvents.get(cachedIndex))
+                    && (i == 0 || events.get(i - 1).getEventId() == eventId + 1);
+                return matches ? i : CACHE_MISMATCH;
+            }
+        }
+        return CACHE_NOT_REACHED;
+    }
+
+    private static boolean isCloseDecision(List<Decision> decisions) {
+        for (Decision decision : decisions) {
+            switch (DecisionType.valueOf(decision.getDecisionType())) {
+                case CompleteWorkflowExecution:
+                case FailWorkflowExecution:
+                case CancelWorkflowExecution:
+                case ContinueAsNewWorkflowExecution:
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Share a {@link WorkflowHistoryCache} with this poller so that decision tasks for recently decided workflow runs
+     * only page through new history events.
+     * <p/>
+     * Workflows that implement {@link Workflow#isContinuePollingForHistoryEvents()} to stop early are not cached.
+     *
+     * @param historyCache cache, or null to disable caching (the default)
+     */
+    public void setHistoryCache(WorkflowHistoryCache historyCache) { this.historyCache = historyCache; }
+
+    /**
+     * Fetch the next page of a decision task's history on the given executor while the current page is added to the
+     * workflow, so that the SWF round trip overlaps with that work.
+     * <p/>
+     * At most one page is fetched ahead of the page being added.  A page reaching cached history, or arriving after
+     * {@link Workflow#isContinuePollingForHistoryEvents()} returned false, fetches nothing ahead.  The prefetch is
+     * cancelled when adding the current page stops paging.
+     * {@link VirtualThreads#newThreadPerTaskExecutor} is a good fit where supported,
+     * the executor is not shut down by this poller.
+     *
+     * @param historyPrefetchExecutor executor, or null to fetch each page on the deciding thread (the default)
+     */
+    public void setHistoryPrefetchExecutor(ExecutorService historyPrefetchExecutor) {
+        this.historyPrefetchExecutor = historyPrefetchExecutor;
+    }
+
+    /**
+     * Share repeated strings across the history events of each decision task, see {@link HistoryInterner}.
+     *
+     * @param historyInterner pool, which may be shared with other pollers, or null to disable (the default)
+     */
+    public void setHistoryInterner(HistoryInterner historyInterner) { this.historyInterner = historyInterner; }
+
+    /**
+     * Control how decisions are logged, for example to truncate large inputs or sample chatty decision types.
+     *
+     * @param decisionLogger logger, or null for a {@link DecisionLogger} with default settings
+     */
+    public void setDecisionLogger(DecisionLogger decisionLogger) {
+        this.decisionLogger = decisionLogger == null ? new DecisionLogger() : decisionLogger;
+    }
+
     /**
      * If a {@link DecisionType#FailWorkflowExecution} decision is made then remove all other decisions.
      * In practice it has been seen that additional decisions (including additional
@@ -194,53 +458,11 @@ public class DecisionPoller extends BasePoller {
      * Create a nice log message based on the {@link DecisionType} for the given decision.
      */
     public static String logNiceDecision(Decision decision) {
-        String decisionType = decision.getDecisionType();
-        switch (DecisionType.valueOf(decision.getDecisionType())) {
-            case ScheduleActivityTask:
-                ScheduleActivityTaskDecisionAttributes a1 = decision.getScheduleActivityTaskDecisionAttributes();
-                return String.format("%s['%s' '%s': %s %s]", decisionType, a1.getActivityId(), a1.getActivityType().getName(), a1.getInput(), a1.getControl());
-            case CompleteWorkflowExecution:
-                CompleteWorkflowExecutionDecisionAttributes a2 = decision.getCompleteWorkflowExecutionDecisionAttributes();
-                return String.format("%s[%s]", decisionType, a2.getResult());
-            case FailWorkflowExecution:
-                FailWorkflowExecutionDecisionAttributes a3 = decision.getFailWorkflowExecutionDecisionAttributes();
-                return String.format("%s[%s %s]", decisionType, a3.getReason(), a3.getDetails());
-            case CancelWorkflowExecution:
-                CancelWorkflowExecutionDecisionAttributes a4 = decision.getCancelWorkflowExecutionDecisionAttributes();
-                return String.format("%s[%s]", decisionType, a4.getDetails());
-            case ContinueAsNewWorkflowExecution:
-                ContinueAsNewWorkflowExecutionDecisionAttributes a5 = decision.getContinueAsNewWorkflowExecutionDecisionAttributes();
-                return String.format("%s[%s]", decisionType, a5.getInput());
-            case RecordMarker:
-                RecordMarkerDecisionAttributes a6 = decision.getRecordMarkerDecisionAttributes();
-                return String.format("%s['%s': %s]", decisionType, a6.getMarkerName(), a6.getDetails());
-            case StartTimer:
-                StartTimerDecisionAttributes a7 = decision.getStartTimerDecisionAttributes();
-                return String.format("%s['%s': %s]", decisionType, a7.getTimerId(), a7.getControl());
-            case CancelTimer:
-                CancelTimerDecisionAttributes a8 = decision.getCancelTimerDecisionAttributes();
-                return String.format("%s['%s']", decisionType, a8.getTimerId());
-            case SignalExternalWorkflowExecution:
-                SignalExternalWorkflowExecutionDecisionAttributes a9 = decision.getSignalExternalWorkflowExecutionDecisionAttributes();
-                return String.format("%s['%s' wf='%s' runId='%s': '%s' '%s']", decisionType, a9.getSignalName(), a9.getWorkflowId(), a9.getRunId(), a9.getInput(), a9.getControl());
-            case RequestCancelExternalWorkflowExecution:
-                RequestCancelExternalWorkflowExecutionDecisionAttributes a10 = decision.getRequestCancelExternalWorkflowExecutionDecisionAttributes();
-                return String.format("%s[wf='%s' runId='%s': '%s']", decisionType, a10.getWorkflowId(), a10.getRunId(), a10.getControl());
-            case StartChildWorkflowExecution:
-                StartChildWorkflowExecutionDecisionAttributes a11 = decision.getStartChildWorkflowExecutionDecisionAttributes();
-                return String.format("%s['%s' '%s': '%s' '%s']", decisionType, a11.getWorkflowId(), a11.getWorkflowType().getName(), a11.getInput(), a11.getControl());
-            case RequestCancelActivityTask:
-                RequestCancelActivityTaskDecisionAttributes a12 = decision.getRequestCancelActivityTaskDecisionAttributes();
-                return String.format("%s[%s]", decisionType, a12.getActivityId());
-        }
-        return null;
+        return DecisionLogger.summarize(decision, Integer.MAX_VALUE);
     }
 
     // find the registered workflow related to the current decision task
-    private Workflow lookupWorkflow(DecisionTask decisionTask) {
-        String name = decisionTask.getWorkflowType().getName();
-        String version = decisionTask.getWorkflowType().getVersion();
-        String key = makeKey(name, version);
+    private Workflow lookupWorkflow(String key) {
         Workflow workflow = workflows.get(key);
         if (workflow == null) {
             throw new IllegalStateException(format("Received decision task for unregistered workflow %s", key));
@@ -248,6 +470,15 @@ public class DecisionPoller extends BasePoller {
         return workflow;
     }
 
+    // create a workflow instance for a single decision task
+    private Workflow newWorkflow(String key) {
+        Workflow workflow = workflowFactories.get(key).get();
+        if (!key.equals(workflow.getKey())) {
+            throw new IllegalStateException(format("Workflow factory for %s created workflow %s", key, workflow.getKey()));
+        }
+        return workflow;
+    }
+
     public RespondDecisionTaskCompletedRequest createRespondDecisionTaskCompletedRequest(String taskToken, List<Decision> decisions) {
         return new RespondDecisionTaskCompletedRequest()
             .withDecisions(decisions)
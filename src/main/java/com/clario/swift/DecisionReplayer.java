@@ -0,0 +1,209 @@
+package com.clario.swift;
+
+import com.amazonaws.services.simpleworkflow.model.Decision;
+import com.amazonaws.services.simpleworkflow.model.DecisionTask;
+import com.amazonaws.services.simpleworkflow.model.EventType;
+import com.amazonaws.services.simpleworkflow.model.HistoryEvent;
+import com.amazonaws.services.simpleworkflow.model.WorkflowExecution;
+import com.amazonaws.services.simpleworkflow.model.WorkflowType;
+import com.amazonaws.services.simpleworkflow.model.transform.DecisionTaskJsonUnmarshaller;
+import com.amazonaws.transform.JsonUnmarshallerContextImpl;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import static java.lang.String.format;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Replay recorded workflow histories through {@link Workflow#decide} offline, for regression testing workflow changes
+ * and measuring decision cost before a deploy.
+ * <p/>
+ * Each history is decided by the given {@link DecisionPoller} exactly as a decision task from SWF would be,
+ * so register workflows with {@link DecisionPoller#addWorkflows(java.util.function.Supplier)} to get a fresh instance
+ * per decision and to let histories be replayed in parallel.  The poller never calls SWF since recorded histories have
+ * no next page token, and should not have a {@link WorkflowHistoryCache}.
+ * <p/>
+ * By default only the most recent decision task of each history is replayed, {@link #withEveryDecision()} replays
+ * the history as it was at each {@link EventType#DecisionTaskStarted} event.
+ * Every decision is made twice and reported as non-deterministic if the two sets of decisions differ,
+ * for example when a workflow uses the current time or random values to decide.
+ * <p/>
+ * Histories are recorded in the native SWF {@link DecisionTask} json format, see {@link #load(Path)}.
+ *
+ * @author George Coller
+ * @see ReplayReport
+ */
+public class DecisionReplayer {
+    private static final String TASK_TOKEN = "replay";
+
+    private final DecisionPoller poller;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private boolean everyDecision;
+    private boolean determinismCheck = true;
+
+    /**
+     * @param poller poller with the workflows of the histories to replay registered
+     */
+    public DecisionReplayer(DecisionPoller poller) {
+        this.poller = poller;
+    }
+
+    /**
+     * Number of histories replayed at once, default is the number of available processors.
+     */
+    public DecisionReplayer withParallelism(int parallelism) {
+        if (parallelism < 1) { throw new IllegalArgumentException("parameter parallelism must be greater than zero"); }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Replay every decision task in each history rather than only the most recent one.
+     */
+    public DecisionReplayer withEveryDecision() {
+        everyDecision = true;
+        return this;
+    }
+
+    /**
+     * Decide each decision task once, without checking that the same decisions are made again.
+     */
+    public DecisionReplayer withNoDeterminismCheck() {
+        determinismCheck = false;
+        return this;
+    }
+
+    /**
+     * Replay histories, at most {@link #withParallelism} at a time.
+     *
+     * @param histories recorded histories with events in descending event id order, see {@link #load(Path)}
+     *
+     * @return results in the same order as the histories
+     */
+    public ReplayReport replay(List<DecisionTask> histories) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<ReplayReport.HistoryResult> results = pool.submit(() -> IntStream.range(0, histories.size())
+                .parallel()
+                .mapToObj(i -> replay(histories.get(i), i))
+                .collect(toList())).join();
+            return new ReplayReport(results);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private ReplayReport.HistoryResult replay(DecisionTask history, int index) {
+        String name = history.getWorkflowExecution() == null ? "history-" + index : history.getWorkflowExecution().getWorkflowId();
+        ReplayReport.HistoryResult result = new ReplayReport.HistoryResult(name);
+        try {
+            List<DecisionTask> tasks = decisionTasks(history, name);
+            if (tasks.isEmpty()) {
+                result.error = "no DecisionTaskStarted event";
+            }
+            for (DecisionTask task : tasks) {
+                long start = System.nanoTime();
+                List<Decision> decisions = poller.decide(task).getDecisions();
+                long nanos = System.nanoTime() - start;
+                boolean deterministic = !determinismCheck || decisions.equals(poller.decide(task).getDecisions());
+                result.add(task.getStartedEventId(), decisions, nanos, deterministic);
+            }
+        } catch (RuntimeException e) {
+            result.error = e.toString();
+        }
+        return result;
+    }
+
+    /**
+     * @return decision tasks for each {@link EventType#DecisionTaskStarted} event of a history, newest first,
+     * or only the newest unless {@link #withEveryDecision()}.
+     */
+    List<DecisionTask> decisionTasks(DecisionTask history, String name) {
+        List<HistoryEvent> events = history.getEvents();
+        if (events.isEmpty()) {
+            return Collections.emptyList();
+        }
+        WorkflowType workflowType = history.getWorkflowType();
+        HistoryEvent oldest = events.get(events.size() - 1);
+        if (workflowType == null && oldest.getWorkflowExecutionStartedEventAttributes() != null) {
+            workflowType = oldest.getWorkflowExecutionStartedEventAttributes().getWorkflowType();
+        }
+        if (workflowType == null) {
+            throw new IllegalArgumentException(format("%s: workflow type unknown, history does not start with WorkflowExecutionStarted", name));
+        }
+        WorkflowExecution execution = history.getWorkflowExecution() == null
+            ? new WorkflowExecution().withWorkflowId(name).withRunId(TASK_TOKEN)
+            : history.getWorkflowExecution();
+
+        List<DecisionTask> tasks = new ArrayList<>();
+        for (int i = 0; i < events.size(); i++) {
+            HistoryEvent event = events.get(i);
+            if (EventType.DecisionTaskStarted.toString().equals(event.getEventType())) {
+                tasks.add(new DecisionTask()
+                    .withTaskToken(TASK_TOKEN)
+                    .withStartedEventId(event.getEventId())
+                    .withWorkflowType(workflowType)
+                    .withWorkflowExecution(execution)
+                    .withEvents(events.subList(i, events.size())));
+                if (!everyDecision) {
+                    break;
+                }
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Load a history recorded in the native SWF {@link DecisionTask} json format, for example the response of
+     * <code>aws swf get-workflow-execution-history</code> with events in descending order.
+     * The workflow id defaults to the file name when not recorded.
+     */
+    public static DecisionTask load(Path file) throws IOException {
+        String json = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        DecisionTask history;
+        try {
+            JsonParser parser = new JsonFactory().createParser(json);
+            history = new DecisionTaskJsonUnmarshaller().unmarshall(new JsonUnmarshallerContextImpl(parser));
+        } catch (Exception e) {
+            throw new IOException("Unable to parse history file " + file, e);
+        }
+        if (history.getWorkflowExecution() == null) {
+            String fileName = file.getFileName().toString();
+            history.setWorkflowExecution(new WorkflowExecution()
+                .withWorkflowId(fileName.endsWith(".json") ? fileName.substring(0, fileName.length() - 5) : fileName)
+                .withRunId(TASK_TOKEN));
+        }
+        return history;
+    }
+
+    /**
+     * Load all <code>*.json</code> histories in a directory, in file name order.
+     *
+     * @see #load(Path)
+     */
+    public static List<DecisionTask> loadAll(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.json")) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        Collections.sort(files);
+        List<DecisionTask> histories = new ArrayList<>(files.size());
+        for (Path file : files) {
+            histories.add(load(file));
+        }
+        return histories;
+    }
+}
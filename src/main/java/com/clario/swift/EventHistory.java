@@ -0,0 +1,182 @@
+package com.clario.swift;
+
+import com.clario.swift.event.Event;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Storage for a workflow's history {@link Event} in descending {@link Event#getEventId()} order.
+ * <p/>
+ * Backed by an array with free space at both ends, so indexed reads are constant time, history pages from
+ * {@link DecisionPoller} are appended at the end, and synthetic events from {@link Workflow#pushDummyTimerStartedEvent}
+ * are pushed onto the front without shifting the rest of the history.
+ * <p/>
+ * Keeps an {@link EventIndex} over the same events.
+ * A history can also start from a {@link CompactHistory} kept by {@link WorkflowHistoryCache}, the cached events follow
+ * the pushed ones and are indexed by the cached history's own index, so neither is copied.  Cached events are built
+ * when first read and kept by this history, so they are built once per decision task and released with the history.
+ * Only changed through {@link #append} and {@link #push}, other {@link List} mutators are unsupported.
+ * Use {@link #snapshot} for a view that outlives later changes.
+ *
+ * @author George Coller
+ */
+final class EventHistory extends AbstractList<Event> implements RandomAccess {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int INITIAL_HEAD_ROOM = 4;
+
+    private final List<Event> base;
+    private final int baseHeadSlot;
+    private final EventIndex index;
+    private Event[] events = new Event[INITIAL_CAPACITY];
+    private int head = INITIAL_HEAD_ROOM;
+    private int tail = INITIAL_HEAD_ROOM;
+    // Index slot of the event at head, slots stay the same when the array grows
+    private int headSlot;
+
+    EventHistory() {
+        this(Collections.emptyList(), null, 0);
+    }
+
+    /**
+     * History of the events of a cached history, which must not change while this history is used.
+     */
+    EventHistory(CompactHistory base) {
+        this(new ReadEvents(base.snapshot()), base.getIndex(), base.getHeadSlot());
+    }
+
+    private EventHistory(List<Event> base, EventIndex baseIndex, int baseHeadSlot) {
+        this.base = base;
+        this.baseHeadSlot = baseHeadSlot;
+        this.index = new EventIndex(this::slot, baseIndex, this::baseSlot);
+    }
+
+    /**
+     * Append events older than all current events.
+     *
+     * @throws IllegalStateException if this history starts from a cached history, which holds the oldest events
+     */
+    void append(List<Event> olderEvents) {
+        if (!base.isEmpty()) {
+            throw new IllegalStateException("Unable to append events older than a cached history");
+        }
+        ensureTailRoom(olderEvents.size());
+        for (Event event : olderEvents) {
+            index.append(headSlot + tail - head, event);
+            events[tail++] = event;
+        }
+        modCount++;
+    }
+
+    /**
+     * Push an event newer than all current events onto the front.
+     */
+    void push(Event newerEvent) {
+        if (head == 0) {
+            int size = tail - head;
+            int room = Math.max(INITIAL_HEAD_ROOM, size);
+            Event[] grown = new Event[room + events.length];
+            System.arraycopy(events, head, grown, room, size);
+            tail = room + size;
+            head = room;
+            events = grown;
+        }
+        events[--head] = newerEvent;
+        index.push(--headSlot, newerEvent);
+        modCount++;
+    }
+
+    EventIndex getIndex() { return index; }
+
+    /**
+     * @return unmodifiable view of the current events that is not affected by later {@link #append} or {@link #push}.
+     */
+    List<Event> snapshot() { return snapshot(0, size()); }
+
+    /**
+     * @return unmodifiable view of the events from index <code>from</code>, inclusive, to <code>to</code>, exclusive,
+     * that is not affected by later {@link #append} or {@link #push}.
+     */
+    List<Event> snapshot(int from, int to) {
+        if (from < 0 || to > size() || from > to) {
+            throw new IndexOutOfBoundsException("from: " + from + ", to: " + to + ", Size: " + size());
+        }
+        int own = tail - head;
+        return new Snapshot(events, head + Math.min(from, own), Math.min(to, own) - Math.min(from, own),
+            base.subList(Math.max(from - own, 0), Math.max(to - own, 0)));
+    }
+
+    @Override
+    public Event get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        return index < tail - head ? events[head + index] : base.get(index - tail + head);
+    }
+
+    @Override
+    public int size() { return tail - head + base.size(); }
+
+    private Event slot(int slot) { return events[head + slot - headSlot]; }
+
+    // Event in a slot of the cached history's index
+    private Event baseSlot(int slot) { return base.get(slot - baseHeadSlot); }
+
+    private void ensureTailRoom(int count) {
+        if (tail + count > events.length) {
+            events = Arrays.copyOf(events, Math.max(events.length * 2, tail + count));
+        }
+    }
+
+    // Slots between head and tail are never written again, growing copies them to a new array
+    private static final class Snapshot extends AbstractList<Event> implements RandomAccess {
+        private final Event[] events;
+        private final int offset;
+        private final int ownSize;
+        private final List<Event> base;
+
+        Snapshot(Event[] events, int offset, int ownSize, List<Event> base) {
+            this.events = events;
+            this.offset = offset;
+            this.ownSize = ownSize;
+            this.base = base;
+        }
+
+        @Override
+        public Event get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            return index < ownSize ? events[offset + index] : base.get(index - ownSize);
+        }
+
+        @Override
+        public int size() { return ownSize + base.size(); }
+    }
+
+    // Events of a cached history, each kept once read
+    private static final class ReadEvents extends AbstractList<Event> implements RandomAccess {
+        private final List<Event> history;
+        private Event[] events;
+
+        ReadEvents(List<Event> history) { this.history = history; }
+
+        @Override
+        public Event get(int index) {
+            if (events == null) {
+                events = new Event[history.size()];
+            }
+            Event event = events[index];
+            if (event == null) {
+                event = events[index] = history.get(index);
+            }
+            return event;
+        }
+
+        @Override
+        public int size() { return history.size(); }
+    }
+}
@@ -0,0 +1,323 @@
+package com.clario.swift;
+
+import com.amazonaws.services.simpleworkflow.model.EventType;
+import com.clario.swift.action.Action;
+import com.clario.swift.action.RetryPolicy;
+import com.clario.swift.event.Event;
+import com.clario.swift.event.EventState;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import static com.amazonaws.services.simpleworkflow.model.EventType.DecisionTaskCompleted;
+import static com.amazonaws.services.simpleworkflow.model.EventType.TimerStarted;
+import static com.clario.swift.event.EventState.INITIAL;
+
+/**
+ * Index of a workflow's history {@link Event} by {@link Event#getInitialEventId()} and {@link Event#getActionId()}.
+ * <p/>
+ * Maintained by {@link EventHistory} and {@link CompactHistory} as events are added so that
+ * {@link EventList#selectActionId} can return an {@link Action}'s events without scanning the full history.
+ * <p/>
+ * Events are referred to by slot, a number the history assigns to each event that does not change as events are added,
+ * and are only read through the history when selected.  So an index can be built from the fields it needs,
+ * see {@link #append(int, long, EventType, EventState, Long, String, String, Date)}, without reading any event.
+ * <p/>
+ * Events are expected to arrive in descending {@link Event#getEventId()} order through {@link #append},
+ * which is the order {@link DecisionPoller} receives history pages.  Events newer than any indexed event,
+ * for example those added by {@link Workflow#pushDummyTimerStartedEvent}, are added through {@link #push}.
+ * <p/>
+ * Slices are kept in descending {@link Event#getEventId()} order, the same order as the full history.
+ * <p/>
+ * Also tracks the most recent {@link EventType#DecisionTaskCompleted} event, the boundary used by
+ * {@link EventList#selectSinceLastDecision()}, and counts {@link EventType#TimerStarted} events by timer id and control,
+ * which are the retries of {@link RetryPolicy}, so that {@link EventList#countRetries} does not scan.
+ *
+ * @author George Coller
+ */
+final class EventIndex {
+    private final IntFunction<Event> events;
+    private final EventIndex older;
+    private final IntFunction<Event> olderEvents;
+    private final boolean keepSelections;
+    private final Map<Long, Slots> slotsByInitialEventId = new HashMap<>();
+    private final Map<String, List<Long>> initialEventIdsByActionId = new HashMap<>();
+    private final Map<String, List<Event>> eventsByActionId = new HashMap<>();
+    private final Map<String, Map<String, RetryCount>> retryCountsByActionId = new HashMap<>();
+    private long lastDecisionEventId = -1;
+    private int sinceLastDecisionCount;
+
+    /**
+     * @param events reads the event in a slot of the indexed history
+     * @param keepSelections keep the events selected by {@link #selectActionId} until the next change,
+     * false for a history held longer than a decision task that should not hold on to events read from it
+     */
+    EventIndex(IntFunction<Event> events, boolean keepSelections) {
+        this.events = events;
+        this.older = null;
+        this.olderEvents = null;
+        this.keepSelections = keepSelections;
+    }
+
+    /**
+     * Index events newer than those of another index, selections include the events of both.
+     *
+     * @param events reads the event in a slot of the history indexed by this index
+     * @param older index of the older events, not changed while this index is used
+     * @param olderEvents reads the event in a slot of the older index in place of the older index's own history
+     */
+    EventIndex(IntFunction<Event> events, EventIndex older, IntFunction<Event> olderEvents) {
+        this.events = events;
+        this.older = older;
+        this.olderEvents = olderEvents;
+        this.keepSelections = true;
+    }
+
+    /**
+     * Index an event older than all currently indexed events.
+     */
+    void append(int slot, Event event) {
+        index(false, slot, event);
+    }
+
+    /**
+     * Index an event older than all currently indexed events from its fields.
+     *
+     * @param timerControl control of a {@link EventType#TimerStarted} event, otherwise ignored
+     * @param timerTimestamp timestamp of a {@link EventType#TimerStarted} event, otherwise ignored
+     */
+    void append(int slot, long eventId, EventType type, EventState state, Long initialEventId, String actionId,
+                String timerControl, Date timerTimestamp) {
+        index(false, slot, eventId, type, state, initialEventId, actionId, timerControl, timerTimestamp);
+    }
+
+    /**
+     * Index an event newer than all currently indexed events.
+     */
+    void push(int slot, Event event) {
+        index(true, slot, event);
+    }
+
+    /**
+     * @return events related to the given action in descending {@link Event#getEventId()} order,
+     * a copy that later {@link #push} calls do not change.
+     * @see EventList#byActionId
+     */
+    List<Event> selectActionId(String actionId) {
+        List<Event> events = eventsByActionId.get(actionId);
+        if (events == null) {
+            events = mergeActionEvents(actionId);
+            if (keepSelections) {
+                eventsByActionId.put(actionId, events);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * @return events sharing the given {@link Event#getInitialEventId()} in descending {@link Event#getEventId()} order,
+     * a copy that later {@link #push} calls do not change.
+     */
+    List<Event> selectInitialEventId(Long initialEventId) {
+        List<Event> events = slice(initialEventId, this.events);
+        return events.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(events);
+    }
+
+    /**
+     * @return {@link EventType#TimerStarted} counts of the given timer id keyed by control as currently indexed,
+     * a copy that later {@link #push} calls do not change.
+     */
+    Map<String, RetryCount> selectRetryCounts(String actionId) {
+        Map<String, RetryCount> retryCounts = retryCountsByActionId.get(actionId);
+        Map<String, RetryCount> olderCounts = older == null ? Collections.emptyMap() : older.selectRetryCounts(actionId);
+        if (retryCounts == null) {
+            return olderCounts;
+        }
+        Map<String, RetryCount> copy = new HashMap<>(olderCounts);
+        retryCounts.forEach((control, retryCount) -> copy.merge(control, retryCount.copy(), RetryCount::plusNewer));
+        return Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * @return event id of the most recent {@link EventType#DecisionTaskCompleted} event or -1 if none.
+     */
+    long getLastDecisionEventId() {
+        return lastDecisionEventId != -1 || older == null ? lastDecisionEventId : older.getLastDecisionEventId();
+    }
+
+    /**
+     * @return number of events newer than {@link #getLastDecisionEventId()}, which are the first events of the history.
+     */
+    int getSinceLastDecisionCount() {
+        return lastDecisionEventId != -1 || older == null ? sinceLastDecisionCount : sinceLastDecisionCount + older.getSinceLastDecisionCount();
+    }
+
+    private void index(boolean newer, int slot, Event event) {
+        EventType type = event.getType();
+        boolean timer = TimerStarted == type;
+        index(newer, slot, event.getEventId(), type, event.getState(), event.getInitialEventId(), event.getActionId(),
+            timer ? event.getControl() : null, timer ? event.getHistoryEvent().getEventTimestamp() : null);
+    }
+
+    // Actions are identified by their INITIAL events, all other related events point back to one of them.
+    private void index(boolean newer, int slot, long eventId, EventType type, EventState state, Long initialEventId,
+                       String actionId, String timerControl, Date timerTimestamp) {
+        if (initialEventId != null) {
+            Slots slots = slotsByInitialEventId.computeIfAbsent(initialEventId, k -> new Slots());
+            if (newer) {
+                slots.addNewer(slot);
+            } else {
+                slots.addOlder(slot);
+            }
+        }
+        if (INITIAL == state && actionId != null) {
+            List<Long> initialEventIds = initialEventIdsByActionId.computeIfAbsent(actionId, k -> new ArrayList<>(4));
+            initialEventIds.add(newer ? 0 : initialEventIds.size(), eventId);
+            if (TimerStarted == type) {
+                retryCount(actionId, timerControl).add(newer, timerTimestamp);
+            }
+        }
+        if (newer) {
+            if (DecisionTaskCompleted == type) {
+                lastDecisionEventId = eventId;
+                sinceLastDecisionCount = 0;
+            } else {
+                sinceLastDecisionCount++;
+            }
+        } else if (lastDecisionEventId == -1) {
+            if (DecisionTaskCompleted == type) {
+                lastDecisionEventId = eventId;
+            } else {
+                sinceLastDecisionCount++;
+            }
+        }
+        eventsByActionId.clear();
+    }
+
+    private RetryCount retryCount(String actionId, String control) {
+        return retryCountsByActionId.computeIfAbsent(actionId, k -> new HashMap<>(4)).computeIfAbsent(control, k -> new RetryCount());
+    }
+
+    // Events of an initial event id followed by those of the older index, in a new list
+    private List<Event> slice(Long initialEventId, IntFunction<Event> events) {
+        Slots slots = slotsByInitialEventId.get(initialEventId);
+        List<Event> slice = new ArrayList<>(slots == null ? 0 : slots.size);
+        for (int i = 0; slots != null && i < slots.size; i++) {
+            slice.add(events.apply(slots.slots[i]));
+        }
+        if (older != null) {
+            slice.addAll(older.slice(initialEventId, olderEvents));
+        }
+        return slice;
+    }
+
+    private List<Long> initialEventIds(String actionId) {
+        List<Long> initialEventIds = initialEventIdsByActionId.getOrDefault(actionId, Collections.emptyList());
+        if (older == null) {
+            return initialEventIds;
+        }
+        List<Long> olderInitialEventIds = older.initialEventIds(actionId);
+        if (initialEventIds.isEmpty()) {
+            return olderInitialEventIds;
+        }
+        List<Long> all = new ArrayList<>(initialEventIds);
+        all.addAll(olderInitialEventIds);
+        return all;
+    }
+
+    // Combine the slices of each initial event of an action, which are usually non-overlapping retries.
+    private List<Event> mergeActionEvents(String actionId) {
+        List<Long> initialEventIds = initialEventIds(actionId);
+        if (initialEventIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Event> merged = new ArrayList<>();
+        for (Long initialEventId : initialEventIds) {
+            List<Event> slice = slice(initialEventId, events);
+            if (slice.isEmpty()) {
+                continue;
+            }
+            if (merged.isEmpty() || merged.get(merged.size() - 1).getEventId() > slice.get(0).getEventId()) {
+                merged.addAll(slice);
+            } else {
+                merged = mergeDescending(merged, slice);
+            }
+        }
+        return Collections.unmodifiableList(merged);
+    }
+
+    private static List<Event> mergeDescending(List<Event> a, List<Event> b) {
+        List<Event> merged = new ArrayList<>(a.size() + b.size());
+        int i = 0;
+        int j = 0;
+        while (i < a.size() && j < b.size()) {
+            merged.add(a.get(i).getEventId() > b.get(j).getEventId() ? a.get(i++) : b.get(j++));
+        }
+        merged.addAll(a.subList(i, a.size()));
+        merged.addAll(b.subList(j, b.size()));
+        return merged;
+    }
+
+    // Slots of the events sharing an initial event id, newest first
+    private static final class Slots {
+        private int[] slots = new int[4];
+        private int size;
+
+        void addOlder(int slot) {
+            grow();
+            slots[size++] = slot;
+        }
+
+        void addNewer(int slot) {
+            grow();
+            System.arraycopy(slots, 0, slots, 1, size++);
+            slots[0] = slot;
+        }
+
+        private void grow() {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+        }
+    }
+
+    /**
+     * Number of {@link EventType#TimerStarted} events for one timer id and control and the timestamp of the oldest.
+     */
+    static final class RetryCount {
+        private int count;
+        private Date firstTimestamp;
+
+        int getCount() { return count; }
+
+        Date getFirstTimestamp() { return firstTimestamp; }
+
+        private void add(boolean newer, Date timestamp) {
+            if (!newer || count == 0) {
+                firstTimestamp = timestamp;
+            }
+            count++;
+        }
+
+        // Counts of the same timer and control from an older and this newer index
+        private static RetryCount plusNewer(RetryCount older, RetryCount newer) {
+            RetryCount sum = new RetryCount();
+            sum.count = older.count + newer.count;
+            sum.firstTimestamp = older.count > 0 ? older.firstTimestamp : newer.firstTimestamp;
+            return sum;
+        }
+
+        private RetryCount copy() {
+            RetryCount copy = new RetryCount();
+            copy.count = count;
+            copy.firstTimestamp = firstTimestamp;
+            return copy;
+        }
+    }
+}
@@ -6,16 +6,21 @@ import com.clario.swift.action.Action;
 import com.clario.swift.action.RetryPolicy;
 import com.clario.swift.event.Event;
 import com.clario.swift.event.EventState;
+import org.joda.time.DateTime;
 
 import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
 
 import static com.amazonaws.services.simpleworkflow.model.EventType.DecisionTaskCompleted;
 import static com.amazonaws.services.simpleworkflow.model.EventType.TimerStarted;
 import static com.clario.swift.event.EventState.INITIAL;
-import static java.util.Arrays.copyOfRange;
 
 /**
  * {@link List} implementation of {@link Event} with convenient selection methods and functions.
@@ -26,11 +31,32 @@ import static java.util.Arrays.copyOfRange;
  */
 public class EventList extends AbstractList<Event> {
     private final List<Event> eventList;
+    private final EventIndex eventIndex;
+    private final Map<String, EventIndex.RetryCount> retryCounts;
 
-    public EventList() { eventList = Collections.emptyList(); }
+    public EventList() { this(Collections.emptyList()); }
 
     public EventList(List<Event> actionEvents) {
+        this(actionEvents, null);
+    }
+
+    /**
+     * @param actionEvents events in descending {@link Event#getEventId()} order
+     * @param eventIndex optional index over the same events used by {@link #selectActionId} and {@link #selectInitialEventId}
+     */
+    EventList(List<Event> actionEvents, EventIndex eventIndex) {
+        this(actionEvents, eventIndex, null);
+    }
+
+    /**
+     * @param actionEvents events of a single action in descending {@link Event#getEventId()} order
+     * @param eventIndex optional index over the same events
+     * @param retryCounts optional retry counts of the action by control used by {@link #countRetries} and {@link #getFirstRetryTimestamp}
+     */
+    EventList(List<Event> actionEvents, EventIndex eventIndex, Map<String, EventIndex.RetryCount> retryCounts) {
         this.eventList = actionEvents;
+        this.eventIndex = eventIndex;
+        this.retryCounts = retryCounts;
     }
 
     /**
@@ -53,6 +79,12 @@ public class EventList extends AbstractList<Event> {
     @Override
     public int size() { return eventList.size(); }
 
+    @Override
+    public boolean isEmpty() { return eventList.isEmpty(); }
+
+    @Override
+    public Iterator<Event> iterator() { return Collections.unmodifiableList(eventList).iterator(); }
+
     /**
      * @return true if this list has one or more items.
      */
@@ -63,7 +95,8 @@ public class EventList extends AbstractList<Event> {
      */
     @SuppressWarnings("unchecked")
     public <T extends Event> T getFirst() {
-        return eventList.isEmpty() ? null : (T) eventList.get(0);
+        Iterator<Event> iterator = eventList.iterator();
+        return iterator.hasNext() ? (T) iterator.next() : null;
     }
 
     /**
@@ -76,6 +109,8 @@ public class EventList extends AbstractList<Event> {
 
     /**
      * Sort list by {@link Event} {@link Comparable} implementation, which is by {@link Event#getEventId()} in descending order.
+     * <p/>
+     * Note: not intended for the list returned by {@link Workflow#getEvents()}, which is already sorted and indexed.
      */
     public void sort() {
         Collections.sort(eventList);
@@ -83,7 +118,12 @@ public class EventList extends AbstractList<Event> {
 
     /**
      * Select {@link Event} by zero or more {@link SelectFunction} instances where the output of one
-     * select is the input to the next
+     * select is the input to the next.
+     * <p/>
+     * The result is evaluated when first used, one event at a time and only as far as needed, see {@link SelectedEvents},
+     * so chained selections such as <code>selectTaskType(t).selectEventState(s).getFirst()</code> build no intermediate
+     * lists and stop at the first match.
+     * Events added to the workflow after the selection is made are not selected.
      *
      * @param selectFunctions list of select functions to apply.
      *
@@ -94,31 +134,60 @@ public class EventList extends AbstractList<Event> {
     }
 
     /**
-     * Select recursively where the output of applying one {@link SelectFunction} is passed in as
+     * Select where the output of applying one {@link SelectFunction} is passed in as
      * the {@link EventList} of the next.
      *
      * @param eventList list to select against
      * @param selectFunctions ordered list of select functions to apply.
      *
-     * @return new {@link EventList}
+     * @return new {@link EventList}, or the given list if there are no functions
      */
     public static EventList select(EventList eventList, SelectFunction... selectFunctions) {
-        if (selectFunctions.length > 0) {
-            List<Event> selected = new ArrayList<Event>();
-            for (int i = 0; i < eventList.size(); i++) {
-                Event event = eventList.get(i);
-                if (selectFunctions[0].select(event, i, eventList)) {
-                    selected.add(event);
-                }
-            }
-            return select(new EventList(selected), copyOfRange(selectFunctions, 1, selectFunctions.length));
-        } else {
+        if (selectFunctions.length == 0) {
             return eventList;
         }
+        if (eventList.eventList instanceof SelectedEvents && !((SelectedEvents) eventList.eventList).isStarted()) {
+            return new EventList(((SelectedEvents) eventList.eventList).select(selectFunctions));
+        }
+        return new EventList(new SelectedEvents(eventList.snapshot(), selectFunctions));
+    }
+
+    // Events of this list as they are now, unaffected by later changes to a workflow's history
+    private List<Event> snapshot() {
+        if (eventList instanceof EventHistory) {
+            return ((EventHistory) eventList).snapshot();
+        } else if (eventList instanceof SelectedEvents) {
+            return ((SelectedEvents) eventList).evaluate();
+        }
+        return eventList instanceof RandomAccess ? eventList : new ArrayList<>(eventList);
     }
 
     // Specific methods for common selections
-    public EventList selectActionId(String actionId) {return select(byActionId(actionId));}
+
+    /**
+     * Select events related to an {@link Action}.
+     * Uses the workflow's index when this list is the one returned by {@link Workflow#getEvents()}.
+     *
+     * @see #byActionId
+     */
+    public EventList selectActionId(String actionId) {
+        if (eventIndex == null) {
+            return select(byActionId(actionId));
+        } else {
+            return new EventList(eventIndex.selectActionId(actionId), null, eventIndex.selectRetryCounts(actionId));
+        }
+    }
+
+    /**
+     * Select events with a given {@link Event#getInitialEventId()}, which groups the events of a single task attempt.
+     */
+    public EventList selectInitialEventId(Long initialEventId) {
+        if (eventIndex == null) {
+            return select((event, index, eventList) -> initialEventId.equals(event.getInitialEventId()));
+        } else {
+            return new EventList(eventIndex.selectInitialEventId(initialEventId));
+        }
+    }
 
     public EventList selectEventType(EventType eventType) {return select(byEventType(eventType));}
 
@@ -126,7 +195,22 @@ public class EventList extends AbstractList<Event> {
 
     public EventList selectEventState(EventState eventState) {return select(byEventState(eventState));}
 
-    public EventList selectSinceLastDecision() {return select(bySinceLastDecision());}
+    /**
+     * Select events newer than the most recent {@link EventType#DecisionTaskCompleted} event.
+     * On an indexed list, such as {@link Workflow#getEvents()}, these are the first events of the list found
+     * without scanning, unaffected by events added to the workflow afterwards.
+     *
+     * @see #bySinceLastDecision()
+     */
+    public EventList selectSinceLastDecision() {
+        if (eventIndex == null) {
+            return select(bySinceLastDecision());
+        } else {
+            int count = eventIndex.getSinceLastDecisionCount();
+            return new EventList(eventList instanceof EventHistory ? ((EventHistory) eventList).snapshot(0, count)
+                : Collections.unmodifiableList(new ArrayList<>(eventList.subList(0, count))));
+        }
+    }
 
     /**
      * @param control optional, limit to a single policy's {@link RetryPolicy#getControl()} value.
@@ -137,6 +221,40 @@ public class EventList extends AbstractList<Event> {
         return select((SelectFunction) (event, index, eventList) -> TimerStarted == event.getType() && control.equals(event.getHistoryEvent().getTimerStartedEventAttributes().getControl()));
     }
 
+    /**
+     * Count of {@link #selectRetryCount}, without scanning when this list was returned by an indexed {@link #selectActionId}.
+     *
+     * @param control a {@link RetryPolicy#getControl()} value
+     *
+     * @return number of times a given {@link RetryPolicy}s timer has been started.
+     */
+    public int countRetries(String control) {
+        if (retryCounts == null) {
+            return selectRetryCount(control).size();
+        } else {
+            EventIndex.RetryCount retryCount = retryCounts.get(control);
+            return retryCount == null ? 0 : retryCount.getCount();
+        }
+    }
+
+    /**
+     * Timestamp of the oldest event of {@link #selectRetryCount}, without scanning when this list was returned
+     * by an indexed {@link #selectActionId}.
+     *
+     * @param control a {@link RetryPolicy#getControl()} value
+     *
+     * @return time a given {@link RetryPolicy}s timer was first started or null if never started.
+     */
+    public DateTime getFirstRetryTimestamp(String control) {
+        if (retryCounts == null) {
+            Event event = selectRetryCount(control).getLast();
+            return event == null ? null : event.getEventTimestamp();
+        } else {
+            EventIndex.RetryCount retryCount = retryCounts.get(control);
+            return retryCount == null ? null : new DateTime(retryCount.getFirstTimestamp());
+        }
+    }
+
     /**
      * Select events related to an {@link Action}.
      *
@@ -146,7 +264,7 @@ public class EventList extends AbstractList<Event> {
      */
     public static SelectFunction byActionId(final String actionId) {
         return new SelectFunction() {
-            List<Long> initialEventIds = new ArrayList<Long>();
+            Set<Long> initialEventIds = new HashSet<Long>();
 
             public boolean select(Event event, int index, EventList eventList) {
                 if (index == 0) {
@@ -0,0 +1,164 @@
+package com.clario.swift;
+
+import com.amazonaws.services.simpleworkflow.AmazonSimpleWorkflow;
+import com.amazonaws.services.simpleworkflow.model.ActivityTaskStatus;
+import com.amazonaws.services.simpleworkflow.model.UnknownResourceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.clario.swift.ActivityPoller.createRecordActivityTaskHeartbeat;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Record activity task heartbeats on SWF from a small background pool instead of the activity's thread,
+ * shared by one or more {@link ActivityPoller} instances, see {@link ActivityPoller#setHeartbeatService}.
+ * <p/>
+ * {@link ActivityContext#recordHeartbeat} then only keeps the latest details of its task.  Each running task is
+ * flushed on a fixed delay of a third of its heartbeat timeout, sending one heartbeat with the latest details if any
+ * were recorded since the last flush, so any number of beats in between are coalesced into one request.
+ * Tasks without a heartbeat timeout are flushed every {@link #withDefaultInterval}.
+ * <p/>
+ * Heartbeats reach SWF up to a third of the heartbeat timeout after being recorded,
+ * activities should still record them well within their timeout.
+ * The cancel-requested flag of each response is passed back through {@link ActivityContext#isCancelRequested()}.
+ * <p/>
+ * The heartbeat timeout is taken from {@link ActivityMethod#heartbeatTimeout()}, a timeout overridden when the
+ * activity is scheduled is not known to the activity task.
+ *
+ * @author George Coller
+ */
+public class HeartbeatService {
+    private static final Logger log = LoggerFactory.getLogger(HeartbeatService.class);
+    private static final Object NO_BEAT = new Object();
+    private static final long MIN_INTERVAL_MILLIS = 1000;
+
+    private final ScheduledThreadPoolExecutor scheduler;
+    private long defaultIntervalMillis = 30000;
+    private final AtomicLong recordedCount = new AtomicLong();
+    private final AtomicLong sentCount = new AtomicLong();
+
+    /**
+     * @param threads number of daemon threads sending heartbeats
+     */
+    public HeartbeatService(int threads) {
+        if (threads < 1) { throw new IllegalArgumentException("parameter threads must be greater than zero"); }
+        scheduler = new ScheduledThreadPoolExecutor(threads, VirtualThreads.newThreadFactory("heartbeat", false));
+        scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Flush interval for activities registered without a heartbeat timeout, default 30 seconds.
+     */
+    public HeartbeatService withDefaultInterval(TimeUnit unit, long interval) {
+        if (interval < 1) { throw new IllegalArgumentException("parameter interval must be greater than zero"); }
+        this.defaultIntervalMillis = unit.toMillis(interval);
+        return this;
+    }
+
+    /**
+     * @return heartbeats recorded by activities
+     */
+    public long getRecordedCount() { return recordedCount.get(); }
+
+    /**
+     * @return heartbeat requests sent to SWF
+     */
+    public long getSentCount() { return sentCount.get(); }
+
+    /**
+     * Stop sending heartbeats, pending heartbeats are dropped.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Start flushing heartbeats for an activity task until {@link Heartbeat#close()}.
+     *
+     * @param heartbeatTimeout timeout in seconds, or "NONE" or empty if there is no timeout
+     */
+    Heartbeat start(AmazonSimpleWorkflow swf, String taskToken, String heartbeatTimeout) {
+        long intervalMillis = intervalMillis(heartbeatTimeout);
+        Heartbeat heartbeat = new Heartbeat(swf, taskToken);
+        heartbeat.future = scheduler.scheduleWithFixedDelay(heartbeat::flush, intervalMillis, intervalMillis, MILLISECONDS);
+        if (heartbeat.closed) {
+            // closed by a flush before the future was assigned
+            heartbeat.future.cancel(false);
+        }
+        return heartbeat;
+    }
+
+    long intervalMillis(String heartbeatTimeout) {
+        try {
+            return Math.max(MIN_INTERVAL_MILLIS, TimeUnit.SECONDS.toMillis(Long.parseLong(heartbeatTimeout)) / 3);
+        } catch (NumberFormatException e) {
+            return defaultIntervalMillis;
+        }
+    }
+
+    /**
+     * Latest heartbeat of a single activity task.
+     */
+    class Heartbeat {
+        private final AmazonSimpleWorkflow swf;
+        private final String taskToken;
+        private final AtomicReference<Object> pending = new AtomicReference<>(NO_BEAT);
+        private volatile boolean cancelRequested;
+        private volatile boolean closed;
+        private volatile ScheduledFuture<?> future;
+
+        Heartbeat(AmazonSimpleWorkflow swf, String taskToken) {
+            this.swf = swf;
+            this.taskToken = taskToken;
+        }
+
+        void record(String details) {
+            recordedCount.incrementAndGet();
+            pending.set(details);
+        }
+
+        boolean isCancelRequested() { return cancelRequested; }
+
+        boolean isClosed() { return closed; }
+
+        /**
+         * Stop flushing, dropping any pending heartbeat.
+         */
+        void close() {
+            closed = true;
+            pending.set(NO_BEAT);
+            ScheduledFuture<?> future = this.future;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+
+        void flush() {
+            if (closed) {
+                return;
+            }
+            Object details = pending.getAndSet(NO_BEAT);
+            if (details == NO_BEAT) {
+                return;
+            }
+            try {
+                ActivityTaskStatus status = swf.recordActivityTaskHeartbeat(createRecordActivityTaskHeartbeat(taskToken, (String) details));
+                sentCount.incrementAndGet();
+                if (Boolean.TRUE.equals(status.getCancelRequested())) {
+                    cancelRequested = true;
+                }
+            } catch (UnknownResourceException e) {
+                log.debug("Activity task closed, stop recording heartbeats: {}", taskToken);
+                close();
+            } catch (Throwable e) {
+                log.warn("Failed to record heartbeat: " + taskToken + ", " + details, e);
+            }
+        }
+    }
+}
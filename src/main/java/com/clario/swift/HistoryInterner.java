@@ -0,0 +1,171 @@
+package com.clario.swift;
+
+import com.amazonaws.services.simpleworkflow.model.EventType;
+import com.amazonaws.services.simpleworkflow.model.HistoryEvent;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded pool that replaces repeated strings in {@link HistoryEvent} with a single shared instance.
+ * <p/>
+ * Each history page is parsed into new strings, so values such as activity type names and versions, task lists,
+ * activity ids, control values, worker identities and repeated input or marker details exist once per event.
+ * {@link DecisionPoller#setHistoryInterner} passes every page through {@link #intern(HistoryEvent)} before converting it,
+ * so histories held by a {@link Workflow} or {@link WorkflowHistoryCache} share these strings.
+ * <p/>
+ * The pool is a fixed-size table indexed by {@link String#hashCode()} where a new string replaces any different one
+ * in its slot, so memory is bounded by the slot count and lookups neither lock nor allocate.
+ * A pool can be shared by several pollers.
+ *
+ * @author George Coller
+ */
+public class HistoryInterner {
+    public static final int DEFAULT_SIZE = 4096;
+    private static final Map<Class<?>, Property[]> PROPERTIES = new ConcurrentHashMap<>();
+    private static final Method[] ATTRIBUTE_GETTERS = new Method[EventType.values().length];
+
+    static {
+        for (EventType type : EventType.values()) {
+            try {
+                ATTRIBUTE_GETTERS[type.ordinal()] = HistoryEvent.class.getMethod("get" + type.name() + "EventAttributes");
+            } catch (NoSuchMethodException ignore) {
+                // Event type without attributes
+            }
+        }
+    }
+
+    private final String[] table;
+    private final int mask;
+
+    /**
+     * Create a pool with {@link #DEFAULT_SIZE} slots.
+     */
+    public HistoryInterner() { this(DEFAULT_SIZE); }
+
+    /**
+     * @param size number of slots, must be greater than zero, rounded up to a power of two
+     */
+    public HistoryInterner(int size) {
+        if (size < 1) { throw new IllegalArgumentException("parameter size must be greater than zero"); }
+        int capacity = Integer.highestOneBit(size);
+        if (capacity < size) {
+            capacity <<= 1;
+        }
+        table = new String[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Replace the strings of a history event and its attributes with pooled instances where equal.
+     *
+     * @return the same event
+     */
+    public HistoryEvent intern(HistoryEvent historyEvent) {
+        historyEvent.setEventType(intern(historyEvent.getEventType()));
+        EventType type = EventType.fromValue(historyEvent.getEventType());
+        Method getter = ATTRIBUTE_GETTERS[type.ordinal()];
+        if (getter != null) {
+            Object attributes = invoke(getter, historyEvent);
+            if (attributes != null) {
+                internProperties(attributes);
+            }
+        }
+        return historyEvent;
+    }
+
+    /**
+     * @return a pooled string equal to the given value, or the value itself after pooling it
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        int h = value.hashCode();
+        int index = (h ^ (h >>> 16)) & mask;
+        String pooled = table[index];
+        if (value.equals(pooled)) {
+            return pooled;
+        }
+        table[index] = value;
+        return value;
+    }
+
+    /**
+     * @return number of slots
+     */
+    public int getSize() { return table.length; }
+
+    private void internProperties(Object model) {
+        for (Property property : properties(model.getClass())) {
+            Object value = property.get(model);
+            if (value == null) {
+                continue;
+            }
+            if (property.setter == null) {
+                internProperties(value);
+            } else {
+                String pooled = intern((String) value);
+                if (pooled != value) {
+                    property.set(model, pooled);
+                }
+            }
+        }
+    }
+
+    // String properties with a setter, and nested SWF model objects, of an SWF model class
+    private static Property[] properties(Class<?> type) {
+        Property[] properties = PROPERTIES.get(type);
+        if (properties == null) {
+            List<Property> found = new ArrayList<>();
+            for (Method getter : type.getMethods()) {
+                if (!getter.getName().startsWith("get") || getter.getParameterCount() != 0 || Modifier.isStatic(getter.getModifiers())) {
+                    continue;
+                }
+                Class<?> returnType = getter.getReturnType();
+                if (String.class == returnType) {
+                    try {
+                        found.add(new Property(getter, type.getMethod("s" + getter.getName().substring(1), String.class)));
+                    } catch (NoSuchMethodException ignore) {
+                        // read-only property
+                    }
+                } else if (isModelClass(returnType)) {
+                    found.add(new Property(getter, null));
+                }
+            }
+            properties = found.toArray(new Property[found.size()]);
+            PROPERTIES.put(type, properties);
+        }
+        return properties;
+    }
+
+    private static Object invoke(Method method, Object model, Object... args) {
+        try {
+            return method.invoke(model, args);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to access " + method, e);
+        }
+    }
+
+    private static boolean isModelClass(Class<?> type) {
+        return !type.isEnum() && !type.isPrimitive() && HistoryEvent.class.getPackage().equals(type.getPackage());
+    }
+
+    private static class Property {
+        final Method getter;
+        final Method setter;
+
+        Property(Method getter, Method setter) {
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        Object get(Object model) { return invoke(getter, model); }
+
+        void set(Object model, String value) { invoke(setter, model, value); }
+    }
+}
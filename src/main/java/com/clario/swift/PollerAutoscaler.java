@@ -0,0 +1,156 @@
+package com.clario.swift;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.lang.String.format;
+
+/**
+ * Grow and shrink the polling threads of a {@link PollerRunner} between minimum and maximum bounds based on how busy
+ * its task list is.
+ * <p/>
+ * {@link Runnable#run} implementation evaluates one period, schedule it in an external thread pool,
+ * for example every 30 seconds with {@link java.util.concurrent.ScheduledExecutorService#scheduleAtFixedRate}.
+ * Each period votes to:
+ * <ul>
+ * <li>grow: when the share of empty polls is at or below the grow ratio, meaning nearly every poll found a task,
+ * or when more tasks are pending on the task list than there are threads</li>
+ * <li>shrink: when the share of empty polls is at or above the shrink ratio and no tasks are pending</li>
+ * <li>hold: otherwise, or while the poller is at its limit of tasks in progress since more polling would not help</li>
+ * </ul>
+ * The pool only changes after the same vote for {@link #withHysteresis} consecutive periods, growing by half
+ * and shrinking by one thread at a time.
+ * <p/>
+ * Pending task counts cost an extra SWF call per period and are only used if enabled with
+ * {@link #withPendingTaskCount}.
+ *
+ * @author George Coller
+ * @see BasePoller#getEmptyPollCount()
+ * @see BasePoller#countPendingTasks()
+ */
+public class PollerAutoscaler implements Runnable {
+    private static final Logger log = LoggerFactory.getLogger(PollerAutoscaler.class);
+
+    private final PollerRunner runner;
+    private int minThreads = 1;
+    private int maxThreads = 10;
+    private double growEmptyPollRatio = 0.1;
+    private double shrinkEmptyPollRatio = 0.9;
+    private int hysteresis = 3;
+    private boolean pendingTaskCount = false;
+
+    private long priorPolls;
+    private long priorEmptyPolls;
+    private int growVotes;
+    private int shrinkVotes;
+
+    public PollerAutoscaler(PollerRunner runner) {
+        this.runner = runner;
+        this.priorPolls = runner.getPoller().getPollRequestCount();
+        this.priorEmptyPolls = runner.getPoller().getEmptyPollCount();
+    }
+
+    /**
+     * Bounds on the number of polling threads, default 1 to 10.
+     */
+    public PollerAutoscaler withBounds(int minThreads, int maxThreads) {
+        if (minThreads < 1) { throw new IllegalArgumentException("parameter minThreads must be greater than zero"); }
+        if (maxThreads < minThreads) { throw new IllegalArgumentException("parameter maxThreads must not be less than minThreads"); }
+        this.minThreads = minThreads;
+        this.maxThreads = maxThreads;
+        return this;
+    }
+
+    /**
+     * Share of empty polls in a period at or below which to grow and at or above which to shrink,
+     * default 0.1 and 0.9.
+     */
+    public PollerAutoscaler withEmptyPollRatios(double grow, double shrink) {
+        if (grow < 0 || shrink > 1 || grow >= shrink) {
+            throw new IllegalArgumentException("parameters must satisfy 0 <= grow < shrink <= 1");
+        }
+        this.growEmptyPollRatio = grow;
+        this.shrinkEmptyPollRatio = shrink;
+        return this;
+    }
+
+    /**
+     * Number of consecutive periods with the same vote before the pool is resized, default 3.
+     */
+    public PollerAutoscaler withHysteresis(int periods) {
+        if (periods < 1) { throw new IllegalArgumentException("parameter periods must be greater than zero"); }
+        this.hysteresis = periods;
+        return this;
+    }
+
+    /**
+     * Also vote using the pending task count from SWF, default false.
+     *
+     * @see BasePoller#countPendingTasks()
+     */
+    public PollerAutoscaler withPendingTaskCount(boolean pendingTaskCount) {
+        this.pendingTaskCount = pendingTaskCount;
+        return this;
+    }
+
+    /**
+     * {@link Runnable#run} implementation calls {@link #evaluate()} logging any error.
+     */
+    @Override
+    public void run() {
+        try {
+            evaluate();
+        } catch (Throwable t) {
+            log.error(format("%s: evaluate failed", this), t);
+        }
+    }
+
+    /**
+     * Evaluate one period since the prior call and resize the runner if needed.
+     *
+     * @return number of runner threads after evaluation
+     */
+    public synchronized int evaluate() {
+        BasePoller poller = runner.getPoller();
+        long polls = poller.getPollRequestCount();
+        long emptyPolls = poller.getEmptyPollCount();
+        long periodPolls = polls - priorPolls;
+        double emptyRatio = periodPolls == 0 ? 0 : (double) (emptyPolls - priorEmptyPolls) / periodPolls;
+        priorPolls = polls;
+        priorEmptyPolls = emptyPolls;
+
+        int threads = runner.getThreadCount();
+        if (!runner.isRunning()) {
+            return threads;
+        }
+        int pending = pendingTaskCount ? poller.countPendingTasks() : -1;
+        boolean saturated = poller.getActiveTaskCount() >= poller.getMaxActiveTaskCount();
+
+        boolean grow = !saturated && ((periodPolls > 0 && emptyRatio <= growEmptyPollRatio) || pending > threads);
+        boolean shrink = !grow && pending < 1
+            && ((periodPolls > 0 && emptyRatio >= shrinkEmptyPollRatio) || (periodPolls == 0 && pending == 0));
+        growVotes = grow ? growVotes + 1 : 0;
+        shrinkVotes = shrink ? shrinkVotes + 1 : 0;
+
+        int target = threads;
+        if (growVotes >= hysteresis) {
+            target = threads + Math.max(1, threads / 2);
+            growVotes = 0;
+        } else if (shrinkVotes >= hysteresis) {
+            target = threads - 1;
+            shrinkVotes = 0;
+        }
+        target = Math.max(minThreads, Math.min(maxThreads, target));
+        if (target != threads) {
+            log.info(format("%s: %d -> %d threads, polls=%d empty=%.2f pending=%d active=%d", this, threads, target,
+                periodPolls, emptyRatio, pending, poller.getActiveTaskCount()));
+            runner.setThreads(target);
+        }
+        return target;
+    }
+
+    @Override
+    public String toString() {
+        return format("PollerAutoscaler '%s' %d..%d", runner.getPoller().getId(), minThreads, maxThreads);
+    }
+}
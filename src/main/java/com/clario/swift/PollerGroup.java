@@ -0,0 +1,154 @@
+package com.clario.swift;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+
+/**
+ * Start, report on and drain a group of {@link PollerRunner} together, for example all activity and decision pollers
+ * of one process.
+ * <p/>
+ * Runners added after {@link #start()} are started immediately.
+ *
+ * @author George Coller
+ */
+public class PollerGroup {
+    private static final Logger log = LoggerFactory.getLogger(PollerGroup.class);
+
+    private final String name;
+    private final List<PollerRunner> runners = new CopyOnWriteArrayList<>();
+    private volatile boolean started;
+
+    public PollerGroup(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Add a runner to the group.
+     */
+    public synchronized PollerGroup add(PollerRunner runner) {
+        runners.add(runner);
+        if (started && runner.getState() == PollerRunner.State.NEW) {
+            runner.start();
+        }
+        return this;
+    }
+
+    /**
+     * Add a poller to the group run by <code>threadCount</code> threads.
+     *
+     * @return the poller's runner
+     */
+    public PollerRunner add(BasePoller poller, int threadCount) {
+        PollerRunner runner = new PollerRunner(poller).withThreads(threadCount);
+        add(runner);
+        return runner;
+    }
+
+    /**
+     * Start all runners in the group.
+     */
+    public synchronized void start() {
+        if (started) { throw new IllegalStateException(format("%s already started", this)); }
+        started = true;
+        for (PollerRunner runner : runners) {
+            if (runner.getState() == PollerRunner.State.NEW) {
+                runner.start();
+            }
+        }
+    }
+
+    /**
+     * Graceful drain: stop all runners issuing new polls, polls and tasks in progress finish normally.
+     */
+    public void stop() {
+        log.info(format("%s stopping", this));
+        for (PollerRunner runner : runners) {
+            runner.stop();
+        }
+    }
+
+    /**
+     * Wait for all runners to finish after {@link #stop()}.
+     *
+     * @return true if all runners terminated within the timeout
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+        boolean terminated = true;
+        for (PollerRunner runner : runners) {
+            terminated &= runner.awaitTermination(Math.max(1, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        }
+        return terminated;
+    }
+
+    /**
+     * Convenience for {@link #stop()} followed by {@link #awaitTermination}.
+     */
+    public boolean drain(long timeout, TimeUnit unit) throws InterruptedException {
+        stop();
+        return awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Drain the group when the JVM shuts down.
+     *
+     * @param timeout maximum time to wait for tasks in progress
+     */
+    public void registerShutdownHook(long timeout, TimeUnit unit) {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                if (!drain(timeout, unit)) {
+                    log.warn(format("%s: tasks still in progress at shutdown", this));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, name + " shutdown"));
+    }
+
+    public String getName() { return name; }
+
+    public List<PollerRunner> getRunners() { return Collections.unmodifiableList(runners); }
+
+    /**
+     * @return true if the group has started and every runner is healthy.
+     * @see PollerRunner#isHealthy()
+     */
+    public boolean isHealthy() {
+        if (!started || runners.isEmpty()) {
+            return false;
+        }
+        for (PollerRunner runner : runners) {
+            if (!runner.isHealthy()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return one line per runner with its state, threads and poll counts.
+     */
+    public String getStatusReport() {
+        StringBuilder b = new StringBuilder(toString());
+        for (PollerRunner runner : runners) {
+            b.append("\n  ").append(runner);
+            if (runner.getConsecutiveErrorCount() > 0 && runner.getLastError() != null) {
+                b.append(" lastError=").append(runner.getLastError());
+            }
+        }
+        return b.toString();
+    }
+
+    @Override
+    public String toString() {
+        return format("PollerGroup '%s' runners=%d healthy=%s", name, runners.size(), isHealthy());
+    }
+}
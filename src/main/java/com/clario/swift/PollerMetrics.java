@@ -0,0 +1,86 @@
+package com.clario.swift;
+
+/**
+ * Metrics recorded by {@link DecisionPoller} and {@link ActivityPoller} on each task, set with {@link BasePoller#setMetrics}.
+ * <p/>
+ * Every method defaults to doing nothing, so an implementation only overrides what it records.  Methods are called on
+ * the polling and deciding threads, so implementations must be thread-safe and should not block.
+ * Workflow and activity types are passed as keys of name and version, see {@link SwiftUtil#makeKey}, for use as tags.
+ * <p/>
+ * SWiFt has no dependency on a metrics library, adapting one takes a few lines, for example Micrometer:
+ * <pre><code>
+ * poller.setMetrics(new PollerMetrics() {
+ *     public void recordDecide(String workflowType, long nanos, boolean success) {
+ *         registry.timer("swift.decide", "workflowType", workflowType, "success", String.valueOf(success))
+ *             .record(nanos, TimeUnit.NANOSECONDS);
+ *     }
+ *     public void recordDecision(String workflowType, String decisionType) {
+ *         registry.counter("swift.decisions", "workflowType", workflowType, "decisionType", decisionType).increment();
+ *     }
+ * });
+ * </code></pre>
+ *
+ * @author George Coller
+ */
+public interface PollerMetrics {
+    /**
+     * Records nothing, the default.
+     */
+    PollerMetrics NONE = new PollerMetrics() {};
+
+    /**
+     * A long-poll request returned.
+     *
+     * @param taskType {@link TaskType#DECISION} or {@link TaskType#ACTIVITY}
+     * @param nanos time waiting for the poll to return
+     * @param empty true if the poll timed out without a task
+     */
+    default void recordPoll(TaskType taskType, long nanos, boolean empty) {}
+
+    /**
+     * The history of a decision task was loaded into its workflow.
+     *
+     * @param workflowType workflow type key
+     * @param pageCount number of history pages read, including the first page returned by the poll
+     * @param eventCount number of events read from those pages
+     * @param nanos time paging and converting events, excluding the poll for the first page
+     */
+    default void recordHistory(String workflowType, int pageCount, int eventCount, long nanos) {}
+
+    /**
+     * {@link Workflow#decide} returned or threw.
+     *
+     * @param workflowType workflow type key
+     * @param nanos time spent deciding
+     * @param success false if the workflow threw an exception, which fails the workflow run
+     */
+    default void recordDecide(String workflowType, long nanos, boolean success) {}
+
+    /**
+     * A decision was sent to SWF, called once for each decision of a decision task after SWF accepted the response.
+     * Not called when responding fails.
+     *
+     * @param workflowType workflow type key
+     * @param decisionType {@link com.amazonaws.services.simpleworkflow.model.DecisionType} name
+     */
+    default void recordDecision(String workflowType, String decisionType) {}
+
+    /**
+     * A method annotated with {@link ActivityMethod} returned or threw.
+     *
+     * @param activityType activity type key
+     * @param nanos time spent in the method
+     * @param success false if the method threw an exception, which fails the activity task
+     */
+    default void recordActivity(String activityType, long nanos, boolean success) {}
+
+    /**
+     * A decision or activity task was responded to on SWF.
+     *
+     * @param taskType {@link TaskType#DECISION} or {@link TaskType#ACTIVITY}
+     * @param type workflow or activity type key
+     * @param nanos time the respond request took
+     * @param success false if the request failed
+     */
+    default void recordRespond(TaskType taskType, String type, long nanos, boolean success) {}
+}
@@ -0,0 +1,280 @@
+package com.clario.swift;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.String.format;
+
+/**
+ * Run a {@link BasePoller} continuously on one or more threads, virtual threads when supported.
+ * <p/>
+ * Unlike scheduling a poller with {@link java.util.concurrent.ScheduledExecutorService#scheduleWithFixedDelay},
+ * each thread starts its next long-poll as soon as the previous one returns, so a busy task list is worked without
+ * idle gaps. Threads only pause after a failed poll, backing off exponentially while failures continue.
+ * <p/>
+ * Since a virtual thread blocked on a long-poll does not tie up a platform thread many polling threads are cheap,
+ * cap the concurrent work with permits instead, for example {@link ActivityPoller#setExecutor} with
+ * {@link VirtualThreads#newThreadPerTaskExecutor}.
+ * <p/>
+ * Life cycle is {@link State#NEW} to {@link State#RUNNING} with {@link #start()}, then {@link State#DRAINING} with
+ * {@link #stop()}, which stops the poller issuing new polls and lets tasks in progress finish,
+ * and finally {@link State#TERMINATED} once {@link #awaitTermination} sees all threads and tasks are done.
+ * A runner cannot be restarted.
+ *
+ * @author George Coller
+ * @see PollerGroup
+ * @see VirtualThreads
+ */
+public class PollerRunner {
+    private static final Logger log = LoggerFactory.getLogger(PollerRunner.class);
+    private static final int UNHEALTHY_ERROR_COUNT = 3;
+
+    public enum State {NEW, RUNNING, DRAINING, TERMINATED}
+
+    private final BasePoller poller;
+    private int threadCount = 1;
+    private boolean virtualThreads = true;
+    private long initialBackoffMillis = 100;
+    private long maxBackoffMillis = TimeUnit.MINUTES.toMillis(1);
+
+    private final List<Worker> workers = new ArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private ThreadFactory threadFactory;
+    private volatile State state = State.NEW;
+
+    private final AtomicLong pollCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+    private final AtomicInteger consecutiveErrorCount = new AtomicInteger();
+    private volatile long lastPollTime;
+    private volatile Throwable lastError;
+
+    public PollerRunner(BasePoller poller) {
+        this.poller = poller;
+    }
+
+    /**
+     * Number of threads concurrently polling, default 1.
+     *
+     * @see #setThreads(int)
+     */
+    public PollerRunner withThreads(int threadCount) {
+        if (threadCount < 1) { throw new IllegalArgumentException("parameter threadCount must be greater than zero"); }
+        this.threadCount = threadCount;
+        return this;
+    }
+
+    /**
+     * Use virtual threads if the JVM supports them, default true.
+     */
+    public PollerRunner withVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+        return this;
+    }
+
+    /**
+     * Pause after a failed poll, starting at <code>initial</code> and doubling with each consecutive failure
+     * up to <code>max</code>. Default is 100 milliseconds up to one minute.
+     */
+    public PollerRunner withErrorBackoff(long initial, long max, TimeUnit unit) {
+        if (initial < 1) { throw new IllegalArgumentException("parameter initial must be greater than zero"); }
+        if (max < initial) { throw new IllegalArgumentException("parameter max must not be less than initial"); }
+        this.initialBackoffMillis = unit.toMillis(initial);
+        this.maxBackoffMillis = unit.toMillis(max);
+        return this;
+    }
+
+    public synchronized void start() {
+        if (state != State.NEW) { throw new IllegalStateException(format("%s already started", this)); }
+        state = State.RUNNING;
+        threadFactory = VirtualThreads.newThreadFactory(poller.getId(), virtualThreads);
+        addWorkers(threadCount);
+        log.info(format("%s started", this));
+    }
+
+    /**
+     * Change the number of polling threads of a running runner.
+     * Added threads start polling immediately, removed threads finish their current poll first.
+     */
+    public synchronized void setThreads(int threadCount) {
+        withThreads(threadCount);
+        if (state != State.RUNNING) {
+            return;
+        }
+        if (threadCount > workers.size()) {
+            addWorkers(threadCount - workers.size());
+        } else {
+            while (workers.size() > threadCount) {
+                workers.remove(workers.size() - 1).retired = true;
+            }
+        }
+        log.info(format("%s resized", this));
+    }
+
+    /**
+     * Graceful drain: stop the poller issuing new polls, polls and tasks in progress finish normally.
+     *
+     * @see BasePoller#stop()
+     */
+    public synchronized void stop() {
+        if (state == State.NEW) {
+            state = State.TERMINATED;
+        }
+        if (state == State.RUNNING) {
+            state = State.DRAINING;
+            poller.stop();
+            notifyAll();
+            log.info(format("%s draining", this));
+        }
+    }
+
+    /**
+     * Wait for polling threads and tasks still in progress on the poller to finish after {@link #stop()}.
+     *
+     * @return true if everything finished within the timeout
+     * @see BasePoller#getActiveTaskCount()
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+        List<Thread> started;
+        synchronized (this) {
+            started = new ArrayList<>(threads);
+        }
+        for (Thread thread : started) {
+            thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+            if (thread.isAlive()) {
+                return false;
+            }
+        }
+        while (poller.getActiveTaskCount() > 0) {
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        synchronized (this) {
+            if (state == State.DRAINING) {
+                state = State.TERMINATED;
+                log.info(format("%s terminated", this));
+            }
+        }
+        return state == State.TERMINATED;
+    }
+
+    /**
+     * Convenience for {@link #stop()} followed by {@link #awaitTermination}.
+     */
+    public boolean drain(long timeout, TimeUnit unit) throws InterruptedException {
+        stop();
+        return awaitTermination(timeout, unit);
+    }
+
+    public BasePoller getPoller() { return poller; }
+
+    public State getState() { return state; }
+
+    public boolean isRunning() { return state == State.RUNNING; }
+
+    public synchronized int getThreadCount() { return threadCount; }
+
+    /**
+     * @return number of polls completed without error.
+     */
+    public long getPollCount() { return pollCount.get(); }
+
+    /**
+     * @return number of failed polls.
+     */
+    public long getErrorCount() { return errorCount.get(); }
+
+    /**
+     * @return number of failed polls since the last successful poll on any thread.
+     */
+    public int getConsecutiveErrorCount() { return consecutiveErrorCount.get(); }
+
+    /**
+     * @return time in milliseconds of the last successful poll or zero if none.
+     */
+    public long getLastPollTime() { return lastPollTime; }
+
+    /**
+     * @return most recent poll failure or null if none.
+     */
+    public Throwable getLastError() { return lastError; }
+
+    /**
+     * @return true if running and polls are not failing repeatedly.
+     */
+    public boolean isHealthy() {
+        return state == State.RUNNING && consecutiveErrorCount.get() < UNHEALTHY_ERROR_COUNT;
+    }
+
+    private void addWorkers(int count) {
+        threads.removeIf(thread -> !thread.isAlive());
+        for (int i = 0; i < count; i++) {
+            Worker worker = new Worker();
+            Thread thread = threadFactory.newThread(worker);
+            workers.add(worker);
+            threads.add(thread);
+            thread.start();
+        }
+    }
+
+    private long backoffMillis(int errors) {
+        long millis = initialBackoffMillis << Math.min(errors - 1, 30);
+        return millis <= 0 || millis > maxBackoffMillis ? maxBackoffMillis : millis;
+    }
+
+    // Wait before the next poll, waking early if the runner is stopped
+    private synchronized void backoff(long millis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + millis;
+        long remaining = millis;
+        while (state == State.RUNNING && remaining > 0) {
+            wait(remaining);
+            remaining = deadline - System.currentTimeMillis();
+        }
+    }
+
+    private class Worker implements Runnable {
+        volatile boolean retired;
+
+        @Override
+        public void run() {
+            int errors = 0;
+            while (state == State.RUNNING && !retired && !poller.isStopped()) {
+                try {
+                    poller.poll();
+                    errors = 0;
+                    pollCount.incrementAndGet();
+                    consecutiveErrorCount.set(0);
+                    lastPollTime = System.currentTimeMillis();
+                } catch (Throwable t) {
+                    errors++;
+                    errorCount.incrementAndGet();
+                    consecutiveErrorCount.incrementAndGet();
+                    lastError = t;
+                    long millis = backoffMillis(errors);
+                    log.error(format("%s: poll failed, retrying in %d ms", poller, millis), t);
+                    try {
+                        backoff(millis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return format("PollerRunner '%s' %s threads=%d virtual=%s polls=%d errors=%d", poller.getId(), state,
+            threadCount, virtualThreads && VirtualThreads.isSupported(), pollCount.get(), errorCount.get());
+    }
+}
@@ -0,0 +1,179 @@
+package com.clario.swift;
+
+import com.amazonaws.services.simpleworkflow.model.Decision;
+import com.amazonaws.services.simpleworkflow.model.DecisionType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static java.lang.String.format;
+
+/**
+ * Results of {@link DecisionReplayer#replay}: the decisions made for each replayed decision task,
+ * histories that could not be replayed or were decided differently when decided again, and decision latency.
+ *
+ * @author George Coller
+ */
+public class ReplayReport {
+    private final List<HistoryResult> results;
+    private final long[] sortedNanos;
+
+    ReplayReport(List<HistoryResult> results) {
+        this.results = Collections.unmodifiableList(results);
+        int count = 0;
+        for (HistoryResult result : results) {
+            count += result.nanos.size();
+        }
+        sortedNanos = new long[count];
+        int i = 0;
+        for (HistoryResult result : results) {
+            for (Long nanos : result.nanos) {
+                sortedNanos[i++] = nanos;
+            }
+        }
+        Arrays.sort(sortedNanos);
+    }
+
+    /**
+     * @return result of each replayed history in the order given to {@link DecisionReplayer#replay}
+     */
+    public List<HistoryResult> getResults() { return results; }
+
+    /**
+     * @return number of decision tasks replayed over all histories
+     */
+    public int getDecisionTaskCount() { return sortedNanos.length; }
+
+    /**
+     * @return histories that could not be replayed
+     */
+    public List<HistoryResult> getErrors() {
+        List<HistoryResult> errors = new ArrayList<>();
+        for (HistoryResult result : results) {
+            if (result.getError() != null) {
+                errors.add(result);
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * @return histories with at least one decision task decided differently the second time
+     */
+    public List<HistoryResult> getNonDeterministic() {
+        List<HistoryResult> nonDeterministic = new ArrayList<>();
+        for (HistoryResult result : results) {
+            if (!result.getNonDeterministicEventIds().isEmpty()) {
+                nonDeterministic.add(result);
+            }
+        }
+        return nonDeterministic;
+    }
+
+    /**
+     * @return histories with at least one decision task that decided {@link DecisionType#FailWorkflowExecution},
+     * which includes exceptions thrown by {@link Workflow#decide}
+     */
+    public List<HistoryResult> getFailed() {
+        List<HistoryResult> failed = new ArrayList<>();
+        for (HistoryResult result : results) {
+            if (result.isFailWorkflowExecution()) {
+                failed.add(result);
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     *
+     * @return decision latency in microseconds at the given percentile, zero if nothing was replayed
+     */
+    public long getLatencyMicros(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("parameter percentile must be between 0 and 100");
+        }
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sortedNanos.length);
+        return sortedNanos[Math.max(0, rank - 1)] / 1000;
+    }
+
+    @Override
+    public String toString() {
+        return format("ReplayReport histories=%d decisionTasks=%d errors=%d nonDeterministic=%d failed=%d latencyMicros[p50=%d p90=%d p99=%d max=%d]",
+            results.size(), getDecisionTaskCount(), getErrors().size(), getNonDeterministic().size(), getFailed().size(),
+            getLatencyMicros(50), getLatencyMicros(90), getLatencyMicros(99), getLatencyMicros(100));
+    }
+
+    /**
+     * Replay result of a single history.
+     */
+    public static class HistoryResult {
+        private final String name;
+        private final List<Long> startedEventIds = new ArrayList<>();
+        private final List<List<Decision>> decisions = new ArrayList<>();
+        private final List<Long> nonDeterministicEventIds = new ArrayList<>();
+        private final List<Long> nanos = new ArrayList<>();
+        String error;
+
+        HistoryResult(String name) {
+            this.name = name;
+        }
+
+        void add(Long startedEventId, List<Decision> decisions, long nanos, boolean deterministic) {
+            this.startedEventIds.add(startedEventId);
+            this.decisions.add(decisions);
+            this.nanos.add(nanos);
+            if (!deterministic) {
+                nonDeterministicEventIds.add(startedEventId);
+            }
+        }
+
+        /**
+         * @return workflow id of the history, or the file name it was loaded from
+         */
+        public String getName() { return name; }
+
+        /**
+         * @return event id of the {@link com.amazonaws.services.simpleworkflow.model.EventType#DecisionTaskStarted}
+         * event of each replayed decision task, newest first
+         */
+        public List<Long> getStartedEventIds() { return startedEventIds; }
+
+        /**
+         * @return decisions made for each of {@link #getStartedEventIds()}
+         */
+        public List<List<Decision>> getDecisions() { return decisions; }
+
+        /**
+         * @return decision tasks of {@link #getStartedEventIds()} that were decided differently the second time
+         */
+        public List<Long> getNonDeterministicEventIds() { return nonDeterministicEventIds; }
+
+        /**
+         * @return reason the history could not be replayed or null
+         */
+        public String getError() { return error; }
+
+        boolean isFailWorkflowExecution() {
+            for (List<Decision> taskDecisions : decisions) {
+                for (Decision decision : taskDecisions) {
+                    if (DecisionType.FailWorkflowExecution.toString().equals(decision.getDecisionType())) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return format("%s decisionTasks=%d nonDeterministic=%s%s", name, startedEventIds.size(), nonDeterministicEventIds,
+                error == null ? "" : " error=" + error);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.clario.swift;
+
+import com.clario.swift.event.Event;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * Lazily evaluated result of {@link EventList#select}: the events of a source list that pass a chain of
+ * {@link SelectFunction}, where each function sees the output of the ones before it.
+ * <p/>
+ * Nothing is evaluated until the result is first used.  Source events are then evaluated one at a time, applying every
+ * function to an event before moving to the next, and only as far as needed: {@link #iterator()}, {@link #isEmpty()}
+ * and {@link EventList#getFirst()} stop at the first selected event, {@link #size()} evaluates the whole source.
+ * Selected events are kept, so reading the result again calls no functions.  Selecting again from an unused result adds
+ * to its chain instead of creating an intermediate list.
+ * <p/>
+ * The input list of a function after the first is only built if the function reads it.  A function reading its input
+ * on its first call, as {@link EventList#byActionId} does, has the functions before it applied to the rest of the source
+ * at once and evaluation continues from that list.  Each function is then called exactly once for each event that
+ * reaches it.  A function reading its input on a later call has the functions before it applied to the whole source
+ * again.
+ * <p/>
+ * The source is fixed when the selection is made: the history of {@link Workflow#getEvents()} is read through
+ * {@link EventHistory#snapshot()}, so events pushed or added to the workflow afterwards are not seen.
+ * A function shared by selections that are evaluated separately is called by each of them.
+ *
+ * @author George Coller
+ */
+final class SelectedEvents extends AbstractList<Event> implements RandomAccess {
+    private final List<Event> source;
+    private final SelectFunction[] selectFunctions;
+    private final int[] stageIndex;
+    private final EventList[] stageInputs;
+    private List<Event> selected = new ArrayList<>();
+    private boolean started;
+    // Events left to evaluate are those of base from baseIndex on, which have passed the functions before baseStage
+    private List<Event> base;
+    private int baseStage;
+    private int baseIndex;
+    // Event being evaluated and the function it has reached, -1 between events
+    private Event currentEvent;
+    private int currentStage = -1;
+
+    /**
+     * @param source events to select from, not changed while this selection is in use
+     * @param selectFunctions one or more functions to apply in order
+     */
+    SelectedEvents(List<Event> source, SelectFunction[] selectFunctions) {
+        this.source = source;
+        this.selectFunctions = selectFunctions;
+        this.stageIndex = new int[selectFunctions.length];
+        this.stageInputs = new EventList[selectFunctions.length];
+        this.stageInputs[0] = new EventList(source);
+        this.base = source;
+    }
+
+    /**
+     * @return true once any of the result has been evaluated, after which its functions are not reused by {@link #select}.
+     */
+    boolean isStarted() { return started; }
+
+    /**
+     * @return new selection applying this selection's functions followed by the given functions.
+     */
+    SelectedEvents select(SelectFunction[] more) {
+        SelectFunction[] combined = Arrays.copyOf(selectFunctions, selectFunctions.length + more.length);
+        System.arraycopy(more, 0, combined, selectFunctions.length, more.length);
+        return new SelectedEvents(source, combined);
+    }
+
+    /**
+     * @return all selected events, evaluating the rest of the source
+     */
+    List<Event> evaluate() {
+        while (selectNext()) {
+            // keep going
+        }
+        return Collections.unmodifiableList(selected);
+    }
+
+    @Override
+    public Event get(int index) {
+        while (index >= selected.size() && selectNext()) {
+            // keep going
+        }
+        return selected.get(index);
+    }
+
+    @Override
+    public int size() { return evaluate().size(); }
+
+    @Override
+    public boolean isEmpty() { return selected.isEmpty() && !selectNext(); }
+
+    @Override
+    public Iterator<Event> iterator() {
+        return new Iterator<Event>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() { return index < selected.size() || selectNext(); }
+
+            @Override
+            public Event next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return selected.get(index++);
+            }
+        };
+    }
+
+    // Sorts a copy, the evaluated list may be the source of other selections
+    @Override
+    public void sort(Comparator<? super Event> c) {
+        List<Event> sorted = new ArrayList<>(evaluate());
+        sorted.sort(c);
+        selected = sorted;
+        modCount++;
+    }
+
+    // Evaluate source events until one more is selected, false once the source is done
+    private boolean selectNext() {
+        started = true;
+        while (baseIndex < base.size()) {
+            Event event = base.get(baseIndex++);
+            currentEvent = event;
+            boolean passed = true;
+            // A function reading its input may replace base, the event stays at the stage it reached
+            for (currentStage = baseStage; passed && currentStage < selectFunctions.length; currentStage++) {
+                int stage = currentStage;
+                passed = selectFunctions[stage].select(event, stageIndex[stage]++, stageInput(stage));
+            }
+            currentEvent = null;
+            currentStage = -1;
+            if (passed) {
+                selected.add(event);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private EventList stageInput(int stage) {
+        if (stageInputs[stage] == null) {
+            stageInputs[stage] = new EventList(new StageInput(stage));
+        }
+        return stageInputs[stage];
+    }
+
+    // Events passing every function before a stage
+    private List<Event> collectStageInput(int stage) {
+        if (currentStage != stage || stageIndex[stage] != 1) {
+            return new SelectedEvents(source, Arrays.copyOf(selectFunctions, stage)).evaluate();
+        }
+        // First event to reach the stage, so the rest of its input are the later events passing the functions before it
+        List<Event> input = new ArrayList<>();
+        input.add(currentEvent);
+        for (int i = baseIndex; i < base.size(); i++) {
+            Event event = base.get(i);
+            boolean passed = true;
+            for (int before = baseStage; passed && before < stage; before++) {
+                passed = selectFunctions[before].select(event, stageIndex[before]++, stageInput(before));
+            }
+            if (passed) {
+                input.add(event);
+            }
+        }
+        base = input;
+        baseStage = stage;
+        baseIndex = 1;
+        return input;
+    }
+
+    // Input of a function, collected only when read
+    private final class StageInput extends AbstractList<Event> implements RandomAccess {
+        private final int stage;
+        private List<Event> events;
+
+        StageInput(int stage) { this.stage = stage; }
+
+        @Override
+        public Event get(int index) { return events().get(index); }
+
+        @Override
+        public int size() { return events().size(); }
+
+        private List<Event> events() {
+            if (events == null) {
+                events = collectStageInput(stage);
+            }
+            return events;
+        }
+    }
+}
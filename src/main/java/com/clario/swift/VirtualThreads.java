@@ -0,0 +1,88 @@
+package com.clario.swift;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Create threads for pollers and activities, using virtual threads when the JVM supports them (Java 21 or later)
+ * and falling back to platform threads otherwise.
+ * <p/>
+ * Virtual threads are looked up by reflection since SWiFt is compiled for Java 1.8.
+ * Concurrency should be capped with permits, for example {@link ActivityPoller#setExecutor}, rather than by
+ * the number of threads.
+ *
+ * @author George Coller
+ */
+public final class VirtualThreads {
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreads.class);
+    private static final Method OF_VIRTUAL = findMethod(Thread.class, "ofVirtual");
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR = findMethod(Executors.class, "newThreadPerTaskExecutor", ThreadFactory.class);
+
+    private VirtualThreads() {
+        // ensure all-static utility class
+    }
+
+    /**
+     * @return true if this JVM supports virtual threads.
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null && NEW_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * Create a thread factory naming threads <code>namePrefix-1</code>, <code>namePrefix-2</code>, etc.
+     *
+     * @param namePrefix thread name prefix
+     * @param virtual use virtual threads if supported, otherwise daemon platform threads
+     */
+    public static ThreadFactory newThreadFactory(String namePrefix, boolean virtual) {
+        if (virtual && isSupported()) {
+            try {
+                Object builder = OF_VIRTUAL.invoke(null);
+                Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+                builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix + "-", 1L);
+                return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            } catch (Exception e) {
+                log.warn("Virtual threads not available, using platform threads", e);
+            }
+        }
+        AtomicLong count = new AtomicLong();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Create an executor that starts a new thread for each task, virtual if supported.
+     * Falls back to a cached pool of platform threads.
+     *
+     * @param namePrefix thread name prefix
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String namePrefix) {
+        ThreadFactory threadFactory = newThreadFactory(namePrefix, true);
+        if (isSupported()) {
+            try {
+                return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, threadFactory);
+            } catch (Exception e) {
+                log.warn("Virtual thread executor not available, using platform threads", e);
+            }
+        }
+        return Executors.newCachedThreadPool(threadFactory);
+    }
+
+    private static Method findMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -29,7 +29,10 @@ public abstract class Workflow {
     protected final String version;
     protected final String key;
     private final List<String> tags = new ArrayList<>();
-    private List<Event> eventList = new ArrayList<>();
+    private final List<Action> actions = new ArrayList<>();
+    private boolean stopPollingWhenActionsResolved;
+    private EventHistory eventHistory = new EventHistory();
+    private long historyVersion;
 
     // Optional fields used for submitting workflow.
     private String description;
@@ -59,7 +62,18 @@ public abstract class Workflow {
      * @param events events to add
      */
     public void addEvents(List<Event> events) {
-        eventList.addAll(events);
+        eventHistory.append(events);
+        historyVersion++;
+    }
+
+    /**
+     * Use a history kept by {@link WorkflowHistoryCache} as this workflow's events without copying it.
+     * Called by {@link DecisionPoller} in place of {@link #addEvents} once a decision task's new events are added to the
+     * cached history, events pushed afterwards are kept by this workflow and not added to the cached history.
+     */
+    void useCachedHistory(CompactHistory history) {
+        eventHistory = new EventHistory(history);
+        historyVersion++;
     }
 
     /**
@@ -70,21 +84,23 @@ public abstract class Workflow {
     public void pushDummyTimerStartedEvent(String actionId) {
         Event event = new Event(
             new HistoryEvent()
-                .withEventId(eventList.get(0).getEventId() + 1)
+                .withEventId(eventHistory.get(0).getEventId() + 1)
                 .withEventTimestamp(new Date())
                 .withEventType(EventType.TimerStarted)
                 .withTimerStartedEventAttributes(new TimerStartedEventAttributes()
                     .withTimerId(actionId)
                     .withControl("pushDummyTimerStartedEvent")
                 ));
-        eventList.add(0, event);
+        eventHistory.push(event);
+        historyVersion++;
     }
 
     /**
      * Reset instance to prepare for new set of history events.
      */
     public void reset() {
-        eventList = new LinkedList<>();
+        eventHistory = new EventHistory();
+        historyVersion++;
     }
 
     /**
@@ -124,12 +140,30 @@ public abstract class Workflow {
     }
 
     /**
-     * @return {@link EventList} containing all {@link Event} for the current workflow.
+     * @return {@link EventList} containing all {@link Event} for the current workflow, indexed for {@link EventList#selectActionId}.
      */
     public EventList getEvents() {
-        return new EventList(eventList);
+        return new EventList(eventHistory, eventHistory.getIndex());
+    }
+
+    /**
+     * @return true if the event is newer than the most recent {@link EventType#DecisionTaskCompleted} event,
+     * meaning it is new to the current decision task.
+     * @see EventList#selectSinceLastDecision()
+     */
+    public boolean isSinceLastDecision(Event event) {
+        return event.getEventId() > eventHistory.getIndex().getLastDecisionEventId();
     }
 
+    /**
+     * Number that changes whenever this workflow's history changes through {@link #addEvents},
+     * {@link #pushDummyTimerStartedEvent}, {@link #reset} or {@link #init}.
+     * <p/>
+     * Values computed from {@link #getEvents()} can be cached until the version changes,
+     * see {@link Action#getState()}.
+     */
+    public long getHistoryVersion() { return historyVersion; }
+
     /**
      * Register {@link Action} instances with this workflow so that {@link Action#setWorkflow}
      * will be automatically called with this instance before each {@link #decide}.
@@ -142,6 +176,7 @@ public abstract class Workflow {
     protected void addActions(Action... actions) {
         for (Action action : actions) {
             action.setWorkflow(this);
+            this.actions.add(action);
         }
     }
 
@@ -175,7 +210,8 @@ public abstract class Workflow {
      * Called by {@link DecisionPoller} to initialize workflow for a new decision task.
      */
     public void init() {
-        eventList = new LinkedList<>();
+        eventHistory = new EventHistory();
+        historyVersion++;
     }
 
     public String getName() { return name; }
@@ -199,11 +235,38 @@ public abstract class Workflow {
      * be overridden to improve performance.
      * <p/>
      * The default implementation assumes all history events are required
-     * before calling {@link #decide}
+     * before calling {@link #decide} unless {@link #withStopPollingWhenActionsResolved} is set.
      *
      * @return true if more history required, else false.
      */
     public boolean isContinuePollingForHistoryEvents() {
+        return !stopPollingWhenActionsResolved || !isActionsResolved();
+    }
+
+    /**
+     * Stop polling for history once every {@link Action} registered with {@link #addActions} is
+     * {@link Action#isStateResolved()} and the most recent {@link EventType#DecisionTaskCompleted} event has been loaded.
+     * <p/>
+     * Only suitable for workflows whose {@link #decide} depends on nothing but the registered actions,
+     * for example {@link #getWorkflowInput()} will not be available.
+     * Workflows that register no actions always load the full history.
+     *
+     * @see #isContinuePollingForHistoryEvents()
+     */
+    public Workflow withStopPollingWhenActionsResolved() {
+        stopPollingWhenActionsResolved = true;
+        return this;
+    }
+
+    private boolean isActionsResolved() {
+        if (actions.isEmpty() || eventHistory.getIndex().getLastDecisionEventId() == -1) {
+            return false;
+        }
+        for (Action action : actions) {
+            if (!action.isStateResolved()) {
+                return false;
+            }
+        }
         return true;
     }
 
@@ -0,0 +1,153 @@
+package com.clario.swift;
+
+import com.clario.swift.event.Event;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+
+/**
+ * Sticky cache of workflow run history shared by one or more {@link DecisionPoller} instances.
+ * <p/>
+ * Holds the converted {@link Event} history of recently decided workflow runs keyed by workflow id and run id
+ * so that the next decision task for a run only needs to page through history newer than what was already seen.
+ * <p/>
+ * Size is bounded with least-recently-used eviction and entries not used within the time-to-live are dropped.
+ * Only complete histories, from the first event up to the newest, are cached.
+ * <p/>
+ * Histories are held as a {@link CompactHistory}, so each {@link Event} returned from a cached history is a new instance
+ * equal to the one that was put, built when first read.
+ * <p/>
+ * {@link DecisionPoller} takes a run's history out of the cache for the length of a decision task, adds the task's new
+ * events to it and puts it back, so a cached history is used by one decision task at a time and is never rebuilt.
+ *
+ * @author George Coller
+ * @see DecisionPoller#setHistoryCache
+ */
+public class WorkflowHistoryCache {
+    private final int maxSize;
+    private final long timeToLiveMillis;
+    private final Map<String, Entry> entries;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param maxSize maximum number of workflow runs to cache, must be greater than zero
+     * @param timeToLive drop entries not used within this amount of time
+     * @param unit unit of timeToLive
+     */
+    public WorkflowHistoryCache(int maxSize, long timeToLive, TimeUnit unit) {
+        if (maxSize < 1) { throw new IllegalArgumentException("parameter maxSize must be greater than zero"); }
+        if (timeToLive < 1) { throw new IllegalArgumentException("parameter timeToLive must be greater than zero"); }
+        this.maxSize = maxSize;
+        this.timeToLiveMillis = unit.toMillis(timeToLive);
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > WorkflowHistoryCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * @return cached history events of a workflow run in descending {@link Event#getEventId()} order or null if not cached,
+     * events are created when first read.
+     */
+    public synchronized List<Event> get(String workflowId, String runId) {
+        Entry entry = find(makeKey(workflowId, runId), false);
+        return entry == null ? null : entry.history.snapshot();
+    }
+
+    /**
+     * Remove the cached history of a workflow run to add a decision task's new events to it.
+     *
+     * @return cached history or null if not cached
+     * @see #put(String, String, CompactHistory)
+     */
+    synchronized CompactHistory take(String workflowId, String runId) {
+        Entry entry = find(makeKey(workflowId, runId), true);
+        return entry == null ? null : entry.history;
+    }
+
+    /**
+     * Cache the complete history of a workflow run, replacing any prior entry.
+     * Histories that are not contiguous from event id 1 are ignored.
+     *
+     * @param events history events in descending {@link Event#getEventId()} order
+     */
+    public void put(String workflowId, String runId, List<Event> events) {
+        if (!isComplete(events)) {
+            remove(workflowId, runId);
+            return;
+        }
+        put(workflowId, runId, new CompactHistory(events));
+    }
+
+    /**
+     * Cache the complete history of a workflow run, replacing any prior entry.
+     * Histories that are not contiguous from event id 1 are ignored.
+     */
+    void put(String workflowId, String runId, CompactHistory history) {
+        if (!isComplete(history)) {
+            remove(workflowId, runId);
+            return;
+        }
+        synchronized (this) {
+            entries.put(makeKey(workflowId, runId), new Entry(history));
+        }
+    }
+
+    /**
+     * Remove a workflow run, for example when its history did not match the events received from SWF.
+     */
+    public synchronized void remove(String workflowId, String runId) {
+        entries.remove(makeKey(workflowId, runId));
+    }
+
+    public synchronized int size() { return entries.size(); }
+
+    public synchronized void clear() { entries.clear(); }
+
+    @Override
+    public synchronized String toString() {
+        return format("WorkflowHistoryCache size=%d/%d hits=%d misses=%d", entries.size(), maxSize, hits, misses);
+    }
+
+    // Descending event ids with no gaps ending at the first event of the run
+    static boolean isComplete(List<Event> events) {
+        if (events.isEmpty() || events.get(events.size() - 1).getEventId() != 1L) {
+            return false;
+        }
+        return events.get(0).getEventId() == events.size();
+    }
+
+    private Entry find(String key, boolean remove) {
+        Entry entry = remove ? entries.remove(key) : entries.get(key);
+        long now = System.currentTimeMillis();
+        if (entry != null && now - entry.accessed > timeToLiveMillis) {
+            entries.remove(key);
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        entry.accessed = now;
+        return entry;
+    }
+
+    private static String makeKey(String workflowId, String runId) {
+        return workflowId + '\n' + runId;
+    }
+
+    private static class Entry {
+        final CompactHistory history;
+        long accessed = System.currentTimeMillis();
+
+        Entry(CompactHistory history) { this.history = history; }
+    }
+}
@@ -41,6 +41,13 @@ public abstract class Action<T extends Action> {
     private boolean completeWorkflowOnSuccess = false;
     private boolean cancelActiveRetryTimer = false;
 
+    // Memoized per workflow history version, see getEvents
+    private Workflow cachedWorkflow;
+    private long cachedVersion;
+    private EventList cachedEvents;
+    private Event cachedCurrentEvent;
+    private EventState cachedState;
+
     /**
      * Each action requires a workflow-unique identifier.
      *
@@ -313,7 +320,8 @@ public abstract class Action<T extends Action> {
      * Useful as a way to perform certain code once (logging)
      */
     private boolean isCurrentEventInThisDecision() {
-        return workflow.getEvents().selectSinceLastDecision().contains(getCurrentEvent());
+        Event currentEvent = getCurrentEvent();
+        return currentEvent != null && workflow.isSinceLastDecision(currentEvent);
     }
 
     /**
@@ -321,14 +329,41 @@ public abstract class Action<T extends Action> {
      * @see EventState for details on how state is calculated
      */
     public EventState getState() {
-        Event currentEvent = getCurrentEvent();
-        if (currentEvent == null) {
-            return NOT_STARTED;
-        } else if (TimerStarted == currentEvent.getType() || TimerFired == currentEvent.getType() || TimerCanceled == currentEvent.getType()) {
-            return RETRY;
-        } else {
-            return currentEvent.getState();
+        getEvents();
+        if (cachedState == null) {
+            Event currentEvent = getCurrentEvent();
+            if (currentEvent == null) {
+                cachedState = NOT_STARTED;
+            } else if (TimerStarted == currentEvent.getType() || TimerFired == currentEvent.getType() || TimerCanceled == currentEvent.getType()) {
+                cachedState = RETRY;
+            } else {
+                cachedState = currentEvent.getState();
+            }
+        }
+        return cachedState;
+    }
+
+    /**
+     * Used by {@link Workflow#withStopPollingWhenActionsResolved} to stop paging history once the events loaded so far,
+     * which are the most recent, are enough to decide this action.
+     * <p/>
+     * True once an {@link EventState#INITIAL}, {@link EventState#SUCCESS} or {@link EventState#ERROR} event has been loaded.
+     * Never true for actions with a retry policy, which count retries over the full history, or actions without events,
+     * which may have been started in a page not yet loaded.
+     *
+     * @return true if more history would not change this action's state or decisions
+     */
+    public boolean isStateResolved() {
+        if (errorRetryPolicy != null || successRetryPolicy != null) {
+            return false;
+        }
+        for (Event event : getEvents()) {
+            EventState state = event.getState();
+            if (INITIAL == state || SUCCESS == state || ERROR == state) {
+                return true;
+            }
         }
+        return false;
     }
 
     /**
@@ -360,7 +395,11 @@ public abstract class Action<T extends Action> {
      */
     @SuppressWarnings("unchecked")
     public <E extends Event> E getCurrentEvent() {
-        return getEvents().getFirst();
+        EventList events = getEvents();
+        if (cachedCurrentEvent == null) {
+            cachedCurrentEvent = events.getFirst();
+        }
+        return (E) cachedCurrentEvent;
     }
 
     /**
@@ -371,11 +410,22 @@ public abstract class Action<T extends Action> {
     }
 
     /**
+     * Selected once per workflow history version, along with {@link #getCurrentEvent()} and {@link #getState()},
+     * so repeated calls within a decision pass do not search the history again.
+     *
      * @return Workflow {@link EventList} selected by {@link #getActionId()}
+     * @see Workflow#getHistoryVersion()
      */
     public EventList getEvents() {
         assertWorkflowSet();
-        return workflow.getEvents().selectActionId(actionId);
+        if (cachedEvents == null || cachedWorkflow != workflow || cachedVersion != workflow.getHistoryVersion()) {
+            cachedEvents = workflow.getEvents().selectActionId(actionId);
+            cachedWorkflow = workflow;
+            cachedVersion = workflow.getHistoryVersion();
+            cachedCurrentEvent = null;
+            cachedState = null;
+        }
+        return cachedEvents;
     }
 
     /**
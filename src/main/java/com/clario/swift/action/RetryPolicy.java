@@ -95,25 +95,28 @@ public class RetryPolicy {
 
     /**
      * Calculate the interval to wait in seconds before the next retry should be submitted.
+     * <p/>
+     * Retries are counted with {@link EventList#countRetries}, which does not scan the events when given
+     * {@link Action#getEvents()}.
      *
      * @param events {@link Action#getEvents()} for the current action
      *
      * @return interval in seconds, or less than zero to indicate no retry
      */
     public int nextRetryDelaySeconds(EventList events) {
-        EventList retryEvents = events.selectRetryCount(getControl());
-        if (retryEvents.size() >= maximumAttempts) {
+        int retryCount = events.countRetries(getControl());
+        if (retryCount >= maximumAttempts) {
             return -1;
-        } else if (retryEvents.isEmpty()) {
+        } else if (retryCount == 0) {
             return initialRetryInterval.getSeconds();
         } else {
-            DateTime firstRetryDate = retryEvents.getLast().getEventTimestamp();
+            DateTime firstRetryDate = events.getFirstRetryTimestamp(getControl());
             DateTime currentErrorDate = events.getFirst().getEventTimestamp();
 
             Seconds secondsElapsed = secondsBetween(firstRetryDate, currentErrorDate);
             Seconds interval;
             try {
-                interval = initialRetryInterval.multipliedBy((int) pow(backoffCoefficient, retryEvents.size()));
+                interval = initialRetryInterval.multipliedBy((int) pow(backoffCoefficient, retryCount));
                 if (interval.isGreaterThan(maximumRetryInterval)) {
                     interval = maximumRetryInterval;
                 }
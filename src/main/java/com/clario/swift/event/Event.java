@@ -20,539 +20,731 @@ import static java.lang.String.format;
 public class Event implements Comparable<Event> {
 
     private final HistoryEvent historyEvent;
+    private final EventType type;
+    private final TaskType task;
+    private final EventState state;
+    private final Long initialEventId;
+    private final String actionId;
 
-    public Event(HistoryEvent historyEvent) { this.historyEvent = historyEvent; }
+    /**
+     * Resolve the {@link EventType} and the fields used by {@link com.clario.swift.EventList} selections once,
+     * since they are read many times per decision.
+     */
+    public Event(HistoryEvent historyEvent) {
+        this.historyEvent = historyEvent;
+        this.type = EventType.valueOf(historyEvent.getEventType());
+        this.task = task(type, historyEvent);
+        this.state = state(type, historyEvent);
+        this.initialEventId = initialEventId(type, historyEvent);
+        this.actionId = actionId(type, historyEvent);
+    }
 
     public HistoryEvent getHistoryEvent() { return historyEvent; }
 
-    public EventType getType() { return EventType.valueOf(historyEvent.getEventType()); }
+    public EventType getType() { return type; }
 
     public Long getEventId() { return historyEvent.getEventId(); }
 
     public DateTime getEventTimestamp() { return new DateTime(historyEvent.getEventTimestamp()); }
 
-    public TaskType getTask() {
-        if (WorkflowExecutionStarted == getType()) { return WORKFLOW_EXECUTION; }
-        if (WorkflowExecutionCancelRequested == getType()) { return WORKFLOW_EXECUTION; }
-        if (WorkflowExecutionCompleted == getType()) { return WORKFLOW_EXECUTION; }
-        if (CompleteWorkflowExecutionFailed == getType()) { return WORKFLOW_EXECUTION; }
-        if (WorkflowExecutionFailed == getType()) { return WORKFLOW_EXECUTION; }
-        if (FailWorkflowExecutionFailed == getType()) { return WORKFLOW_EXECUTION; }
-        if (WorkflowExecutionTimedOut == getType()) { return WORKFLOW_EXECUTION; }
-        if (WorkflowExecutionCanceled == getType()) { return WORKFLOW_EXECUTION; }
-        if (CancelWorkflowExecutionFailed == getType()) { return WORKFLOW_EXECUTION; }
-        if (WorkflowExecutionContinuedAsNew == getType()) { return CONTINUE_AS_NEW; }
-        if (ContinueAsNewWorkflowExecutionFailed == getType()) { return CONTINUE_AS_NEW; }
-        if (WorkflowExecutionTerminated == getType()) { return WORKFLOW_EXECUTION; }
-        if (DecisionTaskScheduled == getType()) { return DECISION; }
-        if (DecisionTaskStarted == getType()) { return DECISION; }
-        if (DecisionTaskCompleted == getType()) { return DECISION; }
-        if (DecisionTaskTimedOut == getType()) { return DECISION; }
-        if (ActivityTaskScheduled == getType()) { return ACTIVITY; }
-        if (ScheduleActivityTaskFailed == getType()) { return ACTIVITY; }
-        if (ActivityTaskStarted == getType()) { return ACTIVITY; }
-        if (ActivityTaskCompleted == getType()) { return ACTIVITY; }
-        if (ActivityTaskFailed == getType()) { return ACTIVITY; }
-        if (ActivityTaskTimedOut == getType()) { return ACTIVITY; }
-        if (ActivityTaskCanceled == getType()) { return ACTIVITY; }
-        if (ActivityTaskCancelRequested == getType()) { return ACTIVITY; }
-        if (RequestCancelActivityTaskFailed == getType()) { return ACTIVITY; }
-        if (WorkflowExecutionSignaled == getType()) { return WORKFLOW_SIGNALED; }
-        if (MarkerRecorded == getType()) { return RECORD_MARKER; }
-        if (RecordMarkerFailed == getType()) { return RECORD_MARKER; }
-        if (TimerStarted == getType()) { return TIMER; }
-        if (StartTimerFailed == getType()) { return TIMER; }
-        if (TimerFired == getType()) { return TIMER; }
-        if (TimerCanceled == getType()) { return TIMER; }
-        if (CancelTimerFailed == getType()) { return TIMER; }
-        if (StartChildWorkflowExecutionInitiated == getType()) { return START_CHILD_WORKFLOW; }
-        if (StartChildWorkflowExecutionFailed == getType()) { return START_CHILD_WORKFLOW; }
-        if (ChildWorkflowExecutionStarted == getType()) { return START_CHILD_WORKFLOW; }
-        if (ChildWorkflowExecutionCompleted == getType()) { return START_CHILD_WORKFLOW; }
-        if (ChildWorkflowExecutionFailed == getType()) { return START_CHILD_WORKFLOW; }
-        if (ChildWorkflowExecutionTimedOut == getType()) { return START_CHILD_WORKFLOW; }
-        if (ChildWorkflowExecutionCanceled == getType()) { return START_CHILD_WORKFLOW; }
-        if (ChildWorkflowExecutionTerminated == getType()) { return START_CHILD_WORKFLOW; }
-        if (SignalExternalWorkflowExecutionInitiated == getType()) { return SIGNAL_EXTERNAL_WORKFLOW; }
-        if (SignalExternalWorkflowExecutionFailed == getType()) { return SIGNAL_EXTERNAL_WORKFLOW; }
-        if (ExternalWorkflowExecutionSignaled == getType()) { return SIGNAL_EXTERNAL_WORKFLOW; }
-        if (RequestCancelExternalWorkflowExecutionInitiated == getType()) { return CANCEL_EXTERNAL_WORKFLOW; }
-        if (RequestCancelExternalWorkflowExecutionFailed == getType()) { return CANCEL_EXTERNAL_WORKFLOW; }
-        if (ExternalWorkflowExecutionCancelRequested == getType()) { return CANCEL_EXTERNAL_WORKFLOW; }
-        if (LambdaFunctionScheduled == getType()) { return LAMBDA; }
-        if (LambdaFunctionStarted == getType()) { return LAMBDA; }
-        if (LambdaFunctionCompleted == getType()) { return LAMBDA; }
-        if (LambdaFunctionFailed == getType()) { return LAMBDA; }
-        if (LambdaFunctionTimedOut == getType()) { return LAMBDA; }
-        if (ScheduleLambdaFunctionFailed == getType()) { return LAMBDA; }
-        if (StartLambdaFunctionFailed == getType()) { return LAMBDA; }
-        throw new IllegalArgumentException("Unknown EventType " + getType());
-    }
+    public TaskType getTask() { return task; }
 
-    public EventState getState() {
-        if (WorkflowExecutionStarted == getType()) { return INITIAL; }
-        if (WorkflowExecutionCancelRequested == getType()) { return ACTIVE; }
-        if (WorkflowExecutionCompleted == getType()) { return SUCCESS; }
-        if (CompleteWorkflowExecutionFailed == getType()) { return ERROR; }
-        if (WorkflowExecutionFailed == getType()) { return ERROR; }
-        if (FailWorkflowExecutionFailed == getType()) { return ERROR; }
-        if (WorkflowExecutionTimedOut == getType()) { return ERROR; }
-        if (WorkflowExecutionCanceled == getType()) { return ERROR; }
-        if (CancelWorkflowExecutionFailed == getType()) { return ERROR; }
-        if (WorkflowExecutionContinuedAsNew == getType()) { return INITIAL; }
-        if (ContinueAsNewWorkflowExecutionFailed == getType()) { return ERROR; }
-        if (WorkflowExecutionTerminated == getType()) { return ERROR; }
-        if (DecisionTaskScheduled == getType()) { return INITIAL; }
-        if (DecisionTaskStarted == getType()) { return ACTIVE; }
-        if (DecisionTaskCompleted == getType()) { return SUCCESS; }
-        if (DecisionTaskTimedOut == getType()) { return ERROR; }
-        if (ActivityTaskScheduled == getType()) { return INITIAL; }
-        if (ScheduleActivityTaskFailed == getType()) { return ERROR; }
-        if (ActivityTaskStarted == getType()) { return ACTIVE; }
-        if (ActivityTaskCompleted == getType()) { return SUCCESS; }
-        if (ActivityTaskFailed == getType()) { return ERROR; }
-        if (ActivityTaskTimedOut == getType()) { return ERROR; }
-        if (ActivityTaskCanceled == getType()) { return ERROR; }
-        if (ActivityTaskCancelRequested == getType()) { return ERROR; }
-        if (RequestCancelActivityTaskFailed == getType()) { return ERROR; }
-        if (WorkflowExecutionSignaled == getType()) { return SUCCESS; }
-        if (MarkerRecorded == getType()) { return INITIAL; }
-        if (RecordMarkerFailed == getType()) { return ERROR; }
-        if (TimerStarted == getType()) { return INITIAL; }
-        if (StartTimerFailed == getType()) { return ERROR; }
-        if (TimerFired == getType()) { return SUCCESS; }
-        if (TimerCanceled == getType()) { return SUCCESS; }
-        if (CancelTimerFailed == getType()) { return ACTIVE; }
-        if (StartChildWorkflowExecutionInitiated == getType()) { return INITIAL; }
-        if (StartChildWorkflowExecutionFailed == getType()) { return ERROR; }
-        if (ChildWorkflowExecutionStarted == getType()) { return ACTIVE; }
-        if (ChildWorkflowExecutionCompleted == getType()) { return SUCCESS; }
-        if (ChildWorkflowExecutionFailed == getType()) { return ERROR; }
-        if (ChildWorkflowExecutionTimedOut == getType()) { return ERROR; }
-        if (ChildWorkflowExecutionCanceled == getType()) { return ERROR; }
-        if (ChildWorkflowExecutionTerminated == getType()) { return ERROR; }
-        if (SignalExternalWorkflowExecutionInitiated == getType()) { return INITIAL; }
-        if (SignalExternalWorkflowExecutionFailed == getType()) { return ERROR; }
-        if (ExternalWorkflowExecutionSignaled == getType()) { return SUCCESS; }
-        if (RequestCancelExternalWorkflowExecutionInitiated == getType()) { return INITIAL; }
-        if (RequestCancelExternalWorkflowExecutionFailed == getType()) { return ERROR; }
-        if (ExternalWorkflowExecutionCancelRequested == getType()) { return SUCCESS; }
-        if (LambdaFunctionScheduled == getType()) { return INITIAL; }
-        if (LambdaFunctionStarted == getType()) { return ACTIVE; }
-        if (LambdaFunctionCompleted == getType()) { return SUCCESS; }
-        if (LambdaFunctionFailed == getType()) { return ERROR; }
-        if (LambdaFunctionTimedOut == getType()) { return ERROR; }
-        if (ScheduleLambdaFunctionFailed == getType()) { return ERROR; }
-        if (StartLambdaFunctionFailed == getType()) { return ERROR; }
-        throw new IllegalArgumentException("Unknown EventType " + getType());
-    }
+    public EventState getState() { return state; }
 
-    public Long getInitialEventId() {
-        if (WorkflowExecutionStarted == getType()) { return historyEvent.getEventId(); }
-        if (WorkflowExecutionCancelRequested == getType()) { return historyEvent.getEventId(); }
-        if (WorkflowExecutionCompleted == getType()) { return historyEvent.getEventId(); }
-        if (CompleteWorkflowExecutionFailed == getType()) { return historyEvent.getEventId(); }
-        if (WorkflowExecutionFailed == getType()) { return historyEvent.getEventId(); }
-        if (FailWorkflowExecutionFailed == getType()) { return historyEvent.getEventId(); }
-        if (WorkflowExecutionTimedOut == getType()) { return historyEvent.getEventId(); }
-        if (WorkflowExecutionCanceled == getType()) { return historyEvent.getEventId(); }
-        if (CancelWorkflowExecutionFailed == getType()) { return historyEvent.getEventId(); }
-        if (WorkflowExecutionContinuedAsNew == getType()) { return historyEvent.getEventId(); }
-        if (ContinueAsNewWorkflowExecutionFailed == getType()) { return historyEvent.getEventId(); }
-        if (WorkflowExecutionTerminated == getType()) { return historyEvent.getEventId(); }
-        if (DecisionTaskScheduled == getType()) { return historyEvent.getEventId(); }
-        if (DecisionTaskStarted == getType()) { return historyEvent.getEventId(); }
-        if (DecisionTaskCompleted == getType()) { return historyEvent.getDecisionTaskCompletedEventAttributes().getScheduledEventId(); }
-        if (DecisionTaskTimedOut == getType()) { return historyEvent.getEventId(); }
-        if (ActivityTaskScheduled == getType()) { return historyEvent.getEventId(); }
-        if (ScheduleActivityTaskFailed == getType()) { return historyEvent.getEventId(); }
-        if (ActivityTaskStarted == getType()) { return historyEvent.getActivityTaskStartedEventAttributes().getScheduledEventId(); }
-        if (ActivityTaskCompleted == getType()) { return historyEvent.getActivityTaskCompletedEventAttributes().getScheduledEventId(); }
-        if (ActivityTaskFailed == getType()) { return historyEvent.getActivityTaskFailedEventAttributes().getScheduledEventId(); }
-        if (ActivityTaskTimedOut == getType()) { return historyEvent.getActivityTaskTimedOutEventAttributes().getScheduledEventId(); }
-        if (ActivityTaskCanceled == getType()) { return historyEvent.getActivityTaskCanceledEventAttributes().getScheduledEventId(); }
-        if (ActivityTaskCancelRequested == getType()) { return historyEvent.getEventId(); }
-        if (RequestCancelActivityTaskFailed == getType()) { return historyEvent.getEventId(); }
-        if (WorkflowExecutionSignaled == getType()) { return historyEvent.getEventId(); }
-        if (MarkerRecorded == getType()) { return historyEvent.getEventId(); }
-        if (RecordMarkerFailed == getType()) { return historyEvent.getEventId(); }
-        if (TimerStarted == getType()) { return historyEvent.getEventId(); }
-        if (StartTimerFailed == getType()) { return null; }
-        if (TimerFired == getType()) { return historyEvent.getTimerFiredEventAttributes().getStartedEventId(); }
-        if (TimerCanceled == getType()) { return historyEvent.getTimerCanceledEventAttributes().getStartedEventId(); }
-        if (CancelTimerFailed == getType()) { return historyEvent.getEventId(); }
-        if (StartChildWorkflowExecutionInitiated == getType()) { return historyEvent.getEventId(); }
-        if (StartChildWorkflowExecutionFailed == getType()) { return historyEvent.getStartChildWorkflowExecutionFailedEventAttributes().getInitiatedEventId(); }
-        if (ChildWorkflowExecutionStarted == getType()) { return historyEvent.getChildWorkflowExecutionStartedEventAttributes().getInitiatedEventId(); }
-        if (ChildWorkflowExecutionCompleted == getType()) { return historyEvent.getChildWorkflowExecutionCompletedEventAttributes().getInitiatedEventId(); }
-        if (ChildWorkflowExecutionFailed == getType()) { return historyEvent.getChildWorkflowExecutionFailedEventAttributes().getInitiatedEventId(); }
-        if (ChildWorkflowExecutionTimedOut == getType()) { return historyEvent.getChildWorkflowExecutionTimedOutEventAttributes().getInitiatedEventId(); }
-        if (ChildWorkflowExecutionCanceled == getType()) { return historyEvent.getChildWorkflowExecutionCanceledEventAttributes().getInitiatedEventId(); }
-        if (ChildWorkflowExecutionTerminated == getType()) { return historyEvent.getChildWorkflowExecutionTerminatedEventAttributes().getInitiatedEventId(); }
-        if (SignalExternalWorkflowExecutionInitiated == getType()) { return historyEvent.getEventId(); }
-        if (SignalExternalWorkflowExecutionFailed == getType()) { return historyEvent.getSignalExternalWorkflowExecutionFailedEventAttributes().getInitiatedEventId(); }
-        if (ExternalWorkflowExecutionSignaled == getType()) { return historyEvent.getExternalWorkflowExecutionSignaledEventAttributes().getInitiatedEventId(); }
-        if (RequestCancelExternalWorkflowExecutionInitiated == getType()) { return historyEvent.getEventId(); }
-        if (RequestCancelExternalWorkflowExecutionFailed == getType()) { return historyEvent.getEventId(); }
-        if (ExternalWorkflowExecutionCancelRequested == getType()) { return historyEvent.getEventId(); }
-        if (LambdaFunctionScheduled == getType()) { return historyEvent.getEventId(); }
-        if (LambdaFunctionStarted == getType()) { return historyEvent.getLambdaFunctionStartedEventAttributes().getScheduledEventId(); }
-        if (LambdaFunctionCompleted == getType()) { return historyEvent.getLambdaFunctionCompletedEventAttributes().getScheduledEventId(); }
-        if (LambdaFunctionFailed == getType()) { return historyEvent.getLambdaFunctionFailedEventAttributes().getScheduledEventId(); }
-        if (LambdaFunctionTimedOut == getType()) { return historyEvent.getLambdaFunctionTimedOutEventAttributes().getScheduledEventId(); }
-        if (ScheduleLambdaFunctionFailed == getType()) { return null; }
-        if (StartLambdaFunctionFailed == getType()) { return historyEvent.getStartLambdaFunctionFailedEventAttributes().getScheduledEventId(); }
-        throw new IllegalArgumentException("Unknown EventType " + getType());
-    }
+    public Long getInitialEventId() { return initialEventId; }
 
-    public String getActionId() {
-        if (WorkflowExecutionStarted == getType()) { return null; }
-        if (WorkflowExecutionCancelRequested == getType()) { return null; }
-        if (WorkflowExecutionCompleted == getType()) { return null; }
-        if (CompleteWorkflowExecutionFailed == getType()) { return null; }
-        if (WorkflowExecutionFailed == getType()) { return null; }
-        if (FailWorkflowExecutionFailed == getType()) { return null; }
-        if (WorkflowExecutionTimedOut == getType()) { return null; }
-        if (WorkflowExecutionCanceled == getType()) { return null; }
-        if (CancelWorkflowExecutionFailed == getType()) { return null; }
-        if (WorkflowExecutionContinuedAsNew == getType()) { return null; }
-        if (ContinueAsNewWorkflowExecutionFailed == getType()) { return null; }
-        if (WorkflowExecutionTerminated == getType()) { return null; }
-        if (DecisionTaskScheduled == getType()) { return null; }
-        if (DecisionTaskStarted == getType()) { return null; }
-        if (DecisionTaskCompleted == getType()) { return null; }
-        if (DecisionTaskTimedOut == getType()) { return null; }
-        if (ActivityTaskScheduled == getType()) { return historyEvent.getActivityTaskScheduledEventAttributes().getActivityId(); }
-        if (ScheduleActivityTaskFailed == getType()) { return null; }
-        if (ActivityTaskStarted == getType()) { return null; }
-        if (ActivityTaskCompleted == getType()) { return null; }
-        if (ActivityTaskFailed == getType()) { return null; }
-        if (ActivityTaskTimedOut == getType()) { return null; }
-        if (ActivityTaskCanceled == getType()) { return null; }
-        if (ActivityTaskCancelRequested == getType()) { return null; }
-        if (RequestCancelActivityTaskFailed == getType()) { return null; }
-        if (WorkflowExecutionSignaled == getType()) { return historyEvent.getWorkflowExecutionSignaledEventAttributes().getSignalName(); }
-        if (MarkerRecorded == getType()) { return historyEvent.getMarkerRecordedEventAttributes().getMarkerName(); }
-        if (RecordMarkerFailed == getType()) { return null; }
-        if (TimerStarted == getType()) { return historyEvent.getTimerStartedEventAttributes().getTimerId(); }
-        if (StartTimerFailed == getType()) { return historyEvent.getStartTimerFailedEventAttributes().getTimerId(); }
-        if (TimerFired == getType()) { return historyEvent.getTimerFiredEventAttributes().getTimerId(); }
-        if (TimerCanceled == getType()) { return historyEvent.getTimerCanceledEventAttributes().getTimerId(); }
-        if (CancelTimerFailed == getType()) { return historyEvent.getCancelTimerFailedEventAttributes().getTimerId(); }
-        if (StartChildWorkflowExecutionInitiated == getType()) { return historyEvent.getStartChildWorkflowExecutionInitiatedEventAttributes().getControl(); }
-        if (StartChildWorkflowExecutionFailed == getType()) { return null; }
-        if (ChildWorkflowExecutionStarted == getType()) { return null; }
-        if (ChildWorkflowExecutionCompleted == getType()) { return null; }
-        if (ChildWorkflowExecutionFailed == getType()) { return null; }
-        if (ChildWorkflowExecutionTimedOut == getType()) { return null; }
-        if (ChildWorkflowExecutionCanceled == getType()) { return null; }
-        if (ChildWorkflowExecutionTerminated == getType()) { return null; }
-        if (SignalExternalWorkflowExecutionInitiated == getType()) { return historyEvent.getSignalExternalWorkflowExecutionInitiatedEventAttributes().getSignalName(); }
-        if (SignalExternalWorkflowExecutionFailed == getType()) { return null; }
-        if (ExternalWorkflowExecutionSignaled == getType()) { return null; }
-        if (RequestCancelExternalWorkflowExecutionInitiated == getType()) { return historyEvent.getRequestCancelExternalWorkflowExecutionInitiatedEventAttributes().getControl(); }
-        if (RequestCancelExternalWorkflowExecutionFailed == getType()) { return historyEvent.getRequestCancelExternalWorkflowExecutionFailedEventAttributes().getControl(); }
-        if (ExternalWorkflowExecutionCancelRequested == getType()) { return null; }
-        if (LambdaFunctionScheduled == getType()) { return null; }
-        if (LambdaFunctionStarted == getType()) { return null; }
-        if (LambdaFunctionCompleted == getType()) { return null; }
-        if (LambdaFunctionFailed == getType()) { return null; }
-        if (LambdaFunctionTimedOut == getType()) { return null; }
-        if (ScheduleLambdaFunctionFailed == getType()) { return null; }
-        if (StartLambdaFunctionFailed == getType()) { return null; }
-        throw new IllegalArgumentException("Unknown EventType " + getType());
-    }
+    public String getActionId() { return actionId; }
 
     public String getInput() {
-        if (WorkflowExecutionStarted == getType()) { return historyEvent.getWorkflowExecutionStartedEventAttributes().getInput(); }
-        if (WorkflowExecutionCancelRequested == getType()) { return null; }
-        if (WorkflowExecutionCompleted == getType()) { return null; }
-        if (CompleteWorkflowExecutionFailed == getType()) { return null; }
-        if (WorkflowExecutionFailed == getType()) { return null; }
-        if (FailWorkflowExecutionFailed == getType()) { return null; }
-        if (WorkflowExecutionTimedOut == getType()) { return null; }
-        if (WorkflowExecutionCanceled == getType()) { return null; }
-        if (CancelWorkflowExecutionFailed == getType()) { return null; }
-        if (WorkflowExecutionContinuedAsNew == getType()) { return historyEvent.getWorkflowExecutionContinuedAsNewEventAttributes().getInput(); }
-        if (ContinueAsNewWorkflowExecutionFailed == getType()) { return null; }
-        if (WorkflowExecutionTerminated == getType()) { return null; }
-        if (DecisionTaskScheduled == getType()) { return null; }
-        if (DecisionTaskStarted == getType()) { return null; }
-        if (DecisionTaskCompleted == getType()) { return null; }
-        if (DecisionTaskTimedOut == getType()) { return null; }
-        if (ActivityTaskScheduled == getType()) { return historyEvent.getActivityTaskScheduledEventAttributes().getInput(); }
-        if (ScheduleActivityTaskFailed == getType()) { return null; }
-        if (ActivityTaskStarted == getType()) { return null; }
-        if (ActivityTaskCompleted == getType()) { return null; }
-        if (ActivityTaskFailed == getType()) { return null; }
-        if (ActivityTaskTimedOut == getType()) { return null; }
-        if (ActivityTaskCanceled == getType()) { return null; }
-        if (ActivityTaskCancelRequested == getType()) { return null; }
-        if (RequestCancelActivityTaskFailed == getType()) { return null; }
-        if (WorkflowExecutionSignaled == getType()) { return historyEvent.getWorkflowExecutionSignaledEventAttributes().getInput(); }
-        if (MarkerRecorded == getType()) { return historyEvent.getMarkerRecordedEventAttributes().getDetails(); }
-        if (RecordMarkerFailed == getType()) { return null; }
-        if (TimerStarted == getType()) { return "Timer Started"; }
-        if (StartTimerFailed == getType()) { return null; }
-        if (TimerFired == getType()) { return null; }
-        if (TimerCanceled == getType()) { return null; }
-        if (CancelTimerFailed == getType()) { return null; }
-        if (StartChildWorkflowExecutionInitiated == getType()) { return historyEvent.getStartChildWorkflowExecutionInitiatedEventAttributes().getInput(); }
-        if (StartChildWorkflowExecutionFailed == getType()) { return null; }
-        if (ChildWorkflowExecutionStarted == getType()) { return null; }
-        if (ChildWorkflowExecutionCompleted == getType()) { return null; }
-        if (ChildWorkflowExecutionFailed == getType()) { return null; }
-        if (ChildWorkflowExecutionTimedOut == getType()) { return null; }
-        if (ChildWorkflowExecutionCanceled == getType()) { return null; }
-        if (ChildWorkflowExecutionTerminated == getType()) { return null; }
-        if (SignalExternalWorkflowExecutionInitiated == getType()) { return historyEvent.getSignalExternalWorkflowExecutionInitiatedEventAttributes().getInput(); }
-        if (SignalExternalWorkflowExecutionFailed == getType()) { return null; }
-        if (ExternalWorkflowExecutionSignaled == getType()) { return null; }
-        if (RequestCancelExternalWorkflowExecutionInitiated == getType()) { return null; }
-        if (RequestCancelExternalWorkflowExecutionFailed == getType()) { return null; }
-        if (ExternalWorkflowExecutionCancelRequested == getType()) { return null; }
-        if (LambdaFunctionScheduled == getType()) { return historyEvent.getLambdaFunctionScheduledEventAttributes().getInput(); }
-        if (LambdaFunctionStarted == getType()) { return null; }
-        if (LambdaFunctionCompleted == getType()) { return null; }
-        if (LambdaFunctionFailed == getType()) { return null; }
-        if (LambdaFunctionTimedOut == getType()) { return null; }
-        if (ScheduleLambdaFunctionFailed == getType()) { return null; }
-        if (StartLambdaFunctionFailed == getType()) { return null; }
-        throw new IllegalArgumentException("Unknown EventType " + getType());
+        switch (type) {
+            case WorkflowExecutionStarted:
+                return historyEvent.getWorkflowExecutionStartedEventAttributes().getInput();
+            case WorkflowExecutionCancelRequested:
+            case WorkflowExecutionCompleted:
+            case CompleteWorkflowExecutionFailed:
+            case WorkflowExecutionFailed:
+            case FailWorkflowExecutionFailed:
+            case WorkflowExecutionTimedOut:
+            case WorkflowExecutionCanceled:
+            case CancelWorkflowExecutionFailed:
+            case ContinueAsNewWorkflowExecutionFailed:
+            case WorkflowExecutionTerminated:
+            case DecisionTaskScheduled:
+            case DecisionTaskStarted:
+            case DecisionTaskCompleted:
+            case DecisionTaskTimedOut:
+            case ScheduleActivityTaskFailed:
+            case ActivityTaskStarted:
+            case ActivityTaskCompleted:
+            case ActivityTaskFailed:
+            case ActivityTaskTimedOut:
+            case ActivityTaskCanceled:
+            case ActivityTaskCancelRequested:
+            case RequestCancelActivityTaskFailed:
+            case RecordMarkerFailed:
+            case StartTimerFailed:
+            case TimerFired:
+            case TimerCanceled:
+            case CancelTimerFailed:
+            case StartChildWorkflowExecutionFailed:
+            case ChildWorkflowExecutionStarted:
+            case ChildWorkflowExecutionCompleted:
+            case ChildWorkflowExecutionFailed:
+            case ChildWorkflowExecutionTimedOut:
+            case ChildWorkflowExecutionCanceled:
+            case ChildWorkflowExecutionTerminated:
+            case SignalExternalWorkflowExecutionFailed:
+            case ExternalWorkflowExecutionSignaled:
+            case RequestCancelExternalWorkflowExecutionInitiated:
+            case RequestCancelExternalWorkflowExecutionFailed:
+            case ExternalWorkflowExecutionCancelRequested:
+            case LambdaFunctionStarted:
+            case LambdaFunctionCompleted:
+            case LambdaFunctionFailed:
+            case LambdaFunctionTimedOut:
+            case ScheduleLambdaFunctionFailed:
+            case StartLambdaFunctionFailed:
+                return null;
+            case WorkflowExecutionContinuedAsNew:
+                return historyEvent.getWorkflowExecutionContinuedAsNewEventAttributes().getInput();
+            case ActivityTaskScheduled:
+                return historyEvent.getActivityTaskScheduledEventAttributes().getInput();
+            case WorkflowExecutionSignaled:
+                return historyEvent.getWorkflowExecutionSignaledEventAttributes().getInput();
+            case MarkerRecorded:
+                return historyEvent.getMarkerRecordedEventAttributes().getDetails();
+            case TimerStarted:
+                return "Timer Started";
+            case StartChildWorkflowExecutionInitiated:
+                return historyEvent.getStartChildWorkflowExecutionInitiatedEventAttributes().getInput();
+            case SignalExternalWorkflowExecutionInitiated:
+                return historyEvent.getSignalExternalWorkflowExecutionInitiatedEventAttributes().getInput();
+            case LambdaFunctionScheduled:
+                return historyEvent.getLambdaFunctionScheduledEventAttributes().getInput();
+            default:
+                throw new IllegalArgumentException("Unknown EventType " + type);
+        }
     }
 
     public String getControl() {
-        if (WorkflowExecutionStarted == getType()) { return null; }
-        if (WorkflowExecutionCancelRequested == getType()) { return null; }
-        if (WorkflowExecutionCompleted == getType()) { return null; }
-        if (CompleteWorkflowExecutionFailed == getType()) { return null; }
-        if (WorkflowExecutionFailed == getType()) { return null; }
-        if (FailWorkflowExecutionFailed == getType()) { return null; }
-        if (WorkflowExecutionTimedOut == getType()) { return null; }
-        if (WorkflowExecutionCanceled == getType()) { return null; }
-        if (CancelWorkflowExecutionFailed == getType()) { return null; }
-        if (WorkflowExecutionContinuedAsNew == getType()) { return null; }
-        if (ContinueAsNewWorkflowExecutionFailed == getType()) { return null; }
-        if (WorkflowExecutionTerminated == getType()) { return null; }
-        if (DecisionTaskScheduled == getType()) { return null; }
-        if (DecisionTaskStarted == getType()) { return null; }
-        if (DecisionTaskCompleted == getType()) { return null; }
-        if (DecisionTaskTimedOut == getType()) { return null; }
-        if (ActivityTaskScheduled == getType()) { return historyEvent.getActivityTaskScheduledEventAttributes().getControl(); }
-        if (ScheduleActivityTaskFailed == getType()) { return null; }
-        if (ActivityTaskStarted == getType()) { return null; }
-        if (ActivityTaskCompleted == getType()) { return null; }
-        if (ActivityTaskFailed == getType()) { return null; }
-        if (ActivityTaskTimedOut == getType()) { return null; }
-        if (ActivityTaskCanceled == getType()) { return null; }
-        if (ActivityTaskCancelRequested == getType()) { return null; }
-        if (RequestCancelActivityTaskFailed == getType()) { return null; }
-        if (WorkflowExecutionSignaled == getType()) { return null; }
-        if (MarkerRecorded == getType()) { return null; }
-        if (RecordMarkerFailed == getType()) { return null; }
-        if (TimerStarted == getType()) { return historyEvent.getTimerStartedEventAttributes().getControl(); }
-        if (StartTimerFailed == getType()) { return null; }
-        if (TimerFired == getType()) { return null; }
-        if (TimerCanceled == getType()) { return null; }
-        if (CancelTimerFailed == getType()) { return null; }
-        if (StartChildWorkflowExecutionInitiated == getType()) { return historyEvent.getStartChildWorkflowExecutionInitiatedEventAttributes().getControl(); }
-        if (StartChildWorkflowExecutionFailed == getType()) { return historyEvent.getStartChildWorkflowExecutionFailedEventAttributes().getControl(); }
-        if (ChildWorkflowExecutionStarted == getType()) { return null; }
-        if (ChildWorkflowExecutionCompleted == getType()) { return null; }
-        if (ChildWorkflowExecutionFailed == getType()) { return null; }
-        if (ChildWorkflowExecutionTimedOut == getType()) { return null; }
-        if (ChildWorkflowExecutionCanceled == getType()) { return null; }
-        if (ChildWorkflowExecutionTerminated == getType()) { return null; }
-        if (SignalExternalWorkflowExecutionInitiated == getType()) { return historyEvent.getSignalExternalWorkflowExecutionInitiatedEventAttributes().getControl(); }
-        if (SignalExternalWorkflowExecutionFailed == getType()) { return historyEvent.getSignalExternalWorkflowExecutionFailedEventAttributes().getControl(); }
-        if (ExternalWorkflowExecutionSignaled == getType()) { return null; }
-        if (RequestCancelExternalWorkflowExecutionInitiated == getType()) { return historyEvent.getRequestCancelExternalWorkflowExecutionInitiatedEventAttributes().getControl(); }
-        if (RequestCancelExternalWorkflowExecutionFailed == getType()) { return historyEvent.getRequestCancelExternalWorkflowExecutionFailedEventAttributes().getControl(); }
-        if (ExternalWorkflowExecutionCancelRequested == getType()) { return null; }
-        if (LambdaFunctionScheduled == getType()) { return null; }
-        if (LambdaFunctionStarted == getType()) { return null; }
-        if (LambdaFunctionCompleted == getType()) { return null; }
-        if (LambdaFunctionFailed == getType()) { return null; }
-        if (LambdaFunctionTimedOut == getType()) { return null; }
-        if (ScheduleLambdaFunctionFailed == getType()) { return historyEvent.getScheduleLambdaFunctionFailedEventAttributes().getName(); }
-        if (StartLambdaFunctionFailed == getType()) { return null; }
-        throw new IllegalArgumentException("Unknown EventType " + getType());
+        switch (type) {
+            case WorkflowExecutionStarted:
+            case WorkflowExecutionCancelRequested:
+            case WorkflowExecutionCompleted:
+            case CompleteWorkflowExecutionFailed:
+            case WorkflowExecutionFailed:
+            case FailWorkflowExecutionFailed:
+            case WorkflowExecutionTimedOut:
+            case WorkflowExecutionCanceled:
+            case CancelWorkflowExecutionFailed:
+            case WorkflowExecutionContinuedAsNew:
+            case ContinueAsNewWorkflowExecutionFailed:
+            case WorkflowExecutionTerminated:
+            case DecisionTaskScheduled:
+            case DecisionTaskStarted:
+            case DecisionTaskCompleted:
+            case DecisionTaskTimedOut:
+            case ScheduleActivityTaskFailed:
+            case ActivityTaskStarted:
+            case ActivityTaskCompleted:
+            case ActivityTaskFailed:
+            case ActivityTaskTimedOut:
+            case ActivityTaskCanceled:
+            case ActivityTaskCancelRequested:
+            case RequestCancelActivityTaskFailed:
+            case WorkflowExecutionSignaled:
+            case MarkerRecorded:
+            case RecordMarkerFailed:
+            case StartTimerFailed:
+            case TimerFired:
+            case TimerCanceled:
+            case CancelTimerFailed:
+            case ChildWorkflowExecutionStarted:
+            case ChildWorkflowExecutionCompleted:
+            case ChildWorkflowExecutionFailed:
+            case ChildWorkflowExecutionTimedOut:
+            case ChildWorkflowExecutionCanceled:
+            case ChildWorkflowExecutionTerminated:
+            case ExternalWorkflowExecutionSignaled:
+            case ExternalWorkflowExecutionCancelRequested:
+            case LambdaFunctionScheduled:
+            case LambdaFunctionStarted:
+            case LambdaFunctionCompleted:
+            case LambdaFunctionFailed:
+            case LambdaFunctionTimedOut:
+            case StartLambdaFunctionFailed:
+                return null;
+            case ActivityTaskScheduled:
+                return historyEvent.getActivityTaskScheduledEventAttributes().getControl();
+            case TimerStarted:
+                return historyEvent.getTimerStartedEventAttributes().getControl();
+            case StartChildWorkflowExecutionInitiated:
+                return historyEvent.getStartChildWorkflowExecutionInitiatedEventAttributes().getControl();
+            case StartChildWorkflowExecutionFailed:
+                return historyEvent.getStartChildWorkflowExecutionFailedEventAttributes().getControl();
+            case SignalExternalWorkflowExecutionInitiated:
+                return historyEvent.getSignalExternalWorkflowExecutionInitiatedEventAttributes().getControl();
+            case SignalExternalWorkflowExecutionFailed:
+                return historyEvent.getSignalExternalWorkflowExecutionFailedEventAttributes().getControl();
+            case RequestCancelExternalWorkflowExecutionInitiated:
+                return historyEvent.getRequestCancelExternalWorkflowExecutionInitiatedEventAttributes().getControl();
+            case RequestCancelExternalWorkflowExecutionFailed:
+                return historyEvent.getRequestCancelExternalWorkflowExecutionFailedEventAttributes().getControl();
+            case ScheduleLambdaFunctionFailed:
+                return historyEvent.getScheduleLambdaFunctionFailedEventAttributes().getName();
+            default:
+                throw new IllegalArgumentException("Unknown EventType " + type);
+        }
     }
 
     public String getOutput() {
-        if (WorkflowExecutionStarted == getType()) { return null; }
-        if (WorkflowExecutionCancelRequested == getType()) { return null; }
-        if (WorkflowExecutionCompleted == getType()) { return historyEvent.getWorkflowExecutionCompletedEventAttributes().getResult(); }
-        if (CompleteWorkflowExecutionFailed == getType()) { return null; }
-        if (WorkflowExecutionFailed == getType()) { return null; }
-        if (FailWorkflowExecutionFailed == getType()) { return null; }
-        if (WorkflowExecutionTimedOut == getType()) { return null; }
-        if (WorkflowExecutionCanceled == getType()) { return null; }
-        if (CancelWorkflowExecutionFailed == getType()) { return null; }
-        if (WorkflowExecutionContinuedAsNew == getType()) { return null; }
-        if (ContinueAsNewWorkflowExecutionFailed == getType()) { return null; }
-        if (WorkflowExecutionTerminated == getType()) { return null; }
-        if (DecisionTaskScheduled == getType()) { return null; }
-        if (DecisionTaskStarted == getType()) { return null; }
-        if (DecisionTaskCompleted == getType()) { return historyEvent.getDecisionTaskCompletedEventAttributes().getExecutionContext(); }
-        if (DecisionTaskTimedOut == getType()) { return null; }
-        if (ActivityTaskScheduled == getType()) { return null; }
-        if (ScheduleActivityTaskFailed == getType()) { return null; }
-        if (ActivityTaskStarted == getType()) { return null; }
-        if (ActivityTaskCompleted == getType()) { return historyEvent.getActivityTaskCompletedEventAttributes().getResult(); }
-        if (ActivityTaskFailed == getType()) { return null; }
-        if (ActivityTaskTimedOut == getType()) { return null; }
-        if (ActivityTaskCanceled == getType()) { return null; }
-        if (ActivityTaskCancelRequested == getType()) { return null; }
-        if (RequestCancelActivityTaskFailed == getType()) { return null; }
-        if (WorkflowExecutionSignaled == getType()) { return historyEvent.getWorkflowExecutionSignaledEventAttributes().getInput(); }
-        if (MarkerRecorded == getType()) { return historyEvent.getMarkerRecordedEventAttributes().getDetails(); }
-        if (RecordMarkerFailed == getType()) { return null; }
-        if (TimerStarted == getType()) { return null; }
-        if (StartTimerFailed == getType()) { return null; }
-        if (TimerFired == getType()) { return "Timer Fired"; }
-        if (TimerCanceled == getType()) { return "Timer Canceled"; }
-        if (CancelTimerFailed == getType()) { return null; }
-        if (StartChildWorkflowExecutionInitiated == getType()) { return null; }
-        if (StartChildWorkflowExecutionFailed == getType()) { return null; }
-        if (ChildWorkflowExecutionStarted == getType()) { return null; }
-        if (ChildWorkflowExecutionCompleted == getType()) { return historyEvent.getChildWorkflowExecutionCompletedEventAttributes().getResult(); }
-        if (ChildWorkflowExecutionFailed == getType()) { return null; }
-        if (ChildWorkflowExecutionTimedOut == getType()) { return null; }
-        if (ChildWorkflowExecutionCanceled == getType()) { return null; }
-        if (ChildWorkflowExecutionTerminated == getType()) { return null; }
-        if (SignalExternalWorkflowExecutionInitiated == getType()) { return null; }
-        if (SignalExternalWorkflowExecutionFailed == getType()) { return null; }
-        if (ExternalWorkflowExecutionSignaled == getType()) { return historyEvent.getExternalWorkflowExecutionSignaledEventAttributes().getWorkflowExecution().getRunId(); }
-        if (RequestCancelExternalWorkflowExecutionInitiated == getType()) { return null; }
-        if (RequestCancelExternalWorkflowExecutionFailed == getType()) { return null; }
-        if (ExternalWorkflowExecutionCancelRequested == getType()) { return null; }
-        if (LambdaFunctionScheduled == getType()) { return historyEvent.getLambdaFunctionScheduledEventAttributes().getInput(); }
-        if (LambdaFunctionStarted == getType()) { return null; }
-        if (LambdaFunctionCompleted == getType()) { return historyEvent.getLambdaFunctionCompletedEventAttributes().getResult(); }
-        if (LambdaFunctionFailed == getType()) { return null; }
-        if (LambdaFunctionTimedOut == getType()) { return null; }
-        if (ScheduleLambdaFunctionFailed == getType()) { return null; }
-        if (StartLambdaFunctionFailed == getType()) { return historyEvent.getStartLambdaFunctionFailedEventAttributes().getMessage(); }
-        throw new IllegalArgumentException("Unknown EventType " + getType());
+        switch (type) {
+            case WorkflowExecutionStarted:
+            case WorkflowExecutionCancelRequested:
+            case CompleteWorkflowExecutionFailed:
+            case WorkflowExecutionFailed:
+            case FailWorkflowExecutionFailed:
+            case WorkflowExecutionTimedOut:
+            case WorkflowExecutionCanceled:
+            case CancelWorkflowExecutionFailed:
+            case WorkflowExecutionContinuedAsNew:
+            case ContinueAsNewWorkflowExecutionFailed:
+            case WorkflowExecutionTerminated:
+            case DecisionTaskScheduled:
+            case DecisionTaskStarted:
+            case DecisionTaskTimedOut:
+            case ActivityTaskScheduled:
+            case ScheduleActivityTaskFailed:
+            case ActivityTaskStarted:
+            case ActivityTaskFailed:
+            case ActivityTaskTimedOut:
+            case ActivityTaskCanceled:
+            case ActivityTaskCancelRequested:
+            case RequestCancelActivityTaskFailed:
+            case RecordMarkerFailed:
+            case TimerStarted:
+            case StartTimerFailed:
+            case CancelTimerFailed:
+            case StartChildWorkflowExecutionInitiated:
+            case StartChildWorkflowExecutionFailed:
+            case ChildWorkflowExecutionStarted:
+            case ChildWorkflowExecutionFailed:
+            case ChildWorkflowExecutionTimedOut:
+            case ChildWorkflowExecutionCanceled:
+            case ChildWorkflowExecutionTerminated:
+            case SignalExternalWorkflowExecutionInitiated:
+            case SignalExternalWorkflowExecutionFailed:
+            case RequestCancelExternalWorkflowExecutionInitiated:
+            case RequestCancelExternalWorkflowExecutionFailed:
+            case ExternalWorkflowExecutionCancelRequested:
+            case LambdaFunctionStarted:
+            case LambdaFunctionFailed:
+            case LambdaFunctionTimedOut:
+            case ScheduleLambdaFunctionFailed:
+                return null;
+            case WorkflowExecutionCompleted:
+                return historyEvent.getWorkflowExecutionCompletedEventAttributes().getResult();
+            case DecisionTaskCompleted:
+                return historyEvent.getDecisionTaskCompletedEventAttributes().getExecutionContext();
+            case ActivityTaskCompleted:
+                return historyEvent.getActivityTaskCompletedEventAttributes().getResult();
+            case WorkflowExecutionSignaled:
+                return historyEvent.getWorkflowExecutionSignaledEventAttributes().getInput();
+            case MarkerRecorded:
+                return historyEvent.getMarkerRecordedEventAttributes().getDetails();
+            case TimerFired:
+                return "Timer Fired";
+            case TimerCanceled:
+                return "Timer Canceled";
+            case ChildWorkflowExecutionCompleted:
+                return historyEvent.getChildWorkflowExecutionCompletedEventAttributes().getResult();
+            case ExternalWorkflowExecutionSignaled:
+                return historyEvent.getExternalWorkflowExecutionSignaledEventAttributes().getWorkflowExecution().getRunId();
+            case LambdaFunctionScheduled:
+                return historyEvent.getLambdaFunctionScheduledEventAttributes().getInput();
+            case LambdaFunctionCompleted:
+                return historyEvent.getLambdaFunctionCompletedEventAttributes().getResult();
+            case StartLambdaFunctionFailed:
+                return historyEvent.getStartLambdaFunctionFailedEventAttributes().getMessage();
+            default:
+                throw new IllegalArgumentException("Unknown EventType " + type);
+        }
     }
 
     public String getReason() {
-        if (WorkflowExecutionStarted == getType()) { return null; }
-        if (WorkflowExecutionCancelRequested == getType()) { return "Workflow Execution Cancel Requested"; }
-        if (WorkflowExecutionCompleted == getType()) { return null; }
-        if (CompleteWorkflowExecutionFailed == getType()) { return "Complete Workflow Execution Failed"; }
-        if (WorkflowExecutionFailed == getType()) { return "Workflow Execution Failed"; }
-        if (FailWorkflowExecutionFailed == getType()) { return "Fail Workflow Execution Failed"; }
-        if (WorkflowExecutionTimedOut == getType()) { return "Workflow Execution Timed Out"; }
-        if (WorkflowExecutionCanceled == getType()) { return "Workflow Execution Canceled"; }
-        if (CancelWorkflowExecutionFailed == getType()) { return "Cancel Workflow Execution Failed"; }
-        if (WorkflowExecutionContinuedAsNew == getType()) { return null; }
-        if (ContinueAsNewWorkflowExecutionFailed == getType()) { return "Continue As New Workflow Execution Failed"; }
-        if (WorkflowExecutionTerminated == getType()) { return "Workflow Execution Terminated"; }
-        if (DecisionTaskScheduled == getType()) { return null; }
-        if (DecisionTaskStarted == getType()) { return null; }
-        if (DecisionTaskCompleted == getType()) { return null; }
-        if (DecisionTaskTimedOut == getType()) { return null; }
-        if (ActivityTaskScheduled == getType()) { return null; }
-        if (ScheduleActivityTaskFailed == getType()) { return "Schedule Activity Task Failed"; }
-        if (ActivityTaskStarted == getType()) { return null; }
-        if (ActivityTaskCompleted == getType()) { return null; }
-        if (ActivityTaskFailed == getType()) { return historyEvent.getActivityTaskFailedEventAttributes().getReason(); }
-        if (ActivityTaskTimedOut == getType()) { return historyEvent.getActivityTaskTimedOutEventAttributes().getTimeoutType(); }
-        if (ActivityTaskCanceled == getType()) { return "Activity Task Canceled"; }
-        if (ActivityTaskCancelRequested == getType()) { return "Activity Task Cancel Requested"; }
-        if (RequestCancelActivityTaskFailed == getType()) { return "Request Cancel Activity Task Failed"; }
-        if (WorkflowExecutionSignaled == getType()) { return null; }
-        if (MarkerRecorded == getType()) { return null; }
-        if (RecordMarkerFailed == getType()) { return "Record Marker Failed"; }
-        if (TimerStarted == getType()) { return null; }
-        if (StartTimerFailed == getType()) { return "Start Timer Failed"; }
-        if (TimerFired == getType()) { return null; }
-        if (TimerCanceled == getType()) { return null; }
-        if (CancelTimerFailed == getType()) { return null; }
-        if (StartChildWorkflowExecutionInitiated == getType()) { return null; }
-        if (StartChildWorkflowExecutionFailed == getType()) { return "Start Child Workflow Execution Failed"; }
-        if (ChildWorkflowExecutionStarted == getType()) { return null; }
-        if (ChildWorkflowExecutionCompleted == getType()) { return null; }
-        if (ChildWorkflowExecutionFailed == getType()) { return historyEvent.getChildWorkflowExecutionFailedEventAttributes().getReason(); }
-        if (ChildWorkflowExecutionTimedOut == getType()) { return "Child Workflow Execution Timed Out"; }
-        if (ChildWorkflowExecutionCanceled == getType()) { return "Child Workflow Execution Canceled"; }
-        if (ChildWorkflowExecutionTerminated == getType()) { return "Child Workflow Execution Terminated"; }
-        if (SignalExternalWorkflowExecutionInitiated == getType()) { return null; }
-        if (SignalExternalWorkflowExecutionFailed == getType()) { return "Signal External Workflow Execution Failed"; }
-        if (ExternalWorkflowExecutionSignaled == getType()) { return null; }
-        if (RequestCancelExternalWorkflowExecutionInitiated == getType()) { return null; }
-        if (RequestCancelExternalWorkflowExecutionFailed == getType()) { return "Request Cancel External Workflow Execution Failed"; }
-        if (ExternalWorkflowExecutionCancelRequested == getType()) { return null; }
-        if (LambdaFunctionScheduled == getType()) { return null; }
-        if (LambdaFunctionStarted == getType()) { return null; }
-        if (LambdaFunctionCompleted == getType()) { return null; }
-        if (LambdaFunctionFailed == getType()) { return historyEvent.getLambdaFunctionFailedEventAttributes().getReason(); }
-        if (LambdaFunctionTimedOut == getType()) { return "Lambda Function Timed Out"; }
-        if (ScheduleLambdaFunctionFailed == getType()) { return "Schedule Lambda Function Failed"; }
-        if (StartLambdaFunctionFailed == getType()) { return "Start Lambda Function Failed"; }
-        throw new IllegalArgumentException("Unknown EventType " + getType());
+        switch (type) {
+            case WorkflowExecutionStarted:
+            case WorkflowExecutionCompleted:
+            case WorkflowExecutionContinuedAsNew:
+            case DecisionTaskScheduled:
+            case DecisionTaskStarted:
+            case DecisionTaskCompleted:
+            case DecisionTaskTimedOut:
+            case ActivityTaskScheduled:
+            case ActivityTaskStarted:
+            case ActivityTaskCompleted:
+            case WorkflowExecutionSignaled:
+            case MarkerRecorded:
+            case TimerStarted:
+            case TimerFired:
+            case TimerCanceled:
+            case CancelTimerFailed:
+            case StartChildWorkflowExecutionInitiated:
+            case ChildWorkflowExecutionStarted:
+            case ChildWorkflowExecutionCompleted:
+            case SignalExternalWorkflowExecutionInitiated:
+            case ExternalWorkflowExecutionSignaled:
+            case RequestCancelExternalWorkflowExecutionInitiated:
+            case ExternalWorkflowExecutionCancelRequested:
+            case LambdaFunctionScheduled:
+            case LambdaFunctionStarted:
+            case LambdaFunctionCompleted:
+                return null;
+            case WorkflowExecutionCancelRequested:
+                return "Workflow Execution Cancel Requested";
+            case CompleteWorkflowExecutionFailed:
+                return "Complete Workflow Execution Failed";
+            case WorkflowExecutionFailed:
+                return "Workflow Execution Failed";
+            case FailWorkflowExecutionFailed:
+                return "Fail Workflow Execution Failed";
+            case WorkflowExecutionTimedOut:
+                return "Workflow Execution Timed Out";
+            case WorkflowExecutionCanceled:
+                return "Workflow Execution Canceled";
+            case CancelWorkflowExecutionFailed:
+                return "Cancel Workflow Execution Failed";
+            case ContinueAsNewWorkflowExecutionFailed:
+                return "Continue As New Workflow Execution Failed";
+            case WorkflowExecutionTerminated:
+                return "Workflow Execution Terminated";
+            case ScheduleActivityTaskFailed:
+                return "Schedule Activity Task Failed";
+            case ActivityTaskFailed:
+                return historyEvent.getActivityTaskFailedEventAttributes().getReason();
+            case ActivityTaskTimedOut:
+                return historyEvent.getActivityTaskTimedOutEventAttributes().getTimeoutType();
+            case ActivityTaskCanceled:
+                return "Activity Task Canceled";
+            case ActivityTaskCancelRequested:
+                return "Activity Task Cancel Requested";
+            case RequestCancelActivityTaskFailed:
+                return "Request Cancel Activity Task Failed";
+            case RecordMarkerFailed:
+                return "Record Marker Failed";
+            case StartTimerFailed:
+                return "Start Timer Failed";
+            case StartChildWorkflowExecutionFailed:
+                return "Start Child Workflow Execution Failed";
+            case ChildWorkflowExecutionFailed:
+                return historyEvent.getChildWorkflowExecutionFailedEventAttributes().getReason();
+            case ChildWorkflowExecutionTimedOut:
+                return "Child Workflow Execution Timed Out";
+            case ChildWorkflowExecutionCanceled:
+                return "Child Workflow Execution Canceled";
+            case ChildWorkflowExecutionTerminated:
+                return "Child Workflow Execution Terminated";
+            case SignalExternalWorkflowExecutionFailed:
+                return "Signal External Workflow Execution Failed";
+            case RequestCancelExternalWorkflowExecutionFailed:
+                return "Request Cancel External Workflow Execution Failed";
+            case LambdaFunctionFailed:
+                return historyEvent.getLambdaFunctionFailedEventAttributes().getReason();
+            case LambdaFunctionTimedOut:
+                return "Lambda Function Timed Out";
+            case ScheduleLambdaFunctionFailed:
+                return "Schedule Lambda Function Failed";
+            case StartLambdaFunctionFailed:
+                return "Start Lambda Function Failed";
+            default:
+                throw new IllegalArgumentException("Unknown EventType " + type);
+        }
     }
 
     public String getDetails() {
-        if (WorkflowExecutionStarted == getType()) { return null; }
-        if (WorkflowExecutionCancelRequested == getType()) { return historyEvent.getWorkflowExecutionCancelRequestedEventAttributes().getCause(); }
-        if (WorkflowExecutionCompleted == getType()) { return null; }
-        if (CompleteWorkflowExecutionFailed == getType()) { return historyEvent.getCompleteWorkflowExecutionFailedEventAttributes().getCause(); }
-        if (WorkflowExecutionFailed == getType()) { return historyEvent.getWorkflowExecutionFailedEventAttributes().getDetails(); }
-        if (FailWorkflowExecutionFailed == getType()) { return historyEvent.getFailWorkflowExecutionFailedEventAttributes().getCause(); }
-        if (WorkflowExecutionTimedOut == getType()) { return null; }
-        if (WorkflowExecutionCanceled == getType()) { return historyEvent.getWorkflowExecutionCanceledEventAttributes().getDetails(); }
-        if (CancelWorkflowExecutionFailed == getType()) { return historyEvent.getCancelWorkflowExecutionFailedEventAttributes().getCause(); }
-        if (WorkflowExecutionContinuedAsNew == getType()) { return null; }
-        if (ContinueAsNewWorkflowExecutionFailed == getType()) { return historyEvent.getContinueAsNewWorkflowExecutionFailedEventAttributes().getCause(); }
-        if (WorkflowExecutionTerminated == getType()) { return historyEvent.getWorkflowExecutionTerminatedEventAttributes().getDetails(); }
-        if (DecisionTaskScheduled == getType()) { return null; }
-        if (DecisionTaskStarted == getType()) { return null; }
-        if (DecisionTaskCompleted == getType()) { return null; }
-        if (DecisionTaskTimedOut == getType()) { return null; }
-        if (ActivityTaskScheduled == getType()) { return null; }
-        if (ScheduleActivityTaskFailed == getType()) { return historyEvent.getScheduleActivityTaskFailedEventAttributes().getCause(); }
-        if (ActivityTaskStarted == getType()) { return null; }
-        if (ActivityTaskCompleted == getType()) { return null; }
-        if (ActivityTaskFailed == getType()) { return historyEvent.getActivityTaskFailedEventAttributes().getDetails(); }
-        if (ActivityTaskTimedOut == getType()) { return historyEvent.getActivityTaskTimedOutEventAttributes().getDetails(); }
-        if (ActivityTaskCanceled == getType()) { return historyEvent.getActivityTaskCanceledEventAttributes().getDetails(); }
-        if (ActivityTaskCancelRequested == getType()) { return null; }
-        if (RequestCancelActivityTaskFailed == getType()) { return historyEvent.getRequestCancelActivityTaskFailedEventAttributes().getCause(); }
-        if (WorkflowExecutionSignaled == getType()) { return null; }
-        if (MarkerRecorded == getType()) { return historyEvent.getMarkerRecordedEventAttributes().getDetails(); }
-        if (RecordMarkerFailed == getType()) { return historyEvent.getRecordMarkerFailedEventAttributes().getCause(); }
-        if (TimerStarted == getType()) { return null; }
-        if (StartTimerFailed == getType()) { return historyEvent.getStartTimerFailedEventAttributes().getCause(); }
-        if (TimerFired == getType()) { return null; }
-        if (TimerCanceled == getType()) { return null; }
-        if (CancelTimerFailed == getType()) { return null; }
-        if (StartChildWorkflowExecutionInitiated == getType()) { return null; }
-        if (StartChildWorkflowExecutionFailed == getType()) { return historyEvent.getStartChildWorkflowExecutionFailedEventAttributes().getCause(); }
-        if (ChildWorkflowExecutionStarted == getType()) { return null; }
-        if (ChildWorkflowExecutionCompleted == getType()) { return null; }
-        if (ChildWorkflowExecutionFailed == getType()) { return historyEvent.getChildWorkflowExecutionFailedEventAttributes().getDetails(); }
-        if (ChildWorkflowExecutionTimedOut == getType()) { return historyEvent.getChildWorkflowExecutionTimedOutEventAttributes().getTimeoutType(); }
-        if (ChildWorkflowExecutionCanceled == getType()) { return historyEvent.getChildWorkflowExecutionCanceledEventAttributes().getDetails(); }
-        if (ChildWorkflowExecutionTerminated == getType()) { return historyEvent.getChildWorkflowExecutionTerminatedEventAttributes().getWorkflowExecution().getRunId(); }
-        if (SignalExternalWorkflowExecutionInitiated == getType()) { return null; }
-        if (SignalExternalWorkflowExecutionFailed == getType()) { return historyEvent.getSignalExternalWorkflowExecutionFailedEventAttributes().getCause(); }
-        if (ExternalWorkflowExecutionSignaled == getType()) { return null; }
-        if (RequestCancelExternalWorkflowExecutionInitiated == getType()) { return null; }
-        if (RequestCancelExternalWorkflowExecutionFailed == getType()) { return historyEvent.getRequestCancelExternalWorkflowExecutionFailedEventAttributes().getCause(); }
-        if (ExternalWorkflowExecutionCancelRequested == getType()) { return null; }
-        if (LambdaFunctionScheduled == getType()) { return null; }
-        if (LambdaFunctionStarted == getType()) { return null; }
-        if (LambdaFunctionCompleted == getType()) { return null; }
-        if (LambdaFunctionFailed == getType()) { return historyEvent.getLambdaFunctionFailedEventAttributes().getDetails(); }
-        if (LambdaFunctionTimedOut == getType()) { return historyEvent.getLambdaFunctionTimedOutEventAttributes().getTimeoutType(); }
-        if (ScheduleLambdaFunctionFailed == getType()) { return historyEvent.getScheduleLambdaFunctionFailedEventAttributes().getCause(); }
-        if (StartLambdaFunctionFailed == getType()) { return historyEvent.getStartLambdaFunctionFailedEventAttributes().getCause(); }
-        throw new IllegalArgumentException("Unknown EventType " + getType());
+        switch (type) {
+            case WorkflowExecutionStarted:
+            case WorkflowExecutionCompleted:
+            case WorkflowExecutionTimedOut:
+            case WorkflowExecutionContinuedAsNew:
+            case DecisionTaskScheduled:
+            case DecisionTaskStarted:
+            case DecisionTaskCompleted:
+            case DecisionTaskTimedOut:
+            case ActivityTaskScheduled:
+            case ActivityTaskStarted:
+            case ActivityTaskCompleted:
+            case ActivityTaskCancelRequested:
+            case WorkflowExecutionSignaled:
+            case TimerStarted:
+            case TimerFired:
+            case TimerCanceled:
+            case CancelTimerFailed:
+            case StartChildWorkflowExecutionInitiated:
+            case ChildWorkflowExecutionStarted:
+            case ChildWorkflowExecutionCompleted:
+            case SignalExternalWorkflowExecutionInitiated:
+            case ExternalWorkflowExecutionSignaled:
+            case RequestCancelExternalWorkflowExecutionInitiated:
+            case ExternalWorkflowExecutionCancelRequested:
+            case LambdaFunctionScheduled:
+            case LambdaFunctionStarted:
+            case LambdaFunctionCompleted:
+                return null;
+            case WorkflowExecutionCancelRequested:
+                return historyEvent.getWorkflowExecutionCancelRequestedEventAttributes().getCause();
+            case CompleteWorkflowExecutionFailed:
+                return historyEvent.getCompleteWorkflowExecutionFailedEventAttributes().getCause();
+            case WorkflowExecutionFailed:
+                return historyEvent.getWorkflowExecutionFailedEventAttributes().getDetails();
+            case FailWorkflowExecutionFailed:
+                return historyEvent.getFailWorkflowExecutionFailedEventAttributes().getCause();
+            case WorkflowExecutionCanceled:
+                return historyEvent.getWorkflowExecutionCanceledEventAttributes().getDetails();
+            case CancelWorkflowExecutionFailed:
+                return historyEvent.getCancelWorkflowExecutionFailedEventAttributes().getCause();
+            case ContinueAsNewWorkflowExecutionFailed:
+                return historyEvent.getContinueAsNewWorkflowExecutionFailedEventAttributes().getCause();
+            case WorkflowExecutionTerminated:
+                return historyEvent.getWorkflowExecutionTerminatedEventAttributes().getDetails();
+            case ScheduleActivityTaskFailed:
+                return historyEvent.getScheduleActivityTaskFailedEventAttributes().getCause();
+            case ActivityTaskFailed:
+                return historyEvent.getActivityTaskFailedEventAttributes().getDetails();
+            case ActivityTaskTimedOut:
+                return historyEvent.getActivityTaskTimedOutEventAttributes().getDetails();
+            case ActivityTaskCanceled:
+                return historyEvent.getActivityTaskCanceledEventAttributes().getDetails();
+            case RequestCancelActivityTaskFailed:
+                return historyEvent.getRequestCancelActivityTaskFailedEventAttributes().getCause();
+            case MarkerRecorded:
+                return historyEvent.getMarkerRecordedEventAttributes().getDetails();
+            case RecordMarkerFailed:
+                return historyEvent.getRecordMarkerFailedEventAttributes().getCause();
+            case StartTimerFailed:
+                return historyEvent.getStartTimerFailedEventAttributes().getCause();
+            case StartChildWorkflowExecutionFailed:
+                return historyEvent.getStartChildWorkflowExecutionFailedEventAttributes().getCause();
+            case ChildWorkflowExecutionFailed:
+                return historyEvent.getChildWorkflowExecutionFailedEventAttributes().getDetails();
+            case ChildWorkflowExecutionTimedOut:
+                return historyEvent.getChildWorkflowExecutionTimedOutEventAttributes().getTimeoutType();
+            case ChildWorkflowExecutionCanceled:
+                return historyEvent.getChildWorkflowExecutionCanceledEventAttributes().getDetails();
+            case ChildWorkflowExecutionTerminated:
+                return historyEvent.getChildWorkflowExecutionTerminatedEventAttributes().getWorkflowExecution().getRunId();
+            case SignalExternalWorkflowExecutionFailed:
+                return historyEvent.getSignalExternalWorkflowExecutionFailedEventAttributes().getCause();
+            case RequestCancelExternalWorkflowExecutionFailed:
+                return historyEvent.getRequestCancelExternalWorkflowExecutionFailedEventAttributes().getCause();
+            case LambdaFunctionFailed:
+                return historyEvent.getLambdaFunctionFailedEventAttributes().getDetails();
+            case LambdaFunctionTimedOut:
+                return historyEvent.getLambdaFunctionTimedOutEventAttributes().getTimeoutType();
+            case ScheduleLambdaFunctionFailed:
+                return historyEvent.getScheduleLambdaFunctionFailedEventAttributes().getCause();
+            case StartLambdaFunctionFailed:
+                return historyEvent.getStartLambdaFunctionFailedEventAttributes().getCause();
+            default:
+                throw new IllegalArgumentException("Unknown EventType " + type);
+        }
     }
 
+    private static TaskType task(EventType type, HistoryEvent historyEvent) {
+        switch (type) {
+            case WorkflowExecutionStarted:
+            case WorkflowExecutionCancelRequested:
+            case WorkflowExecutionCompleted:
+            case CompleteWorkflowExecutionFailed:
+            case WorkflowExecutionFailed:
+            case FailWorkflowExecutionFailed:
+            case WorkflowExecutionTimedOut:
+            case WorkflowExecutionCanceled:
+            case CancelWorkflowExecutionFailed:
+            case WorkflowExecutionTerminated:
+                return WORKFLOW_EXECUTION;
+            case WorkflowExecutionContinuedAsNew:
+            case ContinueAsNewWorkflowExecutionFailed:
+                return CONTINUE_AS_NEW;
+            case DecisionTaskScheduled:
+            case DecisionTaskStarted:
+            case DecisionTaskCompleted:
+            case DecisionTaskTimedOut:
+                return DECISION;
+            case ActivityTaskScheduled:
+            case ScheduleActivityTaskFailed:
+            case ActivityTaskStarted:
+            case ActivityTaskCompleted:
+            case ActivityTaskFailed:
+            case ActivityTaskTimedOut:
+            case ActivityTaskCanceled:
+            case ActivityTaskCancelRequested:
+            case RequestCancelActivityTaskFailed:
+                return ACTIVITY;
+            case WorkflowExecutionSignaled:
+                return WORKFLOW_SIGNALED;
+            case MarkerRecorded:
+            case RecordMarkerFailed:
+                return RECORD_MARKER;
+            case TimerStarted:
+            case StartTimerFailed:
+            case TimerFired:
+            case TimerCanceled:
+            case CancelTimerFailed:
+                return TIMER;
+            case StartChildWorkflowExecutionInitiated:
+            case StartChildWorkflowExecutionFailed:
+            case ChildWorkflowExecutionStarted:
+            case ChildWorkflowExecutionCompleted:
+            case ChildWorkflowExecutionFailed:
+            case ChildWorkflowExecutionTimedOut:
+            case ChildWorkflowExecutionCanceled:
+            case ChildWorkflowExecutionTerminated:
+                return START_CHILD_WORKFLOW;
+            case SignalExternalWorkflowExecutionInitiated:
+            case SignalExternalWorkflowExecutionFailed:
+            case ExternalWorkflowExecutionSignaled:
+                return SIGNAL_EXTERNAL_WORKFLOW;
+            case RequestCancelExternalWorkflowExecutionInitiated:
+            case RequestCancelExternalWorkflowExecutionFailed:
+            case ExternalWorkflowExecutionCancelRequested:
+                return CANCEL_EXTERNAL_WORKFLOW;
+            case LambdaFunctionScheduled:
+            case LambdaFunctionStarted:
+            case LambdaFunctionCompleted:
+            case LambdaFunctionFailed:
+            case LambdaFunctionTimedOut:
+            case ScheduleLambdaFunctionFailed:
+            case StartLambdaFunctionFailed:
+                return LAMBDA;
+            default:
+                throw new IllegalArgumentException("Unknown EventType " + type);
+        }
+    }
+
+    private static EventState state(EventType type, HistoryEvent historyEvent) {
+        switch (type) {
+            case WorkflowExecutionStarted:
+            case WorkflowExecutionContinuedAsNew:
+            case DecisionTaskScheduled:
+            case ActivityTaskScheduled:
+            case MarkerRecorded:
+            case TimerStarted:
+            case StartChildWorkflowExecutionInitiated:
+            case SignalExternalWorkflowExecutionInitiated:
+            case RequestCancelExternalWorkflowExecutionInitiated:
+            case LambdaFunctionScheduled:
+                return INITIAL;
+            case WorkflowExecutionCancelRequested:
+            case DecisionTaskStarted:
+            case ActivityTaskStarted:
+            case CancelTimerFailed:
+            case ChildWorkflowExecutionStarted:
+            case LambdaFunctionStarted:
+                return ACTIVE;
+            case WorkflowExecutionCompleted:
+            case DecisionTaskCompleted:
+            case ActivityTaskCompleted:
+            case WorkflowExecutionSignaled:
+            case TimerFired:
+            case TimerCanceled:
+            case ChildWorkflowExecutionCompleted:
+            case ExternalWorkflowExecutionSignaled:
+            case ExternalWorkflowExecutionCancelRequested:
+            case LambdaFunctionCompleted:
+                return SUCCESS;
+            case CompleteWorkflowExecutionFailed:
+            case WorkflowExecutionFailed:
+            case FailWorkflowExecutionFailed:
+            case WorkflowExecutionTimedOut:
+            case WorkflowExecutionCanceled:
+            case CancelWorkflowExecutionFailed:
+            case ContinueAsNewWorkflowExecutionFailed:
+            case WorkflowExecutionTerminated:
+            case DecisionTaskTimedOut:
+            case ScheduleActivityTaskFailed:
+            case ActivityTaskFailed:
+            case ActivityTaskTimedOut:
+            case ActivityTaskCanceled:
+            case ActivityTaskCancelRequested:
+            case RequestCancelActivityTaskFailed:
+            case RecordMarkerFailed:
+            case StartTimerFailed:
+            case StartChildWorkflowExecutionFailed:
+            case ChildWorkflowExecutionFailed:
+            case ChildWorkflowExecutionTimedOut:
+            case ChildWorkflowExecutionCanceled:
+            case ChildWorkflowExecutionTerminated:
+            case SignalExternalWorkflowExecutionFailed:
+            case RequestCancelExternalWorkflowExecutionFailed:
+            case LambdaFunctionFailed:
+            case LambdaFunctionTimedOut:
+            case ScheduleLambdaFunctionFailed:
+            case StartLambdaFunctionFailed:
+                return ERROR;
+            default:
+                throw new IllegalArgumentException("Unknown EventType " + type);
+        }
+    }
+
+    private static Long initialEventId(EventType type, HistoryEvent historyEvent) {
+        switch (type) {
+            case WorkflowExecutionStarted:
+            case WorkflowExecutionCancelRequested:
+            case WorkflowExecutionCompleted:
+            case CompleteWorkflowExecutionFailed:
+            case WorkflowExecutionFailed:
+            case FailWorkflowExecutionFailed:
+            case WorkflowExecutionTimedOut:
+            case WorkflowExecutionCanceled:
+            case CancelWorkflowExecutionFailed:
+            case WorkflowExecutionContinuedAsNew:
+            case ContinueAsNewWorkflowExecutionFailed:
+            case WorkflowExecutionTerminated:
+            case DecisionTaskScheduled:
+            case DecisionTaskStarted:
+            case DecisionTaskTimedOut:
+            case ActivityTaskScheduled:
+            case ScheduleActivityTaskFailed:
+            case ActivityTaskCancelRequested:
+            case RequestCancelActivityTaskFailed:
+            case WorkflowExecutionSignaled:
+            case MarkerRecorded:
+            case RecordMarkerFailed:
+            case TimerStarted:
+            case CancelTimerFailed:
+            case StartChildWorkflowExecutionInitiated:
+            case SignalExternalWorkflowExecutionInitiated:
+            case RequestCancelExternalWorkflowExecutionInitiated:
+            case RequestCancelExternalWorkflowExecutionFailed:
+            case ExternalWorkflowExecutionCancelRequested:
+            case LambdaFunctionScheduled:
+                return historyEvent.getEventId();
+            case DecisionTaskCompleted:
+                return historyEvent.getDecisionTaskCompletedEventAttributes().getScheduledEventId();
+            case ActivityTaskStarted:
+                return historyEvent.getActivityTaskStartedEventAttributes().getScheduledEventId();
+            case ActivityTaskCompleted:
+                return historyEvent.getActivityTaskCompletedEventAttributes().getScheduledEventId();
+            case ActivityTaskFailed:
+                return historyEvent.getActivityTaskFailedEventAttributes().getScheduledEventId();
+            case ActivityTaskTimedOut:
+                return historyEvent.getActivityTaskTimedOutEventAttributes().getScheduledEventId();
+            case ActivityTaskCanceled:
+                return historyEvent.getActivityTaskCanceledEventAttributes().getScheduledEventId();
+            case StartTimerFailed:
+            case ScheduleLambdaFunctionFailed:
+                return null;
+            case TimerFired:
+                return historyEvent.getTimerFiredEventAttributes().getStartedEventId();
+            case TimerCanceled:
+                return historyEvent.getTimerCanceledEventAttributes().getStartedEventId();
+            case StartChildWorkflowExecutionFailed:
+                return historyEvent.getStartChildWorkflowExecutionFailedEventAttributes().getInitiatedEventId();
+            case ChildWorkflowExecutionStarted:
+                return historyEvent.getChildWorkflowExecutionStartedEventAttributes().getInitiatedEventId();
+            case ChildWorkflowExecutionCompleted:
+                return historyEvent.getChildWorkflowExecutionCompletedEventAttributes().getInitiatedEventId();
+            case ChildWorkflowExecutionFailed:
+                return historyEvent.getChildWorkflowExecutionFailedEventAttributes().getInitiatedEventId();
+            case ChildWorkflowExecutionTimedOut:
+                return historyEvent.getChildWorkflowExecutionTimedOutEventAttributes().getInitiatedEventId();
+            case ChildWorkflowExecutionCanceled:
+                return historyEvent.getChildWorkflowExecutionCanceledEventAttributes().getInitiatedEventId();
+            case ChildWorkflowExecutionTerminated:
+                return historyEvent.getChildWorkflowExecutionTerminatedEventAttributes().getInitiatedEventId();
+            case SignalExternalWorkflowExecutionFailed:
+                return historyEvent.getSignalExternalWorkflowExecutionFailedEventAttributes().getInitiatedEventId();
+            case ExternalWorkflowExecutionSignaled:
+                return historyEvent.getExternalWorkflowExecutionSignaledEventAttributes().getInitiatedEventId();
+            case LambdaFunctionStarted:
+                return historyEvent.getLambdaFunctionStartedEventAttributes().getScheduledEventId();
+            case LambdaFunctionCompleted:
+                return historyEvent.getLambdaFunctionCompletedEventAttributes().getScheduledEventId();
+            case LambdaFunctionFailed:
+                return historyEvent.getLambdaFunctionFailedEventAttributes().getScheduledEventId();
+            case LambdaFunctionTimedOut:
+                return historyEvent.getLambdaFunctionTimedOutEventAttributes().getScheduledEventId();
+            case StartLambdaFunctionFailed:
+                return historyEvent.getStartLambdaFunctionFailedEventAttributes().getScheduledEventId();
+            default:
+                throw new IllegalArgumentException("Unknown EventType " + type);
+        }
+    }
+
+    private static String actionId(EventType type, HistoryEvent historyEvent) {
+        switch (type) {
+            case WorkflowExecutionStarted:
+            case WorkflowExecutionCancelRequested:
+            case WorkflowExecutionCompleted:
+            case CompleteWorkflowExecutionFailed:
+            case WorkflowExecutionFailed:
+            case FailWorkflowExecutionFailed:
+            case WorkflowExecutionTimedOut:
+            case WorkflowExecutionCanceled:
+            case CancelWorkflowExecutionFailed:
+            case WorkflowExecutionContinuedAsNew:
+            case ContinueAsNewWorkflowExecutionFailed:
+            case WorkflowExecutionTerminated:
+            case DecisionTaskScheduled:
+            case DecisionTaskStarted:
+            case DecisionTaskCompleted:
+            case DecisionTaskTimedOut:
+            case ScheduleActivityTaskFailed:
+            case ActivityTaskStarted:
+            case ActivityTaskCompleted:
+            case ActivityTaskFailed:
+            case ActivityTaskTimedOut:
+            case ActivityTaskCanceled:
+            case ActivityTaskCancelRequested:
+            case RequestCancelActivityTaskFailed:
+            case RecordMarkerFailed:
+            case StartChildWorkflowExecutionFailed:
+            case ChildWorkflowExecutionStarted:
+            case ChildWorkflowExecutionCompleted:
+            case ChildWorkflowExecutionFailed:
+            case ChildWorkflowExecutionTimedOut:
+            case ChildWorkflowExecutionCanceled:
+            case ChildWorkflowExecutionTerminated:
+            case SignalExternalWorkflowExecutionFailed:
+            case ExternalWorkflowExecutionSignaled:
+            case ExternalWorkflowExecutionCancelRequested:
+            case LambdaFunctionScheduled:
+            case LambdaFunctionStarted:
+            case LambdaFunctionCompleted:
+            case LambdaFunctionFailed:
+            case LambdaFunctionTimedOut:
+            case ScheduleLambdaFunctionFailed:
+            case StartLambdaFunctionFailed:
+                return null;
+            case ActivityTaskScheduled:
+                return historyEvent.getActivityTaskScheduledEventAttributes().getActivityId();
+            case WorkflowExecutionSignaled:
+                return historyEvent.getWorkflowExecutionSignaledEventAttributes().getSignalName();
+            case MarkerRecorded:
+                return historyEvent.getMarkerRecordedEventAttributes().getMarkerName();
+            case TimerStarted:
+                return historyEvent.getTimerStartedEventAttributes().getTimerId();
+            case StartTimerFailed:
+                return historyEvent.getStartTimerFailedEventAttributes().getTimerId();
+            case TimerFired:
+                return historyEvent.getTimerFiredEventAttributes().getTimerId();
+            case TimerCanceled:
+                return historyEvent.getTimerCanceledEventAttributes().getTimerId();
+            case CancelTimerFailed:
+                return historyEvent.getCancelTimerFailedEventAttributes().getTimerId();
+            case StartChildWorkflowExecutionInitiated:
+                return historyEvent.getStartChildWorkflowExecutionInitiatedEventAttributes().getControl();
+            case SignalExternalWorkflowExecutionInitiated:
+                return historyEvent.getSignalExternalWorkflowExecutionInitiatedEventAttributes().getSignalName();
+            case RequestCancelExternalWorkflowExecutionInitiated:
+                return historyEvent.getRequestCancelExternalWorkflowExecutionInitiatedEventAttributes().getControl();
+            case RequestCancelExternalWorkflowExecutionFailed:
+                return historyEvent.getRequestCancelExternalWorkflowExecutionFailedEventAttributes().getControl();
+            default:
+                throw new IllegalArgumentException("Unknown EventType " + type);
+        }
+    }
 
     public boolean equals(Object o) {
         return o != null && getClass().equals(o.getClass()) && historyEvent.equals(((Event) o).historyEvent);
@@ -65,59 +65,44 @@ import static java.lang.String.format;
 public class Event implements Comparable<Event> {
 
     private final HistoryEvent historyEvent;
+    private final EventType type;
+${CACHED_METHOD_NAMES.collect { "    private final ${METHOD_NAMES[it]} $it;" }.join('\n')}
 
-    public Event(HistoryEvent historyEvent) { this.historyEvent = historyEvent; }
+    /**
+     * Resolve the {@link EventType} and the fields used by {@link com.clario.swift.EventList} selections once,
+     * since they are read many times per decision.
+     */
+    public Event(HistoryEvent historyEvent) {
+        this.historyEvent = historyEvent;
+        this.type = EventType.valueOf(historyEvent.getEventType());
+${CACHED_METHOD_NAMES.collect { "        this.$it = ${it}(type, historyEvent);" }.join('\n')}
+    }
 
     public HistoryEvent getHistoryEvent() { return historyEvent; }
 
-    public EventType getType() { return EventType.valueOf(historyEvent.getEventType()); }
+    public EventType getType() { return type; }
 
     public Long getEventId() { return historyEvent.getEventId(); }
 
     public DateTime getEventTimestamp() { return new DateTime(historyEvent.getEventTimestamp()); }
 """
-            METHOD_NAMES.each { String methodName, String returnType ->
-
+            CACHED_METHOD_NAMES.each { String methodName ->
+                pw.println "    public ${METHOD_NAMES[methodName]} ${makeGetter(methodName)} { return $methodName; }\n"
+            }
+            METHOD_NAMES.findAll { !CACHED_METHOD_NAMES.contains(it.key) }.each { String methodName, String returnType ->
                 pw.println "    public $returnType ${makeGetter(methodName)} {"
-                EventType.each { EventType eventType ->
-                    def map = EVENT_TYPE_MAP[eventType]
-
-                    def returnValue
-                    try {
-                        returnValue = map[methodName] ?: calcReturnValueExists(eventType, methodName)
-                    } catch (e) {
-                        println returnValue
-                    }
-                    if (methodName == 'initialEventId' && INITIAL == map.state) {
-                        returnValue = 'eventId'
-                    }
-
-                    pw.print '        '
-                    if (['task', 'state'].contains(methodName)) {
-                        pw.println "if ($eventType == getType()) { return $returnValue; }"
-                    } else if (returnValue == null) {
-                        pw.println "if ($eventType == getType()) { return null; }"
-                    } else if (returnValue instanceof EventType) {
-                        pw.println "if ($eventType == getType()) { return \"${addSpaces(returnValue.toString())}\"; }"
-                    } else if (['eventId'].contains(returnValue)) {
-                        pw.println "if ($eventType == getType()) { return historyEvent.${makeGetter(returnValue)}; }"
-                    } else if (['runId'].contains(returnValue)) {
-                        pw.println "if ($eventType == getType()) { return historyEvent.${makeGetter("${eventType}EventAttributes")}.getWorkflowExecution().${makeGetter(returnValue)}; }"
-                    } else {
-                        pw.println "if ($eventType == getType()) { return historyEvent.${makeGetter("${eventType}EventAttributes")}.${makeGetter(returnValue)}; }"
-                    }
-
-                }
-                pw.println '        throw new IllegalArgumentException("Unknown EventType " + getType());'
-
+                printSwitch(pw, methodName)
+                pw.println "    }\n"
+            }
+            CACHED_METHOD_NAMES.each { String methodName ->
+                pw.println "    private static ${METHOD_NAMES[methodName]} $methodName(EventType type, HistoryEvent historyEvent) {"
+                printSwitch(pw, methodName)
                 pw.println "    }\n"
-
-
             }
 
             pw.println """
     public boolean equals(Object o) {
-        return o != null && getClass().equals(o.getClass()) && historyEvent.equals(o);
+        return o != null && getClass().equals(o.getClass()) && historyEvent.equals(((Event) o).historyEvent);
     }
 
     public int hashCode() {
@@ -140,6 +125,52 @@ public class Event implements Comparable<Event> {
         }
     }
 
+    /**
+     * Print a switch on {@code type}, grouping event types that share the same return statement.
+     */
+    static void printSwitch(PrintWriter pw, String methodName) {
+        Map<String, List<EventType>> cases = new LinkedHashMap<>()
+        EventType.each { EventType eventType ->
+            cases.get(makeReturnStatement(eventType, methodName), []).add(eventType)
+        }
+        pw.println '        switch (type) {'
+        cases.each { String statement, List<EventType> eventTypes ->
+            eventTypes.each { pw.println "            case $it:" }
+            pw.println "                $statement"
+        }
+        pw.println '            default:'
+        pw.println '                throw new IllegalArgumentException("Unknown EventType " + type);'
+        pw.println '        }'
+    }
+
+    static String makeReturnStatement(EventType eventType, String methodName) {
+        def map = EVENT_TYPE_MAP[eventType]
+
+        def returnValue
+        try {
+            returnValue = map[methodName] ?: calcReturnValueExists(eventType, methodName)
+        } catch (e) {
+            println returnValue
+        }
+        if (methodName == 'initialEventId' && INITIAL == map.state) {
+            returnValue = 'eventId'
+        }
+
+        if (['task', 'state'].contains(methodName)) {
+            return "return $returnValue;"
+        } else if (returnValue == null) {
+            return "return null;"
+        } else if (returnValue instanceof EventType) {
+            return "return \"${addSpaces(returnValue.toString())}\";"
+        } else if (['eventId'].contains(returnValue)) {
+            return "return historyEvent.${makeGetter(returnValue)};"
+        } else if (['runId'].contains(returnValue)) {
+            return "return historyEvent.${makeGetter("${eventType}EventAttributes")}.getWorkflowExecution().${makeGetter(returnValue)};"
+        } else {
+            return "return historyEvent.${makeGetter("${eventType}EventAttributes")}.${makeGetter(returnValue)};"
+        }
+    }
+
     static def calcReturnValueExists(EventType eventType, String fieldName) {
         Class clazz = Class.forName("com.amazonaws.services.simpleworkflow.model.${eventType}EventAttributes")
         return clazz.privateGetDeclaredFields(false).find { it.name == fieldName } == null ? null : fieldName
@@ -155,6 +186,11 @@ public class Event implements Comparable<Event> {
                                                             'reason'        : 'String',
                                                             'details'       : 'String'].asImmutable();
 
+    /**
+     * Methods resolved once in the Event constructor, the rest are computed on each call.
+     */
+    public static final List<String> CACHED_METHOD_NAMES = ['task', 'state', 'initialEventId', 'actionId'].asImmutable();
+
     static final def EVENT_TYPE_MAP = [
 // Activity Events
 (ActivityTaskScheduled)                          : [task: ACTIVITY, state: INITIAL, actionId: 'activityId'],
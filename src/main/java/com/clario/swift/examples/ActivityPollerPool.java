@@ -1,6 +1,10 @@
 package com.clario.swift.examples;
 
 import com.clario.swift.ActivityPoller;
+import com.clario.swift.PollerAutoscaler;
+import com.clario.swift.PollerGroup;
+import com.clario.swift.PollerRunner;
+import com.clario.swift.VirtualThreads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -13,7 +17,8 @@ import static com.clario.swift.examples.Config.config;
 import static java.lang.String.format;
 
 /**
- * Example demonstrating creating a thread pool of {@link ActivityPoller} instances.
+ * Example demonstrating an {@link ActivityPoller} polling continuously on a pool of threads,
+ * autoscaled up to <code>activity.pollers.pool.max</code> threads when the task list is busy.
  *
  * @author George Coller
  */
@@ -22,20 +27,29 @@ public class ActivityPollerPool {
     private static final Logger log = LoggerFactory.getLogger(DecisionPollerPool.class);
 
     public static void main(String[] args) throws IOException, InterruptedException {
-        final ScheduledExecutorService service = Executors.newScheduledThreadPool(config().getActivityPoolSize());
-
-        for (int it = 1; it <= config().getActivityPoolSize(); it++) {
-            ActivityPoller poller = new ActivityPoller(format("activity poller %s", it), config().getDomain(), config().getTaskList());
-            poller.setSwf(config().getSWF());
-            poller.addActivities(new ActivityMethods());
-            if (config().isRegisterActivities() && it == 1) {
-                poller.registerSwfActivities();
-            }
-            log.info(format("start: %s domain=%s taskList=%s", poller.getId(), config().getDomain(), config().getTaskList()));
-            service.scheduleWithFixedDelay(poller, 1, 1, TimeUnit.SECONDS);
-        }
+        final PollerGroup group = new PollerGroup("activity pollers");
 
-        config().registerShutdownMethod(service);
+        ActivityPoller poller = new ActivityPoller("activity poller", config().getDomain(), config().getTaskList());
+        poller.setSwf(config().getSWF());
+        poller.addActivities(new ActivityMethods());
+        if (config().isRegisterActivities()) {
+            poller.registerSwfActivities();
+        }
+        log.info(format("start: %s threads=%d domain=%s taskList=%s", poller.getId(), config().getActivityPoolSize(), config().getDomain(), config().getTaskList()));
+        PollerRunner runner = group.add(poller, config().getActivityPoolSize());
+        group.start();
+
+        // Daemon thread, main keeps the JVM running in awaitShutdown, shut down before the pollers drain
+        // so it stops resizing a stopped runner
+        ScheduledExecutorService autoscale = Executors.newSingleThreadScheduledExecutor(VirtualThreads.newThreadFactory("activity autoscale", false));
+        if (config().getActivityPoolMax() > config().getActivityPoolSize()) {
+            PollerAutoscaler autoscaler = new PollerAutoscaler(runner)
+                .withBounds(config().getActivityPoolSize(), config().getActivityPoolMax())
+                .withPendingTaskCount(true);
+            autoscale.scheduleAtFixedRate(autoscaler, 30, 30, TimeUnit.SECONDS);
+        }
+        config().registerShutdownMethod(group, autoscale);
         log.info("activity pollers started:");
+        config().awaitShutdown();
     }
 }
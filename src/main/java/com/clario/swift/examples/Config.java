@@ -7,12 +7,19 @@ import com.amazonaws.services.simpleworkflow.AmazonSimpleWorkflowClient;
 import com.amazonaws.services.simpleworkflow.model.Run;
 import com.amazonaws.services.simpleworkflow.model.StartWorkflowExecutionRequest;
 import com.amazonaws.services.simpleworkflow.model.WorkflowExecution;
+import com.clario.swift.PollerGroup;
 import com.clario.swift.Workflow;
+import com.clario.swift.examples.workflows.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import static com.clario.swift.SwiftUtil.createUniqueWorkflowId;
 import static java.lang.Boolean.parseBoolean;
@@ -35,8 +42,11 @@ public class Config {
     private String taskList;
     private int activityPoolSize = 2;
     private int decisionPoolSize = 2;
+    private int activityPoolMax = 2;
+    private int decisionPoolMax = 2;
     private boolean registerActivities = false;
     private boolean registerWorkflows = false;
+    private final CountDownLatch shutdown = new CountDownLatch(1);
 
     private Config() {
         Properties p = new Properties();
@@ -56,6 +66,8 @@ public class Config {
 
         activityPoolSize = parseInt(p.getProperty("activity.pollers.pool.size").trim());
         decisionPoolSize = parseInt(p.getProperty("decision.pollers.pool.size").trim());
+        activityPoolMax = Math.max(activityPoolSize, parseInt(p.getProperty("activity.pollers.pool.max", "0").trim()));
+        decisionPoolMax = Math.max(decisionPoolSize, parseInt(p.getProperty("decision.pollers.pool.max", "0").trim()));
 
         registerActivities = parseBoolean(p.getProperty("activity.pollers.register").trim());
         registerWorkflows = parseBoolean(p.getProperty("decision.pollers.register").trim());
@@ -67,16 +79,52 @@ public class Config {
         }
         return config;
     }
+
+    /**
+     * @return factories of the example workflows, run by {@link DecisionPollerPool} and replayed by {@link ReplayHistories}
+     */
+    public static List<Supplier<Workflow>> exampleWorkflows() {
+        return Arrays.asList(
+            CronWorkflow::new,
+            PollingCheckpointWorkflow::new,
+            RetryActivityWorkflow::new,
+            SignalWaitForSignalWorkflow::new,
+            SimpleWorkflow::new,
+            SimpleWorkflowDecisionBuilder::new,
+            SplitJoinWorkflow::new,
+            StartChildWorkflow::new,
+            TimerWorkflow::new,
+            WaitForSignalWorkflow::new,
+            RetryActivityPollingWorkflowGroovy::new
+        );
+    }
     
-    public void registerShutdownMethod(ExecutorService service) {
+    /**
+     * On JVM shutdown stop the given executors, then drain the pollers and shut down the SWF client.
+     */
+    public void registerShutdownMethod(PollerGroup group, ExecutorService... executors) {
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            log.info("Shutting down pool and exiting.");
+            log.info("Draining pollers and exiting.");
+            for (ExecutorService executor : executors) {
+                executor.shutdownNow();
+            }
             try {
-                config().getSWF().shutdown();
+                group.drain(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             } finally {
-                service.shutdownNow();
+                config().getSWF().shutdown();
+                shutdown.countDown();
             }
-        }));     
+        }));
+    }
+
+    /**
+     * Block until the shutdown method registered with {@link #registerShutdownMethod} has drained the pollers.
+     * Pollers run on daemon threads, so an example's <code>main</code> calls this to keep the JVM running.
+     */
+    public void awaitShutdown() throws InterruptedException {
+        shutdown.await();
     }
 
 
@@ -90,6 +138,10 @@ public class Config {
 
     public int getDecisionPoolSize() { return decisionPoolSize; }
 
+    public int getActivityPoolMax() { return activityPoolMax; }
+
+    public int getDecisionPoolMax() { return decisionPoolMax; }
+
     public boolean isRegisterActivities() { return registerActivities; }
 
     public boolean isRegisterWorkflows() { return registerWorkflows; }
@@ -1,7 +1,12 @@
 package com.clario.swift.examples;
 
 import com.clario.swift.DecisionPoller;
-import com.clario.swift.examples.workflows.*;
+import com.clario.swift.HistoryInterner;
+import com.clario.swift.PollerAutoscaler;
+import com.clario.swift.PollerGroup;
+import com.clario.swift.PollerRunner;
+import com.clario.swift.VirtualThreads;
+import com.clario.swift.WorkflowHistoryCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -11,10 +16,12 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import static com.clario.swift.examples.Config.config;
+import static com.clario.swift.examples.Config.exampleWorkflows;
 
 
 /**
- * Launch a pool of {@link DecisionPoller} and register the example workflows on each poller instance.
+ * Launch a group of threads continuously polling a {@link DecisionPoller} with the example workflows registered as factories,
+ * so the threads can decide different workflow runs concurrently.
  *
  * @author George Coller
  */
@@ -22,34 +29,37 @@ public class DecisionPollerPool {
     private static final Logger log = LoggerFactory.getLogger(DecisionPollerPool.class);
 
     public static void main(String[] args) throws IOException, InterruptedException {
-        final ScheduledExecutorService service = Executors.newScheduledThreadPool(config().getDecisionPoolSize());
-
-        for (int it = 1; it <= config().getDecisionPoolSize(); it++) {
-            String executionContext = System.getProperty("user.name");
-            String pollerId = String.format("decision poller %d", it);
-
-            DecisionPoller poller = new DecisionPoller(pollerId, config().getDomain(), config().getTaskList(), executionContext);
-            poller.setSwf(config().getSWF());
-            poller.addWorkflows(new CronWorkflow());
-            poller.addWorkflows(new PollingCheckpointWorkflow());
-            poller.addWorkflows(new RetryActivityWorkflow());
-            poller.addWorkflows(new SignalWaitForSignalWorkflow());
-            poller.addWorkflows(new SimpleWorkflow());
-            poller.addWorkflows(new SimpleWorkflowDecisionBuilder());
-            poller.addWorkflows(new SplitJoinWorkflow());
-            poller.addWorkflows(new StartChildWorkflow());
-            poller.addWorkflows(new TimerWorkflow());
-            poller.addWorkflows(new WaitForSignalWorkflow());
-            poller.addWorkflows(new RetryActivityPollingWorkflowGroovy());
-
-            if (config().isRegisterWorkflows() && it == 1) {
-                poller.registerSwfWorkflows();
-            }
-            log.info(String.format("start: %s domain=%s taskList=%s", poller.getId(), config().getDomain(), config().getTaskList()));
-            service.scheduleWithFixedDelay(poller, 1, 1, TimeUnit.SECONDS);
+        final PollerGroup group = new PollerGroup("decision pollers");
+        final WorkflowHistoryCache historyCache = new WorkflowHistoryCache(1000, 1, TimeUnit.HOURS);
+
+        String executionContext = System.getProperty("user.name");
+
+        // One poller shared by all threads, each decision task gets its own workflow instance
+        DecisionPoller poller = new DecisionPoller("decision poller", config().getDomain(), config().getTaskList(), executionContext);
+        poller.setSwf(config().getSWF());
+        poller.setHistoryCache(historyCache);
+        poller.setHistoryInterner(new HistoryInterner());
+        exampleWorkflows().forEach(poller::addWorkflows);
+
+        if (config().isRegisterWorkflows()) {
+            poller.registerSwfWorkflows();
+        }
+        log.info(String.format("start: %s threads=%d domain=%s taskList=%s", poller.getId(), config().getDecisionPoolSize(), config().getDomain(), config().getTaskList()));
+        PollerRunner runner = group.add(poller, config().getDecisionPoolSize());
+        group.start();
+
+        // Daemon thread, main keeps the JVM running in awaitShutdown, shut down before the pollers drain
+        // so it stops resizing a stopped runner
+        ScheduledExecutorService autoscale = Executors.newSingleThreadScheduledExecutor(VirtualThreads.newThreadFactory("decision autoscale", false));
+        if (config().getDecisionPoolMax() > config().getDecisionPoolSize()) {
+            PollerAutoscaler autoscaler = new PollerAutoscaler(runner)
+                .withBounds(config().getDecisionPoolSize(), config().getDecisionPoolMax())
+                .withPendingTaskCount(true);
+            autoscale.scheduleAtFixedRate(autoscaler, 30, 30, TimeUnit.SECONDS);
         }
 
-        config().registerShutdownMethod(service);
+        config().registerShutdownMethod(group, autoscale);
         log.info("decision pollers started:");
+        config().awaitShutdown();
     }
 }
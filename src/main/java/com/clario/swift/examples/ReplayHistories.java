@@ -0,0 +1,42 @@
+package com.clario.swift.examples;
+
+import com.clario.swift.DecisionPoller;
+import com.clario.swift.DecisionReplayer;
+import com.clario.swift.ReplayReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Replay every decision task of the workflow histories in a directory through the example workflows and log a report.
+ * <p/>
+ * Usage: <code>ReplayHistories directory</code> where the directory contains histories exported in the native SWF json format.
+ *
+ * @author George Coller
+ * @see DecisionReplayer
+ */
+public class ReplayHistories {
+    private static final Logger log = LoggerFactory.getLogger(ReplayHistories.class);
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Usage: ReplayHistories directory");
+        }
+        DecisionPoller poller = new DecisionPoller("replay", "replay", "replay", null);
+        Config.exampleWorkflows().forEach(poller::addWorkflows);
+
+        ReplayReport report = new DecisionReplayer(poller)
+            .withEveryDecision()
+            .replay(DecisionReplayer.loadAll(Paths.get(args[0])));
+
+        for (ReplayReport.HistoryResult result : report.getErrors()) {
+            log.error("{}", result);
+        }
+        for (ReplayReport.HistoryResult result : report.getNonDeterministic()) {
+            log.warn("{}", result);
+        }
+        log.info("{}", report);
+    }
+}
@@ -74,7 +74,7 @@ public class RetryActivityWorkflow extends Workflow {
         String failUntilTime = failUntilTimeMarker.getOutput();
 
         if (step1.withInput(failUntilTime).decide(decisions).isSuccess()) {
-            int times = step1.getEvents().selectRetryCount(RETRY_POLICY.getControl()).size();
+            int times = step1.getEvents().countRetries(RETRY_POLICY.getControl());
             log.info("Activity succeeded after " + times + " times at " + SwiftUtil.DATE_TIME_MILLIS_FORMATTER.print(DateTime.now()));
             decisions.add(createCompleteWorkflowExecutionDecision("finished ok!"));
         }
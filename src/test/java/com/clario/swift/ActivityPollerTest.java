@@ -0,0 +1,140 @@
+package com.clario.swift;
+
+import com.amazonaws.services.simpleworkflow.AbstractAmazonSimpleWorkflow;
+import com.amazonaws.services.simpleworkflow.model.*;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author George Coller
+ */
+public class ActivityPollerTest {
+
+    @Test
+    public void testSynchronousPoll() {
+        MockSwf swf = new MockSwf(2);
+        ActivityPoller poller = createPoller(swf, new EchoActivity());
+        poller.poll();
+        poller.poll();
+        poller.poll();
+        Assert.assertEquals("[a0:input0, a1:input1]", swf.results.toString());
+    }
+
+    @Test
+    public void testExecutorLimitsConcurrentActivities() throws InterruptedException {
+        MockSwf swf = new MockSwf(40);
+        EchoActivity activity = new EchoActivity();
+        activity.sleepMillis = 20;
+        ActivityPoller poller = createPoller(swf, activity);
+        ExecutorService executor = Executors.newCachedThreadPool();
+        poller.setExecutor(executor, 8);
+
+        poller.poll();
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        Assert.assertEquals(40, swf.results.size());
+        for (String result : swf.results) {
+            String[] parts = result.split(":");
+            Assert.assertEquals("context belongs to its own task", parts[0].replace("a", "input"), parts[1]);
+        }
+        Assert.assertTrue("max in flight " + activity.maxActive, activity.maxActive.get() <= 8);
+        Assert.assertTrue("max in flight " + activity.maxActive, activity.maxActive.get() > 1);
+        Assert.assertEquals(0, poller.getActiveActivityCount());
+    }
+
+    @Test
+    public void testExecutorReportsFailures() throws InterruptedException {
+        MockSwf swf = new MockSwf(3);
+        EchoActivity activity = new EchoActivity();
+        activity.fail = true;
+        ActivityPoller poller = createPoller(swf, activity);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        poller.setExecutor(executor, 2);
+
+        poller.poll();
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        Assert.assertEquals(0, swf.results.size());
+        Assert.assertEquals(3, swf.failures.size());
+    }
+
+    private static ActivityPoller createPoller(MockSwf swf, Object activities) {
+        ActivityPoller poller = new ActivityPoller("poller", "domain", "taskList");
+        poller.setSwf(swf);
+        poller.addActivities(activities);
+        return poller;
+    }
+
+    public static class EchoActivity {
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+        long sleepMillis;
+        boolean fail;
+
+        @ActivityMethod(name = "Echo", version = "1.0")
+        public String echo(ActivityContext context) throws InterruptedException {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(sleepMillis);
+                if (fail) {
+                    throw new IllegalStateException("fail " + context.getActionId());
+                }
+                return context.getActionId() + ":" + context.getInput();
+            } finally {
+                active.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Returns a fixed number of "Echo" activity tasks then empty polls after a short wait, like a SWF long-poll.
+     */
+    static class MockSwf extends AbstractAmazonSimpleWorkflow {
+        final BlockingQueue<ActivityTask> tasks = new LinkedBlockingQueue<>();
+        final List<String> results = Collections.synchronizedList(new ArrayList<>());
+        final List<String> failures = Collections.synchronizedList(new ArrayList<>());
+
+        MockSwf(int count) {
+            for (int i = 0; i < count; i++) {
+                tasks.add(new ActivityTask()
+                    .withTaskToken("token" + i)
+                    .withActivityId("a" + i)
+                    .withInput("input" + i)
+                    .withActivityType(new ActivityType().withName("Echo").withVersion("1.0")));
+            }
+        }
+
+        @Override
+        public ActivityTask pollForActivityTask(PollForActivityTaskRequest request) {
+            try {
+                ActivityTask task = tasks.poll(10, TimeUnit.MILLISECONDS);
+                return task == null ? new ActivityTask() : task;
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public RespondActivityTaskCompletedResult respondActivityTaskCompleted(RespondActivityTaskCompletedRequest request) {
+            results.add(request.getResult());
+            return new RespondActivityTaskCompletedResult();
+        }
+
+        @Override
+        public RespondActivityTaskFailedResult respondActivityTaskFailed(RespondActivityTaskFailedRequest request) {
+            failures.add(request.getReason());
+            return new RespondActivityTaskFailedResult();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.clario.swift;
+
+import com.amazonaws.services.simpleworkflow.model.*;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.amazonaws.services.simpleworkflow.model.DecisionType.ScheduleActivityTask;
+import static com.amazonaws.services.simpleworkflow.model.DecisionType.StartTimer;
+import static java.util.Arrays.asList;
+
+/**
+ * @author George Coller
+ */
+public class DecisionLoggerTest {
+    private final List<String> logged = new ArrayList<>();
+
+    @Test
+    public void testLogNiceDecision() {
+        Assert.assertEquals("ScheduleActivityTask['a1' 'Echo': hello null]", DecisionPoller.logNiceDecision(activity("a1", "hello")));
+        Assert.assertEquals("StartTimer['t1': ctl]", DecisionPoller.logNiceDecision(timer("t1")));
+        Assert.assertEquals("CompleteWorkflowExecution[done]", DecisionPoller.logNiceDecision(new Decision()
+            .withDecisionType(DecisionType.CompleteWorkflowExecution)
+            .withCompleteWorkflowExecutionDecisionAttributes(new CompleteWorkflowExecutionDecisionAttributes().withResult("done"))));
+        Assert.assertEquals("SignalExternalWorkflowExecution['sig' wf='wf1' runId='r1': 'in' 'null']", DecisionPoller.logNiceDecision(new Decision()
+            .withDecisionType(DecisionType.SignalExternalWorkflowExecution)
+            .withSignalExternalWorkflowExecutionDecisionAttributes(new SignalExternalWorkflowExecutionDecisionAttributes()
+                .withSignalName("sig").withWorkflowId("wf1").withRunId("r1").withInput("in"))));
+        Assert.assertEquals("RequestCancelActivityTask[a1]", DecisionPoller.logNiceDecision(new Decision()
+            .withDecisionType(DecisionType.RequestCancelActivityTask)
+            .withRequestCancelActivityTaskDecisionAttributes(new RequestCancelActivityTaskDecisionAttributes().withActivityId("a1"))));
+        Assert.assertNull(DecisionPoller.logNiceDecision(new Decision().withDecisionType(DecisionType.ScheduleLambdaFunction)));
+    }
+
+    @Test
+    public void testTruncatePayloads() {
+        new DecisionLogger().withMaxPayloadLength(5).log(logger(false), "wf1", asList(activity("activity-id", "0123456789")));
+        Assert.assertEquals("[wf1 -> ScheduleActivityTask['activity-id' 'Echo': 01234...(10 chars) null]]", logged.toString());
+    }
+
+    @Test
+    public void testDebugPayloadsAndSampling() {
+        new DecisionLogger().withMaxPayloadLength(5).withMaxDebugPayloadLength(8).withSampling(ScheduleActivityTask, 2)
+            .log(logger(true), "wf1", asList(activity("a1", "0123456789"), activity("a2", "0123456789"), activity("a3", "01234567")));
+        Assert.assertEquals("[DEBUG wf1 -> ScheduleActivityTask['a1' 'Echo': 01234567...(10 chars) null], "
+            + "DEBUG wf1 -> ScheduleActivityTask['a3' 'Echo': 01234567 null]]", logged.toString());
+    }
+
+    @Test
+    public void testSampling() {
+        DecisionLogger decisionLogger = new DecisionLogger().withSampling(ScheduleActivityTask, 3);
+        Logger log = logger(false);
+        for (int i = 0; i < 7; i++) {
+            decisionLogger.log(log, "wf1", asList(activity("a" + i, null), timer("t" + i)));
+        }
+        Assert.assertEquals(3, logged.stream().filter(s -> s.contains("ScheduleActivityTask")).count());
+        Assert.assertEquals(7, logged.stream().filter(s -> s.contains("StartTimer")).count());
+        Assert.assertTrue(logged.contains("wf1 -> ScheduleActivityTask['a3' 'Echo': null null]"));
+    }
+
+    @Test
+    public void testMaxPerSecond() {
+        DecisionLogger decisionLogger = new DecisionLogger().withMaxPerSecond(StartTimer, 2);
+        int logged = 0;
+        for (int i = 0; i < 10; i++) {
+            if (decisionLogger.isLogged(StartTimer.name())) {
+                logged++;
+            }
+        }
+        // A second boundary may reset the count once
+        Assert.assertTrue(logged == 2 || logged == 4);
+        Assert.assertTrue(decisionLogger.isLogged(ScheduleActivityTask.name()));
+    }
+
+    @Test
+    public void testNothingLoggedWhenInfoDisabled() {
+        Logger log = (Logger) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Logger.class}, (proxy, method, args) -> {
+            if (method.getName().startsWith("is")) {
+                return false;
+            }
+            throw new AssertionError("unexpected call " + method.getName());
+        });
+        new DecisionLogger().log(log, "wf1", asList(activity("a1", "hello")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSampling() {
+        new DecisionLogger().withSampling(StartTimer, 0);
+    }
+
+    private static Decision activity(String activityId, String input) {
+        return new Decision()
+            .withDecisionType(ScheduleActivityTask)
+            .withScheduleActivityTaskDecisionAttributes(new ScheduleActivityTaskDecisionAttributes()
+                .withActivityId(activityId)
+                .withActivityType(new ActivityType().withName("Echo").withVersion("1.0"))
+                .withInput(input));
+    }
+
+    private static Decision timer(String timerId) {
+        return new Decision()
+            .withDecisionType(StartTimer)
+            .withStartTimerDecisionAttributes(new StartTimerDecisionAttributes().withTimerId(timerId).withControl("ctl"));
+    }
+
+    // Logger recording formatted info and debug messages
+    private Logger logger(boolean debugEnabled) {
+        return (Logger) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Logger.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "isDebugEnabled":
+                    return debugEnabled;
+                case "isInfoEnabled":
+                    return true;
+                case "info":
+                    logged.add(String.format(((String) args[0]).replace("{}", "%s"), args[1], args[2]));
+                    return null;
+                case "debug":
+                    logged.add("DEBUG " + String.format(((String) args[0]).replace("{}", "%s"), args[1], args[2]));
+                    return null;
+                default:
+                    throw new AssertionError("unexpected call " + method.getName());
+            }
+        });
+    }
+}
@@ -0,0 +1,75 @@
+package com.clario.swift;
+
+import com.amazonaws.services.simpleworkflow.model.Decision;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author George Coller
+ */
+public class DecisionPipelineTest {
+
+    @Test
+    public void testDecidesAllTasks() throws InterruptedException {
+        DecisionPollerTest.MockSwf swf = new DecisionPollerTest.MockSwf();
+        CountDownLatch latch = new CountDownLatch(20);
+        DecisionPoller poller = new DecisionPoller("poller", "domain", "taskList", "context");
+        poller.setSwf(swf);
+        poller.addWorkflows(() -> new Workflow("Mock Workflow", "1.0") {
+            @Override public void decide(List<Decision> decisions) {
+                Assert.assertEquals(23, getEvents().size());
+                latch.countDown();
+            }
+        });
+        for (int i = 0; i < 20; i++) {
+            swf.addDecisionTask("run" + i, 100);
+        }
+
+        DecisionPipeline pipeline = new DecisionPipeline(poller)
+            .withPollThreads(1)
+            .withDecideThreads(3)
+            .withRespondThreads(2)
+            .withQueueSize(2);
+        pipeline.start();
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        pipeline.stop();
+        Assert.assertTrue(pipeline.awaitTermination(10, TimeUnit.SECONDS));
+        Assert.assertEquals(20, swf.responses.size());
+        Assert.assertEquals(0, pipeline.getQueuedTaskCount());
+    }
+
+    @Test
+    public void testRestartAfterTermination() throws InterruptedException {
+        LocalSwf swf = new LocalSwf().withPollTimeout(TimeUnit.MILLISECONDS, 500);
+        DecisionPoller poller = new DecisionPoller("poller", "domain", "taskList", "context");
+        poller.setSwf(swf);
+        DecisionPipeline pipeline = new DecisionPipeline(poller).withDecideThreads(1);
+        try {
+            pipeline.start();
+            pipeline.stop();
+            try {
+                // the poll thread is still waiting on its long-poll
+                pipeline.start();
+                Assert.fail("restarted while stopping");
+            } catch (IllegalStateException expected) {
+                // expected
+            }
+            Assert.assertTrue(pipeline.awaitTermination(10, TimeUnit.SECONDS));
+            pipeline.start();
+            Assert.assertTrue(pipeline.isRunning());
+            pipeline.stop();
+            Assert.assertTrue(pipeline.awaitTermination(10, TimeUnit.SECONDS));
+        } finally {
+            swf.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidQueueSize() {
+        new DecisionPipeline(new DecisionPoller("poller", "domain", "taskList", "context")).withQueueSize(0);
+    }
+}
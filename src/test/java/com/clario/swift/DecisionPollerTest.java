@@ -1,13 +1,25 @@
 package com.clario.swift;
 
-import com.amazonaws.services.simpleworkflow.model.Decision;
-import com.amazonaws.services.simpleworkflow.model.DecisionType;
+import com.amazonaws.services.simpleworkflow.AbstractAmazonSimpleWorkflow;
+import com.amazonaws.services.simpleworkflow.model.*;
+import com.clario.swift.action.ActivityAction;
+import com.clario.swift.action.RetryPolicy;
 import com.clario.swift.examples.workflows.TimerWorkflow;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author George Coller
@@ -56,4 +68,216 @@ public class DecisionPollerTest {
         poller.checkFailWorkflowExecutionDecision(decisions);
         Assert.assertEquals("Expect no change in decision list", expected, decisions);
     }
+
+    @Test
+    public void testWorkflowFactoryCreatesInstancePerDecisionTask() {
+        MockSwf swf = new MockSwf();
+        Set<Workflow> decided = Collections.newSetFromMap(new IdentityHashMap<>());
+        DecisionPoller poller = new DecisionPoller("poller", "domain", "taskList", "context");
+        poller.setSwf(swf);
+        poller.addWorkflows(() -> new Workflow("Mock Workflow", "1.0") {
+            @Override public void decide(List<Decision> decisions) {
+                Assert.assertEquals(23, getEvents().size());
+                decided.add(this);
+            }
+        });
+
+        swf.addDecisionTask("run1", 10);
+        swf.addDecisionTask("run2", 10);
+        poller.poll();
+        poller.poll();
+        Assert.assertEquals(2, decided.size());
+        Assert.assertEquals(2, swf.responses.size());
+        Assert.assertEquals("run1-token", swf.responses.get(0).getTaskToken());
+        Assert.assertEquals(6, swf.polls);
+    }
+
+    @Test
+    public void testWorkflowHistoryCachePagesOnlyNewEvents() {
+        MockSwf swf = new MockSwf();
+        List<Integer> historySizes = new ArrayList<>();
+        DecisionPoller poller = new DecisionPoller("poller", "domain", "taskList", "context");
+        poller.setSwf(swf);
+        poller.setHistoryCache(new WorkflowHistoryCache(10, 1, TimeUnit.HOURS));
+        poller.addWorkflows(new Workflow("Mock Workflow", "1.0") {
+            @Override public void decide(List<Decision> decisions) {
+                historySizes.add(getEvents().size());
+            }
+        });
+
+        swf.addDecisionTask("run1", 5);
+        poller.poll();
+        Assert.assertEquals(5, swf.polls);
+
+        swf.addDecisionTask("run1", 5);
+        poller.poll();
+        Assert.assertEquals("only first page polled", 6, swf.polls);
+        Assert.assertEquals("[23, 23]", historySizes.toString());
+    }
+
+    @Test
+    public void testHistoryPrefetchStopsAtCachedHistory() throws InterruptedException {
+        MockSwf swf = new MockSwf();
+        List<Integer> historySizes = new ArrayList<>();
+        // Counts prefetches submitted, including those cancelled before they poll
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(1);
+        DecisionPoller poller = new DecisionPoller("poller", "domain", "taskList", "context");
+        poller.setSwf(swf);
+        poller.setHistoryCache(new WorkflowHistoryCache(10, 1, TimeUnit.HOURS));
+        poller.setHistoryPrefetchExecutor(executor);
+        poller.addWorkflows(new Workflow("Mock Workflow", "1.0") {
+            @Override public void decide(List<Decision> decisions) {
+                historySizes.add(getEvents().size());
+            }
+        });
+
+        swf.addDecisionTask("run1", 5);
+        poller.poll();
+        swf.addDecisionTask("run1", 5);
+        poller.poll();
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+        Assert.assertEquals("no page fetched past cached history", 6, swf.polls);
+        Assert.assertEquals("pages 2 to 5 of the first task only", 4, executor.getCompletedTaskCount());
+        Assert.assertEquals("[23, 23]", historySizes.toString());
+    }
+
+    @Test
+    public void testStopPollingWhenActionsResolved() {
+        MockSwf swf = new MockSwf();
+        List<Integer> historySizes = new ArrayList<>();
+        DecisionPoller poller = new DecisionPoller("poller", "domain", "taskList", "context");
+        poller.setSwf(swf);
+        poller.addWorkflows(() -> new Workflow("Mock Workflow", "1.0") {
+            final ActivityAction step2 = new ActivityAction("step2", "Activity", "1.0");
+            final ActivityAction step3 = new ActivityAction("step3", "Activity", "1.0");
+
+            {
+                addActions(step2, step3);
+                withStopPollingWhenActionsResolved();
+            }
+
+            @Override public void decide(List<Decision> decisions) {
+                Assert.assertTrue(step2.isSuccess());
+                Assert.assertTrue(step3.isSuccess());
+                historySizes.add(getEvents().size());
+            }
+        });
+
+        swf.addDecisionTask("run1", 5);
+        poller.poll();
+        Assert.assertEquals("stop after page with step2 completed", 3, swf.polls);
+        Assert.assertEquals("[15]", historySizes.toString());
+
+        poller.addWorkflows(() -> new Workflow("Mock Workflow", "2.0") {
+            final ActivityAction step3 = new ActivityAction("step3", "Activity", "1.0").withOnErrorRetryPolicy(new RetryPolicy("retry"));
+
+            {
+                addActions(step3);
+                withStopPollingWhenActionsResolved();
+            }
+
+            @Override public void decide(List<Decision> decisions) {
+                historySizes.add(getEvents().size());
+            }
+        });
+        swf.addDecisionTask("run2", 5, "2.0");
+        poller.poll();
+        Assert.assertEquals("retry policy needs full history", 8, swf.polls);
+        Assert.assertEquals("[15, 23]", historySizes.toString());
+    }
+
+    @Test
+    public void testHistoryPrefetch() throws InterruptedException {
+        MockSwf swf = new MockSwf();
+        List<Integer> historySizes = new ArrayList<>();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        DecisionPoller poller = new DecisionPoller("poller", "domain", "taskList", "context");
+        poller.setSwf(swf);
+        poller.setHistoryPrefetchExecutor(executor);
+        poller.addWorkflows(() -> new Workflow("Mock Workflow", "1.0") {
+            final ActivityAction step2 = new ActivityAction("step2", "Activity", "1.0");
+
+            {
+                addActions(step2);
+            }
+
+            @Override public void decide(List<Decision> decisions) {
+                historySizes.add(getEvents().size());
+            }
+        });
+        poller.addWorkflows(() -> new Workflow("Mock Workflow", "2.0") {
+            final ActivityAction step3 = new ActivityAction("step3", "Activity", "1.0");
+
+            {
+                addActions(step3);
+                withStopPollingWhenActionsResolved();
+            }
+
+            @Override public void decide(List<Decision> decisions) {
+                historySizes.add(getEvents().size());
+            }
+        });
+
+        swf.addDecisionTask("run1", 5);
+        poller.poll();
+        Assert.assertEquals(5, swf.polls);
+
+        swf.addDecisionTask("run2", 5, "2.0");
+        swf.addDecisionTask("run3", 5);
+        poller.poll();
+        Assert.assertTrue("at most one page ahead", swf.polls <= 5 + 3);
+        poller.poll();
+        Assert.assertEquals("[23, 10, 23]", historySizes.toString());
+        Assert.assertEquals(3, swf.responses.size());
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Returns SimpleWorkflowHistory.json as paged decision tasks.
+     */
+    static class MockSwf extends AbstractAmazonSimpleWorkflow {
+        final LinkedList<DecisionTask> pages = new LinkedList<>();
+        final Map<String, DecisionTask> nextPages = new HashMap<>();
+        final List<RespondDecisionTaskCompletedRequest> responses = new ArrayList<>();
+        int polls;
+
+        void addDecisionTask(String runId, int pageSize) {
+            addDecisionTask(runId, pageSize, "1.0");
+        }
+
+        synchronized void addDecisionTask(String runId, int pageSize, String version) {
+            List<HistoryEvent> events = TestUtil.unmarshalDecisionTask(TestUtil.readFile(DecisionPollerTest.class, "SimpleWorkflowHistory.json")).getEvents();
+            for (int i = 0; i < events.size(); i += pageSize) {
+                int end = Math.min(i + pageSize, events.size());
+                DecisionTask page = new DecisionTask()
+                    .withTaskToken(i == 0 ? runId + "-token" : null)
+                    .withWorkflowType(new WorkflowType().withName("Mock Workflow").withVersion(version))
+                    .withWorkflowExecution(new WorkflowExecution().withWorkflowId("wf").withRunId(runId))
+                    .withEvents(events.subList(i, end))
+                    .withNextPageToken(end < events.size() ? runId + "-" + end : null);
+                if (i == 0) {
+                    pages.add(page);
+                } else {
+                    nextPages.put(runId + "-" + i, page);
+                }
+            }
+        }
+
+        @Override
+        public synchronized DecisionTask pollForDecisionTask(PollForDecisionTaskRequest request) {
+            polls++;
+            if (request.getNextPageToken() != null) {
+                return nextPages.get(request.getNextPageToken());
+            }
+            return pages.isEmpty() ? new DecisionTask() : pages.removeFirst();
+        }
+
+        @Override
+        public synchronized RespondDecisionTaskCompletedResult respondDecisionTaskCompleted(RespondDecisionTaskCompletedRequest request) {
+            responses.add(request);
+            return new RespondDecisionTaskCompletedResult();
+        }
+    }
 }
@@ -0,0 +1,103 @@
+package com.clario.swift;
+
+import com.amazonaws.services.simpleworkflow.model.Decision;
+import com.amazonaws.services.simpleworkflow.model.DecisionTask;
+import com.amazonaws.services.simpleworkflow.model.DecisionType;
+import com.clario.swift.action.ActivityAction;
+import com.clario.swift.action.RecordMarkerAction;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author George Coller
+ */
+public class DecisionReplayerTest {
+    private static final AtomicInteger counter = new AtomicInteger();
+    private DecisionPoller poller;
+    private List<DecisionTask> histories;
+
+    @Before
+    public void before() throws IOException {
+        poller = new DecisionPoller("replay", "domain", "taskList", null);
+        poller.addWorkflows(SimpleWorkflow::new);
+        poller.addWorkflows(() -> new Workflow("Wait For Signal Workflow", "1.0") {
+            final RecordMarkerAction marker = new RecordMarkerAction("counter");
+
+            {
+                addActions(marker);
+            }
+
+            @Override public void decide(List<Decision> decisions) {
+                marker.withDetails(String.valueOf(counter.incrementAndGet())).decide(decisions);
+            }
+        });
+
+        Path directory = Files.createTempDirectory("histories");
+        for (String fileName : new String[]{"SimpleWorkflowHistory.json", "RetryWorkflowHistory.json", "WaitForSignalWorkflow.json", "ScheduleActivityTaskFailed.json"}) {
+            Files.write(directory.resolve(fileName), TestUtil.readFile(DecisionReplayerTest.class, fileName).getBytes(StandardCharsets.UTF_8));
+        }
+        histories = DecisionReplayer.loadAll(directory);
+    }
+
+    @Test
+    public void testReplayEveryDecision() {
+        ReplayReport report = new DecisionReplayer(poller).withParallelism(2).withEveryDecision().replay(histories);
+        Assert.assertEquals(4, report.getResults().size());
+        Assert.assertEquals("file name order", Arrays.asList("RetryWorkflowHistory", "ScheduleActivityTaskFailed", "SimpleWorkflowHistory", "WaitForSignalWorkflow"),
+            Arrays.asList(report.getResults().get(0).getName(), report.getResults().get(1).getName(),
+                report.getResults().get(2).getName(), report.getResults().get(3).getName()));
+        Assert.assertEquals("unregistered workflows", 2, report.getErrors().size());
+
+        ReplayReport.HistoryResult simple = report.getResults().get(2);
+        Assert.assertNull(simple.getError());
+        Assert.assertEquals(Arrays.asList(21L, 15L, 9L, 3L), simple.getStartedEventIds());
+        Assert.assertEquals(DecisionType.CompleteWorkflowExecution.toString(), simple.getDecisions().get(0).get(0).getDecisionType());
+        Assert.assertEquals("step1", simple.getDecisions().get(3).get(0).getScheduleActivityTaskDecisionAttributes().getActivityId());
+        Assert.assertTrue(simple.getNonDeterministicEventIds().isEmpty());
+
+        ReplayReport.HistoryResult signal = report.getResults().get(3);
+        Assert.assertEquals(signal.getStartedEventIds(), signal.getNonDeterministicEventIds());
+        Assert.assertEquals(Arrays.asList(signal), report.getNonDeterministic());
+        Assert.assertTrue(report.getFailed().isEmpty());
+
+        Assert.assertEquals(simple.getStartedEventIds().size() + signal.getStartedEventIds().size(), report.getDecisionTaskCount());
+        Assert.assertTrue(report.getLatencyMicros(50) <= report.getLatencyMicros(100));
+        Assert.assertTrue(report.toString().startsWith("ReplayReport histories=4"));
+    }
+
+    @Test
+    public void testReplayMostRecentDecision() {
+        ReplayReport report = new DecisionReplayer(poller).withNoDeterminismCheck().replay(histories);
+        ReplayReport.HistoryResult simple = report.getResults().get(2);
+        Assert.assertEquals(Arrays.asList(21L), simple.getStartedEventIds());
+        Assert.assertTrue(report.getNonDeterministic().isEmpty());
+        Assert.assertEquals(2, report.getDecisionTaskCount());
+    }
+
+    static class SimpleWorkflow extends Workflow {
+        final ActivityAction step1 = new ActivityAction("step1", "Activity", "1.0");
+        final ActivityAction step2 = new ActivityAction("step2", "Activity", "1.0");
+        final ActivityAction step3 = new ActivityAction("step3", "Activity", "1.0").withCompleteWorkflowOnSuccess();
+
+        SimpleWorkflow() {
+            super("Simple Workflow", "2.0");
+            addActions(step1, step2, step3);
+        }
+
+        @Override
+        public void decide(List<Decision> decisions) {
+            if (step1.decide(decisions).isSuccess() && step2.decide(decisions).isSuccess()) {
+                step3.decide(decisions);
+            }
+        }
+    }
+}
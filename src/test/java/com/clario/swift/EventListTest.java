@@ -6,8 +6,12 @@ import org.junit.Test;
 
 import static com.amazonaws.services.simpleworkflow.model.EventType.*;
 import static com.clario.swift.EventList.*;
+import static com.clario.swift.TestUtil.HISTORY_FILES;
 import static com.clario.swift.TestUtil.loadActionEvents;
+import static com.clario.swift.TestUtil.loadIndexedWorkflow;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class EventListTest {
 
@@ -105,6 +109,199 @@ public class EventListTest {
         assertEquals(2, events.size());
     }
 
+    @Test
+    public void testIndexedSelectActionId() {
+        for (String fileName : HISTORY_FILES) {
+            EventList events = loadEventList(fileName);
+            EventList indexed = loadIndexedWorkflow(EventListTest.class, fileName, 10).getEvents();
+            for (Event initial : events.selectEventState(EventState.INITIAL)) {
+                String actionId = initial.getActionId();
+                if (actionId != null) {
+                    assertEquals(fileName + " " + actionId, events.select(byActionId(actionId)), indexed.selectActionId(actionId));
+                }
+                assertEquals(events.select((event, index, eventList) -> initial.getEventId().equals(event.getInitialEventId())),
+                    indexed.selectInitialEventId(initial.getEventId()));
+            }
+            assertEquals(0, indexed.selectActionId("unknown").size());
+        }
+
+        // Every attempt of a retried action, newest first
+        EventList retried = loadIndexedWorkflow(EventListTest.class, "RetryWorkflowHistory.json", 10).getEvents().selectActionId("step1");
+        assertEquals(23, retried.size());
+        assertEquals(Long.valueOf(50), retried.getFirst().getInitialEventId());
+        assertEquals(Long.valueOf(6), retried.getLast().getEventId());
+    }
+
+    @Test
+    public void testIndexedSelectThenPush() {
+        EventList events = loadEventList("SimpleWorkflowHistory.json");
+        Event completed = events.selectActionId("step3").getFirst();
+        int newest = events.indexOf(completed);
+        EventHistory history = new EventHistory();
+        history.append(events.subList(newest + 1, events.size()));
+        EventList indexed = new EventList(history, history.getIndex());
+        EventList attempt = indexed.selectInitialEventId(completed.getInitialEventId());
+        EventList action = indexed.selectActionId("step3");
+
+        // A newer event of the same action is not added to slices selected before it
+        history.push(completed);
+        assertEquals(2, attempt.size());
+        assertEquals(2, action.size());
+        for (Event event : action) {
+            assertEquals(completed.getInitialEventId(), event.getInitialEventId());
+        }
+        assertEquals(3, indexed.selectActionId("step3").size());
+    }
+
+    @Test
+    public void testIndexedSelectSinceLastDecision() {
+        for (String fileName : HISTORY_FILES) {
+            EventList events = loadEventList(fileName);
+            Workflow workflow = loadIndexedWorkflow(EventListTest.class, fileName, 3);
+            EventList expected = events.select(bySinceLastDecision());
+            assertEquals(fileName, expected, workflow.getEvents().selectSinceLastDecision());
+            for (Event event : events) {
+                assertEquals(fileName + " " + event.getEventId(), expected.contains(event), workflow.isSinceLastDecision(event));
+            }
+
+            workflow.pushDummyTimerStartedEvent("timer");
+            EventList all = workflow.getEvents();
+            assertEquals(fileName, all.select(bySinceLastDecision()), all.selectSinceLastDecision());
+            assertTrue(workflow.isSinceLastDecision(all.getFirst()));
+        }
+
+        EventList completed = loadIndexedWorkflow(EventListTest.class, "SimpleWorkflowHistory.json", 3).getEvents().selectSinceLastDecision();
+        assertEquals(1, completed.size());
+        assertEquals(WorkflowExecutionCompleted, completed.getFirst().getType());
+    }
+
+    @Test
+    public void testSelectSinceLastDecisionThenPush() {
+        Workflow workflow = loadIndexedWorkflow(EventListTest.class, "SimpleWorkflowHistory.json", 3);
+        EventList selected = workflow.getEvents().selectSinceLastDecision();
+        workflow.pushDummyTimerStartedEvent("timer");
+
+        // Selected before the push, so the dummy timer is not part of it
+        assertEquals(1, selected.size());
+        for (Event event : selected) {
+            assertEquals(WorkflowExecutionCompleted, event.getType());
+        }
+        assertEquals(2, workflow.getEvents().selectSinceLastDecision().size());
+    }
+
+    @Test
+    public void testIndexedRetryCount() {
+        for (String fileName : HISTORY_FILES) {
+            EventList events = loadEventList(fileName);
+            Workflow workflow = loadIndexedWorkflow(EventListTest.class, fileName, 3);
+            for (Event timer : events.selectEventType(TimerStarted)) {
+                EventList expected = events.selectActionId(timer.getActionId());
+                EventList indexed = workflow.getEvents().selectActionId(timer.getActionId());
+                assertEquals(fileName, expected.countRetries(timer.getControl()), indexed.countRetries(timer.getControl()));
+                assertEquals(fileName, expected.getFirstRetryTimestamp(timer.getControl()), indexed.getFirstRetryTimestamp(timer.getControl()));
+                assertEquals(0, indexed.countRetries("unknown"));
+                assertEquals(null, indexed.getFirstRetryTimestamp("unknown"));
+            }
+        }
+
+        Workflow workflow = loadIndexedWorkflow(EventListTest.class, "RetryWorkflowHistory.json", 3);
+        String control = workflow.getEvents().selectEventType(TimerStarted).getFirst().getControl();
+        assertEquals(4, workflow.getEvents().selectActionId("step1").countRetries(control));
+        EventList selected = workflow.getEvents().selectActionId("step1");
+        workflow.pushDummyTimerStartedEvent("step1");
+        assertEquals("selected before the push", 0, selected.countRetries("pushDummyTimerStartedEvent"));
+        assertEquals(null, selected.getFirstRetryTimestamp("pushDummyTimerStartedEvent"));
+        EventList indexed = workflow.getEvents().selectActionId("step1");
+        assertEquals(4, indexed.countRetries(control));
+        assertEquals(1, indexed.countRetries("pushDummyTimerStartedEvent"));
+        assertEquals(indexed.selectRetryCount("pushDummyTimerStartedEvent").getLast().getEventTimestamp(),
+            indexed.getFirstRetryTimestamp("pushDummyTimerStartedEvent"));
+    }
+
+    @Test
+    public void testLazySelection() {
+        EventList events = loadEventList("SimpleWorkflowHistory.json");
+        int[] calls = new int[1];
+        SelectFunction counting = (event, index, eventList) -> {
+            calls[0]++;
+            return true;
+        };
+
+        EventList chained = events.select(counting).selectTaskType(TaskType.ACTIVITY).selectEventState(EventState.SUCCESS);
+        assertEquals("nothing evaluated until used", 0, calls[0]);
+        assertEquals(3, chained.size());
+        assertEquals("one pass over the source", events.size(), calls[0]);
+        assertEquals(chained, events.selectTaskType(TaskType.ACTIVITY).selectEventState(EventState.SUCCESS));
+        assertEquals(ActivityTaskCompleted, chained.getFirst().getType());
+        assertEquals("evaluated once", events.size(), calls[0]);
+
+        EventList none = events.selectEventType(WorkflowExecutionFailed).selectEventState(EventState.ERROR);
+        assertTrue(none.isEmpty());
+        assertEquals(null, none.getFirst());
+    }
+
+    @Test
+    public void testSelectFunctionCalledOnce() {
+        EventList events = loadEventList("SimpleWorkflowHistory.json");
+        int[] calls = new int[1];
+        SelectFunction counting = (event, index, eventList) -> {
+            calls[0]++;
+            return true;
+        };
+
+        // byActionId reads its whole input on its first call, which needs every event to pass the counting function first
+        EventList selected = events.select(counting, byActionId("step2"), byEventType(ActivityTaskCompleted));
+        Event first = selected.getFirst();
+        assertEquals(ActivityTaskCompleted, first.getType());
+        assertEquals(1, selected.size());
+        for (Event event : selected) {
+            assertEquals(first, event);
+        }
+        assertEquals(events.size(), calls[0]);
+    }
+
+    @Test
+    public void testSelectionStopsAtFirstMatch() {
+        EventList events = loadEventList("SimpleWorkflowHistory.json");
+        int[] calls = new int[1];
+        SelectFunction counting = (event, index, eventList) -> {
+            calls[0]++;
+            return true;
+        };
+        int firstCompleted = 0;
+        while (events.get(firstCompleted).getType() != ActivityTaskCompleted) {
+            firstCompleted++;
+        }
+
+        EventList completed = events.select(counting).selectEventType(ActivityTaskCompleted);
+        assertFalse(completed.isEmpty());
+        assertEquals(events.get(firstCompleted), completed.getFirst());
+        assertEquals("stopped at the first match", firstCompleted + 1, calls[0]);
+        assertEquals(3, completed.size());
+        assertEquals(events.size(), calls[0]);
+
+        // A function reading its input after its first call sees the whole input
+        EventList second = events.select(counting, (event, index, eventList) -> index == 1 && eventList.size() == events.size());
+        assertEquals(events.get(1), second.getFirst());
+        assertEquals(1, second.size());
+    }
+
+    @Test
+    public void testSelectThenPush() {
+        Workflow workflow = loadIndexedWorkflow(EventListTest.class, "RetryWorkflowHistory.json", 10);
+        EventList timers = workflow.getEvents().selectEventType(TimerStarted);
+        EventList retries = workflow.getEvents().select(byActionId("step1")).selectEventType(TimerStarted);
+        workflow.pushDummyTimerStartedEvent("step1");
+
+        // Selected before the push, so the dummy timer is not part of either
+        assertEquals(4, timers.size());
+        assertEquals(4, retries.size());
+        for (Event event : retries) {
+            assertEquals("step1", event.getActionId());
+        }
+        assertEquals(5, workflow.getEvents().selectEventType(TimerStarted).size());
+    }
+
     private EventList loadEventList(String fileName) {
         return loadActionEvents(EventListTest.class, fileName);
     }
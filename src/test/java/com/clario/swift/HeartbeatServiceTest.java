@@ -0,0 +1,157 @@
+package com.clario.swift;
+
+import com.amazonaws.services.simpleworkflow.model.*;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * @author George Coller
+ */
+public class HeartbeatServiceTest {
+    private static final String DOMAIN = "domain";
+    private static final String TASK_LIST = "taskList";
+
+    private final LocalSwf swf = new LocalSwf().withPollTimeout(MILLISECONDS, 50);
+    private final HeartbeatService service = new HeartbeatService(1);
+    private String runId;
+
+    @Before
+    public void scheduleActivity() {
+        runId = swf.startWorkflowExecution(new StartWorkflowExecutionRequest()
+            .withDomain(DOMAIN)
+            .withWorkflowId("wf1")
+            .withWorkflowType(new WorkflowType().withName("Heartbeat").withVersion("1.0"))
+            .withTaskList(new TaskList().withName(TASK_LIST))).getRunId();
+        respondDecision(new Decision()
+            .withDecisionType(DecisionType.ScheduleActivityTask)
+            .withScheduleActivityTaskDecisionAttributes(new ScheduleActivityTaskDecisionAttributes()
+                .withActivityId("beat")
+                .withActivityType(new ActivityType().withName("Local Beat").withVersion("1.0"))
+                .withTaskList(new TaskList().withName(TASK_LIST))));
+    }
+
+    @After
+    public void shutdown() {
+        service.shutdown();
+        swf.shutdown();
+    }
+
+    @Test
+    public void testCoalesceHeartbeats() throws Exception {
+        ActivityTask task = swf.pollForActivityTask(ActivityPoller.createPollForActivityTask(DOMAIN, TASK_LIST, "test"));
+        HeartbeatService.Heartbeat heartbeat = service.start(swf, task.getTaskToken(), "3");
+        for (int i = 0; i < 5; i++) {
+            heartbeat.record("beat " + i);
+        }
+        awaitSent(1);
+        Assert.assertEquals(5, service.getRecordedCount());
+        Assert.assertFalse(heartbeat.isCancelRequested());
+
+        // Nothing sent when no beat was recorded since the last flush
+        Thread.sleep(1100);
+        Assert.assertEquals(1, service.getSentCount());
+
+        requestCancelActivity();
+        heartbeat.record("beat 5");
+        awaitSent(2);
+        Assert.assertTrue(heartbeat.isCancelRequested());
+        heartbeat.close();
+    }
+
+    @Test
+    public void testStopOnClosedTask() throws Exception {
+        HeartbeatService.Heartbeat heartbeat = service.start(swf, "unknown", "3");
+        heartbeat.record("beat");
+        for (int i = 0; i < 30 && !heartbeat.isClosed(); i++) {
+            Thread.sleep(100);
+        }
+        Assert.assertTrue(heartbeat.isClosed());
+        Assert.assertEquals(0, service.getSentCount());
+    }
+
+    @Test
+    public void testIntervalMillis() {
+        service.withDefaultInterval(SECONDS, 10);
+        Assert.assertEquals(10000, service.intervalMillis("30"));
+        Assert.assertEquals(1000, service.intervalMillis("1"));
+        Assert.assertEquals(10000, service.intervalMillis("NONE"));
+        Assert.assertEquals(10000, service.intervalMillis(""));
+    }
+
+    @Test
+    public void testActivityPollerWithService() {
+        ActivityPoller activityPoller = new ActivityPoller("activities", DOMAIN, TASK_LIST);
+        activityPoller.addActivities(new BeatActivity());
+        activityPoller.setSwf(swf);
+        activityPoller.setHeartbeatService(service);
+        activityPoller.run();
+
+        // Pending beats are dropped once the activity returns
+        Assert.assertEquals(3, service.getRecordedCount());
+        Assert.assertEquals(0, service.getSentCount());
+        Assert.assertEquals("false", activityResult());
+    }
+
+    @Test
+    public void testActivityPollerCancelRequested() {
+        ActivityPoller activityPoller = new ActivityPoller("activities", DOMAIN, TASK_LIST);
+        activityPoller.addActivities(new BeatActivity());
+        activityPoller.setSwf(swf);
+        ActivityTask task = activityPoller.pollForActivityTask();
+        requestCancelActivity();
+        activityPoller.execute(task);
+
+        Assert.assertEquals("true", activityResult());
+    }
+
+    private void requestCancelActivity() {
+        swf.requestCancelWorkflowExecution(new RequestCancelWorkflowExecutionRequest().withDomain(DOMAIN).withWorkflowId("wf1"));
+        respondDecision(new Decision()
+            .withDecisionType(DecisionType.RequestCancelActivityTask)
+            .withRequestCancelActivityTaskDecisionAttributes(new RequestCancelActivityTaskDecisionAttributes().withActivityId("beat")));
+    }
+
+    private void respondDecision(Decision decision) {
+        DecisionTask task = swf.pollForDecisionTask(new PollForDecisionTaskRequest()
+            .withDomain(DOMAIN)
+            .withTaskList(new TaskList().withName(TASK_LIST)));
+        swf.respondDecisionTaskCompleted(new RespondDecisionTaskCompletedRequest()
+            .withTaskToken(task.getTaskToken())
+            .withDecisions(Collections.singletonList(decision)));
+    }
+
+    private String activityResult() {
+        for (HistoryEvent event : swf.getWorkflowExecutionHistory(new GetWorkflowExecutionHistoryRequest()
+            .withDomain(DOMAIN)
+            .withExecution(new WorkflowExecution().withWorkflowId("wf1").withRunId(runId))).getEvents()) {
+            if (event.getActivityTaskCompletedEventAttributes() != null) {
+                return event.getActivityTaskCompletedEventAttributes().getResult();
+            }
+        }
+        return null;
+    }
+
+    private void awaitSent(long count) throws InterruptedException {
+        for (int i = 0; i < 50 && service.getSentCount() < count; i++) {
+            Thread.sleep(100);
+        }
+        Assert.assertEquals(count, service.getSentCount());
+    }
+
+    public static class BeatActivity {
+        @ActivityMethod(name = "Local Beat", version = "1.0", heartbeatTimeout = "30")
+        public String beat(ActivityContext context) {
+            for (int i = 0; i < 3; i++) {
+                context.recordHeartbeat("beat " + i);
+            }
+            return String.valueOf(context.isCancelRequested());
+        }
+    }
+}
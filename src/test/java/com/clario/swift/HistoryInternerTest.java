@@ -0,0 +1,65 @@
+package com.clario.swift;
+
+import com.amazonaws.services.simpleworkflow.model.HistoryEvent;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * @author George Coller
+ */
+public class HistoryInternerTest {
+
+    @Test
+    public void testInternHistoryEvents() {
+        List<HistoryEvent> first = load();
+        List<HistoryEvent> second = load();
+        Assert.assertEquals(first, second);
+        HistoryEvent scheduled1 = first.get(first.size() - 5);
+        HistoryEvent scheduled2 = second.get(second.size() - 5);
+        Assert.assertEquals("ActivityTaskScheduled", scheduled1.getEventType());
+        Assert.assertNotSame(scheduled1.getActivityTaskScheduledEventAttributes().getActivityType().getName(),
+            scheduled2.getActivityTaskScheduledEventAttributes().getActivityType().getName());
+
+        HistoryInterner interner = new HistoryInterner();
+        for (HistoryEvent event : first) {
+            interner.intern(event);
+        }
+        for (HistoryEvent event : second) {
+            interner.intern(event);
+        }
+        Assert.assertEquals(first, second);
+        Assert.assertSame(scheduled1.getEventType(), scheduled2.getEventType());
+        Assert.assertSame(scheduled1.getActivityTaskScheduledEventAttributes().getActivityId(),
+            scheduled2.getActivityTaskScheduledEventAttributes().getActivityId());
+        Assert.assertSame("nested objects", scheduled1.getActivityTaskScheduledEventAttributes().getActivityType().getName(),
+            scheduled2.getActivityTaskScheduledEventAttributes().getActivityType().getName());
+        Assert.assertSame(scheduled1.getActivityTaskScheduledEventAttributes().getTaskList().getName(),
+            scheduled2.getActivityTaskScheduledEventAttributes().getTaskList().getName());
+    }
+
+    @Test
+    public void testBoundedSize() {
+        Assert.assertEquals(HistoryInterner.DEFAULT_SIZE, new HistoryInterner().getSize());
+        Assert.assertEquals(8, new HistoryInterner(5).getSize());
+        Assert.assertEquals(1, new HistoryInterner(1).getSize());
+
+        HistoryInterner interner = new HistoryInterner(1);
+        String a = interner.intern(new String("a"));
+        Assert.assertSame(a, interner.intern(new String("a")));
+        interner.intern("b");
+        String replaced = new String("a");
+        Assert.assertSame("evicted by b", replaced, interner.intern(replaced));
+        Assert.assertNull(interner.intern((String) null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSize() {
+        new HistoryInterner(0);
+    }
+
+    private List<HistoryEvent> load() {
+        return TestUtil.unmarshalDecisionTask(TestUtil.readFile(HistoryInternerTest.class, "SimpleWorkflowHistory.json")).getEvents();
+    }
+}
@@ -0,0 +1,1418 @@
+package com.clario.swift;
+
+import com.amazonaws.services.simpleworkflow.AbstractAmazonSimpleWorkflow;
+import com.amazonaws.services.simpleworkflow.model.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.amazonaws.services.simpleworkflow.model.EventType.*;
+import static java.lang.String.format;
+
+/**
+ * In-process, in-memory implementation of the SWF operations used by {@link DecisionPoller} and {@link ActivityPoller},
+ * for running real pollers and workflows without Amazon SWF, for example in load tests.
+ * <p/>
+ * Workflow executions get the same history events as on SWF for activities, timers, markers, signals,
+ * cancellation, child workflows and continue-as-new:
+ * <ul>
+ * <li>Decision and activity tasks are queued per domain and task list and handed out by long polls that wait up to
+ * {@link #withPollTimeout} for a task, returning a task without a task token when none arrives, as SWF does.</li>
+ * <li>An execution has at most one decision task at a time.  Events added while a decision task is started schedule
+ * the next decision task, which is handed out once the current one is completed.  Closing decisions made while the
+ * next decision task is already scheduled fail with <code>UNHANDLED_DECISION</code>.</li>
+ * <li>Decision task history is paged at up to 1000 events, as of when the task started, in the order requested.</li>
+ * <li>Timers fire after their <code>startToFireTimeout</code> in {@link #withTimerUnit} units, seconds by default.</li>
+ * <li>Started decision and activity tasks time out after their <code>startToCloseTimeout</code> in {@link #withTimeoutUnit}
+ * units, seconds by default, adding <code>DecisionTaskTimedOut</code> or <code>ActivityTaskTimedOut</code> and scheduling
+ * a decision task, so an execution whose poller died carries on.  Tasks with a timeout of <code>NONE</code> or none given
+ * never time out.</li>
+ * <li>Task lists and timeouts not given on a request or decision default to those of the registered type.</li>
+ * </ul>
+ * Domains and types do not need to be registered, and other timeouts, retention,
+ * Lambda functions, task priorities and the list and describe operations are not supported.
+ * <p/>
+ * All operations are thread-safe: each execution is updated under its own lock, so many pollers can work on different
+ * executions at once.  Closed executions are kept for {@link #getWorkflowExecutionHistory} up to
+ * {@link #withMaximumClosedExecutions}.
+ *
+ * @author George Coller
+ */
+public class LocalSwf extends AbstractAmazonSimpleWorkflow {
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private final Map<String, TaskQueue<Execution>> decisionQueues = new ConcurrentHashMap<>();
+    private final Map<String, TaskQueue<ActivityState>> activityQueues = new ConcurrentHashMap<>();
+    private final Map<String, Execution> openExecutions = new ConcurrentHashMap<>();
+    private final Map<String, Execution> executionsByRunId = new ConcurrentHashMap<>();
+    private final Queue<Execution> closedExecutions = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger closedExecutionCount = new AtomicInteger();
+    private final Map<String, AtomicInteger> closedCountsByDomain = new ConcurrentHashMap<>();
+    private final Map<String, DecisionTaskState> decisionTasks = new ConcurrentHashMap<>();
+    private final Map<String, ActivityState> activityTasks = new ConcurrentHashMap<>();
+    private final Map<String, String> domains = new ConcurrentHashMap<>();
+    private final Map<String, RegisterWorkflowTypeRequest> workflowTypes = new ConcurrentHashMap<>();
+    private final Map<String, RegisterActivityTypeRequest> activityTypes = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong decisionTaskCount = new AtomicLong();
+    private final AtomicLong activityTaskCount = new AtomicLong();
+    private final ScheduledThreadPoolExecutor timers;
+    private volatile long pollTimeoutNanos = TimeUnit.SECONDS.toNanos(60);
+    private volatile TimeUnit timerUnit = TimeUnit.SECONDS;
+    private volatile TimeUnit timeoutUnit = TimeUnit.SECONDS;
+    private volatile int maximumClosedExecutions = 10000;
+    private volatile TaskListener taskListener;
+    private volatile boolean shutdown;
+
+    public LocalSwf() {
+        timers = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "LocalSwf-timers");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timers.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Maximum time a poll waits for a task, defaults to 60 seconds as on SWF.
+     */
+    public LocalSwf withPollTimeout(TimeUnit unit, long duration) {
+        if (duration < 0) { throw new IllegalArgumentException("parameter duration must not be negative"); }
+        pollTimeoutNanos = unit.toNanos(duration);
+        return this;
+    }
+
+    /**
+     * Unit of timer <code>startToFireTimeout</code> values, defaults to {@link TimeUnit#SECONDS} as on SWF.
+     * Use {@link TimeUnit#MILLISECONDS} to run workflows that wait on timers a thousand times faster.
+     */
+    public LocalSwf withTimerUnit(TimeUnit unit) {
+        timerUnit = unit;
+        return this;
+    }
+
+    /**
+     * Unit of decision and activity task <code>startToCloseTimeout</code> values, defaults to {@link TimeUnit#SECONDS} as on SWF.
+     */
+    public LocalSwf withTimeoutUnit(TimeUnit unit) {
+        timeoutUnit = unit;
+        return this;
+    }
+
+    /**
+     * Number of closed executions kept for {@link #getWorkflowExecutionHistory}, defaults to 10000.
+     * The oldest are dropped first.
+     */
+    public LocalSwf withMaximumClosedExecutions(int maximumClosedExecutions) {
+        if (maximumClosedExecutions < 0) { throw new IllegalArgumentException("parameter maximumClosedExecutions must not be negative"); }
+        this.maximumClosedExecutions = maximumClosedExecutions;
+        return this;
+    }
+
+    /**
+     * Listener told the latency of each decision and activity task as it is closed by a poller.
+     */
+    public LocalSwf withTaskListener(TaskListener taskListener) {
+        this.taskListener = taskListener;
+        return this;
+    }
+
+    /**
+     * @return number of decision tasks completed
+     */
+    public long getDecisionTaskCount() { return decisionTaskCount.get(); }
+
+    /**
+     * @return number of activity tasks completed, failed or canceled by workers
+     */
+    public long getActivityTaskCount() { return activityTaskCount.get(); }
+
+    //---------------------------------------
+    // Registration
+    //---------------------------------------
+
+    @Override
+    public RegisterDomainResult registerDomain(RegisterDomainRequest request) {
+        if (domains.putIfAbsent(request.getName(), request.getName()) != null) {
+            throw new DomainAlreadyExistsException(format("Domain %s already exists", request.getName()));
+        }
+        return new RegisterDomainResult();
+    }
+
+    @Override
+    public RegisterWorkflowTypeResult registerWorkflowType(RegisterWorkflowTypeRequest request) {
+        String key = typeKey(request.getDomain(), request.getName(), request.getVersion());
+        if (workflowTypes.putIfAbsent(key, request) != null) {
+            throw new TypeAlreadyExistsException(format("Workflow type %s already exists", key));
+        }
+        return new RegisterWorkflowTypeResult();
+    }
+
+    @Override
+    public RegisterActivityTypeResult registerActivityType(RegisterActivityTypeRequest request) {
+        String key = typeKey(request.getDomain(), request.getName(), request.getVersion());
+        if (activityTypes.putIfAbsent(key, request) != null) {
+            throw new TypeAlreadyExistsException(format("Activity type %s already exists", key));
+        }
+        return new RegisterActivityTypeResult();
+    }
+
+    //---------------------------------------
+    // Workflow executions
+    //---------------------------------------
+
+    @Override
+    public Run startWorkflowExecution(StartWorkflowExecutionRequest request) {
+        Execution execution = start(request, null, null, 0);
+        if (execution == null) {
+            throw new WorkflowExecutionAlreadyStartedException(format("Workflow execution %s already started", request.getWorkflowId()));
+        }
+        release(execution);
+        return new Run().withRunId(execution.runId);
+    }
+
+    @Override
+    public SignalWorkflowExecutionResult signalWorkflowExecution(SignalWorkflowExecutionRequest request) {
+        Execution execution = findOpen(request.getDomain(), request.getWorkflowId(), request.getRunId());
+        if (execution == null || !signal(execution, request.getSignalName(), request.getInput(), null, null)) {
+            throw unknownExecution(request.getWorkflowId());
+        }
+        return new SignalWorkflowExecutionResult();
+    }
+
+    @Override
+    public RequestCancelWorkflowExecutionResult requestCancelWorkflowExecution(RequestCancelWorkflowExecutionRequest request) {
+        Execution execution = findOpen(request.getDomain(), request.getWorkflowId(), request.getRunId());
+        if (execution == null || !requestCancel(execution, null, null, null)) {
+            throw unknownExecution(request.getWorkflowId());
+        }
+        return new RequestCancelWorkflowExecutionResult();
+    }
+
+    @Override
+    public TerminateWorkflowExecutionResult terminateWorkflowExecution(TerminateWorkflowExecutionRequest request) {
+        Execution execution = findOpen(request.getDomain(), request.getWorkflowId(), request.getRunId());
+        if (execution == null || !terminate(execution, request.getReason(), request.getDetails(), request.getChildPolicy(), null)) {
+            throw unknownExecution(request.getWorkflowId());
+        }
+        return new TerminateWorkflowExecutionResult();
+    }
+
+    @Override
+    public History getWorkflowExecutionHistory(GetWorkflowExecutionHistoryRequest request) {
+        WorkflowExecution workflowExecution = request.getExecution();
+        Execution execution = executionsByRunId.get(workflowExecution.getRunId());
+        if (execution == null || !execution.domain.equals(request.getDomain()) || !execution.workflowId.equals(workflowExecution.getWorkflowId())) {
+            throw unknownExecution(workflowExecution.getWorkflowId());
+        }
+        int historySize;
+        int from;
+        if (request.getNextPageToken() == null) {
+            synchronized (execution) {
+                historySize = execution.events.size();
+            }
+            from = 0;
+        } else {
+            String[] token = request.getNextPageToken().split(":");
+            historySize = Integer.parseInt(token[0]);
+            from = Integer.parseInt(token[1]);
+        }
+        List<HistoryEvent> events = page(execution, historySize, from, request.getMaximumPageSize(), request.getReverseOrder());
+        int next = from + events.size();
+        return new History()
+            .withEvents(events)
+            .withNextPageToken(next < historySize ? historySize + ":" + next : null);
+    }
+
+    @Override
+    public WorkflowExecutionCount countOpenWorkflowExecutions(CountOpenWorkflowExecutionsRequest request) {
+        int count = 0;
+        for (Execution execution : openExecutions.values()) {
+            if (execution.domain.equals(request.getDomain())) {
+                count++;
+            }
+        }
+        return new WorkflowExecutionCount().withCount(count).withTruncated(false);
+    }
+
+    @Override
+    public WorkflowExecutionCount countClosedWorkflowExecutions(CountClosedWorkflowExecutionsRequest request) {
+        AtomicInteger count = closedCountsByDomain.get(request.getDomain());
+        return new WorkflowExecutionCount().withCount(count == null ? 0 : count.get()).withTruncated(false);
+    }
+
+    //---------------------------------------
+    // Decision tasks
+    //---------------------------------------
+
+    @Override
+    public DecisionTask pollForDecisionTask(PollForDecisionTaskRequest request) {
+        if (request.getNextPageToken() != null) {
+            return nextDecisionTaskPage(request);
+        }
+        TaskQueue<Execution> queue = queue(decisionQueues, request.getDomain(), request.getTaskList());
+        long deadline = System.nanoTime() + pollTimeoutNanos;
+        for (Execution execution = queue.poll(deadline); execution != null; execution = queue.poll(deadline)) {
+            String taskToken = "d" + sequence.incrementAndGet();
+            int historySize;
+            long startedEventId;
+            long previousStartedEventId;
+            long scheduledNanos;
+            synchronized (execution) {
+                if (!execution.open || !execution.decisionScheduled || execution.decisionTaskToken != null) {
+                    continue;
+                }
+                startedEventId = addEvent(execution, event(DecisionTaskStarted)
+                    .withDecisionTaskStartedEventAttributes(new DecisionTaskStartedEventAttributes()
+                        .withIdentity(request.getIdentity())
+                        .withScheduledEventId(execution.decisionScheduledEventId)));
+                execution.decisionScheduled = false;
+                execution.decisionTaskToken = taskToken;
+                execution.decisionStartedEventId = startedEventId;
+                Execution timedOut = execution;
+                execution.decisionTimeout = scheduleTimeout(execution.taskStartToCloseTimeout, () -> timeOutDecisionTask(timedOut, taskToken));
+                previousStartedEventId = execution.previousStartedEventId;
+                historySize = execution.events.size();
+                scheduledNanos = execution.decisionScheduledNanos;
+            }
+            decisionTasks.put(taskToken, new DecisionTaskState(execution, historySize, scheduledNanos));
+            List<HistoryEvent> events = page(execution, historySize, 0, request.getMaximumPageSize(), request.getReverseOrder());
+            return new DecisionTask()
+                .withTaskToken(taskToken)
+                .withStartedEventId(startedEventId)
+                .withPreviousStartedEventId(previousStartedEventId)
+                .withWorkflowExecution(execution.workflowExecution())
+                .withWorkflowType(execution.workflowType)
+                .withEvents(events)
+                .withNextPageToken(events.size() < historySize ? taskToken + ":" + events.size() : null);
+        }
+        return new DecisionTask();
+    }
+
+    private DecisionTask nextDecisionTaskPage(PollForDecisionTaskRequest request) {
+        String pageToken = request.getNextPageToken();
+        int separator = pageToken.lastIndexOf(':');
+        String taskToken = separator < 0 ? pageToken : pageToken.substring(0, separator);
+        DecisionTaskState task = decisionTasks.get(taskToken);
+        if (task == null || separator < 0) {
+            throw new UnknownResourceException(format("Unknown next page token %s", pageToken));
+        }
+        int from = Integer.parseInt(pageToken.substring(separator + 1));
+        List<HistoryEvent> events = page(task.execution, task.historySize, from, request.getMaximumPageSize(), request.getReverseOrder());
+        int next = from + events.size();
+        return new DecisionTask()
+            .withTaskToken(taskToken)
+            .withWorkflowExecution(task.execution.workflowExecution())
+            .withWorkflowType(task.execution.workflowType)
+            .withEvents(events)
+            .withNextPageToken(next < task.historySize ? taskToken + ":" + next : null);
+    }
+
+    @Override
+    public RespondDecisionTaskCompletedResult respondDecisionTaskCompleted(RespondDecisionTaskCompletedRequest request) {
+        DecisionTaskState task = decisionTasks.remove(request.getTaskToken());
+        if (task == null) {
+            throw new UnknownResourceException(format("Unknown decision task token %s", request.getTaskToken()));
+        }
+        List<Decision> decisions = request.getDecisions() == null ? new ArrayList<>() : request.getDecisions();
+        for (Decision decision : decisions) {
+            validate(decision);
+        }
+        Execution execution = task.execution;
+        List<Runnable> after = new ArrayList<>();
+        synchronized (execution) {
+            if (!execution.open || !request.getTaskToken().equals(execution.decisionTaskToken)) {
+                throw new UnknownResourceException(format("Decision task %s is no longer open", request.getTaskToken()));
+            }
+            long completedEventId = addEvent(execution, event(DecisionTaskCompleted)
+                .withDecisionTaskCompletedEventAttributes(new DecisionTaskCompletedEventAttributes()
+                    .withExecutionContext(request.getExecutionContext())
+                    .withScheduledEventId(execution.decisionScheduledEventId)
+                    .withStartedEventId(execution.decisionStartedEventId)));
+            execution.previousStartedEventId = execution.decisionStartedEventId;
+            for (Decision decision : decisions) {
+                if (execution.open) {
+                    apply(execution, decision, completedEventId, after);
+                }
+            }
+            // Any decision task scheduled while deciding is handed out once this one is done
+            execution.decisionTaskToken = null;
+            cancel(execution.decisionTimeout);
+            dispatchDecisionTask(execution);
+        }
+        decisionTaskCount.incrementAndGet();
+        taskClosed(TaskType.DECISION, task.scheduledNanos, task.startedNanos);
+        after.forEach(Runnable::run);
+        return new RespondDecisionTaskCompletedResult();
+    }
+
+    private void timeOutDecisionTask(Execution execution, String taskToken) {
+        synchronized (execution) {
+            if (execution.open && taskToken.equals(execution.decisionTaskToken)) {
+                decisionTasks.remove(taskToken);
+                addEvent(execution, event(DecisionTaskTimedOut)
+                    .withDecisionTaskTimedOutEventAttributes(new DecisionTaskTimedOutEventAttributes()
+                        .withTimeoutType("START_TO_CLOSE")
+                        .withScheduledEventId(execution.decisionScheduledEventId)
+                        .withStartedEventId(execution.decisionStartedEventId)));
+                execution.decisionTaskToken = null;
+                if (execution.decisionScheduled) {
+                    dispatchDecisionTask(execution);
+                } else {
+                    scheduleDecisionTask(execution);
+                }
+            }
+        }
+    }
+
+    @Override
+    public PendingTaskCount countPendingDecisionTasks(CountPendingDecisionTasksRequest request) {
+        return new PendingTaskCount().withCount(queue(decisionQueues, request.getDomain(), request.getTaskList()).size()).withTruncated(false);
+    }
+
+    //---------------------------------------
+    // Activity tasks
+    //---------------------------------------
+
+    @Override
+    public ActivityTask pollForActivityTask(PollForActivityTaskRequest request) {
+        TaskQueue<ActivityState> queue = queue(activityQueues, request.getDomain(), request.getTaskList());
+        long deadline = System.nanoTime() + pollTimeoutNanos;
+        for (ActivityState activity = queue.poll(deadline); activity != null; activity = queue.poll(deadline)) {
+            Execution execution = activity.execution;
+            String taskToken = "a" + sequence.incrementAndGet();
+            synchronized (execution) {
+                if (!execution.open || execution.activities.get(activity.activityId) != activity) {
+                    continue;
+                }
+                activity.startedEventId = addEvent(execution, event(ActivityTaskStarted)
+                    .withActivityTaskStartedEventAttributes(new ActivityTaskStartedEventAttributes()
+                        .withIdentity(request.getIdentity())
+                        .withScheduledEventId(activity.scheduledEventId)));
+                activity.taskToken = taskToken;
+                activity.startedNanos = System.nanoTime();
+                ActivityState timedOut = activity;
+                activity.timeout = scheduleTimeout(activity.startToCloseTimeout, () -> timeOutActivityTask(timedOut));
+            }
+            activityTasks.put(taskToken, activity);
+            return new ActivityTask()
+                .withTaskToken(taskToken)
+                .withActivityId(activity.activityId)
+                .withStartedEventId(activity.startedEventId)
+                .withWorkflowExecution(execution.workflowExecution())
+                .withActivityType(activity.activityType)
+                .withInput(activity.input);
+        }
+        return new ActivityTask();
+    }
+
+    @Override
+    public RespondActivityTaskCompletedResult respondActivityTaskCompleted(RespondActivityTaskCompletedRequest request) {
+        closeActivity(request.getTaskToken(), (activity) -> event(ActivityTaskCompleted)
+            .withActivityTaskCompletedEventAttributes(new ActivityTaskCompletedEventAttributes()
+                .withResult(request.getResult())
+                .withScheduledEventId(activity.scheduledEventId)
+                .withStartedEventId(activity.startedEventId)));
+        return new RespondActivityTaskCompletedResult();
+    }
+
+    @Override
+    public RespondActivityTaskFailedResult respondActivityTaskFailed(RespondActivityTaskFailedRequest request) {
+        closeActivity(request.getTaskToken(), (activity) -> event(ActivityTaskFailed)
+            .withActivityTaskFailedEventAttributes(new ActivityTaskFailedEventAttributes()
+                .withReason(request.getReason())
+                .withDetails(request.getDetails())
+                .withScheduledEventId(activity.scheduledEventId)
+                .withStartedEventId(activity.startedEventId)));
+        return new RespondActivityTaskFailedResult();
+    }
+
+    @Override
+    public RespondActivityTaskCanceledResult respondActivityTaskCanceled(RespondActivityTaskCanceledRequest request) {
+        closeActivity(request.getTaskToken(), (activity) -> event(ActivityTaskCanceled)
+            .withActivityTaskCanceledEventAttributes(new ActivityTaskCanceledEventAttributes()
+                .withDetails(request.getDetails())
+                .withScheduledEventId(activity.scheduledEventId)
+                .withStartedEventId(activity.startedEventId)
+                .withLatestCancelRequestedEventId(activity.cancelRequestedEventId == 0 ? null : activity.cancelRequestedEventId)));
+        return new RespondActivityTaskCanceledResult();
+    }
+
+    @Override
+    public ActivityTaskStatus recordActivityTaskHeartbeat(RecordActivityTaskHeartbeatRequest request) {
+        ActivityState activity = activityTasks.get(request.getTaskToken());
+        if (activity == null) {
+            throw new UnknownResourceException(format("Unknown activity task token %s", request.getTaskToken()));
+        }
+        synchronized (activity.execution) {
+            if (!activity.execution.open || activity.execution.activities.get(activity.activityId) != activity) {
+                activityTasks.remove(request.getTaskToken());
+                throw new UnknownResourceException(format("Activity task %s is no longer open", request.getTaskToken()));
+            }
+            return new ActivityTaskStatus().withCancelRequested(activity.cancelRequestedEventId != 0);
+        }
+    }
+
+    private void timeOutActivityTask(ActivityState activity) {
+        Execution execution = activity.execution;
+        synchronized (execution) {
+            if (execution.open && execution.activities.remove(activity.activityId, activity)) {
+                activityTasks.remove(activity.taskToken);
+                addEvent(execution, event(ActivityTaskTimedOut)
+                    .withActivityTaskTimedOutEventAttributes(new ActivityTaskTimedOutEventAttributes()
+                        .withTimeoutType("START_TO_CLOSE")
+                        .withScheduledEventId(activity.scheduledEventId)
+                        .withStartedEventId(activity.startedEventId)));
+                scheduleDecisionTask(execution);
+            }
+        }
+    }
+
+    @Override
+    public PendingTaskCount countPendingActivityTasks(CountPendingActivityTasksRequest request) {
+        return new PendingTaskCount().withCount(queue(activityQueues, request.getDomain(), request.getTaskList()).size()).withTruncated(false);
+    }
+
+    /**
+     * Stop timers and return all waiting and future polls without a task.
+     */
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        timers.shutdownNow();
+        decisionQueues.values().forEach(TaskQueue::wakeAll);
+        activityQueues.values().forEach(TaskQueue::wakeAll);
+    }
+
+    //---------------------------------------
+    // Decisions, called holding the execution's lock
+    //---------------------------------------
+
+    private void apply(Execution execution, Decision decision, long completedEventId, List<Runnable> after) {
+        switch (DecisionType.fromValue(decision.getDecisionType())) {
+            case ScheduleActivityTask:
+                scheduleActivity(execution, decision.getScheduleActivityTaskDecisionAttributes(), completedEventId);
+                break;
+            case RequestCancelActivityTask:
+                requestCancelActivity(execution, decision.getRequestCancelActivityTaskDecisionAttributes().getActivityId(), completedEventId);
+                break;
+            case CompleteWorkflowExecution:
+                if (isUnhandled(execution, event(CompleteWorkflowExecutionFailed)
+                    .withCompleteWorkflowExecutionFailedEventAttributes(new CompleteWorkflowExecutionFailedEventAttributes()
+                        .withCause("UNHANDLED_DECISION")
+                        .withDecisionTaskCompletedEventId(completedEventId)))) {
+                    break;
+                }
+                String result = decision.getCompleteWorkflowExecutionDecisionAttributes().getResult();
+                addEvent(execution, event(WorkflowExecutionCompleted)
+                    .withWorkflowExecutionCompletedEventAttributes(new WorkflowExecutionCompletedEventAttributes()
+                        .withResult(result)
+                        .withDecisionTaskCompletedEventId(completedEventId)));
+                close(execution, "COMPLETED", event(ChildWorkflowExecutionCompleted)
+                    .withChildWorkflowExecutionCompletedEventAttributes(new ChildWorkflowExecutionCompletedEventAttributes()
+                        .withResult(result)), after);
+                break;
+            case FailWorkflowExecution:
+                if (isUnhandled(execution, event(FailWorkflowExecutionFailed)
+                    .withFailWorkflowExecutionFailedEventAttributes(new FailWorkflowExecutionFailedEventAttributes()
+                        .withCause("UNHANDLED_DECISION")
+                        .withDecisionTaskCompletedEventId(completedEventId)))) {
+                    break;
+                }
+                FailWorkflowExecutionDecisionAttributes fail = decision.getFailWorkflowExecutionDecisionAttributes();
+                addEvent(execution, event(WorkflowExecutionFailed)
+                    .withWorkflowExecutionFailedEventAttributes(new WorkflowExecutionFailedEventAttributes()
+                        .withReason(fail.getReason())
+                        .withDetails(fail.getDetails())
+                        .withDecisionTaskCompletedEventId(completedEventId)));
+                close(execution, "FAILED", event(ChildWorkflowExecutionFailed)
+                    .withChildWorkflowExecutionFailedEventAttributes(new ChildWorkflowExecutionFailedEventAttributes()
+                        .withReason(fail.getReason())
+                        .withDetails(fail.getDetails())), after);
+                break;
+            case CancelWorkflowExecution:
+                if (isUnhandled(execution, event(CancelWorkflowExecutionFailed)
+                    .withCancelWorkflowExecutionFailedEventAttributes(new CancelWorkflowExecutionFailedEventAttributes()
+                        .withCause("UNHANDLED_DECISION")
+                        .withDecisionTaskCompletedEventId(completedEventId)))) {
+                    break;
+                }
+                String details = decision.getCancelWorkflowExecutionDecisionAttributes().getDetails();
+                addEvent(execution, event(WorkflowExecutionCanceled)
+                    .withWorkflowExecutionCanceledEventAttributes(new WorkflowExecutionCanceledEventAttributes()
+                        .withDetails(details)
+                        .withDecisionTaskCompletedEventId(completedEventId)));
+                close(execution, "CANCELED", event(ChildWorkflowExecutionCanceled)
+                    .withChildWorkflowExecutionCanceledEventAttributes(new ChildWorkflowExecutionCanceledEventAttributes()
+                        .withDetails(details)), after);
+                break;
+            case ContinueAsNewWorkflowExecution:
+                if (isUnhandled(execution, event(ContinueAsNewWorkflowExecutionFailed)
+                    .withContinueAsNewWorkflowExecutionFailedEventAttributes(new ContinueAsNewWorkflowExecutionFailedEventAttributes()
+                        .withCause("UNHANDLED_DECISION")
+                        .withDecisionTaskCompletedEventId(completedEventId)))) {
+                    break;
+                }
+                continueAsNew(execution, decision.getContinueAsNewWorkflowExecutionDecisionAttributes(), completedEventId, after);
+                break;
+            case RecordMarker:
+                RecordMarkerDecisionAttributes marker = decision.getRecordMarkerDecisionAttributes();
+                addEvent(execution, event(MarkerRecorded)
+                    .withMarkerRecordedEventAttributes(new MarkerRecordedEventAttributes()
+                        .withMarkerName(marker.getMarkerName())
+                        .withDetails(marker.getDetails())
+                        .withDecisionTaskCompletedEventId(completedEventId)));
+                break;
+            case StartTimer:
+                startTimer(execution, decision.getStartTimerDecisionAttributes(), completedEventId);
+                break;
+            case CancelTimer:
+                cancelTimer(execution, decision.getCancelTimerDecisionAttributes().getTimerId(), completedEventId);
+                break;
+            case SignalExternalWorkflowExecution:
+                SignalExternalWorkflowExecutionDecisionAttributes signal = decision.getSignalExternalWorkflowExecutionDecisionAttributes();
+                long signalInitiatedEventId = addEvent(execution, event(SignalExternalWorkflowExecutionInitiated)
+                    .withSignalExternalWorkflowExecutionInitiatedEventAttributes(new SignalExternalWorkflowExecutionInitiatedEventAttributes()
+                        .withWorkflowId(signal.getWorkflowId())
+                        .withRunId(signal.getRunId())
+                        .withSignalName(signal.getSignalName())
+                        .withInput(signal.getInput())
+                        .withControl(signal.getControl())
+                        .withDecisionTaskCompletedEventId(completedEventId)));
+                after.add(() -> signalExternal(execution, signal, signalInitiatedEventId, completedEventId));
+                break;
+            case RequestCancelExternalWorkflowExecution:
+                RequestCancelExternalWorkflowExecutionDecisionAttributes cancel = decision.getRequestCancelExternalWorkflowExecutionDecisionAttributes();
+                long cancelInitiatedEventId = addEvent(execution, event(RequestCancelExternalWorkflowExecutionInitiated)
+                    .withRequestCancelExternalWorkflowExecutionInitiatedEventAttributes(new RequestCancelExternalWorkflowExecutionInitiatedEventAttributes()
+                        .withWorkflowId(cancel.getWorkflowId())
+                        .withRunId(cancel.getRunId())
+                        .withControl(cancel.getControl())
+                        .withDecisionTaskCompletedEventId(completedEventId)));
+                after.add(() -> requestCancelExternal(execution, cancel, cancelInitiatedEventId, completedEventId));
+                break;
+            case StartChildWorkflowExecution:
+                StartChildWorkflowExecutionDecisionAttributes child = decision.getStartChildWorkflowExecutionDecisionAttributes();
+                long childInitiatedEventId = addEvent(execution, event(StartChildWorkflowExecutionInitiated)
+                    .withStartChildWorkflowExecutionInitiatedEventAttributes(new StartChildWorkflowExecutionInitiatedEventAttributes()
+                        .withWorkflowId(child.getWorkflowId())
+                        .withWorkflowType(child.getWorkflowType())
+                        .withControl(child.getControl())
+                        .withInput(child.getInput())
+                        .withExecutionStartToCloseTimeout(child.getExecutionStartToCloseTimeout())
+                        .withTaskList(child.getTaskList())
+                        .withTaskStartToCloseTimeout(child.getTaskStartToCloseTimeout())
+                        .withChildPolicy(child.getChildPolicy())
+                        .withTagList(child.getTagList())
+                        .withDecisionTaskCompletedEventId(completedEventId)));
+                after.add(() -> startChild(execution, child, childInitiatedEventId, completedEventId));
+                break;
+            case ScheduleLambdaFunction:
+                ScheduleLambdaFunctionDecisionAttributes lambda = decision.getScheduleLambdaFunctionDecisionAttributes();
+                addEvent(execution, event(ScheduleLambdaFunctionFailed)
+                    .withScheduleLambdaFunctionFailedEventAttributes(new ScheduleLambdaFunctionFailedEventAttributes()
+                        .withId(lambda.getId())
+                        .withName(lambda.getName())
+                        .withCause("LAMBDA_SERVICE_NOT_AVAILABLE_IN_REGION")
+                        .withDecisionTaskCompletedEventId(completedEventId)));
+                scheduleDecisionTask(execution);
+                break;
+        }
+    }
+
+    private void scheduleActivity(Execution execution, ScheduleActivityTaskDecisionAttributes attributes, long completedEventId) {
+        RegisterActivityTypeRequest type = activityTypes.get(typeKey(execution.domain, attributes.getActivityType().getName(), attributes.getActivityType().getVersion()));
+        String taskList = attributes.getTaskList() != null ? attributes.getTaskList().getName()
+            : type == null || type.getDefaultTaskList() == null ? null : type.getDefaultTaskList().getName();
+        String cause = taskList == null ? "DEFAULT_TASK_LIST_UNDEFINED"
+            : execution.activities.containsKey(attributes.getActivityId()) ? "ACTIVITY_ID_ALREADY_IN_USE" : null;
+        if (cause != null) {
+            addEvent(execution, event(ScheduleActivityTaskFailed)
+                .withScheduleActivityTaskFailedEventAttributes(new ScheduleActivityTaskFailedEventAttributes()
+                    .withActivityType(attributes.getActivityType())
+                    .withActivityId(attributes.getActivityId())
+                    .withCause(cause)
+                    .withDecisionTaskCompletedEventId(completedEventId)));
+            scheduleDecisionTask(execution);
+            return;
+        }
+        String startToCloseTimeout = defaultIfNull(attributes.getStartToCloseTimeout(), type == null ? null : type.getDefaultTaskStartToCloseTimeout());
+        long scheduledEventId = addEvent(execution, event(ActivityTaskScheduled)
+            .withActivityTaskScheduledEventAttributes(new ActivityTaskScheduledEventAttributes()
+                .withActivityType(attributes.getActivityType())
+                .withActivityId(attributes.getActivityId())
+                .withInput(attributes.getInput())
+                .withControl(attributes.getControl())
+                .withTaskList(new TaskList().withName(taskList))
+                .withHeartbeatTimeout(defaultIfNull(attributes.getHeartbeatTimeout(), type == null ? null : type.getDefaultTaskHeartbeatTimeout()))
+                .withScheduleToCloseTimeout(defaultIfNull(attributes.getScheduleToCloseTimeout(), type == null ? null : type.getDefaultTaskScheduleToCloseTimeout()))
+                .withScheduleToStartTimeout(defaultIfNull(attributes.getScheduleToStartTimeout(), type == null ? null : type.getDefaultTaskScheduleToStartTimeout()))
+                .withStartToCloseTimeout(startToCloseTimeout)
+                .withDecisionTaskCompletedEventId(completedEventId)));
+        ActivityState activity = new ActivityState(execution, attributes.getActivityId(), attributes.getActivityType(), attributes.getInput(), scheduledEventId,
+            startToCloseTimeout);
+        execution.activities.put(activity.activityId, activity);
+        queue(activityQueues, execution.domain, taskList).add(activity);
+    }
+
+    private void requestCancelActivity(Execution execution, String activityId, long completedEventId) {
+        ActivityState activity = execution.activities.get(activityId);
+        if (activity == null) {
+            addEvent(execution, event(RequestCancelActivityTaskFailed)
+                .withRequestCancelActivityTaskFailedEventAttributes(new RequestCancelActivityTaskFailedEventAttributes()
+                    .withActivityId(activityId)
+                    .withCause("ACTIVITY_ID_UNKNOWN")
+                    .withDecisionTaskCompletedEventId(completedEventId)));
+            scheduleDecisionTask(execution);
+            return;
+        }
+        activity.cancelRequestedEventId = addEvent(execution, event(ActivityTaskCancelRequested)
+            .withActivityTaskCancelRequestedEventAttributes(new ActivityTaskCancelRequestedEventAttributes()
+                .withActivityId(activityId)
+                .withDecisionTaskCompletedEventId(completedEventId)));
+        if (activity.taskToken == null) {
+            // Not yet started, canceled right away
+            execution.activities.remove(activityId);
+            addEvent(execution, event(ActivityTaskCanceled)
+                .withActivityTaskCanceledEventAttributes(new ActivityTaskCanceledEventAttributes()
+                    .withScheduledEventId(activity.scheduledEventId)
+                    .withLatestCancelRequestedEventId(activity.cancelRequestedEventId)));
+            scheduleDecisionTask(execution);
+        }
+    }
+
+    private void startTimer(Execution execution, StartTimerDecisionAttributes attributes, long completedEventId) {
+        String timerId = attributes.getTimerId();
+        if (execution.timers.containsKey(timerId)) {
+            addEvent(execution, event(StartTimerFailed)
+                .withStartTimerFailedEventAttributes(new StartTimerFailedEventAttributes()
+                    .withTimerId(timerId)
+                    .withCause("TIMER_ID_ALREADY_IN_USE")
+                    .withDecisionTaskCompletedEventId(completedEventId)));
+            scheduleDecisionTask(execution);
+            return;
+        }
+        long startedEventId = addEvent(execution, event(TimerStarted)
+            .withTimerStartedEventAttributes(new TimerStartedEventAttributes()
+                .withTimerId(timerId)
+                .withControl(attributes.getControl())
+                .withStartToFireTimeout(attributes.getStartToFireTimeout())
+                .withDecisionTaskCompletedEventId(completedEventId)));
+        TimerState timer = new TimerState(startedEventId);
+        execution.timers.put(timerId, timer);
+        if (!shutdown) {
+            timer.future = timers.schedule(() -> fireTimer(execution, timerId, timer),
+                Long.parseLong(attributes.getStartToFireTimeout()), timerUnit);
+        }
+    }
+
+    private void fireTimer(Execution execution, String timerId, TimerState timer) {
+        synchronized (execution) {
+            if (execution.open && execution.timers.remove(timerId, timer)) {
+                addEvent(execution, event(TimerFired)
+                    .withTimerFiredEventAttributes(new TimerFiredEventAttributes()
+                        .withTimerId(timerId)
+                        .withStartedEventId(timer.startedEventId)));
+                scheduleDecisionTask(execution);
+            }
+        }
+    }
+
+    private void cancelTimer(Execution execution, String timerId, long completedEventId) {
+        TimerState timer = execution.timers.remove(timerId);
+        if (timer == null) {
+            addEvent(execution, event(CancelTimerFailed)
+                .withCancelTimerFailedEventAttributes(new CancelTimerFailedEventAttributes()
+                    .withTimerId(timerId)
+                    .withCause("TIMER_ID_UNKNOWN")
+                    .withDecisionTaskCompletedEventId(completedEventId)));
+            scheduleDecisionTask(execution);
+            return;
+        }
+        timer.cancel();
+        addEvent(execution, event(TimerCanceled)
+            .withTimerCanceledEventAttributes(new TimerCanceledEventAttributes()
+                .withTimerId(timerId)
+                .withStartedEventId(timer.startedEventId)
+                .withDecisionTaskCompletedEventId(completedEventId)));
+    }
+
+    private void continueAsNew(Execution execution, ContinueAsNewWorkflowExecutionDecisionAttributes attributes, long completedEventId, List<Runnable> after) {
+        WorkflowType workflowType = new WorkflowType()
+            .withName(execution.workflowType.getName())
+            .withVersion(defaultIfNull(attributes.getWorkflowTypeVersion(), execution.workflowType.getVersion()));
+        StartWorkflowExecutionRequest request = new StartWorkflowExecutionRequest()
+            .withDomain(execution.domain)
+            .withWorkflowId(execution.workflowId)
+            .withWorkflowType(workflowType)
+            .withTaskList(attributes.getTaskList() == null ? new TaskList().withName(execution.taskList) : attributes.getTaskList())
+            .withInput(attributes.getInput())
+            .withExecutionStartToCloseTimeout(defaultIfNull(attributes.getExecutionStartToCloseTimeout(), execution.executionStartToCloseTimeout))
+            .withTaskStartToCloseTimeout(defaultIfNull(attributes.getTaskStartToCloseTimeout(), execution.taskStartToCloseTimeout))
+            .withChildPolicy(defaultIfNull(attributes.getChildPolicy(), execution.childPolicy))
+            .withTagList(attributes.getTagList());
+        String runId = newRunId();
+        Execution next = new Execution(request, runId, execution.parent, execution.parentInitiatedEventId, execution.runId);
+        addEvent(execution, event(WorkflowExecutionContinuedAsNew)
+            .withWorkflowExecutionContinuedAsNewEventAttributes(new WorkflowExecutionContinuedAsNewEventAttributes()
+                .withInput(next.input)
+                .withDecisionTaskCompletedEventId(completedEventId)
+                .withNewExecutionRunId(runId)
+                .withTaskList(new TaskList().withName(next.taskList))
+                .withExecutionStartToCloseTimeout(next.executionStartToCloseTimeout)
+                .withTaskStartToCloseTimeout(next.taskStartToCloseTimeout)
+                .withChildPolicy(next.childPolicy)
+                .withTagList(next.tagList)
+                .withWorkflowType(workflowType)));
+        // The new run takes the workflow id over from this one, so is never seen as already running
+        executionsByRunId.put(runId, next);
+        openExecutions.put(next.key, next);
+        next.parentStartedEventId = execution.parentStartedEventId;
+        close(execution, "CONTINUED_AS_NEW", null, after);
+        Execution parent = execution.parent;
+        if (parent != null) {
+            after.add(() -> {
+                synchronized (parent) {
+                    if (parent.children.remove(execution)) {
+                        parent.children.add(next);
+                    }
+                }
+            });
+        }
+        after.add(() -> release(next));
+    }
+
+    //---------------------------------------
+    // Executions
+    //---------------------------------------
+
+    /**
+     * Start a new execution with its first decision task scheduled but not yet handed out, see {@link #release}.
+     *
+     * @return new execution or null if an execution with the same workflow id is open
+     */
+    private Execution start(StartWorkflowExecutionRequest request, Execution parent, String continuedExecutionRunId, long parentInitiatedEventId) {
+        RegisterWorkflowTypeRequest type = workflowTypes.get(typeKey(request.getDomain(), request.getWorkflowType().getName(), request.getWorkflowType().getVersion()));
+        if (type != null) {
+            request = request.clone()
+                .withTaskList(request.getTaskList() == null ? type.getDefaultTaskList() : request.getTaskList())
+                .withExecutionStartToCloseTimeout(defaultIfNull(request.getExecutionStartToCloseTimeout(), type.getDefaultExecutionStartToCloseTimeout()))
+                .withTaskStartToCloseTimeout(defaultIfNull(request.getTaskStartToCloseTimeout(), type.getDefaultTaskStartToCloseTimeout()))
+                .withChildPolicy(defaultIfNull(request.getChildPolicy(), type.getDefaultChildPolicy()));
+        }
+        checkTimeout(request.getTaskStartToCloseTimeout(), "taskStartToCloseTimeout");
+        if (request.getTaskList() == null) {
+            throw new DefaultUndefinedException(format("No task list given or registered for workflow type %s", request.getWorkflowType()));
+        }
+        Execution execution = new Execution(request, newRunId(), parent, parentInitiatedEventId, continuedExecutionRunId);
+        if (openExecutions.putIfAbsent(execution.key, execution) != null) {
+            return null;
+        }
+        executionsByRunId.put(execution.runId, execution);
+        return execution;
+    }
+
+    private Execution findOpen(String domain, String workflowId, String runId) {
+        Execution execution = openExecutions.get(executionKey(domain, workflowId));
+        return execution == null || (runId != null && !runId.equals(execution.runId)) ? null : execution;
+    }
+
+    private boolean signal(Execution execution, String signalName, String input, Execution source, Long initiatedEventId) {
+        synchronized (execution) {
+            if (!execution.open) {
+                return false;
+            }
+            addEvent(execution, event(WorkflowExecutionSignaled)
+                .withWorkflowExecutionSignaledEventAttributes(new WorkflowExecutionSignaledEventAttributes()
+                    .withSignalName(signalName)
+                    .withInput(input)
+                    .withExternalWorkflowExecution(source == null ? null : source.workflowExecution())
+                    .withExternalInitiatedEventId(initiatedEventId)));
+            scheduleDecisionTask(execution);
+            return true;
+        }
+    }
+
+    private boolean requestCancel(Execution execution, Execution source, Long initiatedEventId, String cause) {
+        synchronized (execution) {
+            if (!execution.open) {
+                return false;
+            }
+            addEvent(execution, event(WorkflowExecutionCancelRequested)
+                .withWorkflowExecutionCancelRequestedEventAttributes(new WorkflowExecutionCancelRequestedEventAttributes()
+                    .withExternalWorkflowExecution(source == null ? null : source.workflowExecution())
+                    .withExternalInitiatedEventId(initiatedEventId)
+                    .withCause(cause)));
+            scheduleDecisionTask(execution);
+            return true;
+        }
+    }
+
+    private boolean terminate(Execution execution, String reason, String details, String childPolicy, String cause) {
+        List<Runnable> after = new ArrayList<>();
+        synchronized (execution) {
+            if (!execution.open) {
+                return false;
+            }
+            addEvent(execution, event(WorkflowExecutionTerminated)
+                .withWorkflowExecutionTerminatedEventAttributes(new WorkflowExecutionTerminatedEventAttributes()
+                    .withReason(reason)
+                    .withDetails(details)
+                    .withChildPolicy(defaultIfNull(childPolicy, execution.childPolicy))
+                    .withCause(cause)));
+            if (childPolicy != null) {
+                execution.childPolicy = childPolicy;
+            }
+            close(execution, "TERMINATED", event(ChildWorkflowExecutionTerminated)
+                .withChildWorkflowExecutionTerminatedEventAttributes(new ChildWorkflowExecutionTerminatedEventAttributes()), after);
+        }
+        after.forEach(Runnable::run);
+        return true;
+    }
+
+    private void signalExternal(Execution source, SignalExternalWorkflowExecutionDecisionAttributes attributes, long initiatedEventId, long completedEventId) {
+        Execution target = findOpen(source.domain, attributes.getWorkflowId(), attributes.getRunId());
+        boolean signaled = target != null && signal(target, attributes.getSignalName(), attributes.getInput(), source, initiatedEventId);
+        synchronized (source) {
+            if (!source.open) {
+                return;
+            }
+            if (signaled) {
+                addEvent(source, event(ExternalWorkflowExecutionSignaled)
+                    .withExternalWorkflowExecutionSignaledEventAttributes(new ExternalWorkflowExecutionSignaledEventAttributes()
+                        .withWorkflowExecution(target.workflowExecution())
+                        .withInitiatedEventId(initiatedEventId)));
+            } else {
+                addEvent(source, event(SignalExternalWorkflowExecutionFailed)
+                    .withSignalExternalWorkflowExecutionFailedEventAttributes(new SignalExternalWorkflowExecutionFailedEventAttributes()
+                        .withWorkflowId(attributes.getWorkflowId())
+                        .withRunId(attributes.getRunId())
+                        .withCause("UNKNOWN_EXTERNAL_WORKFLOW_EXECUTION")
+                        .withInitiatedEventId(initiatedEventId)
+                        .withDecisionTaskCompletedEventId(completedEventId)
+                        .withControl(attributes.getControl())));
+            }
+            scheduleDecisionTask(source);
+        }
+    }
+
+    private void requestCancelExternal(Execution source, RequestCancelExternalWorkflowExecutionDecisionAttributes attributes, long initiatedEventId, long completedEventId) {
+        Execution target = findOpen(source.domain, attributes.getWorkflowId(), attributes.getRunId());
+        boolean requested = target != null && requestCancel(target, source, initiatedEventId, null);
+        synchronized (source) {
+            if (!source.open) {
+                return;
+            }
+            if (requested) {
+                addEvent(source, event(ExternalWorkflowExecutionCancelRequested)
+                    .withExternalWorkflowExecutionCancelRequestedEventAttributes(new ExternalWorkflowExecutionCancelRequestedEventAttributes()
+                        .withWorkflowExecution(target.workflowExecution())
+                        .withInitiatedEventId(initiatedEventId)));
+            } else {
+                addEvent(source, event(RequestCancelExternalWorkflowExecutionFailed)
+                    .withRequestCancelExternalWorkflowExecutionFailedEventAttributes(new RequestCancelExternalWorkflowExecutionFailedEventAttributes()
+                        .withWorkflowId(attributes.getWorkflowId())
+                        .withRunId(attributes.getRunId())
+                        .withCause("UNKNOWN_EXTERNAL_WORKFLOW_EXECUTION")
+                        .withInitiatedEventId(initiatedEventId)
+                        .withDecisionTaskCompletedEventId(completedEventId)
+                        .withControl(attributes.getControl())));
+            }
+            scheduleDecisionTask(source);
+        }
+    }
+
+    private void startChild(Execution parent, StartChildWorkflowExecutionDecisionAttributes attributes, long initiatedEventId, long completedEventId) {
+        StartWorkflowExecutionRequest request = new StartWorkflowExecutionRequest()
+            .withDomain(parent.domain)
+            .withWorkflowId(attributes.getWorkflowId())
+            .withWorkflowType(attributes.getWorkflowType())
+            .withTaskList(attributes.getTaskList())
+            .withInput(attributes.getInput())
+            .withExecutionStartToCloseTimeout(attributes.getExecutionStartToCloseTimeout())
+            .withTaskStartToCloseTimeout(attributes.getTaskStartToCloseTimeout())
+            .withChildPolicy(attributes.getChildPolicy())
+            .withTagList(attributes.getTagList());
+        Execution child;
+        String cause;
+        try {
+            child = start(request, parent, null, initiatedEventId);
+            cause = child == null ? "WORKFLOW_ALREADY_RUNNING" : null;
+        } catch (DefaultUndefinedException e) {
+            child = null;
+            cause = "DEFAULT_TASK_LIST_UNDEFINED";
+        }
+        synchronized (parent) {
+            if (child == null) {
+                if (parent.open) {
+                    addEvent(parent, event(StartChildWorkflowExecutionFailed)
+                        .withStartChildWorkflowExecutionFailedEventAttributes(new StartChildWorkflowExecutionFailedEventAttributes()
+                            .withWorkflowType(attributes.getWorkflowType())
+                            .withWorkflowId(attributes.getWorkflowId())
+                            .withCause(cause)
+                            .withInitiatedEventId(initiatedEventId)
+                            .withDecisionTaskCompletedEventId(completedEventId)
+                            .withControl(attributes.getControl())));
+                    scheduleDecisionTask(parent);
+                }
+                return;
+            }
+            if (parent.open) {
+                child.parentStartedEventId = addEvent(parent, event(ChildWorkflowExecutionStarted)
+                    .withChildWorkflowExecutionStartedEventAttributes(new ChildWorkflowExecutionStartedEventAttributes()
+                        .withWorkflowExecution(child.workflowExecution())
+                        .withWorkflowType(child.workflowType)
+                        .withInitiatedEventId(initiatedEventId)));
+                parent.children.add(child);
+                scheduleDecisionTask(parent);
+            }
+        }
+        release(child);
+    }
+
+    /**
+     * Close an execution: cancel its timers and activities, tell its parent using <code>parentEvent</code>,
+     * and apply its child policy to its open children.
+     */
+    private void close(Execution execution, String closeStatus, HistoryEvent parentEvent, List<Runnable> after) {
+        execution.open = false;
+        execution.closeStatus = closeStatus;
+        execution.timers.values().forEach(TimerState::cancel);
+        execution.timers.clear();
+        for (ActivityState activity : execution.activities.values()) {
+            if (activity.taskToken != null) {
+                activityTasks.remove(activity.taskToken);
+                cancel(activity.timeout);
+            }
+        }
+        execution.activities.clear();
+        if (execution.decisionTaskToken != null) {
+            decisionTasks.remove(execution.decisionTaskToken);
+            execution.decisionTaskToken = null;
+            cancel(execution.decisionTimeout);
+        }
+        openExecutions.remove(execution.key, execution);
+        closedCountsByDomain.computeIfAbsent(execution.domain, domain -> new AtomicInteger()).incrementAndGet();
+        closedExecutions.add(execution);
+        if (closedExecutionCount.incrementAndGet() > maximumClosedExecutions) {
+            Execution oldest = closedExecutions.poll();
+            if (oldest != null) {
+                closedExecutionCount.decrementAndGet();
+                executionsByRunId.remove(oldest.runId, oldest);
+            }
+        }
+
+        Execution parent = execution.parent;
+        if (parent != null && parentEvent != null) {
+            after.add(() -> notifyParent(parent, execution, parentEvent));
+        }
+        for (Execution child : execution.children) {
+            if ("REQUEST_CANCEL".equals(execution.childPolicy)) {
+                after.add(() -> requestCancel(child, null, null, "CHILD_POLICY_APPLIED"));
+            } else if (!"ABANDON".equals(execution.childPolicy)) {
+                after.add(() -> terminate(child, null, null, null, "CHILD_POLICY_APPLIED"));
+            }
+        }
+    }
+
+    private void notifyParent(Execution parent, Execution child, HistoryEvent event) {
+        synchronized (parent) {
+            if (!parent.open || child.parentStartedEventId == 0) {
+                return;
+            }
+            WorkflowExecution workflowExecution = child.workflowExecution();
+            Long initiatedEventId = child.parentInitiatedEventId;
+            Long startedEventId = child.parentStartedEventId;
+            switch (EventType.fromValue(event.getEventType())) {
+                case ChildWorkflowExecutionCompleted:
+                    event.getChildWorkflowExecutionCompletedEventAttributes().withWorkflowExecution(workflowExecution)
+                        .withWorkflowType(child.workflowType).withInitiatedEventId(initiatedEventId).withStartedEventId(startedEventId);
+                    break;
+                case ChildWorkflowExecutionFailed:
+                    event.getChildWorkflowExecutionFailedEventAttributes().withWorkflowExecution(workflowExecution)
+                        .withWorkflowType(child.workflowType).withInitiatedEventId(initiatedEventId).withStartedEventId(startedEventId);
+                    break;
+                case ChildWorkflowExecutionCanceled:
+                    event.getChildWorkflowExecutionCanceledEventAttributes().withWorkflowExecution(workflowExecution)
+                        .withWorkflowType(child.workflowType).withInitiatedEventId(initiatedEventId).withStartedEventId(startedEventId);
+                    break;
+                default:
+                    event.getChildWorkflowExecutionTerminatedEventAttributes().withWorkflowExecution(workflowExecution)
+                        .withWorkflowType(child.workflowType).withInitiatedEventId(initiatedEventId).withStartedEventId(startedEventId);
+            }
+            addEvent(parent, event);
+            parent.children.remove(child);
+            scheduleDecisionTask(parent);
+        }
+    }
+
+    //---------------------------------------
+    // Decision task scheduling, called holding the execution's lock
+    //---------------------------------------
+
+    // Schedule a decision task for new events unless one is already scheduled
+    private void scheduleDecisionTask(Execution execution) {
+        if (execution.open && !execution.decisionScheduled) {
+            execution.decisionScheduledEventId = addEvent(execution, event(DecisionTaskScheduled)
+                .withDecisionTaskScheduledEventAttributes(new DecisionTaskScheduledEventAttributes()
+                    .withTaskList(new TaskList().withName(execution.taskList))
+                    .withStartToCloseTimeout(execution.taskStartToCloseTimeout)));
+            execution.decisionScheduled = true;
+            execution.decisionScheduledNanos = System.nanoTime();
+            dispatchDecisionTask(execution);
+        }
+    }
+
+    // Hand out a scheduled decision task once the execution is released and no other decision task is started
+    private void dispatchDecisionTask(Execution execution) {
+        if (execution.released && execution.open && execution.decisionScheduled && execution.decisionTaskToken == null) {
+            queue(decisionQueues, execution.domain, execution.taskList).add(execution);
+        }
+    }
+
+    // Start handing out decision tasks of a new execution
+    private void release(Execution execution) {
+        synchronized (execution) {
+            execution.released = true;
+            dispatchDecisionTask(execution);
+        }
+    }
+
+    // Closing decisions fail if new events arrived while deciding, so the workflow can see them first
+    private boolean isUnhandled(Execution execution, HistoryEvent failedEvent) {
+        if (execution.decisionScheduled) {
+            addEvent(execution, failedEvent);
+            return true;
+        }
+        return false;
+    }
+
+    private static void validate(Decision decision) {
+        DecisionType type = DecisionType.fromValue(decision.getDecisionType());
+        Object attributes;
+        switch (type) {
+            case ScheduleActivityTask: attributes = decision.getScheduleActivityTaskDecisionAttributes(); break;
+            case RequestCancelActivityTask: attributes = decision.getRequestCancelActivityTaskDecisionAttributes(); break;
+            case CompleteWorkflowExecution: attributes = decision.getCompleteWorkflowExecutionDecisionAttributes(); break;
+            case FailWorkflowExecution: attributes = decision.getFailWorkflowExecutionDecisionAttributes(); break;
+            case CancelWorkflowExecution: attributes = decision.getCancelWorkflowExecutionDecisionAttributes(); break;
+            case ContinueAsNewWorkflowExecution: attributes = decision.getContinueAsNewWorkflowExecutionDecisionAttributes(); break;
+            case RecordMarker: attributes = decision.getRecordMarkerDecisionAttributes(); break;
+            case StartTimer: attributes = decision.getStartTimerDecisionAttributes(); break;
+            case CancelTimer: attributes = decision.getCancelTimerDecisionAttributes(); break;
+            case SignalExternalWorkflowExecution: attributes = decision.getSignalExternalWorkflowExecutionDecisionAttributes(); break;
+            case RequestCancelExternalWorkflowExecution: attributes = decision.getRequestCancelExternalWorkflowExecutionDecisionAttributes(); break;
+            case StartChildWorkflowExecution: attributes = decision.getStartChildWorkflowExecutionDecisionAttributes(); break;
+            default: attributes = decision.getScheduleLambdaFunctionDecisionAttributes();
+        }
+        if (attributes == null) {
+            throw new IllegalArgumentException(format("%s decision missing its attributes", type));
+        }
+        if (type == DecisionType.ScheduleActivityTask) {
+            checkTimeout(decision.getScheduleActivityTaskDecisionAttributes().getStartToCloseTimeout(), "ScheduleActivityTask decision startToCloseTimeout");
+        }
+        if (type == DecisionType.StartTimer) {
+            try {
+                Long.parseLong(decision.getStartTimerDecisionAttributes().getStartToFireTimeout());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("StartTimer decision startToFireTimeout must be a number of seconds", e);
+            }
+        }
+    }
+
+    //---------------------------------------
+    // Helpers
+    //---------------------------------------
+
+    private interface ActivityEvent {
+        HistoryEvent create(ActivityState activity);
+    }
+
+    private void closeActivity(String taskToken, ActivityEvent closeEvent) {
+        ActivityState activity = activityTasks.remove(taskToken);
+        if (activity == null) {
+            throw new UnknownResourceException(format("Unknown activity task token %s", taskToken));
+        }
+        Execution execution = activity.execution;
+        synchronized (execution) {
+            if (!execution.open || !execution.activities.remove(activity.activityId, activity)) {
+                throw new UnknownResourceException(format("Activity task %s is no longer open", taskToken));
+            }
+            addEvent(execution, closeEvent.create(activity));
+            cancel(activity.timeout);
+            scheduleDecisionTask(execution);
+        }
+        activityTaskCount.incrementAndGet();
+        taskClosed(TaskType.ACTIVITY, activity.scheduledNanos, activity.startedNanos);
+    }
+
+    // Run timedOut after a start-to-close timeout, called holding the execution's lock
+    private ScheduledFuture<?> scheduleTimeout(String timeout, Runnable timedOut) {
+        if (timeout == null || "NONE".equals(timeout) || shutdown) {
+            return null;
+        }
+        return timers.schedule(timedOut, Long.parseLong(timeout), timeoutUnit);
+    }
+
+    private static void cancel(ScheduledFuture<?> timeout) {
+        if (timeout != null) {
+            timeout.cancel(false);
+        }
+    }
+
+    private static void checkTimeout(String timeout, String name) {
+        if (timeout != null && !"NONE".equals(timeout)) {
+            try {
+                Long.parseLong(timeout);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(format("%s must be a number of seconds or NONE", name), e);
+            }
+        }
+    }
+
+    private void taskClosed(TaskType type, long scheduledNanos, long startedNanos) {
+        TaskListener listener = taskListener;
+        if (listener != null) {
+            listener.taskClosed(type, startedNanos - scheduledNanos, System.nanoTime() - startedNanos);
+        }
+    }
+
+    private List<HistoryEvent> page(Execution execution, int historySize, int from, Integer maximumPageSize, Boolean reverseOrder) {
+        int pageSize = maximumPageSize == null || maximumPageSize < 1 ? MAX_PAGE_SIZE : Math.min(maximumPageSize, MAX_PAGE_SIZE);
+        int to = Math.min(historySize, from + pageSize);
+        List<HistoryEvent> events = new ArrayList<>(Math.max(0, to - from));
+        synchronized (execution) {
+            for (int i = from; i < to; i++) {
+                events.add(execution.events.get(Boolean.TRUE.equals(reverseOrder) ? historySize - 1 - i : i));
+            }
+        }
+        return events;
+    }
+
+    private static long addEvent(Execution execution, HistoryEvent event) {
+        event.setEventId((long) execution.events.size() + 1);
+        event.setEventTimestamp(new Date());
+        execution.events.add(event);
+        return event.getEventId();
+    }
+
+    private static HistoryEvent event(EventType type) {
+        return new HistoryEvent().withEventType(type);
+    }
+
+    private <T> TaskQueue<T> queue(Map<String, TaskQueue<T>> queues, String domain, TaskList taskList) {
+        if (taskList == null || taskList.getName() == null) {
+            throw new IllegalArgumentException("parameter taskList is required");
+        }
+        return queue(queues, domain, taskList.getName());
+    }
+
+    private <T> TaskQueue<T> queue(Map<String, TaskQueue<T>> queues, String domain, String taskList) {
+        return queues.computeIfAbsent(domain + "/" + taskList, key -> new TaskQueue<>());
+    }
+
+    private String newRunId() {
+        return "run-" + sequence.incrementAndGet();
+    }
+
+    private static String executionKey(String domain, String workflowId) {
+        return domain + "/" + workflowId;
+    }
+
+    private static String typeKey(String domain, String name, String version) {
+        return domain + "/" + name + "/" + version;
+    }
+
+    private static String defaultIfNull(String value, String defaultValue) {
+        return value == null ? defaultValue : value;
+    }
+
+    private static UnknownResourceException unknownExecution(String workflowId) {
+        return new UnknownResourceException(format("Unknown execution: WorkflowExecution=[workflowId=%s]", workflowId));
+    }
+
+    /**
+     * Told the latency of each task closed by a poller, see {@link #withTaskListener}.
+     * Called on the poller's thread, so should be fast and thread-safe.
+     */
+    public interface TaskListener {
+        /**
+         * @param type {@link TaskType#DECISION} or {@link TaskType#ACTIVITY}
+         * @param scheduleToStartNanos time the task waited for a poll
+         * @param startToCloseNanos time from the poll handing out the task to its response
+         */
+        void taskClosed(TaskType type, long scheduleToStartNanos, long startToCloseNanos);
+    }
+
+    /**
+     * Tasks waiting for a poll on a single domain and task list.
+     */
+    private class TaskQueue<T> {
+        private final ArrayDeque<T> tasks = new ArrayDeque<>();
+
+        synchronized void add(T task) {
+            tasks.add(task);
+            notify();
+        }
+
+        /**
+         * @return next task or null if none arrived before the deadline or the service was shut down
+         */
+        synchronized T poll(long deadline) {
+            try {
+                while (tasks.isEmpty() && !shutdown) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return null;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            return shutdown ? null : tasks.poll();
+        }
+
+        synchronized int size() { return tasks.size(); }
+
+        synchronized void wakeAll() { notifyAll(); }
+    }
+
+    private static class DecisionTaskState {
+        final Execution execution;
+        final int historySize;
+        final long scheduledNanos;
+        final long startedNanos = System.nanoTime();
+
+        DecisionTaskState(Execution execution, int historySize, long scheduledNanos) {
+            this.execution = execution;
+            this.historySize = historySize;
+            this.scheduledNanos = scheduledNanos;
+        }
+    }
+
+    private static class ActivityState {
+        final Execution execution;
+        final String activityId;
+        final ActivityType activityType;
+        final String input;
+        final long scheduledEventId;
+        final String startToCloseTimeout;
+        final long scheduledNanos = System.nanoTime();
+        long startedEventId;
+        long startedNanos;
+        long cancelRequestedEventId;
+        String taskToken;
+        ScheduledFuture<?> timeout;
+
+        ActivityState(Execution execution, String activityId, ActivityType activityType, String input, long scheduledEventId, String startToCloseTimeout) {
+            this.execution = execution;
+            this.activityId = activityId;
+            this.activityType = activityType;
+            this.input = input;
+            this.scheduledEventId = scheduledEventId;
+            this.startToCloseTimeout = startToCloseTimeout;
+        }
+    }
+
+    private static class TimerState {
+        final long startedEventId;
+        ScheduledFuture<?> future;
+
+        TimerState(long startedEventId) {
+            this.startedEventId = startedEventId;
+        }
+
+        void cancel() {
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * State of a single workflow run, guarded by its own lock.
+     */
+    private class Execution {
+        final String domain;
+        final String workflowId;
+        final String runId;
+        final String key;
+        final WorkflowType workflowType;
+        final String taskList;
+        final String input;
+        final String executionStartToCloseTimeout;
+        final String taskStartToCloseTimeout;
+        final List<String> tagList;
+        final Execution parent;
+        final long parentInitiatedEventId;
+        final List<HistoryEvent> events = new ArrayList<>();
+        final Map<String, ActivityState> activities = new HashMap<>();
+        final Map<String, TimerState> timers = new LinkedHashMap<>();
+        final List<Execution> children = new ArrayList<>();
+        String childPolicy;
+        long parentStartedEventId;
+        boolean open = true;
+        String closeStatus;
+        boolean released;
+        boolean decisionScheduled;
+        long decisionScheduledEventId;
+        long decisionScheduledNanos;
+        String decisionTaskToken;
+        ScheduledFuture<?> decisionTimeout;
+        long decisionStartedEventId;
+        long previousStartedEventId;
+
+        Execution(StartWorkflowExecutionRequest request, String runId, Execution parent, long parentInitiatedEventId, String continuedExecutionRunId) {
+            this.domain = request.getDomain();
+            this.workflowId = request.getWorkflowId();
+            this.runId = runId;
+            this.key = executionKey(domain, workflowId);
+            this.workflowType = request.getWorkflowType();
+            this.taskList = request.getTaskList().getName();
+            this.input = request.getInput();
+            this.executionStartToCloseTimeout = request.getExecutionStartToCloseTimeout();
+            this.taskStartToCloseTimeout = request.getTaskStartToCloseTimeout();
+            this.childPolicy = defaultIfNull(request.getChildPolicy(), ChildPolicy.TERMINATE.toString());
+            this.tagList = request.getTagList();
+            this.parent = parent;
+            this.parentInitiatedEventId = parentInitiatedEventId;
+            addEvent(this, event(WorkflowExecutionStarted)
+                .withWorkflowExecutionStartedEventAttributes(new WorkflowExecutionStartedEventAttributes()
+                    .withInput(input)
+                    .withExecutionStartToCloseTimeout(executionStartToCloseTimeout)
+                    .withTaskStartToCloseTimeout(taskStartToCloseTimeout)
+                    .withChildPolicy(childPolicy)
+                    .withTaskList(new TaskList().withName(taskList))
+                    .withWorkflowType(workflowType)
+                    .withTagList(tagList)
+                    .withContinuedExecutionRunId(continuedExecutionRunId)
+                    .withParentWorkflowExecution(parent == null ? null : parent.workflowExecution())
+                    .withParentInitiatedEventId(parent == null ? null : parentInitiatedEventId)));
+            scheduleDecisionTask(this);
+        }
+
+        WorkflowExecution workflowExecution() {
+            return new WorkflowExecution().withWorkflowId(workflowId).withRunId(runId);
+        }
+
+        @Override
+        public String toString() {
+            return format("%s %s %s", workflowId, runId, open ? "OPEN" : closeStatus);
+        }
+    }
+}
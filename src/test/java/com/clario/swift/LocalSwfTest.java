@@ -0,0 +1,338 @@
+package com.clario.swift;
+
+import com.amazonaws.services.simpleworkflow.model.*;
+import com.clario.swift.action.ActivityAction;
+import com.clario.swift.action.TimerAction;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.clario.swift.Workflow.createCompleteWorkflowExecutionDecision;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * @author George Coller
+ */
+public class LocalSwfTest {
+    private static final String DOMAIN = "domain";
+    private static final String TASK_LIST = "taskList";
+
+    private final LocalSwf swf = new LocalSwf().withPollTimeout(MILLISECONDS, 50).withTimerUnit(MILLISECONDS);
+    private final Map<String, String> runIds = new ConcurrentHashMap<>();
+
+    @After
+    public void shutdown() {
+        swf.shutdown();
+    }
+
+    @Test
+    public void testWorkflowWithPollers() {
+        List<TaskType> closedTasks = new ArrayList<>();
+        swf.withTaskListener((type, scheduleToStartNanos, startToCloseNanos) -> {
+            Assert.assertTrue(scheduleToStartNanos >= 0);
+            Assert.assertTrue(startToCloseNanos >= 0);
+            closedTasks.add(type);
+        });
+        DecisionPoller decisionPoller = createDecisionPoller();
+        ActivityPoller activityPoller = createActivityPoller();
+        start(new EchoTimerWorkflow().withDomain(DOMAIN).withTaskList(TASK_LIST).createWorkflowExecutionRequest("wf1", "hello"));
+
+        for (int i = 0; i < 20 && countOpen() > 0; i++) {
+            decisionPoller.run();
+            activityPoller.run();
+        }
+
+        Assert.assertEquals(0, countOpen());
+        Assert.assertEquals(3, swf.getDecisionTaskCount());
+        Assert.assertEquals(1, swf.getActivityTaskCount());
+        Assert.assertEquals("[DECISION, ACTIVITY, DECISION, DECISION]", closedTasks.toString());
+        List<HistoryEvent> history = history("wf1");
+        HistoryEvent last = history.get(history.size() - 1);
+        Assert.assertEquals(EventType.WorkflowExecutionCompleted.toString(), last.getEventType());
+        Assert.assertEquals("hello", last.getWorkflowExecutionCompletedEventAttributes().getResult());
+        Assert.assertEquals("[WorkflowExecutionStarted, DecisionTaskScheduled, DecisionTaskStarted, DecisionTaskCompleted, ActivityTaskScheduled, "
+                + "ActivityTaskStarted, ActivityTaskCompleted, DecisionTaskScheduled, DecisionTaskStarted, DecisionTaskCompleted, TimerStarted, "
+                + "TimerFired, DecisionTaskScheduled, DecisionTaskStarted, DecisionTaskCompleted, WorkflowExecutionCompleted]",
+            eventTypes(history).toString());
+        for (int i = 0; i < history.size(); i++) {
+            Assert.assertEquals(i + 1, history.get(i).getEventId().intValue());
+        }
+    }
+
+    @Test
+    public void testDecisionTaskPaging() {
+        start(startRequest("wf1"));
+        for (int i = 0; i < 1500; i++) {
+            swf.signalWorkflowExecution(new SignalWorkflowExecutionRequest().withDomain(DOMAIN).withWorkflowId("wf1").withSignalName("signal" + i));
+        }
+
+        DecisionTask task = swf.pollForDecisionTask(pollRequest());
+        Assert.assertEquals(1503, task.getStartedEventId().longValue());
+        Assert.assertEquals(1000, task.getEvents().size());
+        Assert.assertEquals(1503, task.getEvents().get(0).getEventId().longValue());
+        Assert.assertNotNull(task.getNextPageToken());
+
+        // Events added after the task started are not part of its history
+        swf.signalWorkflowExecution(new SignalWorkflowExecutionRequest().withDomain(DOMAIN).withWorkflowId("wf1").withSignalName("late"));
+        DecisionTask page = swf.pollForDecisionTask(pollRequest().withNextPageToken(task.getNextPageToken()));
+        Assert.assertEquals(task.getTaskToken(), page.getTaskToken());
+        Assert.assertEquals(503, page.getEvents().size());
+        Assert.assertEquals(1, page.getEvents().get(502).getEventId().longValue());
+        Assert.assertNull(page.getNextPageToken());
+
+        // Completing while the late signal is unhandled fails and schedules another decision task
+        swf.respondDecisionTaskCompleted(new RespondDecisionTaskCompletedRequest()
+            .withTaskToken(task.getTaskToken())
+            .withDecisions(createCompleteWorkflowExecutionDecision("done")));
+        Assert.assertEquals(1, countOpen());
+        DecisionTask next = swf.pollForDecisionTask(pollRequest());
+        Assert.assertEquals(EventType.DecisionTaskStarted.toString(), next.getEvents().get(0).getEventType());
+        Assert.assertEquals(EventType.CompleteWorkflowExecutionFailed.toString(), next.getEvents().get(1).getEventType());
+        Assert.assertEquals(EventType.DecisionTaskCompleted.toString(), next.getEvents().get(2).getEventType());
+        Assert.assertEquals(EventType.DecisionTaskScheduled.toString(), next.getEvents().get(3).getEventType());
+        Assert.assertEquals(EventType.WorkflowExecutionSignaled.toString(), next.getEvents().get(4).getEventType());
+        Assert.assertEquals(1503, next.getPreviousStartedEventId().longValue());
+
+        swf.respondDecisionTaskCompleted(new RespondDecisionTaskCompletedRequest()
+            .withTaskToken(next.getTaskToken())
+            .withDecisions(createCompleteWorkflowExecutionDecision("done")));
+        Assert.assertEquals(0, countOpen());
+        try {
+            swf.respondDecisionTaskCompleted(new RespondDecisionTaskCompletedRequest().withTaskToken(next.getTaskToken()));
+            Assert.fail("completed task token accepted twice");
+        } catch (UnknownResourceException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testLongPoll() throws Exception {
+        long start = System.nanoTime();
+        Assert.assertNull(swf.pollForDecisionTask(pollRequest()).getTaskToken());
+        Assert.assertTrue(System.nanoTime() - start >= MILLISECONDS.toNanos(50));
+
+        LocalSwf slowSwf = new LocalSwf().withPollTimeout(SECONDS, 10);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<DecisionTask> poll = executor.submit(() -> slowSwf.pollForDecisionTask(pollRequest()));
+            Thread.sleep(50);
+            slowSwf.startWorkflowExecution(startRequest("wf1"));
+            Assert.assertNotNull(poll.get(5, SECONDS).getTaskToken());
+
+            poll = executor.submit(() -> slowSwf.pollForDecisionTask(pollRequest()));
+            Thread.sleep(50);
+            slowSwf.shutdown();
+            Assert.assertNull(poll.get(5, SECONDS).getTaskToken());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testChildWorkflowSignalsParent() {
+        start(startRequest("parent"));
+        respond(swf.pollForDecisionTask(pollRequest()), new Decision()
+            .withDecisionType(DecisionType.StartChildWorkflowExecution)
+            .withStartChildWorkflowExecutionDecisionAttributes(new StartChildWorkflowExecutionDecisionAttributes()
+                .withWorkflowId("child")
+                .withWorkflowType(new WorkflowType().withName("Child").withVersion("1.0"))
+                .withTaskList(new TaskList().withName("childTaskList"))
+                .withControl("child control")));
+
+        DecisionTask childTask = swf.pollForDecisionTask(pollRequest().withTaskList(new TaskList().withName("childTaskList")));
+        HistoryEvent started = childTask.getEvents().get(childTask.getEvents().size() - 1);
+        Assert.assertEquals("parent", started.getWorkflowExecutionStartedEventAttributes().getParentWorkflowExecution().getWorkflowId());
+        respond(childTask, new Decision()
+                .withDecisionType(DecisionType.SignalExternalWorkflowExecution)
+                .withSignalExternalWorkflowExecutionDecisionAttributes(new SignalExternalWorkflowExecutionDecisionAttributes()
+                    .withWorkflowId("parent")
+                    .withSignalName("hello parent")),
+            createCompleteWorkflowExecutionDecision("child result"));
+
+        Assert.assertEquals("[WorkflowExecutionStarted, DecisionTaskScheduled, DecisionTaskStarted, DecisionTaskCompleted, "
+                + "StartChildWorkflowExecutionInitiated, ChildWorkflowExecutionStarted, DecisionTaskScheduled, "
+                + "WorkflowExecutionSignaled, ChildWorkflowExecutionCompleted]",
+            eventTypes(history("parent")).toString());
+        HistoryEvent completed = history("parent").get(8);
+        Assert.assertEquals("child result", completed.getChildWorkflowExecutionCompletedEventAttributes().getResult());
+        Assert.assertEquals(5, completed.getChildWorkflowExecutionCompletedEventAttributes().getInitiatedEventId().longValue());
+        Assert.assertEquals(6, completed.getChildWorkflowExecutionCompletedEventAttributes().getStartedEventId().longValue());
+        Assert.assertEquals("child", history("parent").get(7).getWorkflowExecutionSignaledEventAttributes().getExternalWorkflowExecution().getWorkflowId());
+
+        try {
+            swf.startWorkflowExecution(startRequest("parent"));
+            Assert.fail("started the same workflow id twice");
+        } catch (WorkflowExecutionAlreadyStartedException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testTaskStartToCloseTimeouts() {
+        swf.withPollTimeout(SECONDS, 5).withTimeoutUnit(MILLISECONDS);
+        start(startRequest("wf1").withTaskStartToCloseTimeout("20"));
+        DecisionTask abandoned = swf.pollForDecisionTask(pollRequest());
+        DecisionTask decisionTask = swf.pollForDecisionTask(pollRequest());
+        Assert.assertNotNull("decision task handed out again after timing out", decisionTask.getTaskToken());
+        try {
+            respond(abandoned);
+            Assert.fail("responded to a timed out decision task");
+        } catch (UnknownResourceException expected) {
+            // expected
+        }
+
+        respond(decisionTask, new Decision()
+            .withDecisionType(DecisionType.ScheduleActivityTask)
+            .withScheduleActivityTaskDecisionAttributes(new ScheduleActivityTaskDecisionAttributes()
+                .withActivityId("a1")
+                .withActivityType(new ActivityType().withName("Local Echo").withVersion("1.0"))
+                .withTaskList(new TaskList().withName(TASK_LIST))
+                .withStartToCloseTimeout("20")));
+        ActivityTask activityTask = swf.pollForActivityTask(new PollForActivityTaskRequest().withDomain(DOMAIN).withTaskList(new TaskList().withName(TASK_LIST)));
+        Assert.assertNotNull("decision task after the activity timed out", swf.pollForDecisionTask(pollRequest()).getTaskToken());
+        try {
+            swf.respondActivityTaskCompleted(new RespondActivityTaskCompletedRequest().withTaskToken(activityTask.getTaskToken()));
+            Assert.fail("responded to a timed out activity task");
+        } catch (UnknownResourceException expected) {
+            // expected
+        }
+
+        Assert.assertEquals("[WorkflowExecutionStarted, DecisionTaskScheduled, DecisionTaskStarted, DecisionTaskTimedOut, "
+                + "DecisionTaskScheduled, DecisionTaskStarted, DecisionTaskCompleted, ActivityTaskScheduled, ActivityTaskStarted, "
+                + "ActivityTaskTimedOut, DecisionTaskScheduled, DecisionTaskStarted]",
+            eventTypes(history("wf1")).toString());
+        Assert.assertEquals("START_TO_CLOSE", history("wf1").get(9).getActivityTaskTimedOutEventAttributes().getTimeoutType());
+    }
+
+    @Test
+    public void testConcurrentPollers() throws Exception {
+        int workflowCount = 200;
+        List<BasePoller> pollers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            pollers.add(createDecisionPoller());
+            pollers.add(createActivityPoller());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(pollers.size());
+        for (BasePoller poller : pollers) {
+            executor.execute(() -> {
+                while (!poller.isStopped()) {
+                    poller.run();
+                }
+            });
+        }
+        for (int i = 0; i < workflowCount; i++) {
+            start(new EchoTimerWorkflow().withDomain(DOMAIN).withTaskList(TASK_LIST).createWorkflowExecutionRequest("wf" + i, "input" + i));
+        }
+
+        long deadline = System.nanoTime() + SECONDS.toNanos(30);
+        while (countClosed() < workflowCount && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        pollers.forEach(BasePoller::stop);
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(5, SECONDS));
+
+        Assert.assertEquals(workflowCount, countClosed());
+        Assert.assertEquals(3 * workflowCount, swf.getDecisionTaskCount());
+        Assert.assertEquals(workflowCount, swf.getActivityTaskCount());
+        for (int i = 0; i < workflowCount; i++) {
+            List<HistoryEvent> history = history("wf" + i);
+            Assert.assertEquals("input" + i, history.get(history.size() - 1).getWorkflowExecutionCompletedEventAttributes().getResult());
+        }
+    }
+
+    private DecisionPoller createDecisionPoller() {
+        DecisionPoller poller = new DecisionPoller("decisions", DOMAIN, TASK_LIST, null);
+        poller.addWorkflows(EchoTimerWorkflow::new);
+        poller.setSwf(swf);
+        return poller;
+    }
+
+    private ActivityPoller createActivityPoller() {
+        ActivityPoller poller = new ActivityPoller("activities", DOMAIN, TASK_LIST);
+        poller.addActivities(new EchoActivity());
+        poller.setSwf(swf);
+        return poller;
+    }
+
+    private void respond(DecisionTask task, Decision... decisions) {
+        swf.respondDecisionTaskCompleted(new RespondDecisionTaskCompletedRequest().withTaskToken(task.getTaskToken()).withDecisions(decisions));
+    }
+
+    private void start(StartWorkflowExecutionRequest request) {
+        runIds.put(request.getWorkflowId(), swf.startWorkflowExecution(request).getRunId());
+    }
+
+    private List<HistoryEvent> history(String workflowId) {
+        return swf.getWorkflowExecutionHistory(new GetWorkflowExecutionHistoryRequest()
+            .withDomain(DOMAIN)
+            .withExecution(new WorkflowExecution().withWorkflowId(workflowId).withRunId(runIds.get(workflowId)))).getEvents();
+    }
+
+    private int countOpen() {
+        return swf.countOpenWorkflowExecutions(new CountOpenWorkflowExecutionsRequest().withDomain(DOMAIN)).getCount();
+    }
+
+    private int countClosed() {
+        return swf.countClosedWorkflowExecutions(new CountClosedWorkflowExecutionsRequest().withDomain(DOMAIN)).getCount();
+    }
+
+    private static List<String> eventTypes(List<HistoryEvent> events) {
+        List<String> types = new ArrayList<>();
+        for (HistoryEvent event : events) {
+            types.add(event.getEventType());
+        }
+        return types;
+    }
+
+    private static StartWorkflowExecutionRequest startRequest(String workflowId) {
+        return new StartWorkflowExecutionRequest()
+            .withDomain(DOMAIN)
+            .withWorkflowId(workflowId)
+            .withWorkflowType(new WorkflowType().withName("Test").withVersion("1.0"))
+            .withTaskList(new TaskList().withName(TASK_LIST));
+    }
+
+    private static PollForDecisionTaskRequest pollRequest() {
+        return new PollForDecisionTaskRequest()
+            .withDomain(DOMAIN)
+            .withTaskList(new TaskList().withName(TASK_LIST))
+            .withReverseOrder(true);
+    }
+
+    /**
+     * Echo the workflow input with an activity, wait on a timer, then complete with the activity output.
+     */
+    static class EchoTimerWorkflow extends Workflow {
+        final ActivityAction echo = new ActivityAction("echo", "Local Echo", "1.0");
+        final TimerAction timer = new TimerAction("timer").withStartToFireTimeout(SECONDS, 5);
+
+        EchoTimerWorkflow() {
+            super("Echo Timer", "1.0");
+            addActions(echo, timer);
+        }
+
+        @Override
+        public void decide(List<Decision> decisions) {
+            if (echo.withInput(getWorkflowInput()).decide(decisions).isSuccess() && timer.decide(decisions).isSuccess()) {
+                decisions.add(createCompleteWorkflowExecutionDecision(echo.getOutput()));
+            }
+        }
+    }
+
+    public static class EchoActivity {
+        @ActivityMethod(name = "Local Echo", version = "1.0")
+        public String echo(ActivityContext context) {
+            return context.getInput();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.clario.swift;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author George Coller
+ */
+public class PollerAutoscalerTest {
+    private ScriptedPoller poller;
+    private PollerRunner runner;
+    private PollerAutoscaler autoscaler;
+
+    @Before
+    public void before() {
+        poller = new ScriptedPoller();
+        runner = new PollerRunner(poller).withThreads(2);
+        runner.start();
+        autoscaler = new PollerAutoscaler(runner).withBounds(2, 6).withHysteresis(2);
+    }
+
+    @After
+    public void after() throws InterruptedException {
+        Assert.assertTrue(runner.drain(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testGrowWhenPollsFindTasks() {
+        polls(10, 0);
+        Assert.assertEquals("hysteresis holds first vote", 2, autoscaler.evaluate());
+        polls(10, 1);
+        Assert.assertEquals(3, autoscaler.evaluate());
+        polls(10, 0);
+        autoscaler.evaluate();
+        polls(10, 0);
+        Assert.assertEquals(4, autoscaler.evaluate());
+        Assert.assertEquals(4, runner.getThreadCount());
+
+        for (int i = 0; i < 10; i++) {
+            polls(10, 0);
+            autoscaler.evaluate();
+        }
+        Assert.assertEquals("bounded by max", 6, runner.getThreadCount());
+    }
+
+    @Test
+    public void testShrinkWhenPollsAreEmpty() {
+        runner.setThreads(4);
+        polls(10, 10);
+        autoscaler.evaluate();
+        polls(10, 9);
+        Assert.assertEquals(3, autoscaler.evaluate());
+        for (int i = 0; i < 10; i++) {
+            polls(10, 10);
+            autoscaler.evaluate();
+        }
+        Assert.assertEquals("bounded by min", 2, runner.getThreadCount());
+    }
+
+    @Test
+    public void testHysteresisResetsOnMixedVotes() {
+        polls(10, 0);
+        autoscaler.evaluate();
+        polls(10, 5);
+        autoscaler.evaluate();
+        polls(10, 0);
+        Assert.assertEquals(2, autoscaler.evaluate());
+        polls(10, 10);
+        autoscaler.evaluate();
+        polls(10, 0);
+        Assert.assertEquals(2, autoscaler.evaluate());
+    }
+
+    @Test
+    public void testPendingTaskCount() {
+        autoscaler.withPendingTaskCount(true);
+        poller.pending = 20;
+        autoscaler.evaluate();
+        Assert.assertEquals("pending tasks grow without any polls returning", 3, autoscaler.evaluate());
+
+        poller.pending = 2;
+        polls(10, 10);
+        autoscaler.evaluate();
+        polls(10, 10);
+        Assert.assertEquals("pending tasks block shrinking", 3, autoscaler.evaluate());
+
+        poller.pending = 0;
+        autoscaler.evaluate();
+        Assert.assertEquals("idle with nothing pending", 2, autoscaler.evaluate());
+    }
+
+    @Test
+    public void testNoGrowWhenSaturated() {
+        poller.active = ScriptedPoller.MAX_ACTIVE;
+        polls(10, 0);
+        autoscaler.evaluate();
+        polls(10, 0);
+        Assert.assertEquals(2, autoscaler.evaluate());
+        poller.active = 0;
+    }
+
+    private void polls(int count, int empty) {
+        for (int i = 0; i < count; i++) {
+            poller.recordPoll(i < empty);
+        }
+    }
+
+    static class ScriptedPoller extends BasePoller {
+        static final int MAX_ACTIVE = 4;
+        volatile int pending = -1;
+        volatile int active;
+
+        ScriptedPoller() {
+            super("scripted", "domain", "taskList");
+        }
+
+        @Override
+        protected void poll() {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public int getActiveTaskCount() { return active; }
+
+        @Override
+        public int getMaxActiveTaskCount() { return MAX_ACTIVE; }
+
+        @Override
+        public int countPendingTasks() { return pending; }
+    }
+}
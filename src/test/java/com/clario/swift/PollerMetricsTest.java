@@ -0,0 +1,139 @@
+package com.clario.swift;
+
+import com.amazonaws.services.simpleworkflow.model.ActivityTask;
+import com.amazonaws.services.simpleworkflow.model.ActivityType;
+import com.amazonaws.services.simpleworkflow.model.CountOpenWorkflowExecutionsRequest;
+import com.amazonaws.services.simpleworkflow.model.Decision;
+import com.amazonaws.services.simpleworkflow.model.UnknownResourceException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * @author George Coller
+ */
+public class PollerMetricsTest {
+    private final LocalSwf swf = new LocalSwf().withPollTimeout(MILLISECONDS, 10).withTimerUnit(MILLISECONDS);
+    private final List<String> recorded = new ArrayList<>();
+
+    private final PollerMetrics metrics = new PollerMetrics() {
+        @Override
+        public void recordPoll(TaskType taskType, long nanos, boolean empty) {
+            if (!empty) {
+                recorded.add("poll " + taskType);
+            }
+        }
+
+        @Override
+        public void recordHistory(String workflowType, int pageCount, int eventCount, long nanos) {
+            recorded.add("history " + workflowType + " " + pageCount + " " + eventCount);
+        }
+
+        @Override
+        public void recordDecide(String workflowType, long nanos, boolean success) {
+            recorded.add("decide " + workflowType + " " + success);
+        }
+
+        @Override
+        public void recordDecision(String workflowType, String decisionType) {
+            recorded.add("decision " + workflowType + " " + decisionType);
+        }
+
+        @Override
+        public void recordActivity(String activityType, long nanos, boolean success) {
+            recorded.add("activity " + activityType + " " + success);
+        }
+
+        @Override
+        public void recordRespond(TaskType taskType, String type, long nanos, boolean success) {
+            recorded.add("respond " + taskType + " " + type + " " + success);
+        }
+    };
+
+    @After
+    public void shutdown() {
+        swf.shutdown();
+    }
+
+    @Test
+    public void testRecordedMetrics() {
+        DecisionPoller decisionPoller = new DecisionPoller("decisions", "domain", "taskList", null);
+        decisionPoller.addWorkflows(LocalSwfTest.EchoTimerWorkflow::new);
+        decisionPoller.setSwf(swf);
+        decisionPoller.setMetrics(metrics);
+        ActivityPoller activityPoller = new ActivityPoller("activities", "domain", "taskList");
+        activityPoller.addActivities(new LocalSwfTest.EchoActivity());
+        activityPoller.setSwf(swf);
+        activityPoller.setMetrics(metrics);
+
+        swf.startWorkflowExecution(new LocalSwfTest.EchoTimerWorkflow().withDomain("domain").withTaskList("taskList")
+            .createWorkflowExecutionRequest("wf1", "hello"));
+        for (int i = 0; i < 20 && swf.countOpenWorkflowExecutions(new CountOpenWorkflowExecutionsRequest().withDomain("domain")).getCount() > 0; i++) {
+            decisionPoller.run();
+            activityPoller.run();
+        }
+
+        Assert.assertEquals(
+            "[poll DECISION, history Echo Timer-1.0 1 3, decide Echo Timer-1.0 true, respond DECISION Echo Timer-1.0 true, decision Echo Timer-1.0 ScheduleActivityTask, "
+                + "poll ACTIVITY, activity Local Echo-1.0 true, respond ACTIVITY Local Echo-1.0 true, "
+                + "poll DECISION, history Echo Timer-1.0 1 9, decide Echo Timer-1.0 true, respond DECISION Echo Timer-1.0 true, decision Echo Timer-1.0 StartTimer, "
+                + "poll DECISION, history Echo Timer-1.0 1 14, decide Echo Timer-1.0 true, respond DECISION Echo Timer-1.0 true, decision Echo Timer-1.0 CompleteWorkflowExecution]",
+            recorded.toString());
+    }
+
+    @Test
+    public void testFailures() {
+        ActivityPoller activityPoller = new ActivityPoller("activities", "domain", "taskList");
+        activityPoller.addActivities(new FailActivity());
+        activityPoller.setSwf(swf);
+        activityPoller.setMetrics(metrics);
+        DecisionPoller decisionPoller = new DecisionPoller("decisions", "domain", "taskList", null);
+        decisionPoller.addWorkflows(new FailWorkflow());
+        decisionPoller.setSwf(swf);
+        decisionPoller.setMetrics(metrics);
+
+        swf.startWorkflowExecution(new FailWorkflow().withDomain("domain").withTaskList("taskList").createWorkflowExecutionRequest("wf1", null));
+        decisionPoller.run();
+        Assert.assertEquals("[poll DECISION, history Fail-1.0 1 3, decide Fail-1.0 false, respond DECISION Fail-1.0 true, decision Fail-1.0 FailWorkflowExecution]",
+            recorded.toString());
+
+        // Responding with an unknown task token fails, recording no decisions
+        recorded.clear();
+        List<Decision> decisions = new ArrayList<>();
+        decisions.add(Workflow.createCompleteWorkflowExecutionDecision("done"));
+        decisionPoller.respond("wf1", "Fail-1.0", decisionPoller.createRespondDecisionTaskCompletedRequest("unknown", decisions));
+        try {
+            activityPoller.execute(new ActivityTask()
+                .withTaskToken("unknown")
+                .withActivityId("fail")
+                .withActivityType(new ActivityType().withName("Local Fail").withVersion("1.0")));
+            Assert.fail("respond with unknown task token succeeded");
+        } catch (UnknownResourceException expected) {
+            // expected
+        }
+        Assert.assertEquals("[respond DECISION Fail-1.0 false, activity Local Fail-1.0 false, respond ACTIVITY Local Fail-1.0 false]", recorded.toString());
+    }
+
+    static class FailWorkflow extends Workflow {
+        FailWorkflow() {
+            super("Fail", "1.0");
+        }
+
+        @Override
+        public void decide(List<Decision> decisions) {
+            throw new IllegalStateException("decide failed");
+        }
+    }
+
+    public static class FailActivity {
+        @ActivityMethod(name = "Local Fail", version = "1.0")
+        public String fail(ActivityContext context) {
+            throw new IllegalStateException("activity failed");
+        }
+    }
+}
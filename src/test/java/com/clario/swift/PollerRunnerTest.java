@@ -0,0 +1,159 @@
+package com.clario.swift;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author George Coller
+ */
+public class PollerRunnerTest {
+
+    @Test
+    public void testRunActivitiesOnThreadPerTaskExecutor() throws InterruptedException {
+        ActivityPollerTest.MockSwf swf = new ActivityPollerTest.MockSwf(200);
+        ActivityPollerTest.EchoActivity activity = new ActivityPollerTest.EchoActivity();
+        activity.sleepMillis = 50;
+        ActivityPoller poller = new ActivityPoller("poller", "domain", "taskList");
+        poller.setSwf(swf);
+        poller.addActivities(activity);
+        ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor("activity");
+        poller.setExecutor(executor, 100);
+
+        PollerRunner runner = new PollerRunner(poller).withThreads(2);
+        runner.start();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (swf.results.size() < 200 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        runner.stop();
+        Assert.assertTrue(runner.awaitTermination(10, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        Assert.assertEquals(200, swf.results.size());
+        Assert.assertTrue("max in flight " + activity.maxActive, activity.maxActive.get() <= 100);
+        Assert.assertTrue("max in flight " + activity.maxActive, activity.maxActive.get() > 10);
+    }
+
+    @Test
+    public void testDrainFinishesActivitiesInProgress() throws InterruptedException {
+        ActivityPollerTest.MockSwf swf = new ActivityPollerTest.MockSwf(50);
+        ActivityPollerTest.EchoActivity activity = new ActivityPollerTest.EchoActivity();
+        activity.sleepMillis = 200;
+        ActivityPoller poller = new ActivityPoller("poller", "domain", "taskList");
+        poller.setSwf(swf);
+        poller.addActivities(activity);
+        ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor("activity");
+        poller.setExecutor(executor, 10);
+
+        PollerRunner runner = new PollerRunner(poller);
+        runner.start();
+        waitFor(() -> poller.getActiveActivityCount() == 10);
+        Assert.assertTrue(runner.drain(10, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        Assert.assertEquals(PollerRunner.State.TERMINATED, runner.getState());
+        Assert.assertTrue(poller.isStopped());
+        Assert.assertEquals(0, poller.getActiveActivityCount());
+        Assert.assertEquals("every polled task finished", 50 - swf.tasks.size(), swf.results.size());
+        Assert.assertTrue("stopped polling before the queue emptied", swf.tasks.size() > 0);
+    }
+
+    @Test
+    public void testErrorBackoff() throws InterruptedException {
+        CountingPoller poller = new CountingPoller();
+        poller.fail = true;
+        PollerRunner runner = new PollerRunner(poller).withErrorBackoff(10, 40, TimeUnit.MILLISECONDS);
+        runner.start();
+        Thread.sleep(300);
+        Assert.assertFalse(runner.isHealthy());
+        Assert.assertTrue(runner.getLastError() instanceof IllegalStateException);
+        long errors = runner.getErrorCount();
+        Assert.assertTrue("errors " + errors, errors >= 3 && errors <= 15);
+
+        poller.fail = false;
+        waitFor(() -> runner.getPollCount() > 0);
+        Assert.assertTrue(runner.isHealthy());
+        Assert.assertEquals(0, runner.getConsecutiveErrorCount());
+        Assert.assertTrue(runner.drain(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testResize() throws InterruptedException {
+        CountingPoller poller = new CountingPoller();
+        PollerRunner runner = new PollerRunner(poller).withThreads(1);
+        runner.start();
+        runner.setThreads(4);
+        waitFor(() -> poller.maxActive.get() == 4);
+        runner.setThreads(1);
+        Thread.sleep(100);
+        poller.maxActive.set(0);
+        Thread.sleep(100);
+        Assert.assertEquals(1, poller.maxActive.get());
+        Assert.assertEquals(1, runner.getThreadCount());
+        Assert.assertTrue(runner.drain(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testGroup() throws InterruptedException {
+        PollerGroup group = new PollerGroup("group");
+        group.add(new CountingPoller(), 2);
+        Assert.assertFalse(group.isHealthy());
+        group.start();
+        PollerRunner late = group.add(new CountingPoller(), 1);
+        Assert.assertTrue(late.isRunning());
+        Assert.assertTrue(group.isHealthy());
+        Assert.assertTrue(group.getStatusReport().contains("PollerRunner 'counting' RUNNING threads=2"));
+
+        Assert.assertTrue(group.drain(1, TimeUnit.SECONDS));
+        for (PollerRunner runner : group.getRunners()) {
+            Assert.assertEquals(PollerRunner.State.TERMINATED, runner.getState());
+        }
+        Assert.assertFalse(group.isHealthy());
+    }
+
+    @Test
+    public void testPlatformThreadFactory() throws InterruptedException {
+        ThreadFactory threadFactory = VirtualThreads.newThreadFactory("test", false);
+        Thread thread = threadFactory.newThread(() -> { });
+        Assert.assertEquals("test-1", thread.getName());
+        Assert.assertTrue(thread.isDaemon());
+    }
+
+    private static void waitFor(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            Assert.assertTrue("timed out", System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    static class CountingPoller extends BasePoller {
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+        volatile boolean fail;
+
+        CountingPoller() {
+            super("counting", "domain", "taskList");
+        }
+
+        @Override
+        protected void poll() {
+            if (fail) {
+                throw new IllegalStateException("fail");
+            }
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                active.decrementAndGet();
+            }
+        }
+    }
+}
@@ -26,6 +26,8 @@ import static com.clario.swift.Workflow.createFailReasonString;
 import static java.lang.String.format;
 import static java.nio.charset.Charset.defaultCharset;
 import static java.nio.file.Files.readAllLines;
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableList;
 
 /**
  * Utility class for unit testing.
@@ -44,6 +46,35 @@ public class TestUtil {
         }
     };
 
+    /**
+     * Recorded histories in this package covering activities, retries, signals and errors.
+     */
+    public static final List<String> HISTORY_FILES = unmodifiableList(asList(
+        "SimpleWorkflowHistory.json", "RetryWorkflowHistory.json", "WaitForSignalWorkflow.json", "ScheduleActivityTaskFailed.json"));
+
+    /**
+     * Load a json-formatted history into a new workflow that makes no decisions, adding the events in pages the way
+     * {@link DecisionPoller} does so the workflow's index is built as pages arrive.
+     *
+     * @param clazz class that lives in the same package as the file.
+     * @param fileName name of the json data file.
+     * @param pageSize number of events in each page
+     *
+     * @return workflow with the full history
+     */
+    public static Workflow loadIndexedWorkflow(Class clazz, String fileName, int pageSize) {
+        EventList events = loadActionEvents(clazz, fileName);
+        Workflow workflow = new Workflow("Mock Workflow", "1.0") {
+            @Override public void decide(List<Decision> decisions) {
+                // do nothing
+            }
+        };
+        for (int i = 0; i < events.size(); i += pageSize) {
+            workflow.addEvents(events.subList(i, Math.min(i + pageSize, events.size())));
+        }
+        return workflow;
+    }
+
     public static void convertTaskFailed(List<Event> historyEvents, String reason, String details) {
         ActivityTaskFailedEventAttributes eventAttributes =
             new ActivityTaskFailedEventAttributes()
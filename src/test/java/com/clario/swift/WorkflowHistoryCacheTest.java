@@ -0,0 +1,205 @@
+package com.clario.swift;
+
+import com.amazonaws.services.simpleworkflow.model.EventType;
+import com.amazonaws.services.simpleworkflow.model.HistoryEvent;
+import com.amazonaws.services.simpleworkflow.model.MarkerRecordedEventAttributes;
+import com.clario.swift.event.Event;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.clario.swift.TestUtil.HISTORY_FILES;
+import static com.clario.swift.TestUtil.loadActionEvents;
+import static com.clario.swift.TestUtil.loadIndexedWorkflow;
+import static org.junit.Assert.*;
+
+/**
+ * @author George Coller
+ */
+public class WorkflowHistoryCacheTest {
+    private final EventList events = loadActionEvents(WorkflowHistoryCacheTest.class, "SimpleWorkflowHistory.json");
+
+    @Test
+    public void testGetPut() {
+        WorkflowHistoryCache cache = new WorkflowHistoryCache(10, 1, TimeUnit.HOURS);
+        assertNull(cache.get("wf", "run"));
+        cache.put("wf", "run", events);
+        assertEquals(events, cache.get("wf", "run"));
+        assertNull(cache.get("wf", "otherRun"));
+        cache.remove("wf", "run");
+        assertNull(cache.get("wf", "run"));
+    }
+
+    @Test
+    public void testIncompleteHistoryNotCached() {
+        WorkflowHistoryCache cache = new WorkflowHistoryCache(10, 1, TimeUnit.HOURS);
+        cache.put("wf", "run", events);
+        cache.put("wf", "run", events.subList(0, events.size() - 1));
+        assertNull("replacing with partial history drops the entry", cache.get("wf", "run"));
+        List<Event> gap = new ArrayList<>(events);
+        gap.remove(5);
+        cache.put("wf", "run", gap);
+        assertNull(cache.get("wf", "run"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+        WorkflowHistoryCache cache = new WorkflowHistoryCache(2, 1, TimeUnit.HOURS);
+        cache.put("wf", "run1", events);
+        cache.put("wf", "run2", events);
+        cache.get("wf", "run1");
+        cache.put("wf", "run3", events);
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("wf", "run1"));
+        assertNull(cache.get("wf", "run2"));
+        assertNotNull(cache.get("wf", "run3"));
+    }
+
+    @Test
+    public void testTimeToLive() throws InterruptedException {
+        WorkflowHistoryCache cache = new WorkflowHistoryCache(10, 1, TimeUnit.MILLISECONDS);
+        cache.put("wf", "run", events);
+        Thread.sleep(10);
+        assertNull(cache.get("wf", "run"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testCompactHistory() {
+        for (String fileName : HISTORY_FILES) {
+            Workflow workflow = loadIndexedWorkflow(WorkflowHistoryCacheTest.class, fileName, 10);
+            EventList history = workflow.getEvents();
+            CompactHistory compact = new CompactHistory(history);
+            EventList indexed = new EventList(compact, compact.getIndex());
+            assertEquals(fileName, history, compact);
+            for (int i = 0; i < history.size(); i++) {
+                Event expected = history.get(i);
+                Event actual = compact.get(i);
+                assertNotSame(expected, actual);
+                assertNotSame(actual, compact.get(i));
+                assertEquals(expected.getType(), actual.getType());
+                assertEquals(expected.getEventTimestamp(), actual.getEventTimestamp());
+                assertEquals(expected.getInitialEventId(), actual.getInitialEventId());
+                assertEquals(expected.getActionId(), actual.getActionId());
+                assertEquals(expected.getState(), actual.getState());
+                assertEquals(history.selectInitialEventId(expected.getEventId()), indexed.selectInitialEventId(expected.getEventId()));
+                if (expected.getActionId() != null) {
+                    EventList action = history.selectActionId(expected.getActionId());
+                    assertEquals(action, indexed.selectActionId(expected.getActionId()));
+                    if (expected.getType() == EventType.TimerStarted) {
+                        assertEquals(action.countRetries(expected.getControl()), indexed.selectActionId(expected.getActionId()).countRetries(expected.getControl()));
+                    }
+                }
+            }
+            assertEquals(fileName, history.selectSinceLastDecision(), indexed.selectSinceLastDecision());
+        }
+
+        // Index built from the columns
+        CompactHistory compact = new CompactHistory(loadActionEvents(WorkflowHistoryCacheTest.class, "RetryWorkflowHistory.json"));
+        EventList step1 = new EventList(compact, compact.getIndex()).selectActionId("step1");
+        assertEquals(23, step1.size());
+        assertEquals(4, step1.countRetries(step1.selectEventType(EventType.TimerStarted).getFirst().getControl()));
+        assertEquals(compact.get(compact.size() - 6), step1.getLast());
+    }
+
+    @Test
+    public void testPrependAndLayeredIndex() {
+        for (String fileName : HISTORY_FILES) {
+            EventList history = loadIndexedWorkflow(WorkflowHistoryCacheTest.class, fileName, 10).getEvents();
+            int half = history.size() / 2;
+
+            // Newer events added a few at a time like later decision tasks
+            CompactHistory compact = new CompactHistory(history.subList(history.size() - 3, history.size()));
+            for (int end = history.size() - 3; end > 0; end -= 7) {
+                compact.prepend(history.subList(Math.max(end - 7, 0), end));
+            }
+            assertEquals(fileName, history, compact);
+            assertIndexEquals(fileName, history, new EventList(compact, compact.getIndex()));
+
+            // Newer events pushed over a cached history are indexed with it
+            EventHistory layered = new EventHistory(new CompactHistory(history.subList(half, history.size())));
+            for (int i = half - 1; i >= 0; i--) {
+                layered.push(history.get(i));
+            }
+            assertEquals(fileName, history, layered);
+            assertEquals(fileName, history, layered.snapshot());
+            assertEquals(fileName, history.subList(half - 2, half + 2), layered.snapshot(half - 2, half + 2));
+            assertIndexEquals(fileName, history, new EventList(layered, layered.getIndex()));
+            Event cached = layered.get(history.size() - 1);
+            assertSame("cached events kept by the history reading them", cached, layered.get(history.size() - 1));
+            assertSame(cached, layered.getIndex().selectInitialEventId(cached.getEventId()).get(0));
+        }
+    }
+
+    @Test
+    public void testCompactHistoryRetainsNoEvents() throws InterruptedException {
+        EventList history = loadActionEvents(WorkflowHistoryCacheTest.class, "RetryWorkflowHistory.json");
+        CompactHistory compact = new CompactHistory(history.subList(10, history.size()));
+        compact.prepend(history.subList(0, 10));
+
+        // Full scan and index selections, then drop every event read
+        List<WeakReference<Event>> read = new ArrayList<>();
+        for (Event event : compact) {
+            read.add(new WeakReference<>(event));
+        }
+        for (Event event : new EventList(compact, compact.getIndex()).selectActionId("step1")) {
+            read.add(new WeakReference<>(event));
+        }
+        long retained = read.size();
+        for (int i = 0; i < 20 && retained > 0; i++) {
+            System.gc();
+            Thread.sleep(10);
+            retained = read.stream().filter(reference -> reference.get() != null).count();
+        }
+        assertEquals("events retained after a full scan", 0, retained);
+        assertEquals(history, compact);
+    }
+
+    @Test
+    public void testPushNotAddedToCachedHistory() {
+        EventList history = loadActionEvents(WorkflowHistoryCacheTest.class, "RetryWorkflowHistory.json");
+        CompactHistory compact = new CompactHistory(history);
+        Workflow workflow = loadIndexedWorkflow(WorkflowHistoryCacheTest.class, "RetryWorkflowHistory.json", 10);
+        workflow.useCachedHistory(compact);
+        workflow.pushDummyTimerStartedEvent("step1");
+
+        EventList events = workflow.getEvents();
+        assertEquals(history.size() + 1, events.size());
+        assertEquals(history.size(), compact.size());
+        assertEquals(24, events.selectActionId("step1").size());
+        assertEquals(23, new EventList(compact, compact.getIndex()).selectActionId("step1").size());
+        assertEquals(history.selectSinceLastDecision().size() + 1, events.selectSinceLastDecision().size());
+    }
+
+    @Test
+    public void testCountNewEvents() {
+        EventList cached = new EventList(events.subList(5, events.size()));
+        assertEquals(5, DecisionPoller.countNewEvents(events, cached));
+        assertEquals(3, DecisionPoller.countNewEvents(events.subList(2, 10), cached));
+        assertEquals(DecisionPoller.CACHE_NOT_REACHED, DecisionPoller.countNewEvents(events.subList(0, 5), cached));
+
+        List<Event> mismatch = new ArrayList<>(cached);
+        mismatch.set(0, new Event(new HistoryEvent()
+            .withEventId(cached.getFirst().getEventId())
+            .withEventType(EventType.MarkerRecorded)
+            .withMarkerRecordedEventAttributes(new MarkerRecordedEventAttributes().withMarkerName("unexpected"))));
+        assertEquals(DecisionPoller.CACHE_MISMATCH, DecisionPoller.countNewEvents(events, mismatch));
+    }
+
+    private static void assertIndexEquals(String message, EventList expected, EventList actual) {
+        for (Event event : expected) {
+            assertEquals(message, expected.selectInitialEventId(event.getEventId()), actual.selectInitialEventId(event.getEventId()));
+            if (event.getActionId() != null) {
+                EventList action = expected.selectActionId(event.getActionId());
+                assertEquals(message, action, actual.selectActionId(event.getActionId()));
+                if (event.getType() == EventType.TimerStarted) {
+                    assertEquals(message, action.countRetries(event.getControl()), actual.selectActionId(event.getActionId()).countRetries(event.getControl()));
+                }
+            }
+        }
+        assertEquals(message, expected.selectSinceLastDecision(), actual.selectSinceLastDecision());
+    }
+}
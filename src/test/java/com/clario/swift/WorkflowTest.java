@@ -1,8 +1,14 @@
 package com.clario.swift;
 
+import com.clario.swift.action.ActivityAction;
 import org.junit.Test;
 
+import static com.amazonaws.services.simpleworkflow.model.EventType.TimerStarted;
+import static com.clario.swift.event.EventState.RETRY;
+import static com.clario.swift.event.EventState.SUCCESS;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 /**
  * @author George Coller
@@ -23,4 +29,47 @@ public class WorkflowTest {
         workflow.replaceEvents(events);
         assertEquals("Mon Apr 28 21:17:02 UTC 2014", workflow.getWorkflowStartDate().toString());
     }
+
+    @Test
+    public void testPushDummyTimerStartedEvent() {
+        EventList events = TestUtil.loadActionEvents(Workflow.class, "SimpleWorkflowHistory.json");
+        workflow.reset();
+        for (int i = 0; i < events.size(); i += 5) {
+            workflow.addEvents(events.subList(i, Math.min(i + 5, events.size())));
+        }
+        long firstEventId = events.getFirst().getEventId();
+        for (int i = 1; i <= 10; i++) {
+            workflow.pushDummyTimerStartedEvent("step" + i);
+        }
+        EventList all = workflow.getEvents();
+        assertEquals(events.size() + 10, all.size());
+        assertEquals(firstEventId + 10, all.getFirst().getEventId().longValue());
+        assertEquals(events, all.subList(10, all.size()));
+        EventList step1 = all.selectActionId("step1");
+        assertEquals(TimerStarted, step1.getFirst().getType());
+        assertEquals(events.selectActionId("step1"), step1.subList(1, step1.size()));
+    }
+
+    @Test
+    public void testActionStateMemoizedPerHistoryVersion() {
+        EventList events = TestUtil.loadActionEvents(Workflow.class, "SimpleWorkflowHistory.json");
+        ActivityAction step1 = new ActivityAction("step1", "Activity X", "1.0");
+        step1.setWorkflow(workflow);
+        workflow.replaceEvents(events);
+        EventList step1Events = step1.getEvents();
+        assertSame(step1Events, step1.getEvents());
+        assertEquals(SUCCESS, step1.getState());
+        assertSame(step1.getCurrentEvent(), step1.getCurrentEvent());
+
+        long version = workflow.getHistoryVersion();
+        workflow.pushDummyTimerStartedEvent("step1");
+        assertEquals(version + 1, workflow.getHistoryVersion());
+        assertNotSame(step1Events, step1.getEvents());
+        assertEquals(RETRY, step1.getState());
+        assertEquals(TimerStarted, step1.getCurrentEvent().getType());
+
+        workflow.replaceEvents(events);
+        assertEquals(SUCCESS, step1.getState());
+        assertEquals(step1Events, step1.getEvents());
+    }
 }
@@ -0,0 +1,122 @@
+package com.clario.swift.examples;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static java.lang.String.format;
+
+/**
+ * Thread-safe histogram of latencies in microseconds, recorded without allocation or locking so pollers can
+ * record from many threads.
+ * <p/>
+ * Values are counted in buckets of eight linear steps per power of two, so percentiles are reported
+ * to within 12.5% of the recorded value.
+ *
+ * @author George Coller
+ */
+public class LatencyHistogram {
+    static final int SUB_BUCKET_BITS = 3;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Record a latency, negative values are recorded as zero.
+     */
+    public void recordNanos(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        counts.incrementAndGet(index(micros));
+        count.incrementAndGet();
+        totalMicros.addAndGet(micros);
+        maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    /**
+     * @return number of recorded latencies
+     */
+    public long getCount() { return count.get(); }
+
+    /**
+     * @return mean latency in microseconds, zero if nothing was recorded
+     */
+    public long getMeanMicros() {
+        long n = count.get();
+        return n == 0 ? 0 : totalMicros.get() / n;
+    }
+
+    /**
+     * @return maximum latency in microseconds
+     */
+    public long getMaxMicros() { return maxMicros.get(); }
+
+    /**
+     * @param percentile between 0 and 100
+     *
+     * @return upper bound of the bucket holding the latency at the given percentile in microseconds,
+     * zero if nothing was recorded
+     */
+    public long getLatencyMicros(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("parameter percentile must be between 0 and 100");
+        }
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), getMaxMicros());
+            }
+        }
+        return getMaxMicros();
+    }
+
+    /**
+     * @return one line per non-empty bucket with its range in microseconds, count and cumulative percentage
+     */
+    public String toHistogramString() {
+        StringBuilder builder = new StringBuilder();
+        long n = count.get();
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long bucketCount = counts.get(i);
+            if (bucketCount > 0) {
+                seen += bucketCount;
+                builder.append(format("%10d - %-10d %10d %7.3f%%%n", lowerBound(i), upperBound(i), bucketCount, 100.0 * seen / n));
+            }
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return format("count=%d latencyMicros[mean=%d p50=%d p90=%d p99=%d p99.9=%d max=%d]", getCount(), getMeanMicros(),
+            getLatencyMicros(50), getLatencyMicros(90), getLatencyMicros(99), getLatencyMicros(99.9), getMaxMicros());
+    }
+
+    static int index(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long lowerBound(int index) {
+        int bucket = index / SUB_BUCKETS;
+        long subBucket = index % SUB_BUCKETS;
+        return bucket == 0 ? subBucket : (SUB_BUCKETS + subBucket) << (bucket - 1);
+    }
+
+    static long upperBound(int index) {
+        return index == BUCKET_COUNT - 1 ? Long.MAX_VALUE : lowerBound(index + 1) - 1;
+    }
+}
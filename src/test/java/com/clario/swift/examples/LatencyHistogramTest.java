@@ -0,0 +1,44 @@
+package com.clario.swift.examples;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import static com.clario.swift.examples.LatencyHistogram.index;
+import static com.clario.swift.examples.LatencyHistogram.lowerBound;
+import static com.clario.swift.examples.LatencyHistogram.upperBound;
+
+/**
+ * @author George Coller
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBuckets() {
+        for (long micros : new long[]{0, 1, 7, 8, 15, 16, 17, 1000, 123456789, Long.MAX_VALUE / 1000, Long.MAX_VALUE}) {
+            int index = index(micros);
+            Assert.assertTrue(micros + " above lower bound", lowerBound(index) <= micros);
+            Assert.assertTrue(micros + " below upper bound", micros <= upperBound(index));
+            Assert.assertTrue(micros + " within 12.5%", upperBound(index) - lowerBound(index) <= Math.max(0, micros / 8));
+        }
+        for (int index = 0; index < index(Long.MAX_VALUE); index++) {
+            Assert.assertEquals(lowerBound(index + 1), upperBound(index) + 1);
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.getLatencyMicros(99));
+        for (int micros = 1; micros <= 1000; micros++) {
+            histogram.recordNanos(micros * 1000L);
+        }
+        Assert.assertEquals(1000, histogram.getCount());
+        Assert.assertEquals(500, histogram.getMeanMicros());
+        Assert.assertEquals(1000, histogram.getMaxMicros());
+        Assert.assertEquals(1, histogram.getLatencyMicros(0));
+        Assert.assertEquals(511, histogram.getLatencyMicros(50));
+        Assert.assertEquals(1000, histogram.getLatencyMicros(99));
+        Assert.assertEquals(1000, histogram.getLatencyMicros(100));
+        Assert.assertTrue(histogram.toHistogramString().endsWith(String.format("100.000%%%n")));
+    }
+}
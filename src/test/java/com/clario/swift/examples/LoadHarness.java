@@ -0,0 +1,336 @@
+package com.clario.swift.examples;
+
+import com.amazonaws.services.simpleworkflow.model.CountClosedWorkflowExecutionsRequest;
+import com.amazonaws.services.simpleworkflow.model.CountOpenWorkflowExecutionsRequest;
+import com.amazonaws.services.simpleworkflow.model.TerminateWorkflowExecutionRequest;
+import com.amazonaws.services.simpleworkflow.model.UnknownResourceException;
+import com.clario.swift.ActivityContext;
+import com.clario.swift.ActivityMethod;
+import com.clario.swift.ActivityPoller;
+import com.clario.swift.DecisionPoller;
+import com.clario.swift.LocalSwf;
+import com.clario.swift.PollerGroup;
+import com.clario.swift.Workflow;
+import com.clario.swift.WorkflowHistoryCache;
+import com.clario.swift.examples.workflows.CronWorkflow;
+import com.clario.swift.examples.workflows.RetryActivityWorkflow;
+import com.clario.swift.examples.workflows.SimpleWorkflow;
+import com.clario.swift.examples.workflows.SplitJoinWorkflow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.Integer.parseInt;
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Load test the poller runtime: start the example workflows at a fixed arrival rate against a {@link LocalSwf},
+ * decide and run them with a {@link DecisionPoller} and an {@link ActivityPoller} on pools of threads, and report
+ * throughput, task latency histograms, garbage collection and allocation in a {@link LoadReport}.
+ * <p/>
+ * Runs of {@link SimpleWorkflow}, {@link SplitJoinWorkflow}, {@link CronWorkflow} and {@link RetryActivityWorkflow}
+ * are started in turn.  To keep runs short, timers and retry intervals fire in milliseconds rather than seconds and
+ * activities are replaced by {@link LoadActivities}, which return at once or after {@link #withActivityTime}.
+ * {@link CronWorkflow} runs keep repeating their activity and continue as new every minute, adding runs with long
+ * histories to the load, so are not waited for when draining and are terminated at the end.
+ * <p/>
+ * A decision task left by a poller that stopped times out after the workflow's task start-to-close timeout in seconds,
+ * one minute by default, and is handed out again as on SWF.  Activity tasks only time out if given a start-to-close
+ * timeout, otherwise a run whose activity task was lost stays open through the drain timeout and is reported as open.
+ * <p/>
+ * Usage: <code>LoadHarness [arrivalRate [seconds [decisionPollers [activityPollers]]]]</code>, defaults are
+ * 10 workflow runs per second for 60 seconds on 2 decision and 2 activity poller threads.
+ * The example workflows log every decision, so run with <code>-Dorg.slf4j.simpleLogger.defaultLogLevel=warn</code>
+ * to measure SWiFt rather than logging.
+ *
+ * @author George Coller
+ * @see LoadReport
+ */
+public class LoadHarness {
+    private static final Logger log = LoggerFactory.getLogger(LoadHarness.class);
+    static final String DOMAIN = "load";
+    static final String TASK_LIST = "load";
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final List<String> cronWorkflowIds = new CopyOnWriteArrayList<>();
+    private double arrivalRate = 10;
+    private long durationNanos = SECONDS.toNanos(60);
+    private long drainTimeoutNanos = SECONDS.toNanos(60);
+    private int decisionPollers = 2;
+    private int activityPollers = 2;
+    private long activityNanos;
+    private double activityFailureRate = 0.5;
+    private boolean historyCache;
+
+    public static void main(String[] args) throws InterruptedException {
+        LoadHarness harness = new LoadHarness();
+        if (args.length > 0) {
+            harness.withArrivalRate(Double.parseDouble(args[0]));
+        }
+        if (args.length > 1) {
+            harness.withDuration(SECONDS, parseInt(args[1]));
+        }
+        if (args.length > 2) {
+            harness.withDecisionPollers(parseInt(args[2]));
+        }
+        if (args.length > 3) {
+            harness.withActivityPollers(parseInt(args[3]));
+        }
+        LoadReport report = harness.run();
+        log.info("{}", report);
+        log.info("decision scheduleToStart microseconds:\n{}", report.getDecisionScheduleToStart().toHistogramString());
+        log.info("decision startToClose microseconds:\n{}", report.getDecisionStartToClose().toHistogramString());
+        log.info("activity scheduleToStart microseconds:\n{}", report.getActivityScheduleToStart().toHistogramString());
+        log.info("activity startToClose microseconds:\n{}", report.getActivityStartToClose().toHistogramString());
+    }
+
+    /**
+     * Workflow runs started per second, default is 10.
+     */
+    public LoadHarness withArrivalRate(double arrivalRate) {
+        if (arrivalRate <= 0) { throw new IllegalArgumentException("parameter arrivalRate must be greater than zero"); }
+        this.arrivalRate = arrivalRate;
+        return this;
+    }
+
+    /**
+     * How long to keep starting workflow runs, default is 60 seconds.
+     */
+    public LoadHarness withDuration(TimeUnit unit, long duration) {
+        if (duration < 1) { throw new IllegalArgumentException("parameter duration must be greater than zero"); }
+        durationNanos = unit.toNanos(duration);
+        return this;
+    }
+
+    /**
+     * Maximum time to wait for started runs to close once no more are started, default is 60 seconds.
+     */
+    public LoadHarness withDrainTimeout(TimeUnit unit, long duration) {
+        if (duration < 0) { throw new IllegalArgumentException("parameter duration must not be negative"); }
+        drainTimeoutNanos = unit.toNanos(duration);
+        return this;
+    }
+
+    /**
+     * Number of decision poller threads, default is 2.
+     */
+    public LoadHarness withDecisionPollers(int decisionPollers) {
+        if (decisionPollers < 1) { throw new IllegalArgumentException("parameter decisionPollers must be greater than zero"); }
+        this.decisionPollers = decisionPollers;
+        return this;
+    }
+
+    /**
+     * Number of activity poller threads, default is 2.
+     */
+    public LoadHarness withActivityPollers(int activityPollers) {
+        if (activityPollers < 1) { throw new IllegalArgumentException("parameter activityPollers must be greater than zero"); }
+        this.activityPollers = activityPollers;
+        return this;
+    }
+
+    /**
+     * Time each activity sleeps to simulate work, default is none.
+     */
+    public LoadHarness withActivityTime(TimeUnit unit, long duration) {
+        if (duration < 0) { throw new IllegalArgumentException("parameter duration must not be negative"); }
+        activityNanos = unit.toNanos(duration);
+        return this;
+    }
+
+    /**
+     * Chance the activity of {@link RetryActivityWorkflow} fails and is retried, default is 0.5.
+     */
+    public LoadHarness withActivityFailureRate(double activityFailureRate) {
+        if (activityFailureRate < 0 || activityFailureRate >= 1) {
+            throw new IllegalArgumentException("parameter activityFailureRate must be at least zero and less than one");
+        }
+        this.activityFailureRate = activityFailureRate;
+        return this;
+    }
+
+    /**
+     * Decide with a {@link WorkflowHistoryCache} so decision pollers only read new events of each history.
+     */
+    public LoadHarness withHistoryCache() {
+        historyCache = true;
+        return this;
+    }
+
+    /**
+     * Start workflow runs for the configured duration, then wait for them to close up to the drain timeout.
+     */
+    public LoadReport run() throws InterruptedException {
+        sequence.set(0);
+        cronWorkflowIds.clear();
+        LoadReport report = new LoadReport(arrivalRate);
+        LocalSwf swf = new LocalSwf()
+            .withPollTimeout(SECONDS, 1)
+            .withTimerUnit(MILLISECONDS)
+            .withMaximumClosedExecutions(0)
+            .withTaskListener(report::taskClosed);
+
+        DecisionPoller decisionPoller = new DecisionPoller("load decision poller", DOMAIN, TASK_LIST, null);
+        decisionPoller.setSwf(swf);
+        if (historyCache) {
+            decisionPoller.setHistoryCache(new WorkflowHistoryCache(10000, 1, TimeUnit.HOURS));
+        }
+        decisionPoller.addWorkflows(SimpleWorkflow::new);
+        decisionPoller.addWorkflows(SplitJoinWorkflow::new);
+        decisionPoller.addWorkflows(CronWorkflow::new);
+        decisionPoller.addWorkflows(RetryActivityWorkflow::new);
+
+        ActivityPoller activityPoller = new ActivityPoller("load activity poller", DOMAIN, TASK_LIST);
+        activityPoller.setSwf(swf);
+        activityPoller.addActivities(new LoadActivities(activityNanos, activityFailureRate));
+
+        PollerGroup group = new PollerGroup("load pollers");
+        group.add(decisionPoller, decisionPollers);
+        group.add(activityPoller, activityPollers);
+        group.start();
+
+        ScheduledExecutorService arrivals = Executors.newSingleThreadScheduledExecutor();
+        try {
+            log.info(format("start: arrivalRate=%.1f/s seconds=%d decisionPollers=%d activityPollers=%d",
+                arrivalRate, NANOSECONDS.toSeconds(durationNanos), decisionPollers, activityPollers));
+            report.start();
+            arrivals.scheduleAtFixedRate(() -> startWorkflow(swf), 0, Math.max(1, (long) (SECONDS.toNanos(1) / arrivalRate)), NANOSECONDS);
+            NANOSECONDS.sleep(durationNanos);
+            arrivals.shutdown();
+            arrivals.awaitTermination(1, SECONDS);
+
+            long drainDeadline = System.nanoTime() + drainTimeoutNanos;
+            while (countOpen(swf) > cronWorkflowIds.size() && System.nanoTime() < drainDeadline) {
+                MILLISECONDS.sleep(10);
+            }
+            report.finish();
+            report.workflowsStarted = sequence.get();
+            report.workflowsClosed = swf.countClosedWorkflowExecutions(new CountClosedWorkflowExecutionsRequest().withDomain(DOMAIN)).getCount();
+            report.workflowsOpen = countOpen(swf) - cronWorkflowIds.size();
+        } finally {
+            arrivals.shutdownNow();
+            for (String workflowId : cronWorkflowIds) {
+                try {
+                    swf.terminateWorkflowExecution(new TerminateWorkflowExecutionRequest().withDomain(DOMAIN).withWorkflowId(workflowId));
+                } catch (UnknownResourceException ignored) {
+                    // closed by a failure
+                }
+            }
+            group.stop();
+            swf.shutdown();
+            group.awaitTermination(10, SECONDS);
+        }
+        return report;
+    }
+
+    private void startWorkflow(LocalSwf swf) {
+        long i = sequence.incrementAndGet();
+        Workflow workflow;
+        String input;
+        switch ((int) (i % 4)) {
+            case 0:
+                workflow = new SimpleWorkflow();
+                input = "100";
+                break;
+            case 1:
+                workflow = new SplitJoinWorkflow();
+                input = "";
+                break;
+            case 2:
+                workflow = new CronWorkflow();
+                input = "0";
+                break;
+            default:
+                // Zero seconds to fail until, LoadActivities fails the activity at random instead
+                workflow = new RetryActivityWorkflow();
+                input = "0";
+        }
+        String workflowId = "load-" + i;
+        try {
+            swf.startWorkflowExecution(workflow.withDomain(DOMAIN).withTaskList(TASK_LIST)
+                .createWorkflowExecutionRequest(workflowId, input));
+            if (workflow instanceof CronWorkflow) {
+                cronWorkflowIds.add(workflowId);
+            }
+        } catch (RuntimeException e) {
+            log.error("Unable to start workflow " + workflowId, e);
+        }
+    }
+
+    private static int countOpen(LocalSwf swf) {
+        return swf.countOpenWorkflowExecutions(new CountOpenWorkflowExecutionsRequest().withDomain(DOMAIN)).getCount();
+    }
+
+    /**
+     * Stand-ins for {@link ActivityMethods} used by the load tested workflows, with the same names and results
+     * but a configurable amount of work instead of multi-second pauses.
+     */
+    public static class LoadActivities {
+        private final long activityNanos;
+        private final double failureRate;
+
+        public LoadActivities(long activityNanos, double failureRate) {
+            this.activityNanos = activityNanos;
+            this.failureRate = failureRate;
+        }
+
+        @ActivityMethod(name = "Activity Fail Until", version = "1.0")
+        public void failUntilTime(ActivityContext context) {
+            work();
+            if (ThreadLocalRandom.current().nextDouble() < failureRate) {
+                throw new IllegalStateException("Simulated failure");
+            }
+        }
+
+        @ActivityMethod(name = "Activity Echo", version = "1.0")
+        public String activityEcho(ActivityContext context) {
+            work();
+            return context.getInput();
+        }
+
+        @ActivityMethod(name = "Activity Echo With Pause", version = "1.0")
+        public String activityPause(ActivityContext context) {
+            work();
+            return context.getInput();
+        }
+
+        @ActivityMethod(name = "Activity X", version = "1.0")
+        public Integer activityX(ActivityContext context) {
+            work();
+            return parseInt(context.getInput()) + 1;
+        }
+
+        @ActivityMethod(name = "Activity Y", version = "1.0")
+        public Integer activityY(ActivityContext context) {
+            work();
+            return parseInt(context.getInput()) + 100;
+        }
+
+        @ActivityMethod(name = "Activity Z", version = "1.0")
+        public Integer activityZ(ActivityContext context) {
+            work();
+            context.recordHeartbeat("load");
+            return parseInt(context.getInput()) + 1000;
+        }
+
+        private void work() {
+            if (activityNanos > 0) {
+                try {
+                    NANOSECONDS.sleep(activityNanos);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException("Interrupted", e);
+                }
+            }
+        }
+    }
+}
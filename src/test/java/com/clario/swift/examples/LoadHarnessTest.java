@@ -0,0 +1,34 @@
+package com.clario.swift.examples;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * @author George Coller
+ */
+public class LoadHarnessTest {
+
+    @Test
+    public void testRun() throws Exception {
+        LoadReport report = new LoadHarness()
+            .withArrivalRate(40)
+            .withDuration(MILLISECONDS, 500)
+            .withDrainTimeout(SECONDS, 30)
+            .withHistoryCache()
+            .run();
+
+        Assert.assertTrue(report.getWorkflowsStarted() >= 4);
+        Assert.assertEquals(0, report.getWorkflowsOpen());
+        // Every run but the cron runs closed
+        Assert.assertTrue(report.getWorkflowsClosed() >= report.getWorkflowsStarted() - (report.getWorkflowsStarted() + 1) / 4);
+        Assert.assertEquals(report.getDecisionTaskCount(), report.getDecisionScheduleToStart().getCount());
+        Assert.assertEquals(report.getDecisionTaskCount(), report.getDecisionStartToClose().getCount());
+        Assert.assertEquals(report.getActivityTaskCount(), report.getActivityStartToClose().getCount());
+        Assert.assertTrue(report.getActivityTaskCount() >= report.getWorkflowsClosed());
+        Assert.assertTrue(report.getWorkflowsPerSecond() > 0);
+        Assert.assertTrue(report.getElapsedMillis() >= 500);
+    }
+}
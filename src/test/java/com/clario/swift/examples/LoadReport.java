@@ -0,0 +1,204 @@
+package com.clario.swift.examples;
+
+import com.clario.swift.TaskType;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+
+/**
+ * Results of a {@link LoadHarness} run: workflow, decision and activity task throughput, task latency histograms
+ * and garbage collection and allocation over the run.
+ * <p/>
+ * Task latency is split into schedule to start, the time a task waited in its task list for a poller, and
+ * start to close, the time a poller took to decide or run the task and respond.  A schedule to start latency that keeps
+ * growing over a run means there are too few pollers for the arrival rate.
+ *
+ * @author George Coller
+ */
+public class LoadReport {
+    private final double arrivalRate;
+    private final LatencyHistogram decisionScheduleToStart = new LatencyHistogram();
+    private final LatencyHistogram decisionStartToClose = new LatencyHistogram();
+    private final LatencyHistogram activityScheduleToStart = new LatencyHistogram();
+    private final LatencyHistogram activityStartToClose = new LatencyHistogram();
+    private long startNanos;
+    private long elapsedNanos;
+    private long startGcCount;
+    private long startGcMillis;
+    private Map<Long, Long> startThreadBytes;
+    private long gcCount;
+    private long gcMillis;
+    private long allocatedBytes;
+    long workflowsStarted;
+    long workflowsClosed;
+    long workflowsOpen;
+    private volatile boolean finished;
+
+    LoadReport(double arrivalRate) {
+        this.arrivalRate = arrivalRate;
+    }
+
+    void taskClosed(TaskType type, long scheduleToStartNanos, long startToCloseNanos) {
+        if (finished) {
+            return;
+        }
+        if (type == TaskType.DECISION) {
+            decisionScheduleToStart.recordNanos(scheduleToStartNanos);
+            decisionStartToClose.recordNanos(startToCloseNanos);
+        } else {
+            activityScheduleToStart.recordNanos(scheduleToStartNanos);
+            activityStartToClose.recordNanos(startToCloseNanos);
+        }
+    }
+
+    void start() {
+        startGcCount = gcCount();
+        startGcMillis = gcMillis();
+        startThreadBytes = threadAllocatedBytes();
+        startNanos = System.nanoTime();
+    }
+
+    void finish() {
+        finished = true;
+        elapsedNanos = System.nanoTime() - startNanos;
+        gcCount = gcCount() - startGcCount;
+        gcMillis = gcMillis() - startGcMillis;
+        Map<Long, Long> threadBytes = threadAllocatedBytes();
+        allocatedBytes = threadBytes == null ? -1 : 0;
+        if (threadBytes != null) {
+            for (Map.Entry<Long, Long> entry : threadBytes.entrySet()) {
+                allocatedBytes += entry.getValue() - startThreadBytes.getOrDefault(entry.getKey(), 0L);
+            }
+        }
+    }
+
+    /**
+     * @return workflow runs started per second
+     */
+    public double getArrivalRate() { return arrivalRate; }
+
+    /**
+     * @return time from the first workflow start until all runs closed or the drain timeout passed
+     */
+    public long getElapsedMillis() { return TimeUnit.NANOSECONDS.toMillis(elapsedNanos); }
+
+    public long getWorkflowsStarted() { return workflowsStarted; }
+
+    /**
+     * @return workflow runs closed, including runs continued as new
+     */
+    public long getWorkflowsClosed() { return workflowsClosed; }
+
+    /**
+     * @return workflow runs still open at the end of the run, more than zero when the pollers could not keep up
+     */
+    public long getWorkflowsOpen() { return workflowsOpen; }
+
+    /**
+     * @return decision tasks completed during the run
+     */
+    public long getDecisionTaskCount() { return decisionStartToClose.getCount(); }
+
+    /**
+     * @return activity tasks completed, failed or canceled during the run
+     */
+    public long getActivityTaskCount() { return activityStartToClose.getCount(); }
+
+    public double getWorkflowsPerSecond() { return perSecond(workflowsClosed); }
+
+    public double getDecisionTasksPerSecond() { return perSecond(getDecisionTaskCount()); }
+
+    public double getActivityTasksPerSecond() { return perSecond(getActivityTaskCount()); }
+
+    public LatencyHistogram getDecisionScheduleToStart() { return decisionScheduleToStart; }
+
+    public LatencyHistogram getDecisionStartToClose() { return decisionStartToClose; }
+
+    public LatencyHistogram getActivityScheduleToStart() { return activityScheduleToStart; }
+
+    public LatencyHistogram getActivityStartToClose() { return activityStartToClose; }
+
+    /**
+     * @return garbage collections during the run
+     */
+    public long getGcCount() { return gcCount; }
+
+    /**
+     * @return total time of garbage collections during the run
+     */
+    public long getGcMillis() { return gcMillis; }
+
+    /**
+     * @return bytes allocated during the run by threads still running at its end, which include the pollers,
+     * or -1 if the JVM does not measure thread allocation
+     */
+    public long getAllocatedBytes() { return allocatedBytes; }
+
+    /**
+     * @return allocation rate in megabytes per second, or -1 if the JVM does not measure thread allocation
+     */
+    public double getAllocationRate() { return allocatedBytes < 0 ? -1 : perSecond(allocatedBytes) / (1024 * 1024); }
+
+    private double perSecond(long count) {
+        return elapsedNanos == 0 ? 0 : count * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return format("LoadReport arrivalRate=%.1f/s elapsed=%dms workflows[started=%d closed=%d open=%d %.1f/s] "
+                + "decisionTasks[%d %.1f/s] activityTasks[%d %.1f/s] gc[count=%d time=%dms] allocation=%.1fMB/s%n"
+                + "  decision scheduleToStart %s%n"
+                + "  decision startToClose    %s%n"
+                + "  activity scheduleToStart %s%n"
+                + "  activity startToClose    %s",
+            arrivalRate, getElapsedMillis(), workflowsStarted, workflowsClosed, workflowsOpen, getWorkflowsPerSecond(),
+            getDecisionTaskCount(), getDecisionTasksPerSecond(), getActivityTaskCount(), getActivityTasksPerSecond(),
+            gcCount, gcMillis, getAllocationRate(),
+            decisionScheduleToStart, decisionStartToClose, activityScheduleToStart, activityStartToClose);
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return millis;
+    }
+
+    /**
+     * @return bytes allocated so far by each live thread by thread id, or null if the JVM does not measure thread allocation
+     */
+    private static Map<Long, Long> threadAllocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean allocation = (com.sun.management.ThreadMXBean) threads;
+        if (!allocation.isThreadAllocatedMemorySupported() || !allocation.isThreadAllocatedMemoryEnabled()) {
+            return null;
+        }
+        long[] ids = allocation.getAllThreadIds();
+        long[] bytes = allocation.getThreadAllocatedBytes(ids);
+        Map<Long, Long> threadBytes = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            if (bytes[i] >= 0) {
+                threadBytes.put(ids[i], bytes[i]);
+            }
+        }
+        return threadBytes;
+    }
+}